@@ -39,6 +39,10 @@ public class HuggingFaceEmbedder extends TypedComponent implements HuggingFaceEm
 
     private String prependDocument;
 
+    private Integer batchingMaxSize;
+
+    private Double batchingMaxDelayMillis;
+
     public HuggingFaceEmbedder(ApplicationContainerCluster cluster, Element xml, DeployState state) {
         super("ai.vespa.embedding.huggingface.HuggingFaceEmbedder", INTEGRATION_BUNDLE_NAME, xml);
         var model = Model.fromXml(state, xml, "transformer-model", Set.of(ONNX_MODEL)).orElseThrow();
@@ -61,6 +65,13 @@ public class HuggingFaceEmbedder extends TypedComponent implements HuggingFaceEm
             prependQuery = getChildValue(prepend, "query").orElse(null);
             prependDocument = getChildValue(prepend, "document").orElse(null);
         }
+        Element batching = getChild(xml, "batching");
+        if (batching != null) {
+            if (batching.hasAttribute("max-size"))
+                batchingMaxSize = Integer.parseInt(batching.getAttribute("max-size"));
+            if (batching.hasAttribute("max-delay-millis"))
+                batchingMaxDelayMillis = Double.parseDouble(batching.getAttribute("max-delay-millis"));
+        }
 
         model.registerOnnxModelCost(cluster, onnxModelOptions);
     }
@@ -77,6 +88,8 @@ public class HuggingFaceEmbedder extends TypedComponent implements HuggingFaceEm
         if (poolingStrategy != null) b.poolingStrategy(PoolingStrategy.Enum.valueOf(poolingStrategy));
         if(prependQuery != null) b.prependQuery(prependQuery);
         if(prependDocument != null) b.prependDocument(prependDocument);
+        if (batchingMaxSize != null) b.batchingMaxSize(batchingMaxSize);
+        if (batchingMaxDelayMillis != null) b.batchingMaxDelayMillis(batchingMaxDelayMillis);
         onnxModelOptions.executionMode().ifPresent(value -> b.transformerExecutionMode(TransformerExecutionMode.Enum.valueOf(value)));
         onnxModelOptions.interOpThreads().ifPresent(b::transformerInterOpThreads);
         onnxModelOptions.intraOpThreads().ifPresent(b::transformerIntraOpThreads);
@@ -90,6 +90,8 @@ public class EmbedderTestCase {
         assertEquals(-1, tokenizerCfg.maxLength());
         assertEquals("Represent this sentence for searching relevant passages:", embedderCfg.prependQuery());
         assertEquals("passage:", embedderCfg.prependDocument());
+        assertEquals(16, embedderCfg.batchingMaxSize());
+        assertEquals(2.5, embedderCfg.batchingMaxDelayMillis(), 1e-9);
     }
 
     @Test
@@ -0,0 +1,57 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.core.documentapi;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.messagebus.MessageBus;
+import com.yahoo.messagebus.Messenger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically reports the queue size and task latency of each messenger thread of a message bus.
+ */
+class MessengerMetrics {
+
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("mbus-messenger-metric-reporter-"));
+    private final Metric metric;
+    private final MessageBus bus;
+
+    MessengerMetrics(Metric metric, MessageBus bus) {
+        this.metric = metric;
+        this.bus = bus;
+    }
+
+    void start() {
+        executor.scheduleAtFixedRate(this::report, 10, 10, TimeUnit.SECONDS);
+    }
+
+    void shutdown() {
+        try {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void report() {
+        List<Messenger.Statistics> statistics = bus.messengerStatistics();
+        for (int i = 0; i < statistics.size(); i++) {
+            Messenger.Statistics thread = statistics.get(i);
+            Metric.Context context = metric.createContext(Map.of("thread", Integer.toString(i)));
+            metric.set(ContainerMetrics.MBUS_MESSENGER_QUEUE_SIZE.baseName(), thread.queueSize(), context);
+            if (thread.tasks() > 0) {
+                metric.set(ContainerMetrics.MBUS_MESSENGER_TASK_LATENCY.baseName(), thread.totalLatencyNanos() * 1e-6 / thread.tasks(), context);
+                metric.set(ContainerMetrics.MBUS_MESSENGER_TASK_MAX_LATENCY.baseName(), thread.maxLatencyNanos() * 1e-6, context);
+            }
+        }
+    }
+
+}
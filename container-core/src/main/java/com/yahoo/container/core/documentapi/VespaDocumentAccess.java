@@ -17,6 +17,7 @@ import com.yahoo.documentapi.VisitorParameters;
 import com.yahoo.documentapi.VisitorSession;
 import com.yahoo.documentapi.messagebus.MessageBusDocumentAccess;
 import com.yahoo.documentapi.messagebus.MessageBusParams;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.messagebus.MessagebusConfig;
 import com.yahoo.yolean.concurrent.Memoized;
 
@@ -37,13 +38,25 @@ public class VespaDocumentAccess extends DocumentAccess {
 
     private final Memoized<DocumentAccess, RuntimeException> delegate;
 
-    VespaDocumentAccess(DocumentmanagerConfig documentmanagerConfig, String slobroksConfigId, MessagebusConfig messagebusConfig) {
+    private MessengerMetrics messengerMetrics;
+
+    VespaDocumentAccess(DocumentmanagerConfig documentmanagerConfig, String slobroksConfigId, MessagebusConfig messagebusConfig, Metric metric) {
         super(new DocumentAccessParams().setDocumentmanagerConfig(documentmanagerConfig));
         this.parameters = new MessageBusParams();
         this.parameters.setDocumentmanagerConfig(documentmanagerConfig);
         this.parameters.getRPCNetworkParams().setSlobrokConfigId(slobroksConfigId);
-        this.parameters.getMessageBusParams().setMessageBusConfig(messagebusConfig);
-        this.delegate = new Memoized<>(() -> new MessageBusDocumentAccess(parameters), DocumentAccess::shutdown);
+        this.parameters.getMessageBusParams().setMessageBusConfig(messagebusConfig)
+                       .setMessengerThreads(messagebusConfig.messenger_threads());
+        this.delegate = new Memoized<>(() -> {
+                                           MessageBusDocumentAccess access = new MessageBusDocumentAccess(parameters);
+                                           messengerMetrics = new MessengerMetrics(metric, access.getMessageBus());
+                                           messengerMetrics.start();
+                                           return access;
+                                       },
+                                       access -> {
+                                           messengerMetrics.shutdown();
+                                           access.shutdown();
+                                       });
     }
 
     public DocumentAccess delegate() {
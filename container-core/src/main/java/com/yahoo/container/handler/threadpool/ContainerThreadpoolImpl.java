@@ -45,9 +45,27 @@ public class ContainerThreadpoolImpl extends AbstractComponent implements AutoCl
         int maxThreads = maxThreads(config, cpus);
         int minThreads = minThreads(config, maxThreads, cpus);
         int queueSize = queueSize(config, maxThreads);
-        log.info(String.format("Threadpool '%s': min=%d, max=%d, queue=%d", name, minThreads, maxThreads, queueSize));
-
         ThreadPoolMetric threadPoolMetric = new ThreadPoolMetric(metric, name);
+        MeasuredExecutorService executor;
+        if (config.virtualThreads()) {
+            log.info(String.format("Threadpool '%s': virtual threads, max concurrency=%d, queue=%d", name, maxThreads, queueSize));
+            executor = new VirtualThreadExecutor(maxThreads, queueSize, VirtualThreadExecutor.threadFactory(name), threadPoolMetric);
+        }
+        else {
+            log.info(String.format("Threadpool '%s': min=%d, max=%d, queue=%d", name, minThreads, maxThreads, queueSize));
+            executor = createPlatformThreadExecutor(config, name, minThreads, maxThreads, queueSize, threadPoolMetric);
+        }
+        threadpool = new ExecutorServiceWrapper(
+                executor, threadPoolMetric, processTerminator, config.maxThreadExecutionTimeSeconds() * 1000L,
+                name);
+    }
+
+    private static WorkerCompletionTimingThreadPoolExecutor createPlatformThreadExecutor(ContainerThreadpoolConfig config,
+                                                                                         String name,
+                                                                                         int minThreads,
+                                                                                         int maxThreads,
+                                                                                         int queueSize,
+                                                                                         ThreadPoolMetric threadPoolMetric) {
         WorkerCompletionTimingThreadPoolExecutor executor =
                 new WorkerCompletionTimingThreadPoolExecutor(minThreads, maxThreads,
                         (long) config.keepAliveTime() * 1000, TimeUnit.MILLISECONDS,
@@ -58,9 +76,7 @@ public class ContainerThreadpoolImpl extends AbstractComponent implements AutoCl
         // get the dreaded thread locals initialized even if they will never run.
         // That counters what we want to achieve with the Q that will prefer thread locality.
         executor.prestartAllCoreThreads();
-        threadpool = new ExecutorServiceWrapper(
-                executor, threadPoolMetric, processTerminator, config.maxThreadExecutionTimeSeconds() * 1000L,
-                name);
+        return executor;
     }
 
     @Override public Executor executor() { return threadpool; }
@@ -0,0 +1,29 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.handler.threadpool;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An executor service exposing the values reported as thread pool metrics.
+ */
+interface MeasuredExecutorService extends ExecutorService {
+
+    /** Returns the current number of threads */
+    int getPoolSize();
+
+    /** Returns the max number of tasks which may run at once */
+    int getMaximumPoolSize();
+
+    /** Returns the number of tasks currently running */
+    int getActiveCount();
+
+    /** Returns the number of tasks waiting to run */
+    int queueSize();
+
+    /** Returns the max number of tasks which may wait to run */
+    int queueCapacity();
+
+    /** Returns the last time a task was assigned a thread, in milliseconds since epoch */
+    long lastThreadAssignmentTimeMillis();
+
+}
@@ -0,0 +1,200 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.handler.threadpool;
+
+import com.yahoo.concurrent.ThreadFactoryFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An executor which runs each task in a new virtual thread, and limits the number of concurrently running tasks
+ * with a semaphore rather than with the number of threads. Tasks submitted when the limit is reached wait in a
+ * bounded queue, and are rejected when that is full, as with the platform thread pool.
+ * <p>
+ * Blocking in a virtual thread does not tie up a platform thread, so the limit can be set much higher than the
+ * size of a platform thread pool, without the memory cost of that many platform threads.
+ * <p>
+ * When the JVM does not support virtual threads, new platform threads are used instead, with the same limit.
+ */
+class VirtualThreadExecutor extends AbstractExecutorService implements MeasuredExecutorService {
+
+    private static final Logger log = Logger.getLogger(VirtualThreadExecutor.class.getName());
+
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final Semaphore permits;
+    private final BlockingQueue<Runnable> queue;
+    private final ThreadFactory threadFactory;
+    private final ThreadPoolMetric metric;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeCount = new AtomicInteger(0);
+    private final AtomicLong lastThreadAssignmentTimeMillis = new AtomicLong(System.currentTimeMillis());
+    private final Object terminationMonitor = new Object();
+    private volatile boolean shutdown = false;
+
+    VirtualThreadExecutor(int maxConcurrency, int queueCapacity, ThreadFactory threadFactory, ThreadPoolMetric metric) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("Max concurrency must be positive, but was " + maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.permits = new Semaphore(maxConcurrency);
+        this.queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : null;
+        this.threadFactory = threadFactory;
+        this.metric = metric;
+    }
+
+    /** Returns a factory of virtual threads with the given name prefix, or empty if this JVM has no virtual threads */
+    static Optional<ThreadFactory> virtualThreadFactory(String name) {
+        try { // Thread.ofVirtual().name(name + "-", 0).factory(), which requires JDK 21
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            return Optional.of((ThreadFactory) builderClass.getMethod("factory").invoke(builder));
+        }
+        catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Returns a factory of virtual threads if supported by this JVM, and of platform threads otherwise */
+    static ThreadFactory threadFactory(String name) {
+        return virtualThreadFactory(name).orElseGet(() -> {
+            log.warning("Virtual threads are not supported by this JVM, using platform threads for thread pool '" + name + "'");
+            return ThreadFactoryFactory.getThreadFactory(name);
+        });
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) throw new RejectedExecutionException("Executor is shut down");
+        if (permits.tryAcquire()) {
+            start(command);
+            return;
+        }
+        if (queue == null || ! queue.offer(command))
+            throw new RejectedExecutionException("All " + maxConcurrency + " permits are taken, and the queue is full");
+        // A running task may have completed after we failed to acquire, without seeing the queued task
+        if (permits.tryAcquire())
+            start(null);
+    }
+
+    /** Starts a new thread, which holds a permit, running the given task, if any, and then any queued tasks */
+    private void start(Runnable first) {
+        try {
+            threadFactory.newThread(() -> runTasks(first)).start();
+        }
+        catch (RuntimeException | Error e) {
+            permits.release();
+            throw new RejectedExecutionException("Failed to start a new thread", e);
+        }
+    }
+
+    private void runTasks(Runnable first) {
+        threads.add(Thread.currentThread());
+        try {
+            Runnable task = first;
+            while (true) {
+                if (task != null)
+                    run(task);
+                task = queue == null ? null : queue.poll();
+                if (task == null) {
+                    permits.release();
+                    if (queue == null || queue.isEmpty() || ! permits.tryAcquire()) return;
+                }
+            }
+        }
+        finally {
+            threads.remove(Thread.currentThread());
+            if (shutdown) {
+                synchronized (terminationMonitor) {
+                    terminationMonitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        lastThreadAssignmentTimeMillis.set(System.currentTimeMillis());
+        activeCount.incrementAndGet();
+        try {
+            task.run();
+        }
+        catch (RuntimeException | Error e) {
+            metric.reportUnhandledException(e);
+            Thread thread = Thread.currentThread();
+            if (thread.getUncaughtExceptionHandler() != null)
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            else
+                log.log(Level.WARNING, "Uncaught exception in " + thread.getName(), e);
+        }
+        finally {
+            activeCount.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void shutdown() { shutdown = true; }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        List<Runnable> pending = new ArrayList<>();
+        if (queue != null)
+            queue.drainTo(pending);
+        threads.forEach(Thread::interrupt);
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() { return shutdown; }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && threads.isEmpty() && (queue == null || queue.isEmpty()) && permits.availablePermits() == maxConcurrency;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (terminationMonitor) {
+            while ( ! isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return false;
+                TimeUnit.NANOSECONDS.timedWait(terminationMonitor, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(10)));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getPoolSize() { return threads.size(); }
+
+    @Override
+    public int getMaximumPoolSize() { return maxConcurrency; }
+
+    @Override
+    public int getActiveCount() { return activeCount.get(); }
+
+    @Override
+    public int queueSize() { return queue == null ? 0 : queue.size(); }
+
+    @Override
+    public int queueCapacity() { return queueCapacity; }
+
+    @Override
+    public long lastThreadAssignmentTimeMillis() { return lastThreadAssignmentTimeMillis.get(); }
+
+}
@@ -91,6 +91,12 @@ public class Bucket {
         merge(other, otherIsNewer);
     }
 
+    /** Merges the given bucket, which is known to hold data newer than this, into this */
+    void mergeNewer(Bucket other) {
+        resolveTimeStamps(other);
+        merge(other, true);
+    }
+
     private boolean resolveTimeStamps(Bucket other) {
         boolean otherIsNewer = other.fromMillis > this.fromMillis;
         if (! gotTimeStamps) {
@@ -117,10 +123,14 @@ public class Bucket {
     }
 
     private UntypedMetric get(Identifier dim, UntypedMetric other) {
+        return getOrCreate(dim, other.getMetricDefinition());
+    }
+
+    UntypedMetric getOrCreate(Identifier dim, MetricSettings settings) {
         UntypedMetric v = values.get(dim);
 
         if (v == null) {
-            v = new UntypedMetric(other.getMetricDefinition());
+            v = new UntypedMetric(settings);
             values.put(dim, v);
         }
         return v;
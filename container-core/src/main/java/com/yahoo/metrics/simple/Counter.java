@@ -60,6 +60,33 @@ public class Counter {
         metricReceiver.update(new Sample(new Measurement(n), new Identifier(name, p), AssumedType.COUNTER));
     }
 
+    /**
+     * Create a handle for adding to the dimension-less/zero-point value of
+     * this counter.
+     *
+     * @return a handle for adding to this counter at its default position
+     * @see #handle(Point)
+     */
+    public Handle handle() {
+        return handle(defaultPosition);
+    }
+
+    /**
+     * Create a handle for adding to this metric at the given point. The point
+     * is resolved once, when creating the handle, so adding through the handle
+     * allocates nothing and takes no locks. Handles should be created once and
+     * kept, e.g. in a field, for points which are known up front.
+     *
+     * @param p
+     *            the point in the metric space at which the handle adds to this metric
+     * @return a thread-safe handle for adding to this counter at the given point
+     * @throws IllegalArgumentException if this metric name and point is already used by a gauge handle
+     */
+    public Handle handle(Point p) {
+        Identifier identifier = new Identifier(name, p);
+        return new Handle(metricReceiver.handles(), metricReceiver.registerHandle(identifier, AssumedType.COUNTER));
+    }
+
     /**
      * Create a PointBuilder with default dimension values as given when this
      * counter was declared.
@@ -70,4 +97,37 @@ public class Counter {
     public PointBuilder builder() {
         return new PointBuilder(defaultPosition);
     }
+
+    /**
+     * A counter at a given point, see {@link Counter#handle(Point)}.
+     */
+    @Beta
+    public static class Handle {
+
+        private final MetricHandles handles;
+        private final int index;
+
+        Handle(MetricHandles handles, int index) {
+            this.handles = handles;
+            this.index = index;
+        }
+
+        /**
+         * Increase this counter by 1.
+         */
+        public void add() {
+            add(1L);
+        }
+
+        /**
+         * Add to this counter.
+         *
+         * @param n the amount by which to increase this counter
+         */
+        public void add(long n) {
+            handles.add(index, n);
+        }
+
+    }
+
 }
@@ -46,6 +46,33 @@ public class Gauge {
         receiver.update(new Sample(new Measurement(x), new Identifier(name, p), AssumedType.GAUGE));
     }
 
+    /**
+     * Create a handle for recording samples with default or no position.
+     *
+     * @return a handle for sampling this gauge at its default position
+     * @see #handle(Point)
+     */
+    public Handle handle() {
+        return handle(defaultPosition);
+    }
+
+    /**
+     * Create a handle for recording samples at the given position. The
+     * position and any histogram settings are resolved once, when creating the
+     * handle, so sampling through the handle allocates nothing and takes no
+     * locks. Handles should be created once and kept, e.g. in a field, for
+     * positions which are known up front.
+     *
+     * @param p
+     *            position/dimension values for the samples of the handle
+     * @return a thread-safe handle for sampling this gauge at the given position
+     * @throws IllegalArgumentException if this metric name and position is already used by a counter handle
+     */
+    public Handle handle(Point p) {
+        Identifier identifier = new Identifier(name, p);
+        return new Handle(receiver.handles(), receiver.registerHandle(identifier, AssumedType.GAUGE));
+    }
+
     /**
      * Create a PointBuilder with the default dimension values reflecting those
      * given when this gauge was declared.
@@ -55,4 +82,31 @@ public class Gauge {
     public PointBuilder builder() {
         return new PointBuilder(defaultPosition);
     }
+
+    /**
+     * A gauge at a given position, see {@link Gauge#handle(Point)}.
+     */
+    @Beta
+    public static class Handle {
+
+        private final MetricHandles handles;
+        private final int index;
+
+        Handle(MetricHandles handles, int index) {
+            this.handles = handles;
+            this.index = index;
+        }
+
+        /**
+         * Record a sample.
+         *
+         * @param x
+         *            sample value
+         */
+        public void sample(double x) {
+            handles.sample(index, x);
+        }
+
+    }
+
 }
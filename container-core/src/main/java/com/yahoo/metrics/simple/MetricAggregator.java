@@ -1,6 +1,9 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.metrics.simple;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -17,23 +20,32 @@ import com.yahoo.metrics.ManagerConfig;
 class MetricAggregator implements Runnable {
 
     private final ThreadLocalDirectory<Bucket, Sample> metricsCollection;
+    private final MetricHandles handles;
     private final AtomicReference<Bucket> currentSnapshot;
-    private int generation = 0;
-    private final Bucket[] buffer;
+    private final int windowSize;
+    // The buckets of the last windowSize seconds, oldest first. The oldest of these are covered by olderAggregates,
+    // where each entry is the aggregate of the corresponding bucket and all newer ones in that part of the window,
+    // while the rest are covered by newerAggregate. This lets each snapshot be made by merging two aggregates,
+    // while those are rebuilt only once per window, instead of merging all the buckets of the window each second.
+    private final Deque<Bucket> window = new ArrayDeque<>();
+    private final Deque<Bucket> olderAggregates = new ArrayDeque<>();
+    private Bucket newerAggregate = new Bucket();
     private long fromMillis;
     private final DimensionCache dimensions;
 
     MetricAggregator(ThreadLocalDirectory<Bucket, Sample> metricsCollection,
+                     MetricHandles handles,
                      AtomicReference<Bucket> currentSnapshot,
                      ManagerConfig settings) {
         if (settings.reportPeriodSeconds() < 10) {
             throw new IllegalArgumentException("Do not use this metrics implementation" +
                                                " if report periods of less than 10 seconds is desired.");
         }
-        buffer = new Bucket[settings.reportPeriodSeconds()];
+        windowSize = settings.reportPeriodSeconds();
         dimensions = new DimensionCache(settings.pointsToKeepPerMetric());
         fromMillis = System.currentTimeMillis();
         this.metricsCollection = metricsCollection;
+        this.handles = handles;
         this.currentSnapshot = currentSnapshot;
     }
 
@@ -45,10 +57,9 @@ class MetricAggregator implements Runnable {
 
     private void createSnapshot(Bucket toDelete) {
         Bucket toPresent = new Bucket();
-        for (Bucket b : buffer) {
-            if (b == null) continue;
-            toPresent.merge(b);
-        }
+        if ( ! olderAggregates.isEmpty())
+            toPresent.merge(olderAggregates.getFirst());
+        toPresent.mergeNewer(newerAggregate);
         dimensions.updateDimensionPersistence(toDelete, toPresent);
         currentSnapshot.set(toPresent);
     }
@@ -56,15 +67,41 @@ class MetricAggregator implements Runnable {
     private Bucket updateBuffer() {
         List<Bucket> buckets = metricsCollection.fetch();
         long toMillis = System.currentTimeMillis();
-        int bucketIndex = generation++ % buffer.length;
-        Bucket bucketToDelete = buffer[bucketIndex];
         Bucket latest = new Bucket(fromMillis, toMillis);
         for (Bucket b : buckets) {
             latest.merge(b, true);
         }
-        buffer[bucketIndex] = latest;
+        handles.drainInto(latest);
         this.fromMillis = toMillis;
+        return slideWindow(latest);
+    }
+
+    /** Adds the given bucket to the window, and returns the bucket which is no longer in it, if any */
+    private Bucket slideWindow(Bucket latest) {
+        Bucket bucketToDelete = null;
+        if (window.size() == windowSize) {
+            if (olderAggregates.isEmpty())
+                aggregateOlder();
+            olderAggregates.removeFirst();
+            bucketToDelete = window.removeFirst();
+        }
+        window.addLast(latest);
+        newerAggregate.mergeNewer(latest);
         return bucketToDelete;
     }
 
+    /** Moves all buckets of the window from the newer to the older aggregates */
+    private void aggregateOlder() {
+        Bucket newer = null;
+        for (Iterator<Bucket> buckets = window.descendingIterator(); buckets.hasNext(); ) {
+            Bucket aggregate = new Bucket();
+            aggregate.merge(buckets.next());
+            if (newer != null)
+                aggregate.mergeNewer(newer);
+            olderAggregates.addFirst(aggregate);
+            newer = aggregate;
+        }
+        newerAggregate = new Bucket();
+    }
+
 }
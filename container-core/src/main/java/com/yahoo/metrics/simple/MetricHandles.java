@@ -0,0 +1,151 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import com.yahoo.metrics.simple.UntypedMetric.AssumedType;
+import org.HdrHistogram.DoubleHistogram;
+import org.HdrHistogram.DoubleRecorder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Metrics recorded through pre-resolved handles, see {@link Counter#handle(Point)} and {@link Gauge#handle(Point)}.
+ * A handle is an index into an array of slots, one per metric, shared by all threads. A slot consists of striped
+ * adders and accumulators, which spread contended updates over cells, and a histogram recorder, so recording
+ * a sample does not allocate or lock, and memory use does not grow with the number of recording threads.
+ * {@link #drainInto(Bucket)} moves what was recorded since the previous drain to a bucket.
+ * <p>
+ * The count of a metric is updated after its other values, and drained before them, so a drain may include
+ * the sum, min, max, last value and histogram entry of a sample which is only counted in the next drain.
+ */
+final class MetricHandles {
+
+    private static final Logger log = Logger.getLogger(MetricHandles.class.getName());
+
+    private final Object registrationLock = new Object();
+    private final Map<Identifier, Slot> slotsByIdentifier = new HashMap<>();
+    private volatile Slot[] slots = new Slot[0];
+
+    /**
+     * Returns the index to record the given metric with, which is the same for all handles of the same metric.
+     *
+     * @throws IllegalArgumentException if the metric already has handles of another type
+     */
+    int register(Identifier identifier, AssumedType type, MetricSettings settings) {
+        synchronized (registrationLock) {
+            Slot slot = slotsByIdentifier.get(identifier);
+            if (slot != null) {
+                if (slot.type != type)
+                    throw new IllegalArgumentException("Metric " + identifier + " is already recorded as " + slot.type +
+                                                       ", cannot record it as " + type);
+                return slot.index;
+            }
+            Slot[] current = slots;
+            slot = new Slot(current.length, identifier, type, settings);
+            Slot[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[slot.index] = slot;
+            slotsByIdentifier.put(identifier, slot);
+            slots = updated;
+            return slot.index;
+        }
+    }
+
+    /** Adds to the counter with the given index */
+    void add(int index, long n) {
+        slots[index].add(n);
+    }
+
+    /** Samples the gauge with the given index */
+    void sample(int index, double x) {
+        slots[index].sample(x);
+    }
+
+    /** Moves everything recorded since the previous invocation of this to the given bucket. */
+    void drainInto(Bucket bucket) {
+        synchronized (registrationLock) {
+            for (Slot slot : slots)
+                slot.drainInto(bucket);
+        }
+    }
+
+    /** The values of a single metric, recorded by any number of threads */
+    private static final class Slot {
+
+        final int index;
+        final Identifier identifier;
+        final AssumedType type;
+        final MetricSettings settings;
+
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+        private final DoubleAccumulator min = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+        private final DoubleAccumulator max = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+        private volatile double last = 0;
+        private final DoubleRecorder histogram;
+
+        // Read and written by the draining thread only, with the registration lock held
+        private DoubleHistogram drainedHistogram = null;
+        private boolean warned = false;
+
+        Slot(int index, Identifier identifier, AssumedType type, MetricSettings settings) {
+            this.index = index;
+            this.identifier = identifier;
+            this.type = type;
+            this.settings = settings;
+            boolean isHistogram = type == AssumedType.GAUGE && settings != null && settings.isHistogram();
+            this.histogram = isHistogram ? new DoubleRecorder(settings.getSignificantdigits()) : null;
+        }
+
+        void add(long n) {
+            count.add(n);
+        }
+
+        void sample(double x) {
+            min.accumulate(x);
+            max.accumulate(x);
+            sum.add(x);
+            last = x;
+            if (histogram != null)
+                histogram.recordValue(x);
+            count.increment();
+        }
+
+        void drainInto(Bucket bucket) {
+            long newCount = count.sumThenReset();
+            if (newCount == 0) return;
+            try {
+                UntypedMetric metric = bucket.getOrCreate(identifier, settings);
+                if (type == AssumedType.COUNTER) {
+                    metric.addCount(newCount);
+                }
+                else {
+                    double last = this.last;
+                    double min = this.min.getThenReset();
+                    double max = this.max.getThenReset();
+                    if (min > max) // extremes of the counted samples were drained along with the previous count
+                        min = max = last;
+                    metric.putSummary(newCount, sum.sumThenReset(), min, max, last);
+                    if (histogram != null) {
+                        drainedHistogram = histogram.getIntervalHistogram(drainedHistogram);
+                        metric.addHistogram(drainedHistogram);
+                    }
+                }
+            }
+            catch (IllegalArgumentException e) {
+                if ( ! warned) {
+                    log.log(Level.WARNING, "Problems merging metric " + identifier.getName() +
+                                           ", possibly ignoring data: " + e.getMessage());
+                    warned = true;
+                }
+            }
+        }
+
+    }
+
+}
@@ -9,6 +9,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import com.yahoo.api.annotations.Beta;
 import com.google.common.collect.ImmutableMap;
 import com.yahoo.concurrent.ThreadLocalDirectory;
+import com.yahoo.metrics.simple.UntypedMetric.AssumedType;
 
 /**
  * The reception point for measurements. This is the class users should inject
@@ -22,6 +23,7 @@ public class MetricReceiver {
 
     public static final MetricReceiver nullImplementation = new NullReceiver();
     private final ThreadLocalDirectory<Bucket, Sample> metricsCollection;
+    private final MetricHandles handles;
 
     // A reference to the current snapshot. The *reference* is shared with MetricsAggregator and updated from there :-/
     private final AtomicReference<Bucket> currentSnapshot;
@@ -31,7 +33,13 @@ public class MetricReceiver {
     private volatile Map<String, MetricSettings> metricSettings;
 
     public MetricReceiver(ThreadLocalDirectory<Bucket, Sample> metricsCollection, AtomicReference<Bucket> currentSnapshot) {
+        this(metricsCollection, currentSnapshot, new MetricHandles());
+    }
+
+    MetricReceiver(ThreadLocalDirectory<Bucket, Sample> metricsCollection, AtomicReference<Bucket> currentSnapshot,
+                   MetricHandles handles) {
         this.metricsCollection = metricsCollection;
+        this.handles = handles;
         this.currentSnapshot = currentSnapshot;
         metricSettings = new ImmutableMap.Builder<String, MetricSettings>().build();
     }
@@ -51,6 +59,20 @@ public class MetricReceiver {
         metricsCollection.update(sample);
     }
 
+    /**
+     * Register a metric for recording through a handle. This API is not intended for clients for the
+     * simplemetrics API, use {@link Counter#handle(Point)} or {@link Gauge#handle(Point)} instead.
+     *
+     * @return the index of the metric in the slots of the handles
+     */
+    int registerHandle(Identifier identifier, AssumedType type) {
+        return handles.register(identifier, type, getMetricDefinition(identifier.getName()));
+    }
+
+    MetricHandles handles() {
+        return handles;
+    }
+
     /**
      * Declare a counter metric without setting any default position.
      *
@@ -188,6 +210,11 @@ public class MetricReceiver {
         public void add(long n, Point p) {
         }
 
+        @Override
+        public Handle handle(Point p) {
+            return new NullCounterHandle();
+        }
+
         @Override
         public PointBuilder builder() {
             return super.builder();
@@ -207,6 +234,11 @@ public class MetricReceiver {
         public void sample(double x, Point p) {
         }
 
+        @Override
+        public Handle handle(Point p) {
+            return new NullGaugeHandle();
+        }
+
         @Override
         public PointBuilder builder() {
             return super.builder();
@@ -214,12 +246,36 @@ public class MetricReceiver {
 
     }
 
+    private static final class NullCounterHandle extends Counter.Handle {
+
+        NullCounterHandle() {
+            super(null, -1);
+        }
+
+        @Override
+        public void add(long n) {
+        }
+
+    }
+
+    private static final class NullGaugeHandle extends Gauge.Handle {
+
+        NullGaugeHandle() {
+            super(null, -1);
+        }
+
+        @Override
+        public void sample(double x) {
+        }
+
+    }
+
     public static final class MockReceiver extends MetricReceiver {
 
         private final ThreadLocalDirectory<Bucket, Sample> collection;
 
         private MockReceiver(ThreadLocalDirectory<Bucket, Sample> collection) {
-            super(collection, null);
+            super(collection, null, new MetricHandles());
             this.collection = collection;
         }
 
@@ -233,6 +289,7 @@ public class MetricReceiver {
             for (Bucket b : collection.fetch()) {
                 merged.merge(b, true);
             }
+            handles().drainInto(merged);
             return merged;
         }
 
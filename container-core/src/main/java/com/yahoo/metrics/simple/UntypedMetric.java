@@ -61,6 +61,47 @@ public class UntypedMetric {
         ++count;
     }
 
+    /** Adds a count accumulated elsewhere to this as a counter */
+    void addCount(long n) {
+        setOutputFormat(AssumedType.COUNTER);
+        count += n;
+    }
+
+    /** Adds a summary of newer samples accumulated elsewhere to this as a gauge */
+    void putSummary(long n, double sum, double min, double max, double last) {
+        setOutputFormat(AssumedType.GAUGE);
+        if (count > 0) {
+            this.max = Math.max(max, this.max);
+            this.min = Math.min(min, this.min);
+        } else {
+            this.max = max;
+            this.min = min;
+        }
+        current = last;
+        count += n;
+        this.sum += sum;
+    }
+
+    /** Adds a histogram of newer samples accumulated elsewhere to the histogram of this, if any */
+    void addHistogram(DoubleHistogram other) {
+        if (histogram != null) {
+            try {
+                histogram.add(other);
+            } catch (ArrayIndexOutOfBoundsException e) {
+                log.log(Level.WARNING, "Had trouble merging histograms: " + e.getMessage());
+            }
+        }
+    }
+
+    private void setOutputFormat(AssumedType type) {
+        if (outputFormat == AssumedType.NONE) {
+            outputFormat = type;
+        }
+        if (outputFormat != type) {
+            throw new IllegalArgumentException("Mismatching output formats: " + outputFormat + " and " + type + ".");
+        }
+    }
+
     UntypedMetric pruneData() {
         UntypedMetric pruned = new UntypedMetric(null);
         pruned.outputFormat = this.outputFormat;
@@ -13,6 +13,9 @@
  * {@link com.yahoo.metrics.simple.MetricReceiver#declareGauge(String)},
  * {@link com.yahoo.metrics.simple.MetricReceiver#declareGauge(String, Point)}, or
  * {@link com.yahoo.metrics.simple.MetricReceiver#declareGauge(String, java.util.Optional, MetricSettings)}.
+ * Where the points to record at are known up front, handles from
+ * {@link com.yahoo.metrics.simple.Counter#handle(Point)} and
+ * {@link com.yahoo.metrics.simple.Gauge#handle(Point)} record without allocating.
  * </p>
  *
  * <p>
@@ -0,0 +1,37 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.core.documentapi;
+
+import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.messagebus.MessageBus;
+import com.yahoo.messagebus.MessageBusParams;
+import com.yahoo.messagebus.network.local.LocalNetwork;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessengerMetricsTest {
+
+    @Test
+    void testMetricsArePerThread() {
+        MessageBus bus = new MessageBus(new LocalNetwork(), new MessageBusParams().setMessengerThreads(2));
+        try {
+            MockMetric metric = new MockMetric();
+            MessengerMetrics metrics = new MessengerMetrics(metric, bus);
+            bus.sync();
+            metrics.report();
+
+            Map<Map<String, ?>, Double> queueSizes = metric.metrics().get("mbus.messenger.queue.size");
+            assertEquals(Map.of(Map.of("thread", "0"), 0.0, Map.of("thread", "1"), 0.0), queueSizes);
+            Map<Map<String, ?>, Double> latencies = metric.metrics().get("mbus.messenger.task.latency");
+            assertEquals(2, latencies.size());
+            assertTrue(latencies.values().stream().allMatch(latency -> latency >= 0));
+        }
+        finally {
+            bus.destroy();
+        }
+    }
+
+}
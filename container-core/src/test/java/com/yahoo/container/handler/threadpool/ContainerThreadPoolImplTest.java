@@ -10,11 +10,15 @@ import com.yahoo.jdisc.Metric;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -116,6 +120,66 @@ public class ContainerThreadPoolImplTest {
         assertEquals(CPUS * 4 * 100, executor.getQueue().remainingCapacity());
     }
 
+    @Test
+    void testVirtualThreadsLimitConcurrencyAndQueue() throws InterruptedException {
+        MetricMock metrics = new MetricMock();
+        ContainerThreadpoolConfig config = new ContainerThreadpoolConfig(new ContainerThreadpoolConfig.Builder()
+                .maxThreads(2)
+                .queueSize(1)
+                .virtualThreads(true));
+        ContainerThreadpoolImpl threadPool = new ContainerThreadpoolImpl(config, metrics, new MockProcessTerminator(), CPUS);
+        ExecutorServiceWrapper wrapper = (ExecutorServiceWrapper) threadPool.executor();
+        VirtualThreadExecutor executor = (VirtualThreadExecutor) wrapper.delegate();
+        assertEquals(2, executor.getMaximumPoolSize());
+        assertEquals(1, executor.queueCapacity());
+        assertEquals(2L, metrics.innvocations().get(ContainerMetrics.JDISC_THREAD_POOL_MAX_ALLOWED_SIZE.baseName()).val);
+        assertEquals(1L, metrics.innvocations().get(ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_CAPACITY.baseName()).val);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch completed = new CountDownLatch(3);
+        Runnable blocking = () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            try { release.await(); } catch (InterruptedException e) { }
+            running.decrementAndGet();
+            completed.countDown();
+        };
+        wrapper.execute(blocking);
+        wrapper.execute(blocking);
+        assertTrue(started.await(60, TimeUnit.SECONDS));
+        wrapper.execute(blocking); // queued
+        assertEquals(2, executor.getActiveCount());
+        assertEquals(1, executor.queueSize());
+        assertRejected(threadPool, blocking);
+        assertEquals(1L, metrics.innvocations().get(ContainerMetrics.JDISC_THREAD_POOL_REJECTED_TASKS.baseName()).val);
+
+        release.countDown();
+        assertTrue(completed.await(60, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        threadPool.close();
+        assertTrue(executor.isTerminated());
+        assertRejected(threadPool, blocking);
+    }
+
+    @Test
+    void testVirtualThreadsRunAllTasks() throws InterruptedException {
+        ContainerThreadpoolConfig config = new ContainerThreadpoolConfig(new ContainerThreadpoolConfig.Builder()
+                .maxThreads(4)
+                .queueSize(1000)
+                .virtualThreads(true));
+        ContainerThreadpoolImpl threadPool = new ContainerThreadpoolImpl(config, new MetricMock(), new MockProcessTerminator(), CPUS);
+        CountDownLatch completed = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            threadPool.executor().execute(i % 10 == 0 ? () -> { completed.countDown(); throw new RuntimeException("expected"); }
+                                                      : completed::countDown);
+        }
+        assertTrue(completed.await(60, TimeUnit.SECONDS));
+        threadPool.close();
+    }
+
     private static class FlipIt implements Runnable {
         public final Receiver<Boolean> didItRun = new Receiver<>();
 
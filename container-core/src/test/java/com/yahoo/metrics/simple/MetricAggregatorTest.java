@@ -0,0 +1,53 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import com.yahoo.concurrent.ThreadLocalDirectory;
+import com.yahoo.metrics.ManagerConfig;
+import com.yahoo.metrics.simple.UntypedMetric.AssumedType;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that snapshots aggregate the buckets of the report period as it slides.
+ */
+public class MetricAggregatorTest {
+
+    @Test
+    final void testSnapshotsCoverTheLastReportPeriod() {
+        int period = 10;
+        MetricHandles handles = new MetricHandles();
+        AtomicReference<Bucket> snapshot = new AtomicReference<>();
+        MetricAggregator aggregator = new MetricAggregator(new ThreadLocalDirectory<>(new MetricUpdater()), handles, snapshot,
+                                                           new ManagerConfig.Builder().reportPeriodSeconds(period).build());
+        Identifier counterId = new Identifier("counter", Point.emptyPoint());
+        Identifier gaugeId = new Identifier("gauge", Point.emptyPoint());
+        int counter = handles.register(counterId, AssumedType.COUNTER, null);
+        int gauge = handles.register(gaugeId, AssumedType.GAUGE, null);
+
+        for (int second = 1; second <= 4 * period + 3; second++) {
+            handles.add(counter, second);
+            handles.sample(gauge, second % 7);
+            aggregator.run();
+
+            int first = Math.max(1, second - period + 1);
+            long expectedCount = 0;
+            double min = Double.MAX_VALUE, max = 0;
+            for (int i = first; i <= second; i++) {
+                expectedCount += i;
+                min = Math.min(min, i % 7);
+                max = Math.max(max, i % 7);
+            }
+            UntypedMetric counterValue = snapshot.get().getMapForMetric("counter").get(Point.emptyPoint());
+            assertEquals(expectedCount, counterValue.getCount(), "Count after " + second + " seconds");
+            UntypedMetric gaugeValue = snapshot.get().getMapForMetric("gauge").get(Point.emptyPoint());
+            assertEquals(second - first + 1, gaugeValue.getCount(), "Samples after " + second + " seconds");
+            assertEquals(min, gaugeValue.getMin(), 0.0);
+            assertEquals(max, gaugeValue.getMax(), 0.0);
+            assertEquals(second % 7, gaugeValue.getLast(), 0.0);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for recording metrics through handles.
+ */
+public class MetricHandlesTest {
+
+    MetricReceiver receiver;
+
+    @BeforeEach
+    public void setUp() {
+        receiver = new MetricReceiver.MockReceiver();
+    }
+
+    @Test
+    final void testCounterHandle() {
+        Point p = receiver.pointBuilder().set("x", "1").build();
+        Counter c = receiver.declareCounter("handledCounter", p);
+        Counter.Handle handle = c.handle();
+        handle.add();
+        handle.add(41);
+        c.handle(p).add(2);
+        c.add(p); // the sample path adds to the same metric
+        c.handle(Point.emptyPoint()).add(5);
+
+        Map<Point, UntypedMetric> values = receiver.getSnapshot().getMapForMetric("handledCounter");
+        assertEquals(2, values.size());
+        assertTrue(values.get(p).isCounter());
+        assertEquals(45L, values.get(p).getCount());
+        assertEquals(5L, values.get(Point.emptyPoint()).getCount());
+    }
+
+    @Test
+    final void testGaugeHandle() {
+        Gauge.Handle handle = receiver.declareGauge("handledGauge").handle();
+        handle.sample(3.0);
+        handle.sample(1.0);
+        handle.sample(2.0);
+
+        UntypedMetric value = receiver.getSnapshot().getMapForMetric("handledGauge").get(Point.emptyPoint());
+        assertEquals(3L, value.getCount());
+        assertEquals(6.0, value.getSum(), 0.0);
+        assertEquals(1.0, value.getMin(), 0.0);
+        assertEquals(3.0, value.getMax(), 0.0);
+        assertEquals(2.0, value.getLast(), 0.0);
+        assertNull(value.getHistogram());
+    }
+
+    @Test
+    final void testSnapshotsContainOnlySamplesSinceThePrevious() {
+        Counter.Handle counter = receiver.declareCounter("counter").handle();
+        Gauge.Handle gauge = receiver.declareGauge("gauge").handle();
+        counter.add(3);
+        gauge.sample(10.0);
+        gauge.sample(20.0);
+        receiver.getSnapshot();
+
+        counter.add(4);
+        gauge.sample(5.0);
+        Bucket snapshot = receiver.getSnapshot();
+        assertEquals(4L, snapshot.getMapForMetric("counter").get(Point.emptyPoint()).getCount());
+        UntypedMetric value = snapshot.getMapForMetric("gauge").get(Point.emptyPoint());
+        assertEquals(1L, value.getCount());
+        assertEquals(5.0, value.getSum(), 0.0);
+        assertEquals(5.0, value.getMin(), 0.0);
+        assertEquals(5.0, value.getMax(), 0.0);
+
+        assertTrue(receiver.getSnapshot().getAllMetricNames().isEmpty());
+    }
+
+    @Test
+    final void testHistogram() {
+        Gauge gauge = receiver.declareGauge("latency", Optional.empty(), new MetricSettings.Builder().histogram(true).build());
+        Gauge.Handle handle = gauge.handle();
+        for (int i = 1; i <= 1000; i++)
+            handle.sample(i);
+
+        UntypedMetric value = receiver.getSnapshot().getMapForMetric("latency").get(Point.emptyPoint());
+        assertEquals(1000L, value.getCount());
+        assertNotNull(value.getHistogram());
+        assertEquals(500.0, value.getHistogram().getValueAtPercentile(50.0), 10.0);
+        assertEquals(990.0, value.getHistogram().getValueAtPercentile(99.0), 20.0);
+    }
+
+    @Test
+    final void testSamplesFromManyThreads() throws InterruptedException {
+        Counter.Handle counter = receiver.declareCounter("counter").handle();
+        Gauge.Handle gauge = receiver.declareGauge("gauge").handle();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            int offset = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    counter.add();
+                    gauge.sample(offset + j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        Bucket snapshot = receiver.getSnapshot();
+        assertEquals(40000L, snapshot.getMapForMetric("counter").get(Point.emptyPoint()).getCount());
+        UntypedMetric value = snapshot.getMapForMetric("gauge").get(Point.emptyPoint());
+        assertEquals(40000L, value.getCount());
+        assertEquals(0.0, value.getMin(), 0.0);
+        assertEquals(10002.0, value.getMax(), 0.0);
+    }
+
+    @Test
+    final void testMismatchingHandleTypes() {
+        receiver.declareCounter("metric").handle();
+        assertThrows(IllegalArgumentException.class, () -> receiver.declareGauge("metric").handle());
+    }
+
+    @Test
+    final void testNullImplementation() {
+        MetricReceiver.nullImplementation.declareCounter("counter").handle().add();
+        MetricReceiver.nullImplementation.declareGauge("gauge").handle().sample(1.0);
+    }
+
+}
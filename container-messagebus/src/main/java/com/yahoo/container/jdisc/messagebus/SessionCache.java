@@ -100,6 +100,7 @@ public final class SessionCache extends AbstractComponent {
         MessageBusParams mbusParams = new MessageBusParams().addProtocol(protocol);
 
         mbusParams.setMaxPendingCount(mbusConfig.maxpendingcount());
+        mbusParams.setMessengerThreads(messagebusConfig.messenger_threads());
 
         MessageBus bus = new MessageBus(net, mbusParams);
         new ConfigAgent(messagebusConfig, bus); // Configure the wrapped MessageBus with a routing table.
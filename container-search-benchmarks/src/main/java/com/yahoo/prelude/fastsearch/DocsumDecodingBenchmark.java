@@ -0,0 +1,104 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.prelude.fastsearch;
+
+import com.yahoo.data.access.simple.JsonRender;
+import com.yahoo.data.access.slime.SlimeAdapter;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.BinaryView;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.Slime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of binary docsums into a Slime object, compared to inspecting them in place with a {@link BinaryView},
+ * when reading a few of the fields, and when rendering all of them as JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocsumDecodingBenchmark {
+
+    @Param({ "400" })
+    public int hits;
+
+    @Param({ "eager", "lazy" })
+    public String decoding;
+
+    private byte[][] docsums;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(hits);
+        docsums = new byte[hits][];
+        for (int i = 0; i < hits; i++)
+            docsums[i] = BinaryFormat.encode(docsum(i, random));
+    }
+
+    @Benchmark
+    public long readTwoFields() {
+        long length = 0;
+        for (byte[] docsum : docsums) {
+            Inspector root = decode(docsum);
+            length += root.field("title").asString().length() + root.field("year").asLong();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long renderAllFields() {
+        long length = 0;
+        StringBuilder json = new StringBuilder();
+        for (byte[] docsum : docsums) {
+            json.setLength(0);
+            length += JsonRender.render(new SlimeAdapter(decode(docsum)), json, true).length();
+        }
+        return length;
+    }
+
+    private Inspector decode(byte[] docsum) {
+        return decoding.equals("lazy") ? BinaryView.inspect(docsum) : BinaryFormat.decode(docsum).get();
+    }
+
+    /** Returns a docsum with the kinds of fields typical of search applications */
+    private static Slime docsum(int id, Random random) {
+        Slime slime = new Slime();
+        Cursor docsum = slime.setObject();
+        docsum.setString("documentid", "id:ns:music::" + id);
+        docsum.setString("title", "Title of document " + id);
+        docsum.setString("body", ("A snippet of the body of document " + id + " with some <hi>highlighted</hi> words in it. ").repeat(8));
+        docsum.setLong("year", 1950 + id % 70);
+        docsum.setDouble("price", random.nextDouble() * 100);
+        docsum.setBool("available", random.nextBoolean());
+        Cursor tags = docsum.setArray("tags");
+        for (int i = 0; i < 10; i++)
+            tags.addString("tag" + random.nextInt(1000));
+        Cursor attributes = docsum.setArray("attributes");
+        for (int i = 0; i < 5; i++) {
+            Cursor entry = attributes.addObject();
+            entry.setString("key", "key" + i);
+            entry.setLong("value", random.nextInt());
+        }
+        byte[] embedding = new byte[384 * 4 + 8];
+        random.nextBytes(embedding);
+        docsum.setData("embedding", embedding);
+        return slime;
+    }
+
+}
@@ -0,0 +1,141 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmarks;
+
+import com.yahoo.component.chain.Chain;
+import com.yahoo.container.jdisc.HttpRequest;
+import com.yahoo.jdisc.http.HttpRequest.Method;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.query.profile.QueryProfile;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.search.yql.MinimalQueryInserter;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Realistic inputs shared by the benchmarks: Deep YQL queries, large query profiles and large results.
+ */
+public class Fixtures {
+
+    private Fixtures() { }
+
+    /**
+     * Returns a YQL query with nested boolean operators to the given depth, where each level
+     * mixes the query operators most used in applications.
+     */
+    public static String deepYql(int depth) {
+        return "select * from sources * where " + deepWhere(depth, depth) + " limit 400 offset 0 timeout 1000";
+    }
+
+    private static String deepWhere(int level, int depth) {
+        if (level == 0)
+            return "title contains \"leaf" + depth + "\"";
+        String nested = deepWhere(level - 1, depth);
+        return switch (level % 4) {
+            case 0 -> "(" + nested + " and (body contains phrase(\"quick\", \"brown\", \"fox\") or year > " + (1990 + level) + "))";
+            case 1 -> "(weakAnd(title contains \"a" + level + "\", body contains \"b" + level + "\", " + nested + ") and !(category contains \"spam\"))";
+            case 2 -> "(" + nested + " or ({targetHits: 100}nearestNeighbor(embedding, query_embedding) and price < " + (level * 10) + "))";
+            default -> "(" + nested + " and tags contains sameElement(key contains \"k" + level + "\", value > " + level + ") and " +
+                       "weightedSet(genres, {\"g" + level + "\": 1, \"g" + (level + 1) + "\": 2}))";
+        };
+    }
+
+    /** Returns a request URI with the parameters of a typical query, including ranking and presentation */
+    public static String queryUri(int depth) {
+        return "/search/?yql=" + urlEncode(deepYql(depth)) +
+               "&hits=400&offset=0&ranking.profile=hybrid&ranking.features.query(query_embedding)=" +
+               urlEncode("[" + "0.1,".repeat(383) + "0.1]") +
+               "&ranking.matching.numThreadsPerSearch=4&ranking.softtimeout.enable=true" +
+               "&presentation.summary=short&presentation.timing=true&trace.level=0&timeout=1s" +
+               "&input.query(weights)=" + urlEncode("{a:1.0,b:2.0,c:3.0}") +
+               "&streaming.userid=17&model.locale=en-US&model.restrict=music";
+    }
+
+    /** Returns a chain which parses the yql parameter of queries into their query tree */
+    public static Chain<Searcher> yqlChain() {
+        return new Chain<>(new MinimalQueryInserter());
+    }
+
+    /** Returns a query created from the given URI, with the query tree parsed from its yql parameter */
+    public static Query parsedQuery(String uri) {
+        Query query = new Query(HttpRequest.createTestRequest(uri, Method.GET));
+        parseYql(query, yqlChain());
+        return query;
+    }
+
+    /** Parses the yql parameter of the given query into its query tree, using the given chain from {@link #yqlChain} */
+    public static void parseYql(Query query, Chain<Searcher> yqlChain) {
+        new Execution(yqlChain, Execution.Context.createContextStub()).search(query);
+        if (query.errors().size() > 0)
+            throw new IllegalArgumentException("Invalid query: " + query.errors());
+    }
+
+    /**
+     * Returns a query profile with the given number of fields, spread over nested profiles,
+     * with values varying by two dimensions.
+     */
+    public static QueryProfile queryProfile(int fields, QueryProfileRegistry registry) {
+        QueryProfile profile = new QueryProfile("benchmark");
+        profile.setDimensions(new String[] { "region", "bucket" });
+        for (int i = 0; i < fields; i++) {
+            String name = fieldName(i);
+            profile.set(name, "value" + i, registry);
+            if (i % 4 == 0)
+                profile.set(name, "regional" + i, new String[] { "region" + (i % 3) }, registry);
+            if (i % 8 == 0)
+                profile.set(name, "bucketed" + i, new String[] { "region" + (i % 3), "bucket" + (i % 5) }, registry);
+        }
+        registry.register(profile);
+        return profile;
+    }
+
+    /** Returns the name of a field in the profile created by {@link #queryProfile} */
+    public static String fieldName(int i) {
+        return switch (i % 3) {
+            case 0 -> "field" + i;
+            case 1 -> "nested" + (i % 10) + ".field" + i;
+            default -> "nested" + (i % 10) + ".deeper" + (i % 7) + ".field" + i;
+        };
+    }
+
+    /** Returns a result with the given number of hits having typical summary fields, including tensors */
+    public static Result result(Query query, int hits) {
+        Random random = new Random(hits);
+        Result result = new Result(query);
+        result.setTotalHitCount(hits * 1000L);
+        TensorType embeddingType = TensorType.fromSpec("tensor<float>(x[384])");
+        TensorType scoresType = TensorType.fromSpec("tensor<float>(category{})");
+        for (int i = 0; i < hits; i++) {
+            Hit hit = new Hit("id:ns:music::" + i, 1.0 - (double) i / hits);
+            hit.setField("title", "Title of document " + i);
+            hit.setField("body", "A snippet of the body of document " + i + " with some <hi>highlighted</hi> words in it");
+            hit.setField("year", 1950 + i % 70);
+            hit.setField("price", random.nextDouble() * 100);
+            hit.setField("embedding", randomTensor(embeddingType, random));
+            hit.setField("category_scores", Tensor.from(scoresType, "{{category:pop}:" + random.nextFloat() +
+                                                                    ",{category:rock}:" + random.nextFloat() +
+                                                                    ",{category:jazz}:" + random.nextFloat() + "}"));
+            result.hits().add(hit);
+        }
+        return result;
+    }
+
+    private static Tensor randomTensor(TensorType type, Random random) {
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (int i = 0; i < type.dimensions().get(0).size().get(); i++)
+            builder.cell(random.nextFloat(), i);
+        return builder.build();
+    }
+
+    private static String urlEncode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+}
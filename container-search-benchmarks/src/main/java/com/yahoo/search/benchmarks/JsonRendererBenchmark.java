@@ -0,0 +1,83 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmarks;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.rendering.JsonRenderer;
+import com.yahoo.search.searchchain.Execution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of results with many hits, having tensor summary fields, as JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonRendererBenchmark {
+
+    @Param({ "400" })
+    public int hits;
+
+    @Param({ "short-value", "long" })
+    public String tensorFormat;
+
+    private ExecutorService executor;
+    private JsonRenderer blueprint;
+    private Result result;
+    private Execution execution;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+        blueprint = new JsonRenderer(executor);
+        execution = new Execution(Execution.Context.createContextStub());
+    }
+
+    /** Rendering closes the hits of a result, so each invocation needs a new one. */
+    @Setup(Level.Invocation)
+    public void createResult() {
+        result = Fixtures.result(new Query("/search/?presentation.format.tensors=" + tensorFormat), hits);
+    }
+
+    @TearDown
+    public void tearDown() {
+        blueprint.deconstruct();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public int render() throws ExecutionException, InterruptedException {
+        JsonRenderer renderer = (JsonRenderer) blueprint.clone();
+        renderer.init();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+            renderer.renderResponse(out, result, execution, null).get();
+            return out.size();
+        }
+        finally {
+            renderer.deconstruct();
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmarks;
+
+import com.yahoo.component.chain.Chain;
+import com.yahoo.container.jdisc.HttpRequest;
+import com.yahoo.jdisc.http.HttpRequest.Method;
+import com.yahoo.search.Query;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of queries from requests, with and without a query profile, and with parsing of the query tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    private String uri;
+    private CompiledQueryProfile profile;
+    private Chain<Searcher> yqlChain;
+
+    @Setup
+    public void setup() {
+        uri = Fixtures.queryUri(8) + "&region=region1&bucket=bucket2";
+        QueryProfileRegistry registry = new QueryProfileRegistry();
+        Fixtures.queryProfile(200, registry);
+        profile = registry.compile().findQueryProfile("benchmark");
+        yqlChain = Fixtures.yqlChain();
+    }
+
+    @Benchmark
+    public Query construct() {
+        return new Query(HttpRequest.createTestRequest(uri, Method.GET));
+    }
+
+    @Benchmark
+    public Query constructWithProfile() {
+        return new Query(HttpRequest.createTestRequest(uri, Method.GET), profile);
+    }
+
+    @Benchmark
+    public Query constructAndParse() {
+        Query query = new Query(HttpRequest.createTestRequest(uri, Method.GET), profile);
+        Fixtures.parseYql(query, yqlChain);
+        return query;
+    }
+
+}
@@ -0,0 +1,70 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmarks;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfileRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compilation of a query profile with many fields and dimensions, and lookup of values in the compiled profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryProfileBenchmark {
+
+    @Param({ "200" })
+    public int fields;
+
+    private QueryProfileRegistry registry;
+    private CompiledQueryProfile compiled;
+    private CompoundName[] names;
+    private final Map<String, String> context = Map.of("region", "region1", "bucket", "bucket2");
+
+    @Setup
+    public void setup() {
+        registry = new QueryProfileRegistry();
+        Fixtures.queryProfile(fields, registry);
+        registry.freeze();
+        compiled = registry.compile().findQueryProfile("benchmark");
+        names = new CompoundName[fields];
+        for (int i = 0; i < fields; i++)
+            names[i] = CompoundName.from(Fixtures.fieldName(i));
+    }
+
+    @Benchmark
+    public CompiledQueryProfileRegistry compile() {
+        return registry.compile();
+    }
+
+    @Benchmark
+    public void lookupAllFields(Blackhole blackhole) {
+        for (CompoundName name : names)
+            blackhole.consume(compiled.get(name, context, null));
+    }
+
+    @Benchmark
+    public Object listProperties() {
+        return compiled.listValues(CompoundName.empty, context, null);
+    }
+
+}
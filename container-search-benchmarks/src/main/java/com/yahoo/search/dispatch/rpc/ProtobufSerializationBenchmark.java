@@ -0,0 +1,79 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.yahoo.search.Query;
+import com.yahoo.search.benchmarks.Fixtures;
+import com.yahoo.search.dispatch.InvokerResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of search requests to content nodes, and deserialization of their replies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtobufSerializationBenchmark {
+
+    @Param({ "400" })
+    public int hits;
+
+    @Param({ "false", "true" })
+    public boolean sortData;
+
+    private Query query;
+    private byte[] reply;
+
+    @Setup
+    public void setup() {
+        query = Fixtures.parsedQuery(Fixtures.queryUri(8));
+        reply = searchReply(hits, sortData).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializeSearchRequest() {
+        return ProtobufSerialization.serializeSearchRequest(query, hits, "benchmark", 1.0);
+    }
+
+    @Benchmark
+    public InvokerResult deserializeSearchReply() throws InvalidProtocolBufferException {
+        return ProtobufSerialization.convertToResult(query, SearchProtocol.SearchReply.parseFrom(reply), null, 0, 0);
+    }
+
+    private static SearchProtocol.SearchReply searchReply(int hits, boolean sortData) {
+        Random random = new Random(hits);
+        var reply = SearchProtocol.SearchReply.newBuilder();
+        reply.setTotalHitCount(hits * 1000L);
+        reply.setCoverageDocs(1_000_000).setActiveDocs(1_000_000).setTargetActiveDocs(1_000_000);
+        for (int i = 0; i < hits; i++) {
+            var hit = SearchProtocol.Hit.newBuilder();
+            hit.setGlobalId(ByteString.copyFrom(ByteBuffer.allocate(12).putInt(i).putLong(random.nextLong()).array()));
+            if (sortData)
+                hit.setSortData(ByteString.copyFrom(ByteBuffer.allocate(16).putLong(i).putLong(random.nextLong()).array()));
+            else
+                hit.setRelevance(1.0 - (double) i / hits);
+            reply.addHits(hit);
+        }
+        return reply.build();
+    }
+
+}
@@ -4,8 +4,8 @@ package com.yahoo.prelude.fastsearch;
 import com.yahoo.search.schema.DocumentSummary;
 import com.yahoo.search.schema.Schema;
 import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.BinaryView;
 import com.yahoo.data.access.Inspector;
-import com.yahoo.slime.Slime;
 import com.yahoo.data.access.slime.SlimeAdapter;
 import com.yahoo.prelude.ConfigurationException;
 
@@ -67,6 +67,7 @@ public final class DocsumDefinitionSet {
 
     /**
      * Makes data available for decoding for the given hit.
+     * The data is inspected in place, such that only the summary fields which are used are decoded.
      *
      * @param summaryClass the requested summary class
      * @param data docsum data from backend
@@ -82,8 +83,13 @@ public final class DocsumDefinitionSet {
             throw new IllegalArgumentException("Only expecting SchemaLess docsums - summary class:" + summaryClass + " hit:" + hit);
         }
         DocsumDefinition docsumDefinition = getDocsum(summaryClass);
-        Slime value = BinaryFormat.decode(buffer.array(), buffer.arrayOffset()+buffer.position(), buffer.remaining());
-        Inspector docsum = new SlimeAdapter(value.get());
+        Inspector docsum;
+        try {
+            docsum = new SlimeAdapter(BinaryView.inspect(buffer));
+        }
+        catch (IllegalArgumentException e) { // The full decoder keeps whatever part of invalid data it can decode
+            docsum = new SlimeAdapter(BinaryFormat.decode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining()).get());
+        }
         if (docsum.type() != OBJECT) {
             return "Hit " + hit + " failed: " + docsum.asString();
         }
@@ -103,7 +103,14 @@ public abstract class VespaBackend {
      */
     public boolean summaryNeedsQuery(Query query) {
         if (query.getRanking().getQueryCache()) return false;  // Query is cached in backend
+        return summaryDependsOnQuery(query);
+    }
 
+    /**
+     * Returns whether summaries depend on the query, i.e., whether summaries of the same documents may differ
+     * between queries. Unlike {@link #summaryNeedsQuery}, this is also true when the query is cached in the backend.
+     */
+    public boolean summaryDependsOnQuery(Query query) {
         DocumentDatabase documentDb = getDocumentDatabase(query);
 
         // Needed to generate a dynamic summary?
@@ -118,8 +125,6 @@ public abstract class VespaBackend {
         if (rankProfile.hasSummaryFeatures()) return true;
         if (query.getRanking().getListFeatures()) return true;
 
-        // (Don't just add other checks here as there is a return false above)
-
         return false;
     }
 
@@ -0,0 +1,47 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.result.Coverage;
+
+import java.util.Optional;
+
+/**
+ * A search invoker which produces a result from the result cache without contacting any content nodes.
+ */
+class CachedResultSearchInvoker extends SearchInvoker {
+
+    private final ResultCache.CachedResult cached;
+    private Query query;
+
+    CachedResultSearchInvoker(ResultCache.CachedResult cached) {
+        super(Optional.empty());
+        this.cached = cached;
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, Object context) {
+        this.query = query;
+        responseAvailable();
+        return context;
+    }
+
+    @Override
+    protected InvokerResult getSearchResult() {
+        query.trace(false, 2, "Returning cached result");
+        InvokerResult result = new InvokerResult(query, cached.hits().size());
+        result.getLeanHits().addAll(cached.hits());
+        result.getResult().setTotalHitCount(cached.totalHitCount());
+        Coverage coverage = new Coverage(0, 0, 0, 0);
+        coverage.merge(cached.coverage());
+        result.getResult().setCoverage(coverage);
+        query.setOffset(cached.offset());
+        return result;
+    }
+
+    @Override
+    protected void release() {
+        // nothing to do
+    }
+
+}
@@ -6,12 +6,14 @@ import com.yahoo.component.ComponentId;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.compress.Compressor;
 import com.yahoo.container.handler.VipStatus;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.prelude.fastsearch.VespaBackend;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.cluster.ClusterMonitor;
 import com.yahoo.search.dispatch.SearchPath.InvalidSearchPathException;
+import com.yahoo.search.dispatch.rpc.DocsumCache;
 import com.yahoo.search.dispatch.rpc.RpcConnectionPool;
 import com.yahoo.search.dispatch.rpc.RpcInvokerFactory;
 import com.yahoo.search.dispatch.rpc.RpcPingFactory;
@@ -61,6 +63,12 @@ public class Dispatcher extends AbstractComponent {
     private final RpcConnectionPool rpcResourcePool;
     private final SearchCluster searchCluster;
     private final ClusterMonitor<Node> clusterMonitor;
+    /** Where to emit metrics, or null if they are not emitted */
+    private final Metric metric;
+    /** The cache of first phase results, or null if disabled */
+    private final ResultCache resultCache;
+    /** The policy for sending hedged requests to other groups, or null if disabled */
+    private final Hedging hedging;
     private volatile VolatileItems volatileItems;
 
     private static class VolatileItems {
@@ -111,28 +119,45 @@ public class Dispatcher extends AbstractComponent {
     }
 
     @Inject
-    public Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, DispatchNodesConfig nodesConfig, VipStatus vipStatus) {
-        this(clusterId, dispatchConfig, new RpcResourcePool(dispatchConfig, nodesConfig), nodesConfig, vipStatus, RpcInvokerFactory::new);
+    public Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, DispatchNodesConfig nodesConfig, VipStatus vipStatus,
+                      Metric metric) {
+        this(clusterId, dispatchConfig, new RpcResourcePool(dispatchConfig, nodesConfig), nodesConfig, vipStatus,
+             rpcInvokerFactories(DocsumCache.create(dispatchConfig, metric)), metric);
         initialWarmup(dispatchConfig.warmuptime());
     }
 
     Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
                DispatchNodesConfig nodesConfig, VipStatus vipStatus, InvokerFactoryFactory invokerFactories) {
+        this(clusterId, dispatchConfig, rpcConnectionPool, nodesConfig, vipStatus, invokerFactories, null);
+    }
+
+    private Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
+                       DispatchNodesConfig nodesConfig, VipStatus vipStatus, InvokerFactoryFactory invokerFactories,
+                       Metric metric) {
         this(dispatchConfig, rpcConnectionPool,
              new SearchCluster(clusterId.stringValue(), dispatchConfig.minActivedocsPercentage(),
                                toNodes(clusterId.stringValue(), nodesConfig), vipStatus, new RpcPingFactory(rpcConnectionPool)),
-             invokerFactories);
+             invokerFactories, metric);
     }
 
     Dispatcher(DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
                SearchCluster searchCluster, InvokerFactoryFactory invokerFactories) {
-        this(dispatchConfig, rpcConnectionPool, searchCluster, new ClusterMonitor<>(searchCluster, false), invokerFactories);
+        this(dispatchConfig, rpcConnectionPool, searchCluster, invokerFactories, null);
+    }
+
+    private Dispatcher(DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
+                       SearchCluster searchCluster, InvokerFactoryFactory invokerFactories, Metric metric) {
+        this(dispatchConfig, rpcConnectionPool, searchCluster, new ClusterMonitor<>(searchCluster, false), invokerFactories, metric);
         this.clusterMonitor.start(); // Populate nodes to monitor before starting it.
     }
 
     Dispatcher(DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
-               SearchCluster searchCluster, ClusterMonitor<Node> clusterMonitor, InvokerFactoryFactory invokerFactories) {
+               SearchCluster searchCluster, ClusterMonitor<Node> clusterMonitor, InvokerFactoryFactory invokerFactories,
+               Metric metric) {
         this.dispatchConfig = dispatchConfig;
+        this.metric = metric;
+        this.resultCache = ResultCache.create(dispatchConfig, metric);
+        this.hedging = Hedging.create(dispatchConfig);
         this.rpcResourcePool = rpcConnectionPool;
         this.searchCluster = searchCluster;
         this.invokerFactories = invokerFactories;
@@ -144,7 +169,18 @@ public class Dispatcher extends AbstractComponent {
     /* For simple mocking in tests. Beware that searchCluster is shutdown in deconstruct() */
     Dispatcher(ClusterMonitor<Node> clusterMonitor, SearchCluster searchCluster,
                DispatchConfig dispatchConfig, InvokerFactory invokerFactory) {
-        this(dispatchConfig, null, searchCluster, clusterMonitor, (__, ___, ____) -> invokerFactory);
+        this(clusterMonitor, searchCluster, dispatchConfig, invokerFactory, null);
+    }
+
+    /* For simple mocking in tests. Beware that searchCluster is shutdown in deconstruct() */
+    Dispatcher(ClusterMonitor<Node> clusterMonitor, SearchCluster searchCluster,
+               DispatchConfig dispatchConfig, InvokerFactory invokerFactory, Metric metric) {
+        this(dispatchConfig, null, searchCluster, clusterMonitor, (__, ___, ____) -> invokerFactory, metric);
+    }
+
+    private static InvokerFactoryFactory rpcInvokerFactories(DocsumCache docsumCache) {
+        return (rpcConnectionPool, searchGroups, dispatchConfig) ->
+                new RpcInvokerFactory(rpcConnectionPool, searchGroups, dispatchConfig, docsumCache);
     }
 
     /** Returns the snapshot of volatile items that need to be kept together, incrementing its reference counter. */
@@ -196,11 +232,14 @@ public class Dispatcher extends AbstractComponent {
 
             // Update the snapshot to use the new nodes set in the search cluster; the RPC pool is ready for this.
             this.volatileItems = update();
+
+            // Cached results may refer to nodes which are now gone, or miss documents on new nodes.
+            if (resultCache != null) resultCache.invalidate();
         }   // Close the old snapshot, which may trigger the RPC cleanup now, or when the last invoker is closed, by a search thread.
     }
 
     private VolatileItems update() {
-        return new VolatileItems(new LoadBalancer(searchCluster.groupList().groups(), toLoadBalancerPolicy(dispatchConfig.distributionPolicy())),
+        return new VolatileItems(new LoadBalancer(searchCluster.groupList().groups(), toLoadBalancerPolicy(dispatchConfig.distributionPolicy()), metric),
                                  invokerFactories.create(rpcResourcePool, searchCluster.groupList(), dispatchConfig));
     }
 
@@ -227,6 +266,7 @@ public class Dispatcher extends AbstractComponent {
             case BEST_OF_RANDOM_2 -> LoadBalancer.Policy.BEST_OF_RANDOM_2;
             case ADAPTIVE,LATENCY_AMORTIZED_OVER_REQUESTS -> LoadBalancer.Policy.LATENCY_AMORTIZED_OVER_REQUESTS;
             case LATENCY_AMORTIZED_OVER_TIME -> LoadBalancer.Policy.LATENCY_AMORTIZED_OVER_TIME;
+            case PEAK_EWMA -> LoadBalancer.Policy.PEAK_EWMA;
         };
     }
     private static List<Node> toNodes(String clusterName, DispatchNodesConfig nodesConfig) {
@@ -264,9 +304,22 @@ public class Dispatcher extends AbstractComponent {
 
     public SearchInvoker getSearchInvoker(Query query, VespaBackend searcher) {
         try (var items = volatileItems()) { // Take a snapshot, and release it when we're done.
-            int maxHitsPerNode = dispatchConfig.maxHitsPerNode();
-            SearchInvoker invoker = getSearchPathInvoker(query, searcher, searchCluster.groupList(), items.get().invokerFactory, maxHitsPerNode)
-                    .orElseGet(() -> getInternalInvoker(query, searcher, searchCluster, items.get().loadBalancer, items.get().invokerFactory, maxHitsPerNode));
+            Optional<ResultCache.Key> cacheKey = resultCache == null
+                                                 ? Optional.empty()
+                                                 : resultCache.keyOf(query, searcher.getServerId(), searchCluster.activeDocumentsToken());
+            ResultCache.CachedResult cached = cacheKey.map(key -> resultCache.get(key)).orElse(null);
+
+            SearchInvoker invoker;
+            if (cached != null) {
+                invoker = new CachedResultSearchInvoker(cached);
+            }
+            else {
+                int maxHitsPerNode = dispatchConfig.maxHitsPerNode();
+                invoker = getSearchPathInvoker(query, searcher, searchCluster.groupList(), items.get().invokerFactory, maxHitsPerNode)
+                        .orElseGet(() -> getInternalInvoker(query, searcher, searchCluster, items.get().loadBalancer, items.get().invokerFactory, maxHitsPerNode, hedging));
+                if (cacheKey.isPresent())
+                    invoker = new ResultCachingSearchInvoker(invoker, resultCache, cacheKey.get());
+            }
 
             if (query.properties().getBoolean(com.yahoo.search.query.Model.ESTIMATE)) {
                 query.setHits(0);
@@ -298,7 +351,8 @@ public class Dispatcher extends AbstractComponent {
     }
 
     private static SearchInvoker getInternalInvoker(Query query, VespaBackend searcher, SearchCluster cluster,
-                                                    LoadBalancer loadBalancer, InvokerFactory invokerFactory, int maxHitsPerNode) {
+                                                    LoadBalancer loadBalancer, InvokerFactory invokerFactory, int maxHitsPerNode,
+                                                    Hedging hedging) {
         Optional<Node> directNode = cluster.localCorpusDispatchTarget();
         if (directNode.isPresent()) {
             Node node = directNode.get();
@@ -330,6 +384,13 @@ public class Dispatcher extends AbstractComponent {
                 query.trace(false, 2, "Dispatching to group ", group.id(), " after retries = ", i);
                 query.getModel().setSearchPath("/" + group.id());
                 invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+                if (hedging != null && group.nodes().size() == 1 && groups > 1) {
+                    Set<Integer> excluded = rejected == null ? new HashSet<>() : new HashSet<>(rejected);
+                    excluded.add(group.id());
+                    return new HedgedSearchInvoker(invoker.get(),
+                                                   () -> getBackupInvoker(query, searcher, loadBalancer, invokerFactory, maxHitsPerNode, excluded),
+                                                   hedging);
+                }
                 return invoker.get();
             } else {
                 loadBalancer.releaseGroup(group, false, RequestDuration.of(Duration.ZERO));
@@ -342,6 +403,27 @@ public class Dispatcher extends AbstractComponent {
         throw new IllegalStateException("No suitable groups to dispatch query. Rejected: " + rejected);
     }
 
+    /**
+     * Returns an invoker for a group other than the excluded ones, holding all the documents of the cluster on a single node,
+     * or empty if there is no such group available.
+     */
+    private static Optional<SearchInvoker> getBackupInvoker(Query query, VespaBackend searcher, LoadBalancer loadBalancer,
+                                                            InvokerFactory invokerFactory, int maxHitsPerNode, Set<Integer> excluded) {
+        Optional<Group> backupGroup = loadBalancer.takeGroup(excluded);
+        if (backupGroup.isEmpty()) return Optional.empty();
+
+        Group group = backupGroup.get();
+        Optional<SearchInvoker> invoker = group.nodes().size() == 1 && group.hasSufficientCoverage()
+                                          ? invokerFactory.createSearchInvoker(searcher, query, group.nodes(), false, maxHitsPerNode)
+                                          : Optional.empty();
+        if (invoker.isEmpty()) {
+            loadBalancer.releaseGroup(group, false, RequestDuration.of(Duration.ZERO));
+            return Optional.empty();
+        }
+        invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+        return invoker;
+    }
+
     /**
      * We want to avoid groups blocking feed because their data may be out of date.
      * If there is a single group blocking feed, we want to reject it.
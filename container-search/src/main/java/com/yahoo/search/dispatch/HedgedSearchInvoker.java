@@ -0,0 +1,116 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A search invoker which sends the query to a backup invoker, targeting another group, if the primary invoker
+ * has not responded within the delay given by {@link Hedging}. The first successful response is used,
+ * and the other invoker is closed without waiting for its response. The time until then is reported as the
+ * latency of the other invoker, which is a lower bound on what it would have been.
+ */
+class HedgedSearchInvoker extends SearchInvoker implements ResponseMonitor<SearchInvoker> {
+
+    private final SearchInvoker primary;
+    private final Supplier<Optional<SearchInvoker>> backupFactory;
+    private final Hedging hedging;
+    private final LinkedBlockingQueue<SearchInvoker> responses = new LinkedBlockingQueue<>();
+    private SearchInvoker backup = null;
+    private SearchInvoker winner = null;
+    private SearchInvoker failed = null;
+    private Query query;
+    private long sentNanos;
+
+    /**
+     * @param primary the invoker to send the query to first
+     * @param backupFactory creates an invoker targeting another group, or returns empty if none is available
+     * @param hedging the policy deciding when to use the backup
+     */
+    HedgedSearchInvoker(SearchInvoker primary, Supplier<Optional<SearchInvoker>> backupFactory, Hedging hedging) {
+        super(Optional.empty());
+        this.primary = primary;
+        this.backupFactory = backupFactory;
+        this.hedging = hedging;
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, Object context) throws IOException {
+        this.query = query;
+        this.sentNanos = System.nanoTime();
+        primary.setMonitor(this);
+        return primary.sendSearchRequest(query, context);
+    }
+
+    @Override
+    protected InvokerResult getSearchResult() throws IOException {
+        try {
+            SearchInvoker first = responses.poll(Math.min(hedging.delay().toMillis(), query.getTimeLeft()), TimeUnit.MILLISECONDS);
+            if (first == null && query.getTimeLeft() > 0 && hedging.tryHedge())
+                sendToBackup();
+
+            InvokerResult result = null;
+            int pending = backup == null ? 1 : 2;
+            while (first != null || pending > 0) {
+                if (first == null)
+                    first = responses.poll(Math.max(0, query.getTimeLeft()), TimeUnit.MILLISECONDS);
+                if (first == null) break; // Timed out: Let the primary produce the timeout result
+                pending--;
+                winner = first;
+                result = first.getSearchResult();
+                if (result.getResult().hits().getError() == null || pending == 0) break;
+                failed = first;
+                first = null; // Failed, but the other may still succeed
+            }
+            if (winner == null) { // Timed out
+                winner = primary;
+                return primary.getSearchResult();
+            }
+            if (result.getResult().hits().getError() == null)
+                hedging.sample(Duration.ofNanos(System.nanoTime() - sentNanos));
+            if (winner == backup)
+                query.trace(false, 2, "Using the response to the hedged request");
+            return result;
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException("Interrupted while waiting for search results", e);
+        }
+    }
+
+    private void sendToBackup() throws IOException {
+        backup = backupFactory.get().orElse(null);
+        if (backup == null) return;
+        query.trace(false, 2, "No response after ", hedging.delay().toMillis(), " ms: Sending hedged request to another group");
+        backup.setMonitor(this);
+        backup.sendSearchRequest(query, null);
+    }
+
+    @Override
+    protected void setFinalStatus(boolean success) {
+        super.setFinalStatus(success);
+        if (winner == null) return;
+        winner.setFinalStatus(success);
+        SearchInvoker loser = winner == primary ? backup : primary;
+        if (loser != null && loser != failed && ! responses.contains(loser))
+            loser.setFinalStatus(true); // Abandoned without a response: Its time until closed is a lower bound
+    }
+
+    @Override
+    protected void release() {
+        primary.close();
+        if (backup != null)
+            backup.close();
+    }
+
+    @Override
+    public void responseAvailable(SearchInvoker from) {
+        responses.add(from);
+    }
+
+}
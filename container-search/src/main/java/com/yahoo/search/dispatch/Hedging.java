@@ -0,0 +1,78 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.vespa.config.search.DispatchConfig;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Decides when a query which has not received a response should also be sent to another group:
+ * When it has waited longer than a percentile of the recent response times. The number of hedged queries
+ * is limited to a fraction of all queries, such that a slow cluster is not overloaded further by hedging.
+ *
+ * This is multithread safe.
+ */
+class Hedging {
+
+    /** The number of recent response times the percentile is computed over */
+    static final int windowSize = 1024;
+
+    /** The number of response times needed before we start hedging */
+    static final int minSamples = 100;
+
+    /** How often to recompute the percentile, in number of samples */
+    private static final int recomputeInterval = 64;
+
+    /** The max number of queries which can be hedged in a burst */
+    private static final double maxBudget = 10;
+
+    private final double percentile;
+    private final double maxFraction;
+    private final long[] responseTimesMicros = new long[windowSize];
+    private long samples = 0;
+    private double budget = 0;
+    private volatile long delayMicros = Long.MAX_VALUE;
+
+    Hedging(double percentile, double maxFraction) {
+        if (percentile <= 0 || percentile >= 100)
+            throw new IllegalArgumentException("Hedging percentile must be in (0, 100), got " + percentile);
+        this.percentile = percentile;
+        this.maxFraction = maxFraction;
+    }
+
+    /** Returns the hedging policy specified by the given config, or null if hedging is disabled */
+    static Hedging create(DispatchConfig config) {
+        if (config.hedgingPercentile() <= 0 || config.hedgingMaxFraction() <= 0) return null;
+        return new Hedging(config.hedgingPercentile(), config.hedgingMaxFraction());
+    }
+
+    /** Returns how long to wait for a response before hedging, or a very long time if we don't know yet */
+    Duration delay() {
+        return Duration.ofNanos(Math.min(delayMicros, Long.MAX_VALUE / 1000) * 1000);
+    }
+
+    /** Adds the response time of a query, and allows a fraction of a hedged query */
+    synchronized void sample(Duration responseTime) {
+        responseTimesMicros[(int) (samples % windowSize)] = responseTime.toNanos() / 1000;
+        samples++;
+        budget = Math.min(budget + maxFraction, maxBudget);
+        if (samples >= minSamples && samples % recomputeInterval == 0)
+            delayMicros = computePercentile();
+    }
+
+    /** Returns whether a query may be hedged now, and if so consumes the budget for it */
+    synchronized boolean tryHedge() {
+        if (delayMicros == Long.MAX_VALUE || budget < 1) return false;
+        budget -= 1;
+        return true;
+    }
+
+    private long computePercentile() {
+        int count = (int) Math.min(samples, windowSize);
+        long[] sorted = Arrays.copyOf(responseTimesMicros, count);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(count - 1, Math.ceil(count * percentile / 100.0) - 1)];
+    }
+
+}
@@ -0,0 +1,113 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the hits returned from each node, which are already sorted, into a single sorted list.
+ * The hit lists are added as they arrive, and merged once all are received, using a heap
+ * of positions in each list. The cost of merging is therefore proportional to the number of hits
+ * wanted times the logarithm of the number of lists, rather than to the total number of hits received,
+ * and no intermediate lists are created.
+ * <p>
+ * Hits which compare as equal in different lists, i.e. the same document returned from multiple nodes, are
+ * only included once. Equal hits within a single list are all kept, so a hit is included as many times as it
+ * occurs in the list where it occurs the most.
+ * <p>
+ * This is not multithread safe.
+ */
+class LeanHitMerger {
+
+    private final List<List<LeanHit>> lists = new ArrayList<>();
+
+    /** Adds a list of hits, which must be sorted, to be merged */
+    void add(List<LeanHit> hits) {
+        if ( ! hits.isEmpty())
+            lists.add(hits);
+    }
+
+    /**
+     * Merges the hits added so far and adds those in the given window of the merged order to the given list.
+     *
+     * @param offset the number of merged hits to skip
+     * @param hits the max number of hits to add
+     * @param target the list to add hits to
+     */
+    void mergeInto(int offset, int hits, List<LeanHit> target) {
+        int needed = offset + hits;
+        if (lists.isEmpty() || hits <= 0) return;
+        if (lists.size() == 1) {
+            List<LeanHit> list = lists.get(0);
+            for (int i = offset; i < Math.min(list.size(), needed); i++)
+                target.add(list.get(i));
+            return;
+        }
+
+        // A min-heap of list indexes, ordered by the hit at the current position in each list
+        int[] heap = new int[lists.size()];
+        int[] positions = new int[lists.size()];
+        int heapSize = lists.size();
+        for (int i = 0; i < heapSize; i++)
+            heap[i] = i;
+        for (int i = heapSize / 2 - 1; i >= 0; i--)
+            siftDown(heap, heapSize, i, positions);
+
+        LeanHit previous = null;
+        int mergedEqual = 0; // the number of merged hits which are equal to previous
+        int merged = 0;
+        while (heapSize > 0 && merged < needed) {
+            int list = heap[0];
+            int position = positions[list]++;
+            LeanHit hit = lists.get(list).get(position);
+            boolean include;
+            if (previous != null && previous.compareTo(hit) == 0) {
+                include = equalBefore(list, position) == mergedEqual;
+            }
+            else {
+                include = true;
+                previous = hit;
+                mergedEqual = 0;
+            }
+            if (include) {
+                if (merged >= offset)
+                    target.add(hit);
+                merged++;
+                mergedEqual++;
+            }
+            if (positions[list] == lists.get(list).size())
+                heap[0] = heap[--heapSize];
+            if (heapSize > 0)
+                siftDown(heap, heapSize, 0, positions);
+        }
+    }
+
+    private void siftDown(int[] heap, int heapSize, int index, int[] positions) {
+        int list = heap[index];
+        LeanHit hit = current(list, positions);
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && current(heap[child + 1], positions).compareTo(current(heap[child], positions)) < 0)
+                child++;
+            if (current(heap[child], positions).compareTo(hit) >= 0) break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = list;
+    }
+
+    /** Returns the number of hits equal to the one at the given position which precede it in the same list */
+    private int equalBefore(int list, int position) {
+        List<LeanHit> hits = lists.get(list);
+        int count = 0;
+        while (position - count > 0 && hits.get(position - count - 1).compareTo(hits.get(position)) == 0)
+            count++;
+        return count;
+    }
+
+    private LeanHit current(int list, int[] positions) {
+        return lists.get(list).get(positions[list]);
+    }
+
+}
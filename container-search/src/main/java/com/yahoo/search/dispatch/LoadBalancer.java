@@ -1,6 +1,8 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch;
 
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.search.dispatch.searchcluster.Group;
 
 import java.time.Duration;
@@ -12,12 +14,15 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
 import java.util.logging.Logger;
 
 /**
  * LoadBalancer determines which group of content nodes should be accessed next for each search query when the
  * internal java dispatcher is used.
- * The implementation here is a simplistic least queries in flight + round-robin load balancer
+ * The implementation here is a simplistic least queries in flight + round-robin load balancer,
+ * unless one of the latency aware policies is chosen.
  *
  * @author ollivir
  */
@@ -33,10 +38,24 @@ public class LoadBalancer {
 
     private final Map<Integer, GroupStatus> scoreboard;
     private final GroupScheduler scheduler;
+    /** Contexts for emitting group scores, or null if they are not emitted */
+    private final Map<Integer, Metric.Context> scoreContexts;
+    private final Metric metric;
 
-    public enum Policy { ROUNDROBIN, LATENCY_AMORTIZED_OVER_REQUESTS, LATENCY_AMORTIZED_OVER_TIME, BEST_OF_RANDOM_2}
+    public enum Policy { ROUNDROBIN, LATENCY_AMORTIZED_OVER_REQUESTS, LATENCY_AMORTIZED_OVER_TIME, BEST_OF_RANDOM_2, PEAK_EWMA }
 
     public LoadBalancer(Collection<Group> groups, Policy policy) {
+        this(groups, policy, null);
+    }
+
+    /**
+     * @param metric where to emit the score of each group when using {@link Policy#PEAK_EWMA}, or null to not emit it
+     */
+    public LoadBalancer(Collection<Group> groups, Policy policy, Metric metric) {
+        this(groups, policy, metric, new Random(), System::nanoTime);
+    }
+
+    LoadBalancer(Collection<Group> groups, Policy policy, Metric metric, Random random, LongSupplier nanoClock) {
         this.scoreboard = new HashMap<>();
         for (Group group : groups) {
             scoreboard.put(group.id(), new GroupStatus(group));
@@ -46,10 +65,20 @@ public class LoadBalancer {
 
         this.scheduler = switch (policy) {
             case ROUNDROBIN: yield new RoundRobinScheduler(scoreboard);
-            case BEST_OF_RANDOM_2: yield new BestOfRandom2(new Random(), scoreboard);
-            case LATENCY_AMORTIZED_OVER_REQUESTS: yield new AdaptiveScheduler(AdaptiveScheduler.Type.REQUESTS, new Random(), scoreboard);
-            case LATENCY_AMORTIZED_OVER_TIME: yield new AdaptiveScheduler(AdaptiveScheduler.Type.TIME, new Random(), scoreboard);
+            case BEST_OF_RANDOM_2: yield new BestOfRandom2(random, scoreboard);
+            case LATENCY_AMORTIZED_OVER_REQUESTS: yield new AdaptiveScheduler(AdaptiveScheduler.Type.REQUESTS, random, scoreboard);
+            case LATENCY_AMORTIZED_OVER_TIME: yield new AdaptiveScheduler(AdaptiveScheduler.Type.TIME, random, scoreboard);
+            case PEAK_EWMA: yield new PeakEwmaScheduler(random, nanoClock, scoreboard);
         };
+        this.metric = metric;
+        if (metric != null && policy == Policy.PEAK_EWMA) {
+            scoreContexts = new HashMap<>();
+            for (Group group : groups)
+                scoreContexts.put(group.id(), metric.createContext(Map.of("groupId", String.valueOf(group.id()))));
+        }
+        else {
+            scoreContexts = null;
+        }
     }
 
     /**
@@ -60,19 +89,19 @@ public class LoadBalancer {
      * @return the node group to target, or <i>empty</i> if the internal dispatch logic cannot be used
      */
     public Optional<Group> takeGroup(Set<Integer> rejectedGroups) {
+        GroupStatus gs;
+        double score;
         synchronized (this) {
             Optional<GroupStatus> best = scheduler.takeNextGroup(rejectedGroups);
+            if (best.isEmpty()) return Optional.empty();
 
-            if (best.isPresent()) {
-                GroupStatus gs = best.get();
-                gs.allocate();
-                Group ret = gs.group;
-                log.fine(() -> "Offering <" + ret + "> for query connection");
-                return Optional.of(ret);
-            } else {
-                return Optional.empty();
-            }
+            gs = best.get();
+            gs.allocate();
+            score = gs.score();
         }
+        emitScore(gs, score);
+        log.fine(() -> "Offering <" + gs.group + "> for query connection");
+        return Optional.of(gs.group);
     }
 
     /**
@@ -83,10 +112,19 @@ public class LoadBalancer {
      * @param searchTime query execution time, used for adaptive load balancing
      */
     public void releaseGroup(Group group, boolean success, RequestDuration searchTime) {
+        GroupStatus sched;
+        double score;
         synchronized (this) {
-            GroupStatus sched = scoreboard.get(group.id());
+            sched = scoreboard.get(group.id());
             sched.release(success, searchTime);
+            score = sched.score();
         }
+        emitScore(sched, score);
+    }
+
+    private void emitScore(GroupStatus group, double score) {
+        if (scoreContexts == null) return;
+        metric.set(ContainerMetrics.DISPATCH_GROUP_SCORE.baseName(), score * 1000, scoreContexts.get(group.groupId()));
     }
 
     static class GroupStatus {
@@ -132,6 +170,11 @@ public class LoadBalancer {
             return 1.0 / decayer.averageCost();
         }
 
+        /** Returns the average cost of a query to this group times the number of queries it will have if chosen */
+        double score() {
+            return decayer.averageCost() * (allocations + 1);
+        }
+
         int groupId() {
             return group.id();
         }
@@ -318,6 +361,11 @@ public class LoadBalancer {
             GroupStatus candB = selectRandom(candidates);
             if (candA == null) return candB;
             if (candB == null) return candA;
+            return better(candA, candB);
+        }
+
+        /** Returns the better of the two candidates, biased to the first */
+        GroupStatus better(GroupStatus candA, GroupStatus candB) {
             if (candB.allocations < candA.allocations) return candB;
             return candA;
         }
@@ -331,4 +379,76 @@ public class LoadBalancer {
 
     }
 
+    /**
+     * Picks the better of two random groups, where the best has the lowest peak EWMA latency estimate
+     * times its number of outstanding queries plus one.
+     */
+    static class PeakEwmaScheduler extends BestOfRandom2 {
+
+        /**
+         * A latency estimate which jumps to any response time above it, such that a group which slows down is
+         * avoided from its first slow response. Otherwise, it is a moving average decaying exponentially with time,
+         * which also decays towards zero while there are no responses, such that a group which has been avoided
+         * is tried again. The estimate is updated and read without locking.
+         */
+        static class PeakEwma implements GroupStatus.Decayer {
+
+            private final LongSupplier nanoClock;
+            private final AtomicReference<Estimate> estimate;
+
+            PeakEwma(LongSupplier nanoClock) {
+                this.nanoClock = nanoClock;
+                this.estimate = new AtomicReference<>(new Estimate(toSeconds(INITIAL_QUERY_TIME), nanoClock.getAsLong()));
+            }
+
+            @Override
+            public void decay(RequestDuration duration) {
+                double searchTime = Math.max(toSeconds(duration.duration()), MIN_QUERY_TIME);
+                long now = nanoClock.getAsLong();
+                estimate.updateAndGet(current -> current.add(searchTime, now));
+            }
+
+            @Override
+            public double averageCost() {
+                return Math.max(estimate.get().at(nanoClock.getAsLong()), MIN_QUERY_TIME);
+            }
+
+            private record Estimate(double seconds, long atNanos) {
+
+                /** Returns this estimate decayed towards zero until the given time */
+                double at(long nanos) {
+                    return seconds * retained(nanos);
+                }
+
+                Estimate add(double searchTime, long nanos) {
+                    if (searchTime > seconds) return new Estimate(searchTime, nanos);
+                    double retained = retained(nanos);
+                    return new Estimate(seconds * retained + searchTime * (1 - retained), Math.max(nanos, atNanos));
+                }
+
+                private double retained(long nanos) {
+                    return Math.exp(-Math.max(0, nanos - atNanos) / 1e9 / LATENCY_DECAY_TIME);
+                }
+
+            }
+
+            private static double toSeconds(Duration duration) {
+                return duration.toNanos() / 1_000_000_000.0;
+            }
+
+        }
+
+        PeakEwmaScheduler(Random random, LongSupplier nanoClock, Map<Integer, GroupStatus> scoreboard) {
+            super(random, scoreboard);
+            scoreboard.forEach((id, gs) -> gs.setDecayer(new PeakEwma(nanoClock)));
+        }
+
+        @Override
+        GroupStatus better(GroupStatus candA, GroupStatus candB) {
+            if (candB.score() < candA.score()) return candB;
+            return candA;
+        }
+
+    }
+
 }
@@ -0,0 +1,206 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.concurrent.Timer;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.search.Query;
+import com.yahoo.search.dispatch.rpc.ProtobufSerialization;
+import com.yahoo.search.grouping.vespa.GroupingExecutor;
+import com.yahoo.search.query.Model;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.vespa.config.search.DispatchConfig;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of first phase results, used by the dispatcher to answer identical queries
+ * without sending them to the content nodes.
+ *
+ * Results are keyed on everything in the query which is sent to the content nodes, except the timeout,
+ * and on a token which changes when the active documents in the content cluster are seen to change.
+ * Results expire after a fixed time to live, and the least recently used results are evicted first
+ * when the estimated size of the cached results exceeds the max size.
+ *
+ * Only complete results are cached: Results with errors, degraded coverage or grouping are not,
+ * and neither are results of hit count estimate queries.
+ */
+class ResultCache {
+
+    /** Estimated fixed cost of an entry: key, map node, result and list object headers */
+    private static final long entryOverheadBytes = 256;
+
+    /** Estimated fixed cost of a hit: object header, fields and global id */
+    private static final long hitOverheadBytes = 96;
+
+    /** Estimated cost of match features, as we don't know their actual size */
+    private static final long matchFeaturesBytes = 256;
+
+    private final long maxSizeBytes;
+    private final long ttlMillis;
+    private final Timer timer;
+    private final Metric metric; // null if metrics should not be emitted
+    private final Map<String, Metric.Context> metricContexts = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Key, CachedResult> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long sizeBytes = 0;
+
+    ResultCache(long maxSizeBytes, double ttlSeconds, Timer timer, Metric metric) {
+        this.maxSizeBytes = maxSizeBytes;
+        this.ttlMillis = (long) (ttlSeconds * 1000);
+        this.timer = timer;
+        this.metric = metric;
+    }
+
+    /**
+     * Returns a cache as specified by the given config, or null if caching is disabled
+     *
+     * @param metric the metric to emit cache hits, misses and size to, or null to not emit metrics
+     */
+    static ResultCache create(DispatchConfig config, Metric metric) {
+        if (config.resultCacheSize() <= 0 || config.resultCacheTtl() <= 0) return null;
+        return new ResultCache(config.resultCacheSize(), config.resultCacheTtl(), Timer.monotonic, metric);
+    }
+
+    /**
+     * Returns the key of the result of the given query, or empty if the result of this query should not be cached.
+     *
+     * @param query the query to return the result key of
+     * @param serverId the id of the backend which will serve the query
+     * @param documentsToken a token which changes whenever the active documents in the content cluster change
+     */
+    Optional<Key> keyOf(Query query, String serverId, long documentsToken) {
+        if (query.getNoCache()) return Optional.empty();
+        if (query.getModel().getSearchPath() != null) return Optional.empty();
+        if (query.properties().getBoolean(Model.ESTIMATE)) return Optional.empty(); // Hits are cleared after the key is made
+        if (query.getRanking().getQueryCache()) return Optional.empty(); // Uses backend sessions
+        if ( ! query.getSelect().getGrouping().isEmpty() || GroupingExecutor.hasGroupingList(query)) return Optional.empty();
+        if (ProtobufSerialization.getTraceLevelForBackend(query) > 0) return Optional.empty();
+        if (query.getTrace().getProfileDepth() > 0) return Optional.empty();
+        if (query.properties().getDouble(Dispatcher.topKProbability) != null) return Optional.empty(); // Not part of the request
+
+        return Optional.of(new Key(ProtobufSerialization.serializeResultCacheKey(query, serverId),
+                                   documentsToken,
+                                   query.getModel().getDocumentDb()));
+    }
+
+    /** Returns the cached result for the given key, or null if there is none which is still valid */
+    CachedResult get(Key key) {
+        CachedResult result;
+        synchronized (this) {
+            result = entries.get(key);
+            if (result != null && timer.milliTime() - result.createdMillis() > ttlMillis) {
+                entries.remove(key);
+                sizeBytes -= result.sizeBytes();
+                result = null;
+            }
+        }
+        if (metric != null)
+            metric.add(result != null ? ContainerMetrics.RESULT_CACHE_HITS.baseName() : ContainerMetrics.RESULT_CACHE_MISSES.baseName(),
+                       1, metricContext(key.schema()));
+        return result;
+    }
+
+    /** Caches the given result of a query with the given key, if it is complete */
+    void put(Key key, InvokerResult result) {
+        if ( ! isComplete(result)) return;
+
+        var cached = new CachedResult(List.copyOf(result.getLeanHits()),
+                                      result.getResult().getTotalHitCount(),
+                                      result.getResult().getCoverage(false),
+                                      result.getResult().getQuery().getOffset(),
+                                      timer.milliTime(),
+                                      estimateSizeBytes(key, result.getLeanHits()));
+        if (cached.sizeBytes() > maxSizeBytes) return;
+
+        long currentSize;
+        synchronized (this) {
+            CachedResult previous = entries.put(key, cached);
+            if (previous != null) sizeBytes -= previous.sizeBytes();
+            sizeBytes += cached.sizeBytes();
+            for (Iterator<CachedResult> i = entries.values().iterator(); sizeBytes > maxSizeBytes && i.hasNext(); ) {
+                sizeBytes -= i.next().sizeBytes();
+                i.remove();
+            }
+            currentSize = sizeBytes;
+        }
+        if (metric != null)
+            metric.set(ContainerMetrics.RESULT_CACHE_SIZE.baseName(), currentSize, null);
+    }
+
+    /** Removes all cached results */
+    synchronized void invalidate() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    synchronized long sizeBytes() { return sizeBytes; }
+
+    synchronized int size() { return entries.size(); }
+
+    private static boolean isComplete(InvokerResult result) {
+        if (result.getResult().hits().getError() != null) return false;
+        if ( ! result.getResult().hits().asUnorderedHits().isEmpty()) return false; // Only lean hits are cached
+        Coverage coverage = result.getResult().getCoverage(false);
+        return coverage != null && coverage.getFull() && ! coverage.isDegraded();
+    }
+
+    private static long estimateSizeBytes(Key key, List<LeanHit> hits) {
+        long size = entryOverheadBytes + key.request().length;
+        for (LeanHit hit : hits) {
+            size += hitOverheadBytes;
+            if (hit.hasSortData()) size += hit.getSortData().length;
+            if (hit.hasMatchFeatures()) size += matchFeaturesBytes;
+        }
+        return size;
+    }
+
+    private Metric.Context metricContext(String schema) {
+        String name = schema != null ? schema : "";
+        return metricContexts.computeIfAbsent(name, __ -> metric.createContext(Map.of("schema", name)));
+    }
+
+    /** The identity of a result */
+    static final class Key {
+
+        private final byte[] request;
+        private final long documentsToken;
+        private final String schema;
+        private final int hashCode;
+
+        Key(byte[] request, long documentsToken, String schema) {
+            this.request = request;
+            this.documentsToken = documentsToken;
+            this.schema = schema;
+            this.hashCode = 31 * Arrays.hashCode(request) + Long.hashCode(documentsToken);
+        }
+
+        byte[] request() { return request; }
+
+        /** Returns the schema this is a result key for, or null if none is set in the query */
+        String schema() { return schema; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key other)) return false;
+            return documentsToken == other.documentsToken && Arrays.equals(request, other.request);
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+    }
+
+    /**
+     * A cached result. The hits are immutable and can be shared between queries, while the coverage must be copied.
+     * The offset is that of the query after the search, which is 0 if the hits were already windowed by the dispatcher.
+     */
+    record CachedResult(List<LeanHit> hits, long totalHitCount, Coverage coverage, int offset, long createdMillis, long sizeBytes) { }
+
+}
@@ -0,0 +1,48 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * A search invoker which adds the result of the search invoker it wraps to the result cache.
+ */
+class ResultCachingSearchInvoker extends SearchInvoker {
+
+    private final SearchInvoker delegate;
+    private final ResultCache cache;
+    private final ResultCache.Key key;
+
+    ResultCachingSearchInvoker(SearchInvoker delegate, ResultCache cache, ResultCache.Key key) {
+        super(Optional.empty());
+        this.delegate = delegate;
+        this.cache = cache;
+        this.key = key;
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, Object context) throws IOException {
+        return delegate.sendSearchRequest(query, context);
+    }
+
+    @Override
+    protected InvokerResult getSearchResult() throws IOException {
+        InvokerResult result = delegate.getSearchResult();
+        cache.put(key, result);
+        return result;
+    }
+
+    @Override
+    protected void setFinalStatus(boolean success) {
+        super.setFinalStatus(success);
+        delegate.setFinalStatus(success);
+    }
+
+    @Override
+    protected void release() {
+        delegate.close();
+    }
+
+}
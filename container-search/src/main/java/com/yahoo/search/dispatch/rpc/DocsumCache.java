@@ -0,0 +1,114 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.concurrent.Timer;
+import com.yahoo.document.GlobalId;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.vespa.config.search.DispatchConfig;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of document summaries, shared by all fill invokers of a dispatcher, such that summaries
+ * of popular documents can be filled without asking the content nodes.
+ *
+ * Summaries are stored in binary slime format, and are keyed on the global id of the document
+ * and the summary class and fields requested. The search protocol does not tell when a document was last changed,
+ * so summaries expire after a fixed time to live. Least recently used summaries are evicted first
+ * when the total size exceeds the max size. Summaries which depend on the query are never cached.
+ */
+public class DocsumCache {
+
+    /** Estimated fixed cost of an entry: key, map node and array headers */
+    static final long entryOverheadBytes = 160;
+
+    private final long maxSizeBytes;
+    private final long ttlMillis;
+    private final Timer timer;
+    private final Metric metric;
+    private final Map<String, Metric.Context> metricContexts = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long sizeBytes = 0;
+
+    DocsumCache(long maxSizeBytes, double ttlSeconds, Timer timer, Metric metric) {
+        this.maxSizeBytes = maxSizeBytes;
+        this.ttlMillis = (long) (ttlSeconds * 1000);
+        this.timer = timer;
+        this.metric = metric;
+    }
+
+    /** Returns a cache as specified by the given config, or null if caching is disabled */
+    public static DocsumCache create(DispatchConfig config, Metric metric) {
+        if (config.docsumCacheSize() <= 0 || config.docsumCacheTtl() <= 0) return null;
+        return new DocsumCache(config.docsumCacheSize(), config.docsumCacheTtl(), Timer.monotonic, metric);
+    }
+
+    /** Returns the cached summary of the given key in binary slime format, or null if it is not present */
+    byte[] get(Key key) {
+        boolean expired = false;
+        byte[] docsum = null;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (timer.milliTime() - entry.createdMillis() > ttlMillis) {
+                    entries.remove(key);
+                    sizeBytes -= entry.sizeBytes();
+                    expired = true;
+                }
+                else {
+                    docsum = entry.docsum();
+                }
+            }
+        }
+        if (expired)
+            metric.add(ContainerMetrics.DOCSUM_CACHE_INVALIDATIONS.baseName(), 1, null);
+        return docsum;
+    }
+
+    /** Caches the given summary in binary slime format */
+    void put(Key key, byte[] docsum) {
+        var entry = new Entry(docsum, timer.milliTime(), entryOverheadBytes + docsum.length);
+        if (entry.sizeBytes() > maxSizeBytes) return;
+
+        int evicted = 0;
+        long currentSize;
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) sizeBytes -= previous.sizeBytes();
+            sizeBytes += entry.sizeBytes();
+            for (Iterator<Entry> i = entries.values().iterator(); sizeBytes > maxSizeBytes && i.hasNext(); ) {
+                sizeBytes -= i.next().sizeBytes();
+                i.remove();
+                evicted++;
+            }
+            currentSize = sizeBytes;
+        }
+        if (evicted > 0)
+            metric.add(ContainerMetrics.DOCSUM_CACHE_EVICTIONS.baseName(), evicted, null);
+        metric.set(ContainerMetrics.DOCSUM_CACHE_SIZE.baseName(), currentSize, null);
+    }
+
+    /** Records the outcome of looking up the summaries of the hits of a single fill */
+    void sampleLookups(String schema, int hits, int misses) {
+        Metric.Context context = metricContexts.computeIfAbsent(schema, __ -> metric.createContext(Map.of("schema", schema)));
+        if (hits > 0)
+            metric.add(ContainerMetrics.DOCSUM_CACHE_HITS.baseName(), hits, context);
+        if (misses > 0)
+            metric.add(ContainerMetrics.DOCSUM_CACHE_MISSES.baseName(), misses, context);
+    }
+
+    synchronized long sizeBytes() { return sizeBytes; }
+
+    synchronized int size() { return entries.size(); }
+
+    /** The identity of a summary: The document, and the summary class and fields requested */
+    record Key(String schema, String summaryClass, Set<String> summaryFields, GlobalId globalId) { }
+
+    private record Entry(byte[] docsum, long createdMillis, long sizeBytes) { }
+
+}
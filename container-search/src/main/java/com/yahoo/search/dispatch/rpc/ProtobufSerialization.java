@@ -53,6 +53,18 @@ public class ProtobufSerialization {
         return convertFromQuery(query, hits, serverId, requestTimeout).toByteArray();
     }
 
+    /**
+     * Returns the serialized form of the search request of the given query, without the parts which
+     * don't influence the result. Queries with identical keys will produce the same result from the same content.
+     */
+    public static byte[] serializeResultCacheKey(Query query, String serverId) {
+        return convertFromQuery(query, query.getHits(), serverId, 0).toBuilder()
+                                                                   .clearTimeout()
+                                                                   .clearSessionKey()
+                                                                   .build()
+                                                                   .toByteArray();
+    }
+
     private static void convertSearchReplyErrors(Result target, List<SearchProtocol.Error> errors) {
         for (var error : errors) {
             target.hits().addError(ErrorMessage.createSearchReplyError(error.getMessage()));
@@ -21,6 +21,8 @@ public class RpcInvokerFactory extends InvokerFactory {
     private final RpcConnectionPool rpcResourcePool;
     private final CompressPayload compressor;
     private final RpcProtobufFillInvoker.DecodePolicy decodeType;
+    /** The cache of summaries, or null if disabled */
+    private final DocsumCache docsumCache;
 
     private static RpcProtobufFillInvoker.DecodePolicy convert(DispatchConfig.SummaryDecodePolicy.Enum decoding) {
         return switch (decoding) {
@@ -30,10 +32,16 @@ public class RpcInvokerFactory extends InvokerFactory {
     }
 
     public RpcInvokerFactory(RpcConnectionPool rpcResourcePool, SearchGroups cluster, DispatchConfig dispatchConfig) {
+        this(rpcResourcePool, cluster, dispatchConfig, null);
+    }
+
+    public RpcInvokerFactory(RpcConnectionPool rpcResourcePool, SearchGroups cluster, DispatchConfig dispatchConfig,
+                             DocsumCache docsumCache) {
         super(cluster, dispatchConfig);
         this.rpcResourcePool = rpcResourcePool;
         this.compressor = new CompressService();
         this.decodeType = convert(dispatchConfig.summaryDecodePolicy());
+        this.docsumCache = docsumCache;
     }
 
     @Override
@@ -46,7 +54,8 @@ public class RpcInvokerFactory extends InvokerFactory {
         Query query = result.getQuery();
 
         boolean summaryNeedsQuery = searcher.summaryNeedsQuery(query);
+        boolean cacheable = docsumCache != null && ! searcher.summaryDependsOnQuery(query);
         return new RpcProtobufFillInvoker(rpcResourcePool, compressor, searcher.getDocumentDatabase(query),
-                                          searcher.getServerId(), decodeType, summaryNeedsQuery);
+                                          searcher.getServerId(), decodeType, summaryNeedsQuery, cacheable ? docsumCache : null);
     }
 }
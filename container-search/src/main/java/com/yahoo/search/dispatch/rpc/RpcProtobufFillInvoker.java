@@ -21,8 +21,11 @@ import com.yahoo.search.result.Hit;
 import com.yahoo.slime.ArrayTraverser;
 import com.yahoo.slime.BinaryFormat;
 import com.yahoo.slime.BinaryView;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
 
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -49,6 +52,11 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     private final String serverId;
     private final CompressPayload compressor;
     private final DecodePolicy decodePolicy;
+    /** The cache of summaries, or null if disabled */
+    private final DocsumCache docsumCache;
+
+    /** The summary fields requested by the query of this, if the summaries it fills may be cached, or null otherwise */
+    private Set<String> cacheableSummaryFields = null;
 
     private BlockingQueue<Pair<Client.ResponseOrError<ProtobufResponse>, List<FastHit>>> responses;
 
@@ -60,17 +68,25 @@ public class RpcProtobufFillInvoker extends FillInvoker {
 
     RpcProtobufFillInvoker(RpcConnectionPool resourcePool, CompressPayload compressor, DocumentDatabase documentDb,
                            String serverId, DecodePolicy decodePolicy, boolean summaryNeedsQuery) {
+        this(resourcePool, compressor, documentDb, serverId, decodePolicy, summaryNeedsQuery, null);
+    }
+
+    RpcProtobufFillInvoker(RpcConnectionPool resourcePool, CompressPayload compressor, DocumentDatabase documentDb,
+                           String serverId, DecodePolicy decodePolicy, boolean summaryNeedsQuery, DocsumCache docsumCache) {
         this.documentDb = documentDb;
         this.resourcePool = resourcePool;
         this.serverId = serverId;
         this.summaryNeedsQuery = summaryNeedsQuery;
         this.compressor = compressor;
         this.decodePolicy = decodePolicy;
+        this.docsumCache = docsumCache;
     }
 
     @Override
     protected void sendFillRequest(Result result, String summaryClass) {
-        ListMap<Integer, FastHit> hitsByNode = hitsByNode(result);
+        if (docsumCache != null && ! summaryNeedsQuery && ! result.getQuery().getNoCache())
+            cacheableSummaryFields = Set.copyOf(result.getQuery().getPresentation().getSummaryFields());
+        ListMap<Integer, FastHit> hitsByNode = hitsByNode(result, summaryClass);
 
         result.getQuery().trace(false, 5, "Sending ", hitsByNode.size(), " summary fetch requests with jrt/protobuf");
 
@@ -114,16 +130,41 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         responses.add(new Pair<>(response, hitsContext));
     }
 
-    /** Return a map of hits by their search node (partition) id */
-    private static ListMap<Integer, FastHit> hitsByNode(Result result) {
+    /** Return a map of the hits which are not filled from the cache by their search node (partition) id */
+    private ListMap<Integer, FastHit> hitsByNode(Result result, String summaryClass) {
         ListMap<Integer, FastHit> hitsByNode = new ListMap<>();
-        for (Hit hit : (Iterable<Hit>) result.hits()::unorderedDeepIterator)
-            if (hit instanceof FastHit fastHit)
-                hitsByNode.put(fastHit.getDistributionKey(), fastHit);
-
+        int cachedHits = 0;
+        for (Hit hit : (Iterable<Hit>) result.hits()::unorderedDeepIterator) {
+            if (hit instanceof FastHit fastHit) {
+                if (fillFromCache(fastHit, summaryClass))
+                    cachedHits++;
+                else
+                    hitsByNode.put(fastHit.getDistributionKey(), fastHit);
+            }
+        }
+        if (cacheableSummaryFields != null) {
+            docsumCache.sampleLookups(documentDb.schema().name(), cachedHits, hitsByNode.values().stream().mapToInt(List::size).sum());
+            result.getQuery().trace(false, 5, "Filled ", cachedHits, " hits from the summary cache");
+        }
         return hitsByNode;
     }
 
+    private boolean fillFromCache(FastHit hit, String summaryClass) {
+        DocsumCache.Key key = cacheKey(hit, summaryClass);
+        if (key == null) return false;
+        byte[] docsum = docsumCache.get(key);
+        if (docsum == null) return false;
+        var summary = (decodePolicy == DecodePolicy.ONDEMAND) ? BinaryView.inspect(docsum) : BinaryFormat.decode(docsum).get();
+        fill(hit, summaryClass, new SlimeAdapter(summary));
+        return true;
+    }
+
+    /** Returns the key of the summary of the given hit, or null if it should not be cached */
+    private DocsumCache.Key cacheKey(FastHit hit, String summaryClass) {
+        if (cacheableSummaryFields == null || hit.getRawGlobalId() == null) return null;
+        return new DocsumCache.Key(documentDb.schema().name(), summaryClass, cacheableSummaryFields, hit.getGlobalId());
+    }
+
     /** Send a docsums request to a node. Responses will be added to the given receiver. */
     private void sendDocsumsRequest(int nodeId, List<FastHit> hits, byte[] payload, Result result,
                                     double clientTimeout) {
@@ -215,17 +256,16 @@ public class RpcProtobufFillInvoker extends FillInvoker {
             }
             convertErrorsFromDocsumReply(result, protobuf.getErrorsList());
 
-            Inspector summaries = new SlimeAdapter(root.field("docsums"));
+            var summaries = root.field("docsums");
             if (!summaries.valid()) {
                 return 0; // No summaries; Perhaps we requested a non-existing summary class
             }
             int skippedHits = 0;
             for (int i = 0; i < hits.size(); i++) {
-                Inspector summary = summaries.entry(i).field("docsum");
+                var summary = summaries.entry(i).field("docsum");
                 if (summary.valid()) {
-                    hits.get(i).setField(Hit.SDDOCNAME_FIELD, documentDb.schema().name());
-                    hits.get(i).addSummary(documentDb.getDocsumDefinitionSet().getDocsum(summaryClass), summary);
-                    hits.get(i).setFilled(summaryClass);
+                    fill(hits.get(i), summaryClass, new SlimeAdapter(summary));
+                    putInCache(hits.get(i), summaryClass, summary);
                 } else {
                     skippedHits++;
                 }
@@ -238,6 +278,20 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         }
     }
 
+    private void fill(FastHit hit, String summaryClass, Inspector summary) {
+        hit.setField(Hit.SDDOCNAME_FIELD, documentDb.schema().name());
+        hit.addSummary(documentDb.getDocsumDefinitionSet().getDocsum(summaryClass), summary);
+        hit.setFilled(summaryClass);
+    }
+
+    private void putInCache(FastHit hit, String summaryClass, com.yahoo.slime.Inspector summary) {
+        DocsumCache.Key key = cacheKey(hit, summaryClass);
+        if (key == null) return;
+        Slime copy = new Slime();
+        SlimeUtils.copyObject(summary, copy.setObject());
+        docsumCache.put(key, BinaryFormat.encode(copy));
+    }
+
     private void throwTimeout() throws TimeoutException {
         throw new TimeoutException("Timed out waiting for summary data. " + outstandingResponses + " responses outstanding.");
     }
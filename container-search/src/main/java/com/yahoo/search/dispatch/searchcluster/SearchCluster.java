@@ -121,6 +121,17 @@ public class SearchCluster implements NodeManager<Node> {
         return (int) groups().stream().filter(Group::hasSufficientCoverage).count();
     }
 
+    /**
+     * Returns a token which changes whenever the number of active documents reported by the nodes
+     * of this cluster changes. This is used to detect when cached results may be out of date.
+     */
+    public long activeDocumentsToken() {
+        long token = 0;
+        for (Group group : groups())
+            token = 31 * token + group.activeDocuments();
+        return token;
+    }
+
     /**
      * Returns the single, local node we should dispatch queries directly to,
      * or empty if we should not dispatch directly.
@@ -13,6 +13,7 @@ import com.yahoo.container.logging.TraceRenderer;
 import com.yahoo.data.JsonProducer;
 import com.yahoo.data.access.Inspectable;
 import com.yahoo.data.access.Inspector;
+import com.yahoo.data.access.ObjectTraverser;
 import com.yahoo.data.access.Type;
 import com.yahoo.data.access.simple.JsonRender;
 import com.yahoo.data.access.simple.Value;
@@ -59,6 +60,7 @@ import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -554,6 +556,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
      */
     public static class FieldConsumer implements Hit.RawUtf8Consumer, TraceRenderer.FieldConsumer {
 
+        private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
         private final JsonGenerator generator;
         private final FieldConsumerSettings settings;
         private MutableBoolean hasFieldsField;
@@ -718,38 +722,191 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             return data;
         }
 
-        private Inspector convertTopLevelArray(Inspector data) {
+        /**
+         * Writes the given data to the generator, converting maps and weighted sets as {@link #maybeConvertMap}
+         * and {@link #maybeConvertWset} do, but streamed directly from the inspected (docsum) data,
+         * without building converted values or intermediate strings.
+         */
+        private void renderInspector(Inspector data) throws IOException {
+            if (data.type() == Type.ARRAY)
+                writeTopLevelArray(data);
+            else if (settings.convertDeep() && data.type() == Type.OBJECT)
+                writeObject(data, true);
+            else
+                writeInspector(data);
+        }
+
+        private void writeTopLevelArray(Inspector data) throws IOException {
             if (data.entryCount() > 0) {
-                var map = maybeConvertMap(data);
-                if (map != null) return map;
-                if (settings.jsonWsets) {
-                    var wset = maybeConvertWset(data);
-                    if (wset != null) return wset;
+                if (isMap(data)) {
+                    writeMap(data);
+                    return;
+                }
+                if (settings.jsonWsets && isWset(data)) {
+                    writeWset(data);
+                    return;
                 }
                 if (settings.convertDeep()) {
-                    var array = new Value.ArrayValue(data.entryCount());
-                    for (int i = 0; i < data.entryCount(); i++) {
-                        Inspector obj = data.entry(i);
-                        array.add(deepMaybeConvert(obj));
-                    }
-                    return array;
+                    writeArray(data, true);
+                    return;
                 }
             }
-            return data;
+            writeInspector(data);
         }
 
-        private Inspector maybeConvertData(Inspector data) {
+        /** Streaming version of {@link #deepMaybeConvert} */
+        private void writeConverted(Inspector data) throws IOException {
             if (data.type() == Type.ARRAY) {
-                return convertTopLevelArray(data);
+                if (settings.jsonDeepMaps && isMap(data)) {
+                    writeMap(data);
+                    return;
+                }
+                if (settings.jsonWsets && isWset(data)) {
+                    writeWset(data);
+                    return;
+                }
             }
-            if (settings.convertDeep() && data.type() == Type.OBJECT) {
-                return convertInsideObject(data);
+            if (data.type() == Type.OBJECT)
+                writeObject(data, true);
+            else
+                writeInspector(data);
+        }
+
+        /** Returns whether the given array would be converted by {@link #maybeConvertMap} */
+        private boolean isMap(Inspector data) {
+            for (int i = 0; i < data.entryCount(); i++) {
+                Inspector obj = data.entry(i);
+                if (obj.type() != Type.OBJECT || obj.fieldCount() != 2) return false;
+                Inspector key = obj.field("key");
+                if ( ! key.valid() || ! obj.field("value").valid()) return false;
+                if (key.type() != Type.STRING && ! settings.jsonMapsAll) return false;
             }
-            return data;
+            return true;
         }
 
-        private void renderInspector(Inspector data) throws IOException {
-            renderInspectorDirect(maybeConvertData(data));
+        /** Returns whether the given array would be converted by {@link #maybeConvertWset} */
+        private boolean isWset(Inspector data) {
+            for (int i = 0; i < data.entryCount(); i++) {
+                Inspector obj = data.entry(i);
+                if (obj.type() != Type.OBJECT || obj.fieldCount() != 2) return false;
+                Inspector item = obj.field("item");
+                Inspector weight = obj.field("weight");
+                if ( ! item.valid() || ! weight.valid()) return false;
+                if (weight.type() != Type.LONG) return false;
+                if (item.type() != Type.STRING && ! settings.jsonWsetsAll) return false;
+            }
+            return true;
+        }
+
+        private void writeMap(Inspector data) throws IOException {
+            String[] keys = distinctKeys(data, "key");
+            if (keys == null) { // Converting keeps the last value of each key, so let it handle this rare case
+                renderInspectorDirect(maybeConvertMap(data));
+                return;
+            }
+            generator().writeStartObject();
+            for (int i = 0; i < keys.length; i++) {
+                generator().writeFieldName(keys[i]);
+                Inspector value = data.entry(i).field("value");
+                if (settings.convertDeep())
+                    writeConverted(value);
+                else
+                    writeInspector(value);
+            }
+            generator().writeEndObject();
+        }
+
+        private void writeWset(Inspector data) throws IOException {
+            String[] items = distinctKeys(data, "item");
+            if (items == null) {
+                renderInspectorDirect(maybeConvertWset(data));
+                return;
+            }
+            generator().writeStartObject();
+            for (int i = 0; i < items.length; i++) {
+                generator().writeFieldName(items[i]);
+                generator().writeNumber(data.entry(i).field("weight").asLong());
+            }
+            generator().writeEndObject();
+        }
+
+        /** Returns the keys of the given map or weighted set as rendered, or null if they are not distinct */
+        private static String[] distinctKeys(Inspector data, String keyField) {
+            String[] keys = new String[data.entryCount()];
+            Set<String> seen = keys.length > 1 ? new HashSet<>() : null;
+            for (int i = 0; i < keys.length; i++) {
+                Inspector key = data.entry(i).field(keyField);
+                keys[i] = key.type() == Type.STRING ? key.asString() : JsonRender.render(key, new StringBuilder(), true).toString();
+                if (seen != null && ! seen.add(keys[i])) return null;
+            }
+            return keys;
+        }
+
+        private void writeArray(Inspector data, boolean convert) throws IOException {
+            generator().writeStartArray();
+            for (int i = 0; i < data.entryCount(); i++) {
+                if (convert)
+                    writeConverted(data.entry(i));
+                else
+                    writeInspector(data.entry(i));
+            }
+            generator().writeEndArray();
+        }
+
+        private void writeObject(Inspector data, boolean convert) throws IOException {
+            generator().writeStartObject();
+            try {
+                data.traverse((ObjectTraverser) (name, value) -> {
+                    try {
+                        generator().writeFieldName(name);
+                        if (convert)
+                            writeConverted(value);
+                        else
+                            writeInspector(value);
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator().writeEndObject();
+        }
+
+        /** Writes the given data as {@link JsonRender} would, without conversion */
+        private void writeInspector(Inspector data) throws IOException {
+            switch (data.type()) {
+                case EMPTY -> generator().writeNull();
+                case BOOL -> generator().writeBoolean(data.asBool());
+                case LONG -> generator().writeNumber(data.asLong());
+                case DOUBLE -> {
+                    double value = data.asDouble();
+                    if (Double.isFinite(value))
+                        generator().writeNumber(value);
+                    else
+                        generator().writeNull();
+                }
+                case STRING -> {
+                    byte[] utf8 = data.asUtf8();
+                    generator().writeUTF8String(utf8, 0, utf8.length);
+                }
+                case DATA -> writeData(data.asData());
+                case ARRAY -> writeArray(data, false);
+                case OBJECT -> writeObject(data, false);
+            }
+        }
+
+        private void writeData(byte[] data) throws IOException {
+            char[] hex = new char[2 + data.length * 2];
+            hex[0] = '0';
+            hex[1] = 'x';
+            for (int i = 0; i < data.length; i++) {
+                hex[2 + i * 2] = HEX_DIGITS[(data[i] >> 4) & 0xf];
+                hex[3 + i * 2] = HEX_DIGITS[data[i] & 0xf];
+            }
+            generator().writeString(hex, 0, hex.length);
         }
 
         private void renderInspectorDirect(Inspector data) throws IOException {
@@ -779,7 +936,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             } else if (field instanceof FeatureData) {
                 generator().writeRawValue(((FeatureData)field).toJson(settings.tensorShortForm, settings.tensorDirectValues));
             } else if (field instanceof Inspectable) {
-                renderInspectorDirect(((Inspectable)field).inspect());
+                writeInspector(((Inspectable)field).inspect());
             } else if (field instanceof JsonProducer) {
                 generator().writeRawValue(((JsonProducer) field).toJson());
             } else if (field instanceof StringFieldValue) {
@@ -108,6 +108,28 @@ public class IndexedBackendTestCase {
         assertTrue(backend.summaryNeedsQuery(q));
     }
 
+    @Test
+    void testDynamicSummaryDependsOnQueryAlsoWithQueryCache() {
+        var schema = new Schema.Builder(SCHEMA)
+                .add(new DocumentSummary.Builder("default").setDynamic(true).build())
+                .add(new RankProfile.Builder("default").setHasRankFeatures(false)
+                        .setHasSummaryFeatures(false)
+                        .build());
+        var backend = new IndexedBackend(new ClusterParams(CLUSTER_PARAMS.getSearcherName(), CLUSTER_PARAMS.getServerId(),
+                                                           CLUSTER_PARAMS.getDefaultSummary(), CLUSTER_PARAMS.getDocumentdbInfoConfig(),
+                                                           new SchemaInfo(List.of(schema.build()), List.of())),
+                                         MockDispatcher.create(List.of(new Node(CLUSTER, 0, "host0", 0))));
+        Query q = new Query("?query=foo");
+        doSearch(backend, q, 0, 10);
+        assertTrue(backend.summaryNeedsQuery(q));
+        assertTrue(backend.summaryDependsOnQuery(q));
+
+        q = new Query("?query=foo&ranking.queryCache=true");
+        doSearch(backend, q, 0, 10);
+        assertFalse(backend.summaryNeedsQuery(q)); // The query is cached in the backend ...
+        assertTrue(backend.summaryDependsOnQuery(q)); // ... so summaries must not be cached in the container
+    }
+
     @Test
     void testSinglePassGroupingIsNotForcedWithSingleNodeGroups() {
         MockDispatcher dispatcher = MockDispatcher.create(List.of(new Node(CLUSTER, 0, "host0", 0), new Node(CLUSTER, 2, "host1", 0)));
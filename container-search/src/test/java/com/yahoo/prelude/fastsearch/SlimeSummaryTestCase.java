@@ -21,6 +21,7 @@ import org.junit.jupiter.api.Test;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -71,6 +72,16 @@ public class SlimeSummaryTestCase {
                 docsum.lazyDecode("default", timeoutSummary(), hit));
     }
 
+    @Test
+    void testInvalidSummary() {
+        DocsumDefinitionSet docsum = createDocsumDefinitionSet();
+        FastHit hit = new FastHit();
+        byte[] summary = emptySummary();
+        byte[] truncated = Arrays.copyOf(summary, summary.length - 1);
+        assertNull(docsum.lazyDecode("default", truncated, hit));
+        assertNull(hit.getField("integer_field"));
+    }
+
     @Test
     void testDecoding() {
         Tensor tensor1 = Tensor.from("tensor(x{},y{}):{{x:foo,y:bar}:0.1}");
@@ -1,8 +1,14 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch;
 
+import ai.vespa.metrics.ContainerMetrics;
 import com.yahoo.compress.CompressionType;
+import com.yahoo.document.GlobalId;
+import com.yahoo.document.idstring.IdString;
+import com.yahoo.jdisc.test.MockMetric;
 import com.yahoo.prelude.Pong;
+import com.yahoo.prelude.fastsearch.ClusterParams;
+import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.prelude.fastsearch.VespaBackend;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
@@ -18,6 +24,8 @@ import com.yahoo.search.dispatch.searchcluster.Pinger;
 import com.yahoo.search.dispatch.searchcluster.PongHandler;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
 import com.yahoo.search.dispatch.searchcluster.SearchGroups;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.Hit;
 import com.yahoo.vespa.config.search.DispatchConfig;
 import com.yahoo.vespa.config.search.DispatchNodesConfig;
 import com.yahoo.yolean.UncheckedInterruptedException;
@@ -354,6 +362,53 @@ public class DispatcherTest {
         dispatcher.deconstruct();
     }
 
+    @Test
+    void testHitCountEstimatesAreNotCached() throws IOException {
+        DispatchConfig config = MockSearchCluster.createDispatchConfigBuilder(100.0).resultCacheSize(1 << 20).resultCacheTtl(60).build();
+        SearchCluster cluster = new MockSearchCluster("1", 1, 1);
+        List<Hit> hits = List.of(new FastHit(new GlobalId(IdString.createIdString("id:ns:type::a")).getRawId(), 0.2, 0, 0),
+                                 new FastHit(new GlobalId(IdString.createIdString("id:ns:type::b")).getRawId(), 0.1, 0, 0));
+        InvokerFactory invokerFactory = new InvokerFactory(cluster.groupList(), config) {
+            @Override
+            protected Optional<SearchInvoker> createNodeSearchInvoker(VespaBackend searcher, Query query, int maxHitsPerNode, Node node) {
+                return Optional.of(new MockInvoker(node.key(), new Coverage(100, 100, 1)) {
+                    @Override protected InvokerResult getSearchResult() {
+                        InvokerResult result = super.getSearchResult();
+                        if (hitsRequested == 0) result.getLeanHits().clear();
+                        return result;
+                    }
+                }.setHits(hits));
+            }
+            @Override
+            public FillInvoker createFillInvoker(VespaBackend searcher, Result result) {
+                fail("Unexpected call to createFillInvoker");
+                return null;
+            }
+        };
+        MockMetric metric = new MockMetric();
+        Dispatcher dispatcher = new Dispatcher(new ClusterMonitor<>(cluster, false), cluster, config, invokerFactory, metric);
+        cluster.pingIterationCompleted();
+        VespaBackend backend = new VespaBackend(new ClusterParams("container.0")) {
+            @Override protected Result doSearch2(String schema, Query query) { fail("Unexpected call"); return null; }
+            @Override protected void doPartialFill(Result result, String summaryClass) { fail("Unexpected call"); }
+        };
+
+        Query estimate = new Query("?query=foo&hitcountestimate=true");
+        try (SearchInvoker invoker = dispatcher.getSearchInvoker(estimate, backend)) {
+            assertEquals(0, invoker.search(estimate).getHitCount());
+        }
+
+        for (int i = 0; i < 2; i++) { // The second query is served from the cache
+            Query query = new Query("?query=foo");
+            try (SearchInvoker invoker = dispatcher.getSearchInvoker(query, backend)) {
+                assertEquals(2, invoker.search(query).getHitCount());
+            }
+        }
+        assertEquals(Map.of(Map.of("schema", ""), 1.0), metric.metrics().get(ContainerMetrics.RESULT_CACHE_MISSES.baseName()));
+        assertEquals(Map.of(Map.of("schema", ""), 1.0), metric.metrics().get(ContainerMetrics.RESULT_CACHE_HITS.baseName()));
+        dispatcher.deconstruct();
+    }
+
     interface FactoryStep {
         boolean returnInvoker(List<Node> nodes, boolean acceptIncompleteCoverage);
     }
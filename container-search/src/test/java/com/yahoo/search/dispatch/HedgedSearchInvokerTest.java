@@ -0,0 +1,195 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests hedging of queries to other groups.
+ */
+public class HedgedSearchInvokerTest {
+
+    @Test
+    void no_hedging_when_primary_responds_in_time() throws IOException {
+        var primary = new RespondingInvoker(0, true);
+        var backups = new AtomicInteger();
+        var invoker = new HedgedSearchInvoker(primary, () -> { backups.incrementAndGet(); return Optional.empty(); }, hedging(1000));
+        Result result = invoker.search(query());
+        invoker.close();
+        assertEquals(0, backups.get());
+        assertEquals(100, result.getCoverage(false).getDocs());
+        assertTrue(primary.closed);
+    }
+
+    @Test
+    void backup_is_used_when_primary_is_slow() throws IOException {
+        var primary = new RespondingInvoker(0, false);
+        var backup = new RespondingInvoker(1, true);
+        var invoker = new HedgedSearchInvoker(primary, () -> Optional.of(backup), hedging(1));
+        Result result = invoker.search(query());
+        invoker.close();
+        assertNull(result.hits().getError());
+        assertEquals(1, result.getCoverage(false).getNodes());
+        assertEquals(200, result.getCoverage(false).getDocs());
+        assertTrue(primary.closed);
+        assertTrue(backup.closed);
+    }
+
+    @Test
+    void latency_of_abandoned_primary_is_recorded_when_closed() throws IOException {
+        var primary = new RespondingInvoker(0, false);
+        var backup = new RespondingInvoker(1, true);
+        var primaryReleases = new ArrayList<Boolean>();
+        var backupReleases = new ArrayList<Boolean>();
+        primary.teardown((success, time) -> primaryReleases.add(success));
+        backup.teardown((success, time) -> backupReleases.add(success));
+        var invoker = new HedgedSearchInvoker(primary, () -> Optional.of(backup), hedging(1));
+        invoker.search(query());
+        invoker.close();
+        assertEquals(List.of(true), primaryReleases);
+        assertEquals(List.of(true), backupReleases);
+    }
+
+    @Test
+    void latency_of_failed_backup_is_not_recorded() throws IOException {
+        var primary = new RespondingInvoker(0, false);
+        var backup = new RespondingInvoker(1, true).failing();
+        var backupReleases = new ArrayList<Boolean>();
+        backup.teardown((success, time) -> backupReleases.add(success));
+        var invoker = new HedgedSearchInvoker(primary, () -> Optional.of(backup), hedging(1));
+        invoker.sendSearchRequest(query(), null);
+        new Thread(() -> { sleep(50); primary.respond(); }).start();
+        invoker.setFinalStatus(invoker.getSearchResult().getResult().hits().getError() == null);
+        invoker.close();
+        assertEquals(List.of(false), backupReleases);
+    }
+
+    @Test
+    void only_successful_responses_are_sampled() throws IOException {
+        var hedging = hedging(1000);
+        while (hedging.tryHedge()) { } // Use up the budget, which each sample adds to
+
+        var failing = new HedgedSearchInvoker(new RespondingInvoker(0, true).failing(), Optional::empty, hedging);
+        assertNotNull(failing.search(query()).hits().getError());
+        failing.close();
+        assertFalse(hedging.tryHedge());
+
+        var succeeding = new HedgedSearchInvoker(new RespondingInvoker(0, true), Optional::empty, hedging);
+        assertNull(succeeding.search(query()).hits().getError());
+        succeeding.close();
+        assertTrue(hedging.tryHedge());
+    }
+
+    @Test
+    void primary_is_used_when_backup_fails() throws IOException {
+        var primary = new RespondingInvoker(0, false);
+        var backup = new RespondingInvoker(1, true).failing();
+        var invoker = new HedgedSearchInvoker(primary, () -> Optional.of(backup), hedging(1));
+        var query = query();
+        invoker.sendSearchRequest(query, null);
+        new Thread(() -> { sleep(50); primary.respond(); }).start();
+        InvokerResult result = invoker.getSearchResult();
+        invoker.close();
+        assertNull(result.getResult().hits().getError());
+        assertEquals(100, result.getResult().getCoverage(false).getDocs());
+    }
+
+    @Test
+    void hedging_is_limited_to_a_fraction_of_queries() {
+        var hedging = new Hedging(90, 0.1);
+        assertFalse(hedging.tryHedge()); // No samples yet
+        for (int i = 0; i < Hedging.minSamples + 28; i++)
+            hedging.sample(Duration.ofMillis(i < 115 ? 1 : 100));
+        assertEquals(Duration.ofMillis(100), hedging.delay());
+        for (int i = 0; i < 10; i++)
+            assertTrue(hedging.tryHedge());
+        assertFalse(hedging.tryHedge());
+        for (int i = 0; i < 11; i++)
+            hedging.sample(Duration.ofMillis(1));
+        assertTrue(hedging.tryHedge());
+        assertFalse(hedging.tryHedge());
+    }
+
+    /** Returns a hedging policy which has seen the given response time, and has budget for hedging */
+    private static Hedging hedging(long responseTimeMillis) {
+        var hedging = new Hedging(50, 1.0);
+        for (int i = 0; i < 2 * Hedging.minSamples; i++)
+            hedging.sample(Duration.ofMillis(responseTimeMillis));
+        assertNotNull(hedging.delay());
+        return hedging;
+    }
+
+    private static Query query() {
+        Query query = new Query();
+        query.setTimeout(5000);
+        return query;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class RespondingInvoker extends SearchInvoker {
+
+        private final int key;
+        private final boolean respondImmediately;
+        private boolean failing = false;
+        private Query query;
+        boolean closed = false;
+
+        RespondingInvoker(int key, boolean respondImmediately) {
+            super(Optional.empty());
+            this.key = key;
+            this.respondImmediately = respondImmediately;
+        }
+
+        RespondingInvoker failing() { failing = true; return this; }
+
+        void respond() { responseAvailable(); }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) {
+            this.query = query;
+            if (respondImmediately)
+                respond();
+            return context;
+        }
+
+        @Override
+        protected InvokerResult getSearchResult() {
+            if (failing)
+                return errorResult(query, ErrorMessage.createBackendCommunicationError("Failed"));
+            InvokerResult result = new InvokerResult(query, 10);
+            result.getResult().setCoverage(new Coverage(100 * (key + 1), 100 * (key + 1), 1));
+            return result;
+        }
+
+        @Override
+        protected void release() {
+            closed = true;
+        }
+
+    }
+
+}
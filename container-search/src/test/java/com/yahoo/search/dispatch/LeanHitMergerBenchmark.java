@@ -0,0 +1,70 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the time to merge the hits from many content nodes into the hits to return,
+ * for 16 to 256 partitions, with and without sort data.
+ */
+public class LeanHitMergerBenchmark {
+
+    private static final int hits = 400;
+    private static final int hitsPerPartition = 400;
+
+    public void run() {
+        for (boolean sortData : new boolean[] { false, true }) {
+            for (int partitions = 16; partitions <= 256; partitions *= 2) {
+                List<List<LeanHit>> lists = createPartitions(partitions, sortData);
+                long merged = 0;
+                for (int i = 0; i < 1000; i++) // Warm-up
+                    merged += merge(lists);
+
+                int iterations = 20_000 / partitions * 16;
+                long startTime = System.nanoTime();
+                for (int i = 0; i < iterations; i++)
+                    merged += merge(lists);
+                long elapsedNanos = System.nanoTime() - startTime;
+                out(partitions + " partitions, " + (sortData ? "sort data" : "relevance") + ": " +
+                    (elapsedNanos / iterations / 1000) + " us per merge (" + merged + " hits merged)");
+            }
+        }
+    }
+
+    private int merge(List<List<LeanHit>> lists) {
+        LeanHitMerger merger = new LeanHitMerger();
+        for (List<LeanHit> list : lists)
+            merger.add(list);
+        List<LeanHit> merged = new ArrayList<>(hits);
+        merger.mergeInto(0, hits, merged);
+        return merged.size();
+    }
+
+    private List<List<LeanHit>> createPartitions(int partitions, boolean sortData) {
+        Random random = new Random(partitions);
+        List<List<LeanHit>> lists = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            List<LeanHit> list = new ArrayList<>();
+            for (int i = 0; i < hitsPerPartition; i++) {
+                byte[] gid = ByteBuffer.allocate(12).putInt(p).putInt(i).array();
+                list.add(sortData ? new LeanHit(gid, p, p, 0, ByteBuffer.allocate(8).putLong(random.nextLong()).array())
+                                  : new LeanHit(gid, p, p, random.nextDouble()));
+            }
+            list.sort(null);
+            lists.add(list);
+        }
+        return lists;
+    }
+
+    private void out(String string) {
+        System.out.println(string);
+    }
+
+    public static void main(String[] args) {
+        new LeanHitMergerBenchmark().run();
+    }
+
+}
@@ -0,0 +1,95 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class LeanHitMergerTest {
+
+    @Test
+    void requireThatHitsAreMergedInOrder() {
+        LeanHitMerger merger = new LeanHitMerger();
+        merger.add(List.of(hit(1, 0.9), hit(2, 0.5), hit(3, 0.1)));
+        merger.add(List.of());
+        merger.add(List.of(hit(4, 0.8), hit(5, 0.7)));
+        merger.add(List.of(hit(6, 1.0)));
+        assertEquals(List.of(6, 1, 4, 5, 2, 3), ids(merge(merger, 0, 10)));
+        assertEquals(List.of(4, 5, 2), ids(merge(merger, 2, 3)));
+        assertEquals(List.of(), ids(merge(merger, 6, 3)));
+        assertEquals(List.of(), ids(merge(merger, 0, 0)));
+    }
+
+    @Test
+    void requireThatDuplicatesAreMergedOnce() {
+        LeanHitMerger merger = new LeanHitMerger();
+        LeanHit duplicate = hit(2, 0.5);
+        merger.add(List.of(hit(1, 0.9), duplicate, hit(3, 0.1)));
+        merger.add(List.of(hit(2, 0.5), hit(4, 0.2)));
+        List<LeanHit> merged = merge(merger, 0, 10);
+        assertEquals(List.of(1, 2, 4, 3), ids(merged));
+        assertSame(duplicate, merged.get(1));
+        assertEquals(List.of(4, 3), ids(merge(merger, 2, 10)));
+    }
+
+    @Test
+    void requireThatDuplicatesWithinAListAreKept() {
+        LeanHitMerger single = new LeanHitMerger();
+        single.add(List.of(hit(1, 0.9), hit(2, 0.5), hit(2, 0.5), hit(3, 0.1)));
+        assertEquals(List.of(1, 2, 2, 3), ids(merge(single, 0, 10)));
+
+        LeanHitMerger merger = new LeanHitMerger();
+        merger.add(List.of(hit(1, 0.9), hit(2, 0.5), hit(2, 0.5), hit(3, 0.1)));
+        merger.add(List.of(hit(2, 0.5), hit(4, 0.2)));
+        merger.add(List.of(hit(2, 0.5), hit(2, 0.5), hit(2, 0.5)));
+        assertEquals(List.of(1, 2, 2, 2, 4, 3), ids(merge(merger, 0, 10)));
+        assertEquals(List.of(2, 2, 4), ids(merge(merger, 2, 3)));
+    }
+
+    @Test
+    void requireThatSingleListIsWindowed() {
+        LeanHitMerger merger = new LeanHitMerger();
+        merger.add(List.of(hit(1, 0.9), hit(2, 0.5), hit(3, 0.1)));
+        assertEquals(List.of(2), ids(merge(merger, 1, 1)));
+    }
+
+    @Test
+    void requireThatMergeEqualsSortingAllHits() {
+        Random random = new Random(42);
+        for (int partitions : new int[] { 2, 3, 16, 64 }) {
+            LeanHitMerger merger = new LeanHitMerger();
+            List<LeanHit> all = new ArrayList<>();
+            for (int p = 0; p < partitions; p++) {
+                List<LeanHit> hits = new ArrayList<>();
+                for (int i = random.nextInt(20); i > 0; i--)
+                    hits.add(hit(p * 100 + i, random.nextInt(50) / 10.0));
+                hits.sort(null);
+                merger.add(hits);
+                all.addAll(hits);
+            }
+            all.sort(null);
+            assertEquals(ids(all.subList(3, Math.min(all.size(), 3 + 40))), ids(merge(merger, 3, 40)), "Partitions: " + partitions);
+        }
+    }
+
+    private static List<LeanHit> merge(LeanHitMerger merger, int offset, int hits) {
+        List<LeanHit> merged = new ArrayList<>();
+        merger.mergeInto(offset, hits, merged);
+        return merged;
+    }
+
+    private static LeanHit hit(int id, double relevance) {
+        return new LeanHit(ByteBuffer.allocate(12).putInt(id).array(), 0, 0, relevance);
+    }
+
+    private static List<Integer> ids(List<LeanHit> hits) {
+        return hits.stream().map(hit -> ByteBuffer.wrap(hit.getGid()).getInt()).toList();
+    }
+
+}
@@ -1,9 +1,12 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch;
 
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.test.MockMetric;
 import com.yahoo.search.dispatch.LoadBalancer.AdaptiveScheduler;
 import com.yahoo.search.dispatch.LoadBalancer.BestOfRandom2;
 import com.yahoo.search.dispatch.LoadBalancer.GroupStatus;
+import com.yahoo.search.dispatch.LoadBalancer.PeakEwmaScheduler;
 import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.Node;
 import org.junit.jupiter.api.Test;
@@ -15,6 +18,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -231,19 +236,69 @@ public class LoadBalancerTest {
 
     }
 
+    @Test
+    void requirePeakEwmaToJumpToSlowResponsesAndDecayWithTime() {
+        AtomicLong nanos = new AtomicLong(0);
+        GroupStatus.Decayer decayer = new PeakEwmaScheduler.PeakEwma(nanos::get);
+        assertEquals(0.001, decayer.averageCost(), delta);
+        decayer.decay(RequestDuration.of(Duration.ofMillis(100)));
+        assertEquals(0.1, decayer.averageCost(), delta);
+        nanos.set(Duration.ofSeconds(5).toNanos());
+        assertEquals(0.036787944, decayer.averageCost(), delta);
+        decayer.decay(RequestDuration.of(Duration.ofMillis(10)));
+        assertEquals(0.043109149, decayer.averageCost(), delta);
+        decayer.decay(RequestDuration.of(Duration.ofMillis(50)));
+        assertEquals(0.05, decayer.averageCost(), delta);
+        nanos.set(Duration.ofSeconds(1000).toNanos());
+        assertEquals(0.001, decayer.averageCost(), delta);
+    }
+
+    @Test
+    void requirePeakEwmaSchedulerToAvoidSlowAndBusyGroups() {
+        AtomicLong nanos = new AtomicLong(0);
+        Map<Integer, GroupStatus> scoreboard = createScoreBoard(2);
+        PeakEwmaScheduler sched = new PeakEwmaScheduler(sequence(0.1, 0.9), nanos::get, scoreboard);
+
+        assertEquals(0, sched.takeNextGroup(null).get().groupId());
+        allocate(scoreboard.get(0));
+        assertEquals(1, sched.takeNextGroup(null).get().groupId());
+        scoreboard.get(0).release(true, RequestDuration.of(Duration.ofMillis(1)));
+
+        updateSearchTime(scoreboard.get(0), RequestDuration.of(Duration.ofMillis(100)));
+        for (int i = 0; i < 10; i++)
+            allocate(scoreboard.get(1));
+        assertEquals(1, sched.takeNextGroup(null).get().groupId());
+        assertEquals(0, sched.takeNextGroup(Set.of(1)).get().groupId());
+    }
+
+    @Test
+    void requirePeakEwmaGroupScoresToBeEmitted() {
+        MockMetric metric = new MockMetric();
+        LoadBalancer lb = new LoadBalancer(List.of(newGroup(0), newGroup(1)), LoadBalancer.Policy.PEAK_EWMA, metric,
+                                           sequence(0.1, 0.9), () -> 0);
+        Group taken = lb.takeGroup(null).get();
+        assertEquals(0, taken.id());
+        assertEquals(2.0, metric.metrics().get(ContainerMetrics.DISPATCH_GROUP_SCORE.baseName()).get(Map.of("groupId", "0")), delta);
+        lb.releaseGroup(taken, true, RequestDuration.of(Duration.ofMillis(20)));
+        assertEquals(20.0, metric.metrics().get(ContainerMetrics.DISPATCH_GROUP_SCORE.baseName()).get(Map.of("groupId", "0")), delta);
+    }
+
     private static void updateSearchTime(GroupStatus gs, RequestDuration time) {
         gs.allocate();
         gs.release(true, time);
     }
 
     private GroupStatus newGroupStatus(int id) {
-        Group dummyGroup = new Group(id, List.of()) {
+        return new GroupStatus(newGroup(id));
+    }
+
+    private Group newGroup(int id) {
+        return new Group(id, List.of()) {
             @Override
             public boolean hasSufficientCoverage() {
                 return true;
             }
         };
-        return new GroupStatus(dummyGroup);
     }
 
     private Random sequence(double... values) {
@@ -0,0 +1,160 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.document.GlobalId;
+import com.yahoo.document.idstring.IdString;
+import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.grouping.GroupingRequest;
+import com.yahoo.search.grouping.request.GroupingOperation;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.Hit;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the dispatcher result cache.
+ */
+public class ResultCacheTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final MockMetric metric = new MockMetric();
+    private final ResultCache cache = new ResultCache(1 << 20, 1.0, now::get, metric);
+
+    @Test
+    void complete_results_are_cached_and_reused() throws IOException {
+        ResultCache.Key key = key("?query=foo");
+        assertNull(cache.get(key));
+        searchAndCache(key, new Coverage(100, 100, 1), hits(3));
+        assertEquals(1, cache.size());
+
+        ResultCache.CachedResult cached = cache.get(key);
+        assertNotNull(cached);
+        Query query = new Query("?query=foo");
+        Result result = new CachedResultSearchInvoker(cached).search(query);
+        assertEquals(3, result.getHitCount());
+        assertEquals(100, result.getCoverage(false).getDocs());
+        assertTrue(result.getCoverage(false).getFull());
+        assertEquals(0.3, result.hits().get(0).getRelevance().getScore(), 1e-9);
+
+        assertEquals(1.0, metric(ContainerMetrics.RESULT_CACHE_HITS));
+        assertEquals(1.0, metric(ContainerMetrics.RESULT_CACHE_MISSES));
+    }
+
+    @Test
+    void results_are_cached_without_metrics() {
+        ResultCache withoutMetrics = new ResultCache(1 << 20, 1.0, now::get, null);
+        ResultCache.Key key = key("?query=foo");
+        assertNull(withoutMetrics.get(key));
+        withoutMetrics.put(key, result(new Coverage(100, 100, 1), hits(3)));
+        assertNotNull(withoutMetrics.get(key));
+        assertTrue(metric.metrics().isEmpty());
+    }
+
+    @Test
+    void cached_results_are_keyed_on_query_and_documents() {
+        ResultCache.Key key = key("?query=foo");
+        assertEquals(key, key("?query=foo"));
+        assertEquals(key, key("?query=foo&timeout=7s"));
+        assertNotEquals(key, key("?query=bar"));
+        assertNotEquals(key, key("?query=foo&hits=20"));
+        assertNotEquals(key, key("?query=foo&ranking=other"));
+        assertNotEquals(key, cache.keyOf(new Query("?query=foo"), "server", 2).get());
+    }
+
+    @Test
+    void some_queries_are_not_cached() {
+        assertTrue(cache.keyOf(new Query("?query=foo&nocache"), "server", 1).isEmpty());
+        assertTrue(cache.keyOf(new Query("?query=foo&model.searchPath=0/0"), "server", 1).isEmpty());
+        assertTrue(cache.keyOf(new Query("?query=foo&ranking.queryCache=true"), "server", 1).isEmpty());
+        assertTrue(cache.keyOf(new Query("?query=foo&hitcountestimate=true"), "server", 1).isEmpty());
+        Query grouping = new Query("?query=foo");
+        GroupingRequest.newInstance(grouping).setRootOperation(GroupingOperation.fromString("all(group(a) each(output(count())))"));
+        assertTrue(cache.keyOf(grouping, "server", 1).isEmpty());
+        assertTrue(cache.keyOf(new Query("?query=foo&trace.level=1"), "server", 1).isEmpty());
+    }
+
+    @Test
+    void incomplete_results_are_not_cached() throws IOException {
+        searchAndCache(key("?query=foo"), new Coverage(50, 100, 1), hits(3));
+        assertEquals(0, cache.size());
+        searchAndCache(key("?query=foo"), new Coverage(100, 100, 1).setDegradedReason(Coverage.DEGRADED_BY_TIMEOUT), hits(3));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cached_results_expire() throws IOException {
+        ResultCache.Key key = key("?query=foo");
+        searchAndCache(key, new Coverage(100, 100, 1), hits(3));
+        now.set(1000);
+        assertNotNull(cache.get(key));
+        now.set(1001);
+        assertNull(cache.get(key));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.sizeBytes());
+    }
+
+    @Test
+    void least_recently_used_results_are_evicted() throws IOException {
+        ResultCache.Key a = key("?query=a");
+        searchAndCache(a, new Coverage(100, 100, 1), hits(3));
+        long entrySize = cache.sizeBytes();
+
+        ResultCache small = new ResultCache(2 * entrySize, 1.0, now::get, metric);
+        ResultCache.Key b = key("?query=b");
+        ResultCache.Key c = key("?query=c");
+        small.put(a, result(new Coverage(100, 100, 1), hits(3)));
+        small.put(b, result(new Coverage(100, 100, 1), hits(3)));
+        assertNotNull(small.get(a)); // b is now least recently used
+        small.put(c, result(new Coverage(100, 100, 1), hits(3)));
+        assertEquals(2, small.size());
+        assertNull(small.get(b));
+        assertNotNull(small.get(a));
+        assertNotNull(small.get(c));
+        assertEquals((double) small.sizeBytes(), metric.metrics().get(ContainerMetrics.RESULT_CACHE_SIZE.baseName()).get(Map.of()));
+    }
+
+    private ResultCache.Key key(String request) {
+        return cache.keyOf(new Query(request), "server", 1).get();
+    }
+
+    private void searchAndCache(ResultCache.Key key, Coverage coverage, List<Hit> hits) throws IOException {
+        var invoker = new ResultCachingSearchInvoker(new MockInvoker(0, coverage).setHits(hits), cache, key);
+        invoker.search(new Query("?query=foo"));
+        invoker.close();
+    }
+
+    private static InvokerResult result(Coverage coverage, List<Hit> hits) {
+        InvokerResult result = new InvokerResult(new Query(), hits.size());
+        result.getResult().setCoverage(coverage);
+        for (Hit hit : hits)
+            result.getLeanHits().add(new LeanHit(((FastHit)hit).getRawGlobalId(), 0, 0, hit.getRelevance().getScore()));
+        return result;
+    }
+
+    private static List<Hit> hits(int count) {
+        return IntStream.range(0, count)
+                        .mapToObj(i -> (Hit) new FastHit(new GlobalId(IdString.createIdString("id:ns:type::" + i)).getRawId(),
+                                                         (count - i) / 10.0, 0, 0))
+                        .toList();
+    }
+
+    private double metric(ContainerMetrics name) {
+        return metric.metrics().get(name.baseName()).get(Map.of("schema", ""));
+    }
+
+}
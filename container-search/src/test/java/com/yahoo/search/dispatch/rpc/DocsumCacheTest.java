@@ -0,0 +1,88 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.document.GlobalId;
+import com.yahoo.document.idstring.IdString;
+import com.yahoo.jdisc.test.MockMetric;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests the dispatcher document summary cache.
+ */
+public class DocsumCacheTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final MockMetric metric = new MockMetric();
+
+    @Test
+    void summaries_are_keyed_on_document_and_summary() {
+        var cache = new DocsumCache(1 << 20, 10.0, now::get, metric);
+        cache.put(key("default", Set.of(), 1), new byte[] { 1, 2, 3 });
+        assertArrayEquals(new byte[] { 1, 2, 3 }, cache.get(key("default", Set.of(), 1)));
+        assertNull(cache.get(key("default", Set.of(), 2)));
+        assertNull(cache.get(key("other", Set.of(), 1)));
+        assertNull(cache.get(key("default", Set.of("title"), 1)));
+        assertEquals(DocsumCache.entryOverheadBytes + 3, cache.sizeBytes());
+    }
+
+    @Test
+    void summaries_expire() {
+        var cache = new DocsumCache(1 << 20, 10.0, now::get, metric);
+        cache.put(key("default", Set.of(), 1), new byte[10]);
+        now.set(10_000);
+        assertNotNull(cache.get(key("default", Set.of(), 1)));
+        now.set(10_001);
+        assertNull(cache.get(key("default", Set.of(), 1)));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.sizeBytes());
+        assertEquals(1.0, metric(ContainerMetrics.DOCSUM_CACHE_INVALIDATIONS, Map.of()));
+    }
+
+    @Test
+    void least_recently_used_summaries_are_evicted() {
+        var cache = new DocsumCache(2 * (DocsumCache.entryOverheadBytes + 10), 10.0, now::get, metric);
+        cache.put(key("default", Set.of(), 1), new byte[10]);
+        cache.put(key("default", Set.of(), 2), new byte[10]);
+        assertNotNull(cache.get(key("default", Set.of(), 1))); // 2 is now least recently used
+        cache.put(key("default", Set.of(), 3), new byte[10]);
+        assertEquals(2, cache.size());
+        assertNull(cache.get(key("default", Set.of(), 2)));
+        assertNotNull(cache.get(key("default", Set.of(), 1)));
+        assertNotNull(cache.get(key("default", Set.of(), 3)));
+        assertEquals(1.0, metric(ContainerMetrics.DOCSUM_CACHE_EVICTIONS, Map.of()));
+        assertEquals((double) cache.sizeBytes(), metric(ContainerMetrics.DOCSUM_CACHE_SIZE, Map.of()));
+
+        cache.put(key("default", Set.of(), 4), new byte[1000]); // Larger than the cache
+        assertNull(cache.get(key("default", Set.of(), 4)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void lookups_are_sampled_per_schema() {
+        var cache = new DocsumCache(1 << 20, 10.0, now::get, metric);
+        cache.sampleLookups("music", 3, 7);
+        cache.sampleLookups("music", 1, 0);
+        assertEquals(4.0, metric(ContainerMetrics.DOCSUM_CACHE_HITS, Map.of("schema", "music")));
+        assertEquals(7.0, metric(ContainerMetrics.DOCSUM_CACHE_MISSES, Map.of("schema", "music")));
+    }
+
+    private static DocsumCache.Key key(String summaryClass, Set<String> summaryFields, int document) {
+        return new DocsumCache.Key("music", summaryClass, summaryFields,
+                                   new GlobalId(IdString.createIdString("id:ns:music::" + document)));
+    }
+
+    private double metric(ContainerMetrics name, Map<String, ?> dimensions) {
+        return metric.metrics().get(name.baseName()).get(dimensions);
+    }
+
+}
@@ -49,6 +49,8 @@ import com.yahoo.search.statistics.ElapsedTimeTestCase;
 import com.yahoo.search.statistics.ElapsedTimeTestCase.CreativeTimeSource;
 import com.yahoo.search.statistics.ElapsedTimeTestCase.UselessSearcher;
 import com.yahoo.search.statistics.TimeTracker;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.BinaryView;
 import com.yahoo.slime.Cursor;
 import com.yahoo.slime.Slime;
 import com.yahoo.tensor.Tensor;
@@ -1522,6 +1524,44 @@ public class JsonRendererTestCase {
         assertEqualJson(expected.toString(), summary);
     }
 
+    @Test
+    @Timeout(300)
+    void testFieldsStreamedFromBinaryDocsum() throws IOException, InterruptedException, ExecutionException {
+        Slime slime = new Slime();
+        Cursor map = slime.setObject().setArray("f1");
+        for (var entry : List.of(Map.entry("a", 1), Map.entry("b", 2), Map.entry("a", 3))) {
+            Cursor item = map.addObject();
+            item.setString("key", entry.getKey());
+            item.setLong("value", entry.getValue());
+        }
+        Cursor struct = slime.get().setObject("f2");
+        struct.setString("s", "bl\u00e5b\u00e6r \u20ac \"quoted\"");
+        struct.setData("d", new byte[] { 0x0f, (byte)0xa0 });
+        struct.setDouble("n", Double.NaN);
+        struct.setArray("e");
+        Cursor wset = struct.setArray("w").addObject();
+        wset.setLong("item", 5);
+        wset.setLong("weight", 1);
+        var docsum = BinaryView.inspect(BinaryFormat.encode(slime));
+
+        Hit h = new Hit("myHitName");
+        h.setField("f1", new SlimeAdapter(docsum.field("f1")));
+        h.setField("f2", new SlimeAdapter(docsum.field("f2")));
+        Result r = newEmptyResult();
+        r.hits().add(h);
+        r.setTotalHitCount(1L);
+        String expected = "{ \"root\": { \"id\": \"toplevel\", \"relevance\": 1.0, \"fields\": { \"totalCount\": 1 }," +
+                          "  \"children\": [ { \"id\": \"myHitName\", \"relevance\": 1.0," +
+                          "    \"fields\": {" +
+                          "      \"f1\": { \"a\": 3, \"b\": 2 }," +
+                          "      \"f2\": { \"s\": \"bl\u00e5b\u00e6r \u20ac \\\"quoted\\\"\", \"d\": \"0x0FA0\", \"n\": null, \"e\": {}," +
+                          "              \"w\": { \"5\": 1 } }" +
+                          "    }" +
+                          "  } ]" +
+                          "}}";
+        assertEqualJson(expected, render(r));
+    }
+
     @Test
     @Timeout(300)
     void testThatTheJsonValidatorCanCatchErrors() {
@@ -23,6 +23,10 @@ import static com.yahoo.document.json.JsonReader.ReaderState.END_OF_FEED;
 import static com.yahoo.document.json.document.DocumentParser.CONDITION;
 import static com.yahoo.document.json.document.DocumentParser.CREATE_IF_NON_EXISTENT;
 import static com.yahoo.document.json.document.DocumentParser.FIELDS;
+import static com.yahoo.document.json.document.DocumentParser.ID;
+import static com.yahoo.document.json.document.DocumentParser.PUT;
+import static com.yahoo.document.json.document.DocumentParser.REMOVE;
+import static com.yahoo.document.json.document.DocumentParser.UPDATE;
 import static com.yahoo.document.json.readers.JsonParserHelpers.expectArrayStart;
 
 /**
@@ -156,6 +160,117 @@ public class JsonReader {
         }
     }
 
+    /**
+     * Reads the next operation from a stream of root level operation objects, such as JSONL, where each
+     * object specifies its operation type and document ID like the elements of a feed array do.
+     * The fields of an operation are parsed directly from the stream when the document ID precedes them,
+     * and are buffered otherwise.
+     * An invalid operation is skipped, so reading may continue with the next one, unless the input is not valid JSON,
+     * in which case this returns empty on subsequent calls.
+     *
+     * @return the next parsed document operation, or empty if we have reached the end
+     * @throws IllegalArgumentException if the operation is invalid
+     */
+    public Optional<ParsedDocumentOperation> readNextOperation() {
+        if (state == END_OF_FEED)
+            return Optional.empty();
+
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                state = END_OF_FEED;
+                return Optional.empty();
+            }
+            if (token != JsonToken.START_OBJECT) {
+                state = END_OF_FEED;
+                throw new IllegalArgumentException("expected start of document operation object, got " + token);
+            }
+            state = ReaderState.READING;
+            try {
+                return Optional.of(readOperationObject());
+            }
+            catch (IllegalArgumentException e) {
+                if (e.getCause() instanceof IOException) // Jackson is not able to recover from structural parse errors
+                    state = END_OF_FEED;
+                else // Skip the remainder of the invalid operation
+                    while ( ! parser.getParsingContext().inRoot() && parser.nextToken() != null);
+
+                throw e;
+            }
+        }
+        catch (IOException e) {
+            state = END_OF_FEED;
+            throw new IllegalArgumentException("failed parsing document operation", e);
+        }
+    }
+
+    private ParsedDocumentOperation readOperationObject() throws IOException {
+        DocumentParseInfo documentParseInfo = new DocumentParseInfo();
+        VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader(typeManager.getIgnoreUndefinedFields());
+        Boolean create = null;
+        String condition = null;
+        ParsedDocumentOperation operation = null;
+        while (JsonToken.END_OBJECT != parser.nextValue()) {
+            switch (parser.currentName()) {
+                case PUT, ID, UPDATE, REMOVE -> {
+                    if (null != documentParseInfo.documentId)
+                        throw new IllegalArgumentException("document operation specifies more than one of \"put\", \"update\" and \"remove\"");
+
+                    documentParseInfo.operationType = switch (parser.currentName()) {
+                        case UPDATE -> DocumentOperationType.UPDATE;
+                        case REMOVE -> DocumentOperationType.REMOVE;
+                        default -> DocumentOperationType.PUT;
+                    };
+                    documentParseInfo.documentId = new DocumentId(parser.getValueAsString());
+                }
+                case FIELDS -> {
+                    if (null == documentParseInfo.documentId) {
+                        documentParseInfo.fieldsBuffer.bufferObject(parser);
+                        break;
+                    }
+                    documentParseInfo.fieldsBuffer = new LazyTokenBuffer(parser);
+                    operation = vespaJsonDocumentReader.createDocumentOperation(
+                            getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager), documentParseInfo);
+
+                    if ( ! documentParseInfo.fieldsBuffer.isEmpty())
+                        throw new IllegalArgumentException("expected all content to be consumed by document parsing, but " +
+                                                           documentParseInfo.fieldsBuffer.nesting() + " levels remain");
+                }
+                case CONDITION -> {
+                    if ( ! JsonToken.VALUE_STRING.equals(parser.currentToken()) && ! JsonToken.VALUE_NULL.equals(parser.currentToken()))
+                        throw new IllegalArgumentException("expected string value for condition, got " + parser.currentToken());
+
+                    condition = parser.getValueAsString();
+                }
+                case CREATE_IF_NON_EXISTENT -> {
+                    create = parser.getBooleanValue(); // Throws if not boolean.
+                }
+                default -> {
+                    // We ignore stray fields, but need to ensure structural balance in doing do.
+                    if (parser.currentToken().isStructStart()) parser.skipChildren();
+                }
+            }
+        }
+
+        if (null == documentParseInfo.documentId)
+            throw new IllegalArgumentException("Missing a document operation ('put', 'update' or 'remove')");
+
+        if (null == operation)
+            operation = vespaJsonDocumentReader.createDocumentOperation(
+                    getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager), documentParseInfo);
+
+        if (null != create) {
+            switch (documentParseInfo.operationType) {
+                case PUT -> ((DocumentPut) operation.operation()).setCreateIfNonExistent(create);
+                case UPDATE -> ((DocumentUpdate) operation.operation()).setCreateIfNonExistent(create);
+                case REMOVE -> throw new IllegalArgumentException(CREATE_IF_NON_EXISTENT + " is not supported for remove operations");
+            }
+        }
+
+        operation.operation().setCondition(TestAndSetCondition.fromConditionString(Optional.ofNullable(condition)));
+        return operation;
+    }
+
     /** Returns the next document operation, or null if we have reached the end */
     public DocumentOperation next() {
         switch (state) {
@@ -17,9 +17,9 @@ import java.util.Optional;
  */
 public class DocumentParser {
 
-    private static final String UPDATE = "update";
-    private static final String PUT = "put";
-    private static final String ID = "id";
+    public static final String UPDATE = "update";
+    public static final String PUT = "put";
+    public static final String ID = "id";
     public static final String CONDITION = "condition";
     public static final String CREATE_IF_NON_EXISTENT = "create";
     public static final String FIELDS = "fields";
@@ -1413,6 +1413,46 @@ public class JsonReaderTestCase {
         assertNull(r.next());
     }
 
+    @Test
+    public void testOperationsInLines() {
+        JsonReader r = createReader("""
+                                    {"fields": {"something": "smoketest", "flag": true, "nalle": "bamse"}, "put": "id:unittest:smoke::whee"}
+                                    {"update": "id:unittest:testarray::whee", "create": true, "fields": {"actualarray": {"add": ["person", "another person"]}}}
+                                    {"put": "id:unittest:nonexistent::whee", "fields": {"foo": [{"bar": "baz"}]}}
+                                    {"put": "id:unittest:smoke::whee", "fields": {"nonexistent": {"bar": ["baz"]}}, "condition": "false"}
+                                    {"remove": "id:unittest:smoke::whee", "condition": "smoke.nalle == 'bamse'"}
+                                    """);
+
+        smokeTestDoc(((DocumentPut) r.readNextOperation().get().operation()).getDocument());
+
+        DocumentUpdate update = (DocumentUpdate) r.readNextOperation().get().operation();
+        checkSimpleArrayAdd(update);
+        assertTrue(update.getCreateIfNonExistent());
+
+        assertEquals("Document type nonexistent does not exist",
+                     assertThrows(IllegalArgumentException.class, r::readNextOperation).getMessage());
+        assertThrows(IllegalArgumentException.class, r::readNextOperation);
+
+        DocumentRemove remove = (DocumentRemove) r.readNextOperation().get().operation();
+        assertEquals("id:unittest:smoke::whee", remove.getId().toString());
+        assertEquals("smoke.nalle == 'bamse'", remove.getCondition().getSelection());
+
+        assertTrue(r.readNextOperation().isEmpty());
+    }
+
+    @Test
+    public void testOperationsInLinesWithSyntaxError() {
+        JsonReader r = createReader("""
+                                    {"remove": "id:unittest:smoke::one"}
+                                    {"remove": "id:unittest:smoke::two",
+                                    {"remove": "id:unittest:smoke::three"}
+                                    """);
+
+        assertEquals("id:unittest:smoke::one", r.readNextOperation().get().operation().getId().toString());
+        assertThrows(IllegalArgumentException.class, r::readNextOperation);
+        assertTrue(r.readNextOperation().isEmpty());
+    }
+
 
     @Test
     public void testCompleteFeedWithEmptyDoc() {
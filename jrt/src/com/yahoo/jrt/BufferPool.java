@@ -0,0 +1,127 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A pool of direct byte buffers in power of 2 size classes, used by
+ * connections for their input and output buffers. Socket reads and
+ * writes on direct buffers avoid the extra copy the JDK does through
+ * a temporary direct buffer for heap buffers, and reusing them
+ * avoids the cost of allocating direct memory as buffers grow and
+ * shrink.
+ *
+ * Buffers larger than the largest size class are allocated on the
+ * heap and not pooled. Released buffers beyond the pool limit are
+ * left to the garbage collector. Buffers which are not released are
+ * also simply garbage collected, so releasing is an optimization.
+ **/
+class BufferPool {
+
+    static final int minClassSize = 4 * 1024;
+    static final int maxClassSize = 16 * 1024 * 1024;
+
+    private static final BufferPool shared = new BufferPool(64L * 1024 * 1024);
+
+    private final long maxPooledBytes;
+    private final List<ConcurrentLinkedQueue<ByteBuffer>> classes = new ArrayList<>();
+    private final AtomicLong pooledBytes = new AtomicLong(0);
+    private final AtomicLong allocatedBytes = new AtomicLong(0);
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    BufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        for (int i = 0; i <= classOf(maxClassSize); i++) {
+            classes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /** Returns the pool shared by all connections in this process */
+    static BufferPool shared() { return shared; }
+
+    private static int classOf(int size) {
+        int capacity = Math.max(size, minClassSize);
+        return (32 - Integer.numberOfLeadingZeros(capacity - 1)) - Integer.numberOfTrailingZeros(minClassSize);
+    }
+
+    private static int classSize(int sizeClass) {
+        return minClassSize << sizeClass;
+    }
+
+    /**
+     * Returns a cleared, big endian buffer with a capacity of at
+     * least the given size. The capacity is the size class of the
+     * given size.
+     **/
+    ByteBuffer acquire(int size) {
+        if (size == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        if (size > maxClassSize) {
+            return ByteBuffer.allocate(size);
+        }
+        int sizeClass = classOf(size);
+        ByteBuffer buf = classes.get(sizeClass).poll();
+        if (buf != null) {
+            pooledBytes.addAndGet(-buf.capacity());
+            hits.incrementAndGet();
+            buf.clear();
+            buf.order(ByteOrder.BIG_ENDIAN);
+            return buf;
+        }
+        misses.incrementAndGet();
+        allocatedBytes.addAndGet(classSize(sizeClass));
+        return ByteBuffer.allocateDirect(classSize(sizeClass));
+    }
+
+    /**
+     * Returns the given buffer to this pool. The buffer must not be
+     * used after this. Buffers not acquired from a pool are ignored.
+     **/
+    void release(ByteBuffer buf) {
+        int capacity = buf.capacity();
+        if ( ! buf.isDirect() || capacity < minClassSize || capacity > maxClassSize || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        classes.get(classOf(capacity)).offer(buf);
+    }
+
+    /**
+     * Returns the largest capacity of buffers from this which is at
+     * most the given size, or 0 if the size is below the smallest
+     * size class.
+     **/
+    int capacityAtMost(int size) {
+        if (size < minClassSize) {
+            return 0;
+        }
+        if (size >= maxClassSize) {
+            return maxClassSize;
+        }
+        return Integer.highestOneBit(size);
+    }
+
+    /** Returns the number of bytes in buffers currently held by this for reuse */
+    long pooledBytes() { return pooledBytes.get(); }
+
+    /** Returns the total number of bytes of direct buffers allocated by this */
+    long allocatedBytes() { return allocatedBytes.get(); }
+
+    /** Returns the number of acquired buffers which were reused */
+    long hits() { return hits.get(); }
+
+    /** Returns the number of acquired buffers which had to be allocated */
+    long misses() { return misses.get(); }
+}
@@ -34,8 +34,11 @@ class Connection extends Target {
     private int state = INITIAL;
     private final Queue  queue   = new Queue();
     private final Queue  myQueue = new Queue();
-    private final Buffer input   = new Buffer(0); // Start off with empty buffer.
-    private final Buffer output  = new Buffer(0); // Start off with empty buffer.
+    private final BufferPool bufferPool = BufferPool.shared();
+    private final Buffer input   = new Buffer(0, bufferPool); // Start off with empty buffer.
+    private final Buffer output  = new Buffer(0, bufferPool); // Start off with empty buffer.
+    private ByteBuffer   gatherBuffer = null; // Holds the encoded parts of the packet being gathered, if any.
+    private ByteBuffer[] gathered     = null; // The remaining segments of the packet being gathered, if any.
     private final int maxInputSize;
     private final int maxOutputSize;
     private final boolean dropEmptyBuffers;
@@ -321,27 +324,45 @@ class Connection extends Target {
             queue.flush(myQueue);
         }
         for (int i = 0; i < WRITE_REDO; i++) {
-            while (output.bytes() < WRITE_SIZE) {
+            while (gathered == null && output.bytes() < WRITE_SIZE) {
                 Packet packet = (Packet) myQueue.dequeue();
                 if (packet == null) {
                     break;
                 }
                 PacketInfo info = packet.getPacketInfo();
-                ByteBuffer wb = output.getWritable(info.packetLength());
                 owner.writePacket(info);
+                int directBytes = packet.directBytes();
+                if (directBytes > 0) {
+                    // Written after the output buffer, without copying its large data values.
+                    gatherBuffer = bufferPool.acquire(info.packetLength() - directBytes);
+                    PacketSegments segments = new PacketSegments(gatherBuffer);
+                    info.encodePacket(packet, gatherBuffer, segments);
+                    gathered = segments.finish();
+                    break;
+                }
+                ByteBuffer wb = output.getWritable(info.packetLength());
                 info.encodePacket(packet, wb);
             }
             ByteBuffer rb = output.getReadable();
-            if (rb.remaining() == 0) {
+            if (rb.remaining() == 0 && gathered == null) {
                 break;
             }
-            socket.write(rb);
             if (rb.remaining() > 0) {
-                break;
+                socket.write(rb);
+                if (rb.remaining() > 0) {
+                    break;
+                }
+            }
+            if (gathered != null) {
+                socket.write(gathered);
+                if (gathered[gathered.length - 1].hasRemaining()) {
+                    break;
+                }
+                releaseGathered();
             }
         }
         int myWriteWork = 0;
-        if (output.bytes() > 0) {
+        if (output.bytes() > 0 || gathered != null) {
             myWriteWork++;
         }
         if (socket.flush() == CryptoSocket.FlushResult.NEED_WRITE) {
@@ -376,11 +397,22 @@ class Connection extends Target {
         }
     }
 
+    private void releaseGathered() {
+        if (gatherBuffer != null) {
+            bufferPool.release(gatherBuffer);
+        }
+        gatherBuffer = null;
+        gathered = null;
+    }
+
     public void fini() {
         setState(CLOSED);
         if (selectionKey != null) {
             selectionKey.cancel();
         }
+        input.release();
+        output.release();
+        releaseGathered();
     }
 
     public boolean isClosed() {
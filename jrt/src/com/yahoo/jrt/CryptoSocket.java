@@ -83,6 +83,23 @@ public interface CryptoSocket {
      **/
     public int write(ByteBuffer src) throws IOException;
 
+    /**
+     * Write a sequence of buffers, in order, stopping at the first
+     * buffer which is not completely written. Sockets which do not
+     * transform the data should write all the buffers with a single
+     * gathering write on the underlying channel.
+     **/
+    default long write(ByteBuffer[] srcs) throws IOException {
+        long written = 0;
+        for (ByteBuffer src : srcs) {
+            written += write(src);
+            if (src.hasRemaining()) {
+                break;
+            }
+        }
+        return written;
+    }
+
     public enum FlushResult { DONE, NEED_WRITE }
 
     /**
@@ -55,6 +55,30 @@ public class DataArray extends Value
         }
     }
 
+    @Override
+    int directBytes() {
+        int bytes = 0;
+        for (int i = 0; i < value.length; i++) {
+            if (PacketSegments.isDirect(value[i])) {
+                bytes += value[i].length;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    void encode(ByteBuffer dst, PacketSegments segments) {
+        dst.putInt(value.length);
+        for (int i = 0; i < value.length; i++) {
+            dst.putInt(value[i].length);
+            if (PacketSegments.isDirect(value[i])) {
+                segments.add(value[i]);
+            } else {
+                dst.put(value[i]);
+            }
+        }
+    }
+
     public byte[][] asDataArray() { return value; }
 
     @Override
@@ -42,6 +42,19 @@ public class DataValue extends Value
         dst.put(value);
     }
 
+    @Override
+    int directBytes() { return PacketSegments.isDirect(value) ? value.length : 0; }
+
+    @Override
+    void encode(ByteBuffer dst, PacketSegments segments) {
+        if ( ! PacketSegments.isDirect(value)) {
+            encode(dst);
+            return;
+        }
+        dst.putInt(value.length);
+        segments.add(value);
+    }
+
     public byte[] asData() { return value; }
 
     @Override
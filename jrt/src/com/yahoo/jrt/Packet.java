@@ -44,6 +44,14 @@ abstract class Packet
     public abstract int packetCode();
     public abstract void encode(ByteBuffer dst);
 
+    /** Returns the number of bytes of this which are written directly from its values when encoded with segments */
+    public int directBytes() { return 0; }
+
+    /** Encodes this, adding large data values directly to the given segments rather than to the buffer */
+    public void encode(ByteBuffer dst, PacketSegments segments) {
+        encode(dst);
+    }
+
     public PacketInfo getPacketInfo() {
         return new PacketInfo(bytes(), flags, packetCode(), requestId);
     }
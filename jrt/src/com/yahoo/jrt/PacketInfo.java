@@ -85,8 +85,18 @@ class PacketInfo
     }
 
     public void encodePacket(Packet packet, ByteBuffer dst) {
+        encodePacket(packet, dst, null);
+    }
+
+    /**
+     * Encodes the given packet for a gathering write: Large data
+     * values are added to the given segments rather than copied into
+     * the given buffer, which therefore only needs room for the
+     * packet length minus the direct bytes of the packet.
+     **/
+    public void encodePacket(Packet packet, ByteBuffer dst, PacketSegments segments) {
         int pos = dst.position();
-        int end = pos + packetLength;
+        int end = pos + packetLength - ((segments != null) ? packet.directBytes() : 0);
         int limit = dst.limit();
         try {
             dst.limit(end);
@@ -97,7 +107,11 @@ class PacketInfo
             if (reverseByteOrder()) {
                 dst.order(ByteOrder.LITTLE_ENDIAN);
             }
-            packet.encode(dst);
+            if (segments != null) {
+                packet.encode(dst, segments);
+            } else {
+                packet.encode(dst);
+            }
         } catch (RuntimeException e) {
             dst.position(pos);
             throw e;
@@ -0,0 +1,54 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The segments of a packet encoded for a gathering write. Large data
+ * values are not copied into the encode buffer, but written directly
+ * from their own arrays; the segments are the parts of the encode
+ * buffer between them, interleaved with wrappers of their arrays.
+ **/
+class PacketSegments {
+
+    /** Data values of at least this size are written directly from their arrays */
+    static final int minDirectSize = 64 * 1024;
+
+    private final ByteBuffer dst;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private int mark;
+
+    static boolean isDirect(byte[] data) {
+        return data.length >= minDirectSize;
+    }
+
+    /** Creates segments for a packet which is encoded into the given buffer, from its current position */
+    PacketSegments(ByteBuffer dst) {
+        this.dst = dst;
+        this.mark = dst.position();
+    }
+
+    /** Adds the given data as the next segment, after what is encoded into the buffer so far */
+    void add(byte[] data) {
+        addEncoded();
+        segments.add(ByteBuffer.wrap(data));
+    }
+
+    private void addEncoded() {
+        int position = dst.position();
+        if (position > mark) {
+            segments.add(dst.slice(mark, position - mark));
+        }
+        mark = position;
+    }
+
+    /** Returns the segments of the encoded packet, in order */
+    ByteBuffer[] finish() {
+        addEncoded();
+        return segments.toArray(new ByteBuffer[0]);
+    }
+}
@@ -36,6 +36,16 @@ class ReplyPacket extends Packet
         returnValues.encode(dst);
     }
 
+    @Override
+    public int directBytes() {
+        return returnValues.directBytes();
+    }
+
+    @Override
+    public void encode(ByteBuffer dst, PacketSegments segments) {
+        returnValues.encode(dst, segments);
+    }
+
     public Values returnValues() {
         return returnValues;
     }
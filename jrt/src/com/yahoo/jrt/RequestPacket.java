@@ -42,6 +42,17 @@ class RequestPacket extends Packet
         parameters.encode(dst);
     }
 
+    @Override
+    public int directBytes() {
+        return parameters.directBytes();
+    }
+
+    @Override
+    public void encode(ByteBuffer dst, PacketSegments segments) {
+        methodName.encode(dst);
+        parameters.encode(dst, segments);
+    }
+
     public String methodName() {
         return methodName.asString();
     }
@@ -100,6 +100,26 @@ public abstract class Value
      **/
     abstract void encode(ByteBuffer dst);
 
+    /**
+     * Determine the number of bytes of this value which are written
+     * directly from its own storage when encoded with {@link
+     * #encode(ByteBuffer, PacketSegments)}
+     *
+     * @return number of bytes not encoded into the buffer
+     **/
+    int directBytes() { return 0; }
+
+    /**
+     * Encode this value into the given buffer, except for large data
+     * which is added directly to the given segments instead
+     *
+     * @param dst where to encode this value
+     * @param segments where to add large data
+     **/
+    void encode(ByteBuffer dst, PacketSegments segments) {
+        encode(dst);
+    }
+
     /**
      * Decode a value from the given buffer. This method also acts as
      * a factory for value objects
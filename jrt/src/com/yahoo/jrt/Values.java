@@ -99,15 +99,47 @@ public class Values
      * @param dst where to encode this value sequence
      **/
     void encode(ByteBuffer dst) {
+        encodeTypes(dst);
+        for (int i = 0; i < values.size(); i++) {
+            get(i).encode(dst);
+        }
+    }
+
+    /**
+     * Determine the number of bytes of this value sequence which are
+     * written directly from the values when encoded with segments
+     *
+     * @return number of bytes not encoded into the buffer
+     **/
+    int directBytes() {
+        int bytes = 0;
+        for (int i = 0; i < values.size(); i++) {
+            bytes += get(i).directBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Encode this value sequence into the given buffer, except for
+     * large data which is added directly to the given segments
+     *
+     * @param dst where to encode this value sequence
+     * @param segments where to add large data
+     **/
+    void encode(ByteBuffer dst, PacketSegments segments) {
+        encodeTypes(dst);
+        for (int i = 0; i < values.size(); i++) {
+            get(i).encode(dst, segments);
+        }
+    }
+
+    private void encodeTypes(ByteBuffer dst) {
         byte[] types = new byte[values.size()];
         for (int i = 0; i < types.length; i++) {
             types[i] = get(i).type();
         }
         dst.putInt(types.length);
         dst.put(types);
-        for (int i = 0; i < types.length; i++) {
-            get(i).encode(dst);
-        }
     }
 
     /**
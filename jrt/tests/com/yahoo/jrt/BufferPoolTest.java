@@ -0,0 +1,74 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BufferPoolTest {
+
+    @org.junit.Test
+    public void testSizeClasses() {
+        BufferPool pool = new BufferPool(1024 * 1024);
+        assertEquals(0, pool.acquire(0).capacity());
+        assertEquals(4096, pool.acquire(1).capacity());
+        assertEquals(4096, pool.acquire(4096).capacity());
+        assertEquals(8192, pool.acquire(4097).capacity());
+        assertEquals(BufferPool.maxClassSize, pool.acquire(BufferPool.maxClassSize).capacity());
+        assertTrue(pool.acquire(4096).isDirect());
+        ByteBuffer huge = pool.acquire(BufferPool.maxClassSize + 1);
+        assertFalse(huge.isDirect());
+        assertEquals(BufferPool.maxClassSize + 1, huge.capacity());
+
+        assertEquals(0, pool.capacityAtMost(4095));
+        assertEquals(4096, pool.capacityAtMost(8191));
+        assertEquals(8192, pool.capacityAtMost(8192));
+        assertEquals(BufferPool.maxClassSize, pool.capacityAtMost(Integer.MAX_VALUE));
+    }
+
+    @org.junit.Test
+    public void testReleasedBuffersAreReused() {
+        BufferPool pool = new BufferPool(1024 * 1024);
+        ByteBuffer buf = pool.acquire(5000);
+        assertEquals(0, pool.hits());
+        assertEquals(1, pool.misses());
+        assertEquals(8192, pool.allocatedBytes());
+        buf.order(ByteOrder.LITTLE_ENDIAN).putInt(42);
+        pool.release(buf);
+        assertEquals(8192, pool.pooledBytes());
+
+        ByteBuffer reused = pool.acquire(6000);
+        assertSame(buf, reused);
+        assertEquals(0, reused.position());
+        assertEquals(8192, reused.limit());
+        assertEquals(ByteOrder.BIG_ENDIAN, reused.order());
+        assertEquals(1, pool.hits());
+        assertEquals(0, pool.pooledBytes());
+
+        pool.release(ByteBuffer.allocate(8192));
+        pool.release(ByteBuffer.allocateDirect(5000));
+        assertEquals(0, pool.pooledBytes());
+    }
+
+    @org.junit.Test
+    public void testPooledBytesAreLimited() {
+        BufferPool pool = new BufferPool(16 * 1024);
+        ByteBuffer a = pool.acquire(8192);
+        ByteBuffer b = pool.acquire(8192);
+        ByteBuffer c = pool.acquire(8192);
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertEquals(16 * 1024, pool.pooledBytes());
+        pool.acquire(8192);
+        pool.acquire(8192);
+        pool.acquire(8192);
+        assertEquals(2, pool.hits());
+        assertEquals(4, pool.misses());
+    }
+
+}
@@ -222,4 +222,41 @@ public class BufferTest {
         }
     }
 
+    @org.junit.Test
+    public void testPooledBuffer() {
+        BufferPool pool = new BufferPool(1024 * 1024);
+        Buffer buf = new Buffer(0, pool);
+        ByteBuffer b = buf.getWritable(10);
+        assertTrue(b.isDirect());
+        assertEquals(4096, b.capacity());
+        b.put((byte)42);
+
+        byte[] x = new byte[70 * 1024];
+        Arrays.fill(x, (byte) 10);
+        b = buf.getWritable(x.length);
+        assertEquals(128 * 1024, b.capacity());
+        b.put(x);
+        assertEquals(4096, pool.pooledBytes());
+
+        b = buf.getReadable();
+        assertEquals(42, b.get());
+        byte[] y = new byte[x.length];
+        b.get(y);
+        assertTrue(Arrays.equals(x, y));
+
+        assertTrue(buf.shrink(5000));
+        assertEquals(4096, buf.getReadable().capacity());
+        assertEquals(128 * 1024, pool.pooledBytes());
+        assertTrue(buf.shrink(0));
+        assertEquals(0, buf.getReadable().capacity());
+
+        buf.getWritable(100).put((byte)1);
+        assertFalse(buf.shrink(1000));
+        buf.release();
+        assertEquals(0, buf.bytes());
+        assertEquals(4096 + 128 * 1024, pool.pooledBytes());
+        assertEquals(2, pool.misses());
+        assertEquals(2, pool.hits());
+    }
+
 }
@@ -13,6 +13,7 @@ import org.junit.runners.Parameterized.Parameters;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.util.List;
+import java.util.Random;
 
 import static com.yahoo.jrt.CryptoUtils.createTestTlsContext;
 import static org.junit.Assert.assertEquals;
@@ -122,6 +123,10 @@ public class EchoTest {
         refValues.add(new DataArray(dataArray));
         refValues.add(new StringValue("test"));
         refValues.add(new StringArray(stringArray));
+        byte[] largeData = new byte[1024 * 1024]; // Written with gathering writes
+        new Random(42).nextBytes(largeData);
+        refValues.add(new DataValue(largeData));
+        refValues.add(new DataArray(new byte[][] { largeData, dataValue, largeData }));
     }
 
     @After
@@ -154,7 +159,7 @@ public class EchoTest {
             p.add(refValues.get(i));
         }
         target.invokeSync(req, Duration.ofSeconds(60));
-        assertTrue(req.checkReturnTypes("bBhHiIlLfFdDxXsS"));
+        assertTrue(req.checkReturnTypes("bBhHiIlLfFdDxXsSxX"));
         assertTrue(Test.equals(req.returnValues(), req.parameters()));
         assertTrue(Test.equals(req.returnValues(), refValues));
         assertTrue(Test.equals(req.parameters(), refValues));
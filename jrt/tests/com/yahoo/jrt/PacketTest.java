@@ -2,6 +2,7 @@
 package com.yahoo.jrt;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -122,4 +123,38 @@ public class PacketTest {
         assertEquals(errStr, ((ErrorPacket)packet2).errorMessage());
     }
 
+    @org.junit.Test
+    public void testGatheredEncodingEqualsCopiedEncoding() {
+        byte[] large = new byte[PacketSegments.minDirectSize];
+        Arrays.fill(large, (byte) 7);
+        Values params = new Values();
+        params.add(new Int32Value(123));
+        params.add(new DataValue(large));
+        params.add(new DataValue(new byte[] { 1, 2, 3 }));
+        params.add(new DataArray(new byte[][] { { 4, 5 }, large, large }));
+        params.add(new StringValue("tail"));
+
+        for (Packet packet : new Packet[] { new RequestPacket(0, 42, "foobar", params), new ReplyPacket(0, 42, params) }) {
+            PacketInfo info = packet.getPacketInfo();
+            assertEquals(3 * large.length, packet.directBytes());
+
+            ByteBuffer copied = ByteBuffer.allocate(info.packetLength());
+            info.encodePacket(packet, copied);
+            copied.flip();
+
+            ByteBuffer encoded = ByteBuffer.allocate(info.packetLength() - packet.directBytes());
+            PacketSegments segments = new PacketSegments(encoded);
+            info.encodePacket(packet, encoded, segments);
+            assertEquals(0, encoded.remaining());
+            ByteBuffer[] gathered = segments.finish();
+            assertEquals(7, gathered.length);
+            ByteBuffer joined = ByteBuffer.allocate(info.packetLength());
+            for (ByteBuffer segment : gathered) {
+                joined.put(segment);
+            }
+            joined.flip();
+            assertEquals(copied, joined);
+        }
+    }
+
 }
@@ -79,6 +79,26 @@ public interface Embedder {
         /** Add a sample embedding length to this */
         void sampleSequenceLength(long length, Context ctx);
 
+        /** Add a sample size of the batch an embedding was evaluated in to this */
+        default void sampleBatchSize(long size, Context ctx) { }
+
+        /** Add a sample time an embedding waited for its batch to be evaluated to this */
+        default void sampleBatchQueueWait(double millis, Context ctx) { }
+
+        /**
+         * Returns the embedding of the given text into the given type from a cache shared between all requests
+         * to this container, or computes it using the given supplier and caches it if it is not present.
+         * The default implementation does not cache.
+         *
+         * @param text the text to embed, after any transformation done by the embedder
+         * @param ctx the context of this embedding, which determines the embedder id, language and destination
+         * @param type the type of the tensor to return
+         * @param embedding computes the embedding if it is not cached
+         */
+        default Tensor computeCachedEmbeddingIfAbsent(String text, Context ctx, TensorType type, Supplier<Tensor> embedding) {
+            return embedding.get();
+        }
+
         static Runtime testInstance() {
             return new Runtime() {
                 @Override public void sampleEmbeddingLatency(double millis, Context ctx) { }
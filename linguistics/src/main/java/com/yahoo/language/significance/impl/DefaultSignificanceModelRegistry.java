@@ -51,6 +51,10 @@ public final class DefaultSignificanceModelRegistry implements SignificanceModel
 
     public void addModel(Path path) {
         log.fine(() -> "Loading model from " + path);
+        if (MappedSignificanceModelFile.isMappedFile(path)) {
+            addMappedModel(path);
+            return;
+        }
         ObjectMapper objectMapper = new ObjectMapper();
         try {
             InputStream in = path.toString().endsWith(".zst") ?
@@ -75,6 +79,17 @@ public final class DefaultSignificanceModelRegistry implements SignificanceModel
         }
     }
 
+    private void addMappedModel(Path path) {
+        MappedSignificanceModelFile file = MappedSignificanceModelFile.open(path);
+        for (var pair : file.models().entrySet()) {
+            for (var languageTag : pair.getKey().split(",")) {
+                var language = Language.fromLanguageTag(languageTag);
+                log.fine(() -> "Adding mapped model for language %s with id %s".formatted(language, file.id()));
+                this.models.put(language, pair.getValue());
+            }
+        }
+    }
+
     @Override
     public Optional<SignificanceModel> getModel(Language language) {
         if (!models.containsKey(language))
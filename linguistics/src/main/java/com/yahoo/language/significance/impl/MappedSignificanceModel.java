@@ -0,0 +1,89 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.significance.impl;
+
+import com.yahoo.language.significance.DocumentFrequency;
+import com.yahoo.language.significance.SignificanceModel;
+import com.yahoo.text.Utf8;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A significance model which looks up document frequencies in a hash table in a memory mapped
+ * {@link MappedSignificanceModelFile}, such that the frequencies are not on the heap, and are shared
+ * through the page cache by all processes using the same file.
+ *
+ * The table is open addressed with linear probing, and its buckets hold the offset of an entry
+ * consisting of the UTF-8 bytes of the word and its frequency, each preceded by its length, or 0 if empty.
+ */
+public class MappedSignificanceModel implements SignificanceModel {
+
+    private final String id;
+    private final long corpusSize;
+    private final int bucketMask;
+    private final ByteBuffer buckets;
+    private final ByteBuffer entries;
+
+    MappedSignificanceModel(String id, long corpusSize, ByteBuffer buckets, ByteBuffer entries) {
+        int bucketCount = buckets.capacity() / Integer.BYTES;
+        if (Integer.bitCount(bucketCount) != 1)
+            throw new IllegalArgumentException("The bucket count must be a power of 2, but was " + bucketCount);
+        this.id = id;
+        this.corpusSize = corpusSize;
+        this.bucketMask = bucketCount - 1;
+        this.buckets = buckets;
+        this.entries = entries;
+    }
+
+    @Override
+    public DocumentFrequency documentFrequency(String word) {
+        byte[] bytes = Utf8.toBytes(word);
+        for (int bucket = bucketOf(bytes, bucketMask); ; bucket = (bucket + 1) & bucketMask) {
+            int offset = buckets.getInt(bucket * Integer.BYTES);
+            if (offset == 0) return new DocumentFrequency(1, corpusSize);
+            if (equals(bytes, offset))
+                return new DocumentFrequency(readVarLong(entries, offset + bytes.length + varLongSize(bytes.length)), corpusSize);
+        }
+    }
+
+    @Override
+    public String getId() { return id; }
+
+    /** Returns whether the entry at the given offset is the given word */
+    private boolean equals(byte[] word, int offset) {
+        if (readVarLong(entries, offset) != word.length) return false;
+        int start = offset + varLongSize(word.length);
+        for (int i = 0; i < word.length; i++)
+            if (entries.get(start + i) != word[i]) return false;
+        return true;
+    }
+
+    /** Returns the first bucket to probe for the given UTF-8 word in a table with the given mask */
+    static int bucketOf(byte[] word, int bucketMask) {
+        long hash = 0xcbf29ce484222325L; // FNV-1a, followed by the murmur3 finalizer to spread the bits
+        for (byte b : word) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int)hash & bucketMask;
+    }
+
+    static long readVarLong(ByteBuffer buffer, int offset) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(offset++);
+            value |= (long)(b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    static int varLongSize(long value) {
+        int size = 1;
+        while ((value >>>= 7) != 0)
+            size++;
+        return size;
+    }
+
+}
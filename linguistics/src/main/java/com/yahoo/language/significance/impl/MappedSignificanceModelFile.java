@@ -0,0 +1,174 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.significance.impl;
+
+import com.yahoo.text.Utf8;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A compact binary form of a {@link SignificanceModelFile}, whose document frequencies are memory mapped
+ * rather than read onto the heap. Files in this format are created from the JSON form by {@link #write}.
+ *
+ * The file is a header holding the magic number, format version, id and description of the model,
+ * followed by a section per set of languages, holding the comma separated language tags, document count,
+ * and the hash table used by {@link MappedSignificanceModel}. Strings are UTF-8 preceded by their length.
+ */
+public class MappedSignificanceModelFile {
+
+    static final int magic = 0x56534947; // "VSIG"
+    static final int version = 1;
+
+    private final String id;
+    private final String description;
+    private final Map<String, MappedSignificanceModel> models;
+
+    private MappedSignificanceModelFile(String id, String description, Map<String, MappedSignificanceModel> models) {
+        this.id = id;
+        this.description = description;
+        this.models = Collections.unmodifiableMap(models);
+    }
+
+    public String id() { return id; }
+
+    public String description() { return description; }
+
+    /** Returns the models of this by their comma separated language tags */
+    public Map<String, MappedSignificanceModel> models() { return models; }
+
+    /** Returns whether the given file is in this format */
+    public static boolean isMappedFile(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] header = in.readNBytes(Integer.BYTES);
+            return header.length == Integer.BYTES && ByteBuffer.wrap(header).getInt() == magic;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + path, e);
+        }
+    }
+
+    /** Maps the given file into memory */
+    public static MappedSignificanceModelFile open(Path path) {
+        try (FileChannel channel = FileChannel.open(path)) {
+            // Unbuffered, such that the channel position follows what is read
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            if (in.readInt() != magic)
+                throw new IllegalArgumentException(path + " is not a mapped significance model file");
+            int fileVersion = in.readInt();
+            if (fileVersion != version)
+                throw new IllegalArgumentException(path + " has version " + fileVersion + ", but only version " +
+                                                   version + " is supported");
+            String id = readString(in);
+            String description = readString(in);
+            int sectionCount = in.readInt();
+            Map<String, MappedSignificanceModel> models = new LinkedHashMap<>();
+            for (int i = 0; i < sectionCount; i++) {
+                String languages = readString(in);
+                long documentCount = in.readLong();
+                int bucketCount = in.readInt();
+                int entriesSize = in.readInt();
+                ByteBuffer buckets = map(channel, (long)bucketCount * Integer.BYTES);
+                ByteBuffer entries = map(channel, entriesSize);
+                models.put(languages, new MappedSignificanceModel(id, documentCount, buckets, entries));
+            }
+            return new MappedSignificanceModelFile(id, description, models);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to map model from " + path, e);
+        }
+    }
+
+    /** Maps the given number of bytes from the current position of the channel, and skips past them */
+    private static ByteBuffer map(FileChannel channel, long size) throws IOException {
+        long position = channel.position();
+        if (position + size > channel.size())
+            throw new IllegalArgumentException("Truncated mapped significance model file");
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        channel.position(position + size);
+        return buffer;
+    }
+
+    /** Writes the given model in this format to the given path */
+    public static void write(SignificanceModelFile model, Path path) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            writeString(model.id(), out);
+            writeString(model.description(), out);
+            out.writeInt(model.languages().size());
+            for (var language : model.languages().entrySet()) {
+                writeString(language.getKey(), out);
+                out.writeLong(language.getValue().documentCount());
+                writeTable(language.getValue().frequencies(), out);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to write model to " + path, e);
+        }
+    }
+
+    private static void writeTable(Map<String, Long> frequencies, DataOutputStream out) throws IOException {
+        // At most half the buckets are used, to keep probe sequences short, also for words not in the table
+        int bucketCount = Integer.highestOneBit(Math.max(1, frequencies.size()) * 2 - 1) << 1;
+        if (bucketCount <= 0 || bucketCount > Integer.MAX_VALUE / Integer.BYTES)
+            throw new IllegalArgumentException("Too many words: " + frequencies.size());
+        int bucketMask = bucketCount - 1;
+        int[] buckets = new int[bucketCount];
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        entries.write(0); // Offset 0 denotes an empty bucket
+        for (var entry : frequencies.entrySet()) {
+            long frequency = entry.getValue();
+            if (frequency < 0)
+                throw new IllegalArgumentException("Negative frequency " + frequency + " of '" + entry.getKey() + "'");
+            byte[] word = Utf8.toBytes(entry.getKey());
+            int bucket = MappedSignificanceModel.bucketOf(word, bucketMask);
+            while (buckets[bucket] != 0)
+                bucket = (bucket + 1) & bucketMask;
+            if (entries.size() > Integer.MAX_VALUE - word.length - 20)
+                throw new IllegalArgumentException("The words of a language must be less than 2Gb in total");
+            buckets[bucket] = entries.size();
+            writeVarLong(word.length, entries);
+            entries.writeBytes(word);
+            writeVarLong(frequency, entries);
+        }
+        out.writeInt(bucketCount);
+        out.writeInt(entries.size());
+        for (int offset : buckets)
+            out.writeInt(offset);
+        entries.writeTo(out);
+    }
+
+    private static void writeVarLong(long value, ByteArrayOutputStream out) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int)(value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int)value);
+    }
+
+    private static void writeString(String value, DataOutputStream out) throws IOException {
+        byte[] bytes = Utf8.toBytes(value == null ? "" : value);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return Utf8.toString(bytes);
+    }
+
+}
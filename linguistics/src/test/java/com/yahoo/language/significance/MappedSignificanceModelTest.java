@@ -0,0 +1,71 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.significance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yahoo.language.Language;
+import com.yahoo.language.significance.impl.DefaultSignificanceModelRegistry;
+import com.yahoo.language.significance.impl.DocumentFrequencyFile;
+import com.yahoo.language.significance.impl.MappedSignificanceModelFile;
+import com.yahoo.language.significance.impl.SignificanceModelFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedSignificanceModelTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testMappedModelsHaveTheSameFrequenciesAsTheJsonModels() throws IOException {
+        Path json = Path.of("src/test/models/docv2.json");
+        Path mapped = tempDir.resolve("docv2.bin");
+        SignificanceModelFile file = new ObjectMapper().readValue(json.toFile(), SignificanceModelFile.class);
+        MappedSignificanceModelFile.write(file, mapped);
+        assertFalse(MappedSignificanceModelFile.isMappedFile(json));
+        assertTrue(MappedSignificanceModelFile.isMappedFile(mapped));
+
+        var jsonRegistry = new DefaultSignificanceModelRegistry(List.of(json));
+        var mappedRegistry = new DefaultSignificanceModelRegistry(List.of(mapped));
+        for (Language language : List.of(Language.ENGLISH, Language.NORWEGIAN_BOKMAL, Language.FRENCH, Language.UNKNOWN)) {
+            SignificanceModel expected = jsonRegistry.getModel(language).get();
+            SignificanceModel actual = mappedRegistry.getModel(language).get();
+            assertEquals("test::2", actual.getId());
+            for (String word : List.of("usa", "hello", "world", "test", "additional", "nei", "bonjour", "oui", "no", "missing", "")) {
+                assertEquals(expected.documentFrequency(word).frequency(), actual.documentFrequency(word).frequency(), word);
+                assertEquals(expected.documentFrequency(word).corpusSize(), actual.documentFrequency(word).corpusSize(), word);
+            }
+        }
+        assertTrue(mappedRegistry.getModel(Language.GERMAN).isEmpty());
+    }
+
+    @Test
+    public void testManyWords() {
+        Map<String, Long> frequencies = new HashMap<>();
+        for (long i = 0; i < 100000; i++)
+            frequencies.put("word" + i + (i % 7 == 0 ? "æøå" : ""), i * i);
+        var file = new SignificanceModelFile("1", "many", "many words",
+                                             new HashMap<>(Map.of("en", new DocumentFrequencyFile("english", 1L << 40, frequencies))));
+        Path mapped = tempDir.resolve("many.bin");
+        MappedSignificanceModelFile.write(file, mapped);
+
+        MappedSignificanceModelFile mappedFile = MappedSignificanceModelFile.open(mapped);
+        assertEquals("many", mappedFile.id());
+        assertEquals("many words", mappedFile.description());
+        SignificanceModel model = mappedFile.models().get("en");
+        for (var entry : frequencies.entrySet())
+            assertEquals(entry.getValue(), model.documentFrequency(entry.getKey()).frequency());
+        assertEquals(1, model.documentFrequency("word100000").frequency());
+        assertEquals(1L << 40, model.documentFrequency("word1").corpusSize());
+    }
+
+}
@@ -9,6 +9,7 @@ import com.yahoo.messagebus.network.Network;
 import com.yahoo.messagebus.network.NetworkMultiplexer;
 import com.yahoo.messagebus.network.NetworkOwner;
 import com.yahoo.messagebus.routing.Resender;
+import com.yahoo.messagebus.routing.RoutingNode;
 import com.yahoo.messagebus.routing.RetryPolicy;
 import com.yahoo.messagebus.routing.RoutingPolicy;
 import com.yahoo.messagebus.routing.RoutingSpec;
@@ -170,12 +171,12 @@ public final class MessageBus implements ConfigHandler, NetworkOwner, MessageHan
         }
 
         // Start messenger.
-        msn = new Messenger();
+        msn = new Messenger(params.getMessengerThreads());
 
         RetryPolicy retryPolicy = params.getRetryPolicy();
         if (retryPolicy != null) {
             resender = new Resender(retryPolicy);
-            msn.addRecurrentTask(new ResenderTask(resender));
+            msn.addRecurrentTask(new ResenderTask(resender, msn));
         } else {
             resender = null;
         }
@@ -187,6 +188,14 @@ public final class MessageBus implements ConfigHandler, NetworkOwner, MessageHan
 
     Messenger messenger() { return msn; }
 
+    /**
+     * <p>Returns the queue depth and task latency of each of the internal
+     * messenger threads, see {@link MessageBusParams#setMessengerThreads(int)}.</p>
+     *
+     * @return The statistics of each messenger thread.
+     */
+    public List<Messenger.Statistics> messengerStatistics() { return msn.statistics(); }
+
     /**
      * <p>Sets the destroyed flag to true. The very first time this method is
      * called, it cleans up all its dependencies. Even if you retain a reference
@@ -633,14 +642,18 @@ public final class MessageBus implements ConfigHandler, NetworkOwner, MessageHan
     /**
      * <p>Implements a task for running the resender in the messenger
      * thread. This task acts as a proxy for the resender, allowing the task to
-     * be deleted without affecting the resender itself.</p>
+     * be deleted without affecting the resender itself. With more than one
+     * messenger thread, each resend runs in the thread owning the sequence id
+     * of its message, if any.</p>
      */
     private static class ResenderTask implements Messenger.Task {
 
         final Resender resender;
+        final Messenger msn;
 
-        ResenderTask(Resender resender) {
+        ResenderTask(Resender resender, Messenger msn) {
             this.resender = resender;
+            this.msn = msn;
         }
 
         public void destroy() {
@@ -648,7 +661,34 @@ public final class MessageBus implements ConfigHandler, NetworkOwner, MessageHan
         }
 
         public void run() {
-            resender.resendScheduled();
+            if (msn.threads() == 1)
+                resender.resendScheduled();
+            else
+                resender.resendScheduled(node -> msn.enqueue(new ResendTask(node), Messenger.keyOf(node.getMessage(), node)));
+        }
+
+    }
+
+    /**
+     * <p>Implements a task for resending a single routing node in the messenger
+     * thread owning its message.</p>
+     */
+    private static class ResendTask implements Messenger.Task {
+
+        RoutingNode node;
+
+        ResendTask(RoutingNode node) {
+            this.node = node;
+        }
+
+        public void destroy() {
+            if (node != null) node.discard();
+        }
+
+        public void run() {
+            RoutingNode node = this.node;
+            this.node = null;
+            node.send();
         }
 
     }
@@ -15,9 +15,17 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 /**
- * <p>This class implements a single thread that is able to process arbitrary
- * tasks. Tasks are enqueued using the synchronized {@link #enqueue(Task)}
- * method, and are run in the order they were enqueued.</p>
+ * <p>This class implements a set of threads that are able to process arbitrary
+ * tasks. Tasks are enqueued using the {@link #enqueue(Task)} or {@link
+ * #enqueue(Task, long)} methods. Each thread has its own queue, and tasks are
+ * run in the order they were enqueued to the same thread. Tasks enqueued with
+ * the same key, e.g., a sequence id, always run in the same thread, while tasks
+ * without a key run in the first thread.</p>
+ *
+ * <p>With the default of a single thread, all tasks run in the order they were
+ * enqueued, and replies are delivered in the calling thread. With more threads,
+ * replies are delivered in the thread owning the sequence id of their message,
+ * if any.</p>
  *
  * @author Simon Thoresen Hult
  */
@@ -26,20 +34,34 @@ public final class Messenger implements Runnable {
     private static final Logger log = Logger.getLogger(Messenger.class.getName());
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final List<Task> children = new ArrayList<>();
-    private final Queue<Task> queue = new ArrayDeque<>();
-
-    private final Thread thread;
+    private final Shard[] shards;
 
     public Messenger() {
-        thread = new Thread(this, "Messenger");
-        thread.setDaemon(true);
+        this(1);
+    }
+
+    /**
+     * <p>Creates a messenger with the given number of threads.</p>
+     *
+     * @param threads The number of threads to run tasks in, at least 1.
+     */
+    public Messenger(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Messenger threads must be at least 1, got " + threads);
+        shards = new Shard[threads];
+        for (int i = 0; i < threads; i++)
+            shards[i] = new Shard(threads == 1 ? "Messenger" : "Messenger-" + i, i == 0);
+    }
+
+    /** Returns the number of threads of this. */
+    int threads() {
+        return shards.length;
     }
 
     /**
      * <p>Adds a recurrent task to this that is to be run for every iteration of
-     * the main loop. This task must be very light-weight as to not block the
-     * messenger. Note that this method is NOT thread-safe, so it should NOT be
-     * used after calling {@link #start()}.</p>
+     * the main loop of the first thread. This task must be very light-weight as
+     * to not block the messenger. Note that this method is NOT thread-safe, so
+     * it should NOT be used after calling {@link #start()}.</p>
      *
      * @param task The task to add.
      */
@@ -48,13 +70,14 @@ public final class Messenger implements Runnable {
     }
 
     /**
-     * <p>Starts the internal thread. This must be done AFTER all recurrent
+     * <p>Starts the internal threads. This must be done AFTER all recurrent
      * tasks have been added.</p>
      *
      * @see #addRecurrentTask(Task)
      */
     public void start() {
-        thread.start();
+        for (Shard shard : shards)
+            shard.thread.start();
     }
 
     /**
@@ -76,7 +99,8 @@ public final class Messenger implements Runnable {
     /**
      * <p>Convenience method to post a {@link Task} that delivers a {@link
      * Reply} to a {@link ReplyHandler} to the queue of tasks to be
-     * executed.</p>
+     * executed. With a single thread, the reply is delivered in the calling
+     * thread.</p>
      *
      * @param reply   The reply to return.
      * @param handler The handler to return to.
@@ -84,42 +108,76 @@ public final class Messenger implements Runnable {
     public void deliverReply(Reply reply, ReplyHandler handler) {
         if (destroyed.get()) {
             reply.discard();
-        } else {
+        } else if (shards.length == 1) {
             handler.handleReply(reply);
+        } else {
+            enqueue(new ReplyTask(reply, handler), keyOf(reply.getMessage(), reply));
         }
     }
 
     /**
-     * <p>Enqueues the given task in the list of tasks that this worker is to
-     * process. If this thread has been destroyed previously, this method
-     * invokes {@link Messenger.Task#destroy()}.</p>
+     * <p>Enqueues the given task in the list of tasks that the first thread is
+     * to process. If this has been destroyed previously, this method invokes
+     * {@link Messenger.Task#destroy()}.</p>
      *
      * @param task The task to enqueue.
      */
     public void enqueue(Task task) {
+        enqueue(task, shards[0]);
+    }
+
+    /**
+     * <p>Enqueues the given task in the list of tasks that the thread owning
+     * the given key is to process. Tasks with the same key are run in the order
+     * they were enqueued. If this has been destroyed previously, this method
+     * invokes {@link Messenger.Task#destroy()}.</p>
+     *
+     * @param task The task to enqueue.
+     * @param key  The key deciding the thread to run the task in, e.g., a sequence id.
+     */
+    public void enqueue(Task task, long key) {
+        enqueue(task, shards[shardOf(key)]);
+    }
+
+    /**
+     * <p>Returns the key to enqueue tasks for the given message with: its
+     * sequence id, if it has one, or the identity of the given fallback
+     * object.</p>
+     */
+    static long keyOf(Message msg, Object fallback) {
+        return msg != null && msg.hasSequenceId() ? msg.getSequenceId() : System.identityHashCode(fallback);
+    }
+
+    int shardOf(long key) {
+        return Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), shards.length);
+    }
+
+    private void enqueue(Task task, Shard shard) {
         if (destroyed.get()) {
             task.destroy();
             return;
         }
-        synchronized (this) {
-            queue.offer(task);
-            if (queue.size() == 1) {
-                notify();
-            }
-        }
+        shard.enqueue(task);
     }
 
     /**
-     * <p>Handshakes with the internal thread. If this method is called using
-     * the messenger thread, this will deadlock.</p>
+     * <p>Handshakes with the internal threads. This returns immediately if
+     * called from one of the messenger threads, as waiting for itself would
+     * deadlock.</p>
      */
     public void sync() {
-        if (Thread.currentThread() == thread) {
-            return; // no need to wait for self
+        for (Shard shard : shards)
+            if (Thread.currentThread() == shard.thread)
+                return; // no need to wait for self
+
+        List<SyncTask> tasks = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            SyncTask task = new SyncTask();
+            enqueue(task, shard);
+            tasks.add(task);
         }
-        SyncTask task = new SyncTask();
-        enqueue(task);
-        task.await();
+        for (SyncTask task : tasks)
+            task.await();
     }
 
     /**
@@ -132,15 +190,14 @@ public final class Messenger implements Runnable {
      */
     public boolean destroy() {
         boolean done = false;
-        enqueue(TERMINATE);
+        for (Shard shard : shards)
+            enqueue(TERMINATE, shard);
         if (!destroyed.getAndSet(true)) {
             try {
-                synchronized (this) {
-                    while (!queue.isEmpty()) {
-                        wait();
-                    }
+                for (Shard shard : shards) {
+                    shard.awaitEmpty();
+                    shard.thread.join();
                 }
-                thread.join();
             } catch (InterruptedException e) {
                 // ignore
             }
@@ -149,59 +206,144 @@ public final class Messenger implements Runnable {
         return done;
     }
 
+    /**
+     * <p>Runs the task loop of the first thread, which also runs the recurrent
+     * tasks. This is the target of the thread started by {@link #start()}, and
+     * should not be invoked otherwise.</p>
+     */
     @Override
     public void run() {
-        long timeoutMS = SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(100)).toMillis();
-        while (true) {
-            Task task = null;
-            synchronized (this) {
-                if (queue.isEmpty()) {
-                    try {
-                        if (children.isEmpty()) {
-                            wait();
-                        } else {
-                            wait(timeoutMS);
+        shards[0].run();
+    }
+
+    /**
+     * <p>Returns the statistics of each thread of this, in order. All but the
+     * queue size are counted since the previous call to this method.</p>
+     *
+     * @return The statistics of each thread.
+     */
+    public List<Statistics> statistics() {
+        List<Statistics> statistics = new ArrayList<>(shards.length);
+        for (Shard shard : shards)
+            statistics.add(shard.statistics());
+        return statistics;
+    }
+
+    /**
+     * <p>Statistics of a single messenger thread, since the previous sample.</p>
+     *
+     * @param queueSize         The number of tasks currently waiting to run.
+     * @param tasks             The number of tasks run.
+     * @param totalLatencyNanos The total time from tasks were enqueued until they had run.
+     * @param maxLatencyNanos   The max time from a task was enqueued until it had run.
+     */
+    public record Statistics(int queueSize, long tasks, long totalLatencyNanos, long maxLatencyNanos) { }
+
+    private final class Shard {
+
+        private final Queue<Entry> queue = new ArrayDeque<>();
+        private final Thread thread;
+        private final boolean runsChildren;
+        private long tasks = 0;
+        private long totalLatencyNanos = 0;
+        private long maxLatencyNanos = 0;
+
+        Shard(String name, boolean runsChildren) {
+            this.runsChildren = runsChildren;
+            thread = new Thread(runsChildren ? Messenger.this : this::run, name);
+            thread.setDaemon(true);
+        }
+
+        synchronized void enqueue(Task task) {
+            queue.offer(new Entry(task, System.nanoTime()));
+            if (queue.size() == 1) {
+                notify();
+            }
+        }
+
+        synchronized void awaitEmpty() throws InterruptedException {
+            while (!queue.isEmpty()) {
+                wait();
+            }
+        }
+
+        synchronized Statistics statistics() {
+            Statistics statistics = new Statistics(queue.size(), tasks, totalLatencyNanos, maxLatencyNanos);
+            tasks = 0;
+            totalLatencyNanos = 0;
+            maxLatencyNanos = 0;
+            return statistics;
+        }
+
+        private synchronized void sample(long latencyNanos) {
+            tasks++;
+            totalLatencyNanos += latencyNanos;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+        }
+
+        private void run() {
+            long timeoutMS = SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(100)).toMillis();
+            boolean hasChildren = runsChildren && !children.isEmpty();
+            while (true) {
+                Entry entry = null;
+                synchronized (this) {
+                    if (queue.isEmpty()) {
+                        try {
+                            if (hasChildren) {
+                                wait(timeoutMS);
+                            } else {
+                                wait();
+                            }
+                        } catch (InterruptedException e) {
+                            continue;
                         }
-                    } catch (InterruptedException e) {
-                        continue;
+                    }
+                    if (!queue.isEmpty()) {
+                        entry = queue.poll();
                     }
                 }
-                if (!queue.isEmpty()) {
-                    task = queue.poll();
+                if (entry != null && entry.task() == TERMINATE) {
+                    break;
                 }
-            }
-            if (task == TERMINATE) {
-                break;
-            }
-            if (task != null) {
-                try {
-                    task.run();
-                } catch (Exception e) {
-                    log.log(Level.SEVERE, "An exception was thrown while running " + task.getClass().getName(), e);
+                if (entry != null) {
+                    Task task = entry.task();
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        log.log(Level.SEVERE, "An exception was thrown while running " + task.getClass().getName(), e);
+                    }
+                    sample(System.nanoTime() - entry.enqueuedNanos());
+                    try {
+                        task.destroy();
+                    } catch (Exception e) {
+                        log.warning("An exception was thrown while destroying " + task.getClass().getName() + ": " + e);
+                        log.warning("Someone, somewhere might have to wait indefinitely for something.");
+                    }
                 }
-                try {
-                    task.destroy();
-                } catch (Exception e) {
-                    log.warning("An exception was thrown while destroying " + task.getClass().getName() + ": " + e);
-                    log.warning("Someone, somewhere might have to wait indefinitely for something.");
+                if (hasChildren) {
+                    for (Task child : children) {
+                        child.run();
+                    }
                 }
             }
-            for (Task child : children) {
-                child.run();
+            if (runsChildren) {
+                for (Task child : children) {
+                    child.destroy();
+                }
             }
-        }
-        for (Task child : children) {
-            child.destroy();
-        }
-        synchronized (this) {
-            while (!queue.isEmpty()) {
-                Task task = queue.poll();
-                task.destroy();
+            synchronized (this) {
+                while (!queue.isEmpty()) {
+                    Task task = queue.poll().task();
+                    task.destroy();
+                }
+                notify();
             }
-            notify();
         }
+
     }
 
+    private record Entry(Task task, long enqueuedNanos) { }
+
     /**
      * <p>Defines the required interface for tasks to be posted to this
      * worker.</p>
@@ -220,6 +362,29 @@ public final class Messenger implements Runnable {
         void destroy();
     }
 
+    private static class ReplyTask implements Task {
+
+        final ReplyHandler handler;
+        Reply reply;
+
+        ReplyTask(Reply reply, ReplyHandler handler) {
+            this.reply = reply;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            Reply reply = this.reply;
+            this.reply = null;
+            handler.handleReply(reply);
+        }
+
+        @Override
+        public void destroy() {
+            if (reply != null) reply.discard();
+        }
+    }
+
     private static class SyncTask implements Task {
 
         final CountDownLatch latch = new CountDownLatch(1);
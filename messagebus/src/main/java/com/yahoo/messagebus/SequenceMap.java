@@ -0,0 +1,127 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * An open addressing hash map from primitive long sequence ids to values, which may be null. This avoids boxing the
+ * keys and allocating an entry per mapping, which matters when feeding with millions of distinct sequence ids.
+ * Removal uses backward shifting, so no tombstones accumulate.
+ *
+ * This is not thread safe.
+ *
+ * @param <V> the value type
+ */
+final class SequenceMap<V> {
+
+    private static final int initialCapacity = 16;
+
+    private long[] keys = new long[initialCapacity];
+    private Object[] values = new Object[initialCapacity];
+    private boolean[] used = new boolean[initialCapacity];
+    private int size = 0;
+
+    /** Returns whether the given key is mapped, possibly to null */
+    boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /** Returns the value of the given key, or null if the key is mapped to null or not mapped */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    /** Maps the given key to the given value, which may be null */
+    void put(long key, V value) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            if ( ! used[i]) {
+                keys[i] = key;
+                values[i] = value;
+                used[i] = true;
+                if (++size > keys.length * 3 / 4)
+                    resize(keys.length * 2);
+                return;
+            }
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+    }
+
+    /** Removes the given key, and returns the value it was mapped to, or null if none */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) return null;
+        V value = (V) values[index];
+        int mask = keys.length - 1;
+        // Shift back the following entries in the probe sequence which cannot be reached when this slot is free
+        for (int next = (index + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                keys[index] = keys[next];
+                values[index] = values[next];
+                index = next;
+            }
+        }
+        used[index] = false;
+        values[index] = null;
+        size--;
+        return value;
+    }
+
+    int size() { return size; }
+
+    /** Calls the given consumer with each non-null value in this */
+    @SuppressWarnings("unchecked")
+    void forEachValue(Consumer<V> consumer) {
+        for (int i = 0; i < keys.length; i++)
+            if (used[i] && values[i] != null)
+                consumer.accept((V) values[i]);
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); used[i]; i = (i + 1) & mask)
+            if (keys[i] == key)
+                return i;
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        used = new boolean[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if ( ! oldUsed[i]) continue;
+            int j = slot(oldKeys[i], mask);
+            while (used[j])
+                j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+            used[j] = true;
+        }
+    }
+
+    /** Returns the home slot of the given key, spreading the bits of ids which are often sequential or hashes */
+    static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+}
@@ -1,10 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.messagebus;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
+import java.util.ArrayDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -12,6 +9,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * linked message handlers. Each message that carries a sequencing id is queued in an internal list of messages for that
  * id, and messages are only sent when they are at the front of their list. When a reply arrives, the current front of
  * the list is removed and the next message, if any, is sent.
+ * <p>
+ * The sequencing state is split into stripes by sequence id, each with its own lock, map and pool of queues, so
+ * concurrent senders of different sequence ids rarely contend, and queues are reused rather than allocated for each
+ * sequence id which has messages waiting.
  *
  * @author Simon Thoresen Hult
  */
@@ -19,7 +20,8 @@ public class Sequencer implements MessageHandler, ReplyHandler {
 
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final MessageHandler sender;
-    private final Map<Long, Queue<Message>> seqMap = new HashMap<>();
+    private final Stripe[] stripes;
+    private final int stripeShift;
     private final Messenger msn;
     private final static ThreadLocal<Boolean> isSending = ThreadLocal.withInitial(() -> Boolean.FALSE);
 
@@ -29,13 +31,30 @@ public class Sequencer implements MessageHandler, ReplyHandler {
      * @param sender The underlying sender.
      */
     public Sequencer(MessageHandler sender, Messenger msn) {
-        this.sender = sender;
-        this.msn = msn;
+        this(sender, msn, 64);
     }
     public Sequencer(MessageHandler sender) {
         this(sender, null);
     }
 
+    /**
+     * Constructs a new sequencer on top of the given async sender, with the given number of lock stripes.
+     *
+     * @param sender The underlying sender.
+     * @param msn The messenger to break recursive sending with, or null to always send in the calling thread.
+     * @param stripes The number of lock stripes, which must be a power of 2.
+     */
+    Sequencer(MessageHandler sender, Messenger msn, int stripes) {
+        if (stripes < 1 || Integer.bitCount(stripes) != 1)
+            throw new IllegalArgumentException("Stripes must be a power of 2, got " + stripes);
+        this.sender = sender;
+        this.msn = msn;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++)
+            this.stripes[i] = new Stripe();
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(stripes);
+    }
+
     /**
      * Sets the destroyed flag to true. The very first time this method is called, it cleans up all its dependencies.
      * Even if you retain a reference to this object, all of its content is allowed to be garbage collected.
@@ -44,15 +63,15 @@ public class Sequencer implements MessageHandler, ReplyHandler {
      */
     public boolean destroy() {
         if (!destroyed.getAndSet(true)) {
-            synchronized (this) {
-                for (Queue<Message> queue : seqMap.values()) {
-                    if (queue != null) {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.seqMap.forEachValue(queue -> {
                         for (Message msg : queue) {
                             msg.discard();
                         }
-                    }
+                    });
+                    stripe.seqMap.clear();
                 }
-                seqMap.clear();
             }
             return true;
         }
@@ -71,9 +90,14 @@ public class Sequencer implements MessageHandler, ReplyHandler {
     private boolean filter(Message msg) {
         long seqId = msg.getSequenceId();
         msg.setContext(seqId);
-        synchronized (this) {
-            if (seqMap.containsKey(seqId)) {
-                Queue<Message> queue = seqMap.computeIfAbsent(seqId, k -> new LinkedList<>());
+        Stripe stripe = stripeOf(seqId);
+        synchronized (stripe) {
+            if (stripe.seqMap.containsKey(seqId)) {
+                ArrayDeque<Message> queue = stripe.seqMap.get(seqId);
+                if (queue == null) {
+                    queue = stripe.acquireQueue();
+                    stripe.seqMap.put(seqId, queue);
+                }
                 if (msg.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
                     msg.getTrace().trace(TraceLevel.COMPONENT,
                                          "Sequencer queued message with sequence id '" + seqId + "'.");
@@ -81,7 +105,7 @@ public class Sequencer implements MessageHandler, ReplyHandler {
                 queue.add(msg);
                 return false;
             }
-            seqMap.put(seqId, null);
+            stripe.seqMap.put(seqId, null);
         }
         return true;
     }
@@ -153,10 +177,12 @@ public class Sequencer implements MessageHandler, ReplyHandler {
 
     private void sendNextInSequence(long seqId) {
         Message msg = null;
-        synchronized (this) {
-            Queue<Message> queue = seqMap.get(seqId);
+        Stripe stripe = stripeOf(seqId);
+        synchronized (stripe) {
+            ArrayDeque<Message> queue = stripe.seqMap.get(seqId);
             if (queue == null || queue.isEmpty()) {
-                seqMap.remove(seqId);
+                stripe.seqMap.remove(seqId);
+                if (queue != null) stripe.releaseQueue(queue);
             } else {
                 msg = queue.remove();
             }
@@ -165,7 +191,7 @@ public class Sequencer implements MessageHandler, ReplyHandler {
             Boolean alreadySending = isSending.get();
             if (alreadySending && (msn != null)) {
                 // Dispatch in another thread to break possibly very long recursion.
-                msn.enqueue(new SequencedSendTask(msg));
+                msn.enqueue(new SequencedSendTask(msg), msg.getSequenceId());
             } else {
                 isSending.set(Boolean.TRUE);
                 sequencedSend(msg);
@@ -174,4 +200,29 @@ public class Sequencer implements MessageHandler, ReplyHandler {
         }
     }
 
+    private Stripe stripeOf(long seqId) {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) ((seqId * 0x9E3779B97F4A7C15L) >>> stripeShift)];
+    }
+
+    /** The sequencing state of a subset of the sequence ids, guarded by its own monitor. */
+    private static class Stripe {
+
+        private static final int maxPooledQueues = 64;
+
+        /** Sequence ids with a message in flight, mapped to the messages waiting for it, or null if none. */
+        final SequenceMap<ArrayDeque<Message>> seqMap = new SequenceMap<>();
+        private final ArrayDeque<ArrayDeque<Message>> pool = new ArrayDeque<>();
+
+        ArrayDeque<Message> acquireQueue() {
+            ArrayDeque<Message> queue = pool.poll();
+            return queue != null ? queue : new ArrayDeque<>();
+        }
+
+        void releaseQueue(ArrayDeque<Message> queue) {
+            if (pool.size() < maxPooledQueues)
+                pool.push(queue);
+        }
+
+    }
+
 }
@@ -1,11 +1,17 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.messagebus;
 
+import com.yahoo.messagebus.test.SimpleMessage;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -95,6 +101,110 @@ public class MessengerTestCase {
         assertTrue(tryMessenger(msn));
     }
 
+    @Test
+    void requireThatTasksWithSameKeyRunInOrderInSameThread() {
+        Messenger msn = new Messenger(4);
+        msn.start();
+        List<List<Integer>> runs = new ArrayList<>();
+        List<List<Thread>> threads = new ArrayList<>();
+        for (int key = 0; key < 16; key++) {
+            List<Integer> run = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> thread = Collections.synchronizedList(new ArrayList<>());
+            runs.add(run);
+            threads.add(thread);
+        }
+        for (int i = 0; i < 100; i++) {
+            for (int key = 0; key < 16; key++) {
+                int value = i;
+                List<Integer> run = runs.get(key);
+                List<Thread> thread = threads.get(key);
+                msn.enqueue(new Messenger.Task() {
+                    @Override public void run() { run.add(value); thread.add(Thread.currentThread()); }
+                    @Override public void destroy() { }
+                }, key);
+            }
+        }
+        msn.sync();
+        for (int key = 0; key < 16; key++) {
+            assertEquals(100, runs.get(key).size());
+            for (int i = 0; i < 100; i++)
+                assertEquals(i, runs.get(key).get(i));
+            assertEquals(1, threads.get(key).stream().distinct().count());
+        }
+        assertTrue(threads.stream().map(thread -> thread.get(0)).distinct().count() > 1);
+        msn.destroy();
+    }
+
+    @Test
+    void requireThatSyncWaitsForAllThreads() throws InterruptedException {
+        Messenger msn = new Messenger(4);
+        msn.start();
+        List<MyTask> tasks = new ArrayList<>();
+        for (int key = 0; key < 16; key++) {
+            MyTask task = new MyTask();
+            msn.enqueue(task, key);
+            tasks.add(task);
+        }
+        msn.sync();
+        for (MyTask task : tasks) {
+            assertEquals(0, task.runLatch.getCount());
+            assertEquals(0, task.destroyLatch.getCount());
+        }
+        assertTrue(msn.destroy());
+    }
+
+    @Test
+    void requireThatStatisticsAreTracked() {
+        Messenger msn = new Messenger(2);
+        msn.start();
+        for (int i = 0; i < 10; i++)
+            msn.enqueue(new MyTask(), 0);
+        msn.sync();
+        List<Messenger.Statistics> statistics = msn.statistics();
+        assertEquals(2, statistics.size());
+        assertEquals(10 + 2, statistics.stream().mapToLong(Messenger.Statistics::tasks).sum()); // Includes the sync tasks
+        assertEquals(0, statistics.stream().mapToInt(Messenger.Statistics::queueSize).sum());
+        assertTrue(statistics.stream().allMatch(s -> s.totalLatencyNanos() >= s.maxLatencyNanos()));
+        assertEquals(0, msn.statistics().stream().mapToLong(Messenger.Statistics::maxLatencyNanos).sum());
+        assertEquals(0, msn.statistics().stream().mapToLong(Messenger.Statistics::tasks).sum());
+        msn.destroy();
+    }
+
+    @Test
+    void requireThatRepliesAreDeliveredInThreadOfSequence() throws InterruptedException {
+        Messenger msn = new Messenger(4);
+        msn.start();
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            Reply reply = new EmptyReply();
+            reply.setMessage(new SimpleMessage("msg" + i) {
+                @Override public boolean hasSequenceId() { return true; }
+                @Override public long getSequenceId() { return 17; }
+            });
+            msn.deliverReply(reply, r -> { threads.add(Thread.currentThread()); latch.countDown(); });
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        assertEquals(1, threads.stream().distinct().count(), "all replies for the same sequence are delivered in the same thread");
+        assertTrue(threads.stream().noneMatch(Thread.currentThread()::equals));
+        msn.destroy();
+    }
+
+    @Test
+    void requireThatRepliesAreDeliveredInlineWithSingleThread() {
+        Messenger msn = new Messenger();
+        msn.start();
+        List<Thread> threads = new ArrayList<>();
+        msn.deliverReply(new EmptyReply(), r -> threads.add(Thread.currentThread()));
+        assertEquals(List.of(Thread.currentThread()), threads);
+        msn.destroy();
+    }
+
+    @Test
+    void requireThatThreadCountIsValidated() {
+        assertThrows(IllegalArgumentException.class, () -> new Messenger(0));
+    }
+
     private static boolean tryMessenger(Messenger msn) {
         MyTask task = new MyTask();
         msn.enqueue(task);
@@ -0,0 +1,66 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SequenceMapTestCase {
+
+    @Test
+    void requireThatNullValuesAreMapped() {
+        SequenceMap<String> map = new SequenceMap<>();
+        assertFalse(map.containsKey(0));
+        map.put(0, null);
+        assertTrue(map.containsKey(0));
+        assertNull(map.get(0));
+        map.put(0, "zero");
+        assertEquals("zero", map.get(0));
+        assertEquals(1, map.size());
+        assertEquals("zero", map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(0, map.size());
+        assertNull(map.remove(0));
+    }
+
+    @Test
+    void requireThatMapBehavesLikeHashMap() {
+        Random random = new Random(1);
+        SequenceMap<Long> map = new SequenceMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5000) * (random.nextBoolean() ? 1L : 1L << 40);
+            switch (random.nextInt(3)) {
+                case 0 -> { Long value = random.nextBoolean() ? null : (long) i; map.put(key, value); expected.put(key, value); }
+                case 1 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> {
+                    assertEquals(expected.containsKey(key), map.containsKey(key));
+                    assertEquals(expected.get(key), map.get(key));
+                }
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertTrue(map.containsKey(entry.getKey()));
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        List<Long> values = new ArrayList<>();
+        map.forEachValue(values::add);
+        assertEquals(expected.values().stream().filter(v -> v != null).sorted().toList(), values.stream().sorted().toList());
+
+        map.clear();
+        assertEquals(0, map.size());
+        for (long key : expected.keySet())
+            assertFalse(map.containsKey(key));
+    }
+
+}
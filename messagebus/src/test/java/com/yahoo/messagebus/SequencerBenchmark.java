@@ -0,0 +1,83 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus;
+
+import com.yahoo.messagebus.test.SimpleMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures the throughput of the sequencer with 64 concurrent feeder threads sending messages with sequence ids drawn
+ * from millions of distinct documents, comparing a single lock, as before striping, with the default number of stripes.
+ * Messages are replied to immediately, in the sending thread, so the sequencer itself is the bottleneck.
+ */
+public class SequencerBenchmark {
+
+    private static final int feeders = 64;
+    private static final int messagesPerFeeder = 200_000;
+    private static final int documents = 5_000_000;
+
+    public void run() throws InterruptedException {
+        for (int round = 0; round < 3; round++) { // First round is warm-up
+            for (int stripes : new int[] { 1, 64 }) {
+                long elapsedNanos = feed(new Sequencer(SequencerBenchmark::reply, null, stripes));
+                long messages = (long) feeders * messagesPerFeeder;
+                out((round == 0 ? "(warm-up) " : "") + stripes + " stripe(s): " +
+                    (messages * 1_000_000_000L / elapsedNanos) + " messages/s");
+            }
+        }
+    }
+
+    private long feed(Sequencer sequencer) throws InterruptedException {
+        ReplyHandler handler = reply -> { };
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < feeders; i++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int j = 0; j < messagesPerFeeder; j++) {
+                    Message message = new SequencedMessage(random.nextInt(documents));
+                    message.pushHandler(handler);
+                    sequencer.handleMessage(message);
+                }
+            }));
+        }
+        long startTime = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads)
+            thread.join();
+        return System.nanoTime() - startTime;
+    }
+
+    private static void reply(Message message) {
+        Reply reply = new EmptyReply();
+        reply.swapState(message);
+        reply.popHandler().handleReply(reply);
+    }
+
+    private void out(String string) {
+        System.out.println(string);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        new SequencerBenchmark().run();
+    }
+
+    private static class SequencedMessage extends SimpleMessage {
+
+        final long seqId;
+
+        SequencedMessage(long seqId) {
+            super("foo");
+            this.seqId = seqId;
+        }
+
+        @Override
+        public boolean hasSequenceId() { return true; }
+
+        @Override
+        public long getSequenceId() { return seqId; }
+
+    }
+
+}
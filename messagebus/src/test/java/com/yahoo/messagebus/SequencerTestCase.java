@@ -6,16 +6,20 @@ import org.junit.jupiter.api.Test;
 
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -156,6 +160,60 @@ public class SequencerTestCase {
         messenger.destroy();
     }
 
+    @Test
+    void testConcurrentSendersKeepSequenceOrder() throws InterruptedException {
+        int threads = 8, messagesPerThread = 20000, sequenceIds = 100;
+        Queue<Message> inFlight = new ConcurrentLinkedQueue<>();
+        AtomicInteger violations = new AtomicInteger();
+        AtomicInteger[] sending = new AtomicInteger[sequenceIds];
+        for (int i = 0; i < sequenceIds; i++) sending[i] = new AtomicInteger();
+        Sequencer sequencer = new Sequencer(message -> {
+            if (sending[(int) message.getSequenceId()].incrementAndGet() != 1) violations.incrementAndGet();
+            inFlight.add(message);
+        }, null, 16);
+        CountDownLatch latch = new CountDownLatch(threads * messagesPerThread);
+        ReplyHandler handler = reply -> latch.countDown();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            executor.execute(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < messagesPerThread; i++) {
+                    Message message = new MyMessage(true, random.nextInt(sequenceIds));
+                    message.pushHandler(handler);
+                    sequencer.handleMessage(message);
+                    Message sent;
+                    while ((sent = inFlight.poll()) != null) {
+                        sending[(int) sent.getSequenceId()].decrementAndGet();
+                        Reply reply = new EmptyReply();
+                        reply.swapState(sent);
+                        reply.setMessage(sent);
+                        reply.popHandler().handleReply(reply);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        Message sent;
+        while ((sent = inFlight.poll()) != null) {
+            sending[(int) sent.getSequenceId()].decrementAndGet();
+            Reply reply = new EmptyReply();
+            reply.swapState(sent);
+            reply.setMessage(sent);
+            reply.popHandler().handleReply(reply);
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(0, violations.get(), "At most one message per sequence id is in flight at once");
+    }
+
+    @Test
+    void testStripesMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new Sequencer(message -> { }, null, 3));
+        assertThrows(IllegalArgumentException.class, () -> new Sequencer(message -> { }, null, 0));
+    }
+
     private static class TestQueue extends LinkedList<Routable> implements ReplyHandler {
 
         void checkReply(boolean hasSeqId, long seqId) {
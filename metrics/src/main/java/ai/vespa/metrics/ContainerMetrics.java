@@ -89,6 +89,7 @@ public enum ContainerMetrics implements VespaMetrics {
     
     HTTPAPI_LATENCY("httpapi_latency", Unit.MILLISECOND, "Duration for requests to the HTTP document APIs"),
     HTTPAPI_PENDING("httpapi_pending", Unit.OPERATION, "Document operations pending execution"),
+    HTTPAPI_QUEUE_WAIT("httpapi_queue_wait", Unit.MILLISECOND, "Time document operations are queued, due to throttling, before being dispatched"),
     HTTPAPI_NUM_OPERATIONS("httpapi_num_operations", Unit.OPERATION, "Total number of document operations performed"),
     HTTPAPI_NUM_UPDATES("httpapi_num_updates", Unit.OPERATION, "Document update operations performed"),
     HTTPAPI_NUM_REMOVES("httpapi_num_removes", Unit.OPERATION, "Document remove operations performed"),
@@ -124,6 +125,9 @@ public enum ContainerMetrics implements VespaMetrics {
     FEED_OPERATIONS("feed.operations", Unit.OPERATION, "Number of document feed operations"),
     FEED_LATENCY("feed.latency", Unit.MILLISECOND, "Feed latency"),
     FEED_HTTP_REQUESTS("feed.http-requests", Unit.OPERATION, "Feed HTTP requests"),
+    MBUS_MESSENGER_QUEUE_SIZE("mbus.messenger.queue.size", Unit.TASK, "Number of tasks waiting to run in a message bus messenger thread"),
+    MBUS_MESSENGER_TASK_LATENCY("mbus.messenger.task.latency", Unit.MILLISECOND, "Average time from tasks were enqueued in a message bus messenger thread until they had run, per sample"),
+    MBUS_MESSENGER_TASK_MAX_LATENCY("mbus.messenger.task.max_latency", Unit.MILLISECOND, "Max time from a task was enqueued in a message bus messenger thread until it had run, per sample"),
     QUERIES("queries", Unit.OPERATION, "Query volume"),
     QUERY_CONTAINER_LATENCY("query_container_latency", Unit.MILLISECOND, "The query execution time consumed in the container"),
     QUERY_LATENCY("query_latency", Unit.MILLISECOND, "The overall query latency as seen by the container"),
@@ -137,6 +141,15 @@ public enum ContainerMetrics implements VespaMetrics {
     DOCUMENTS_TARGET_TOTAL("documents_target_total", Unit.DOCUMENT, "The target number of total documents to be evaluated when when all data is in sync"),
     JDISC_RENDER_LATENCY("jdisc.render.latency", Unit.NANOSECOND, "The time used by the container to render responses"),
     QUERY_ITEM_COUNT("query_item_count", Unit.ITEM, "The number of query items (terms, phrases, etc)"),
+    RESULT_CACHE_HITS("result_cache.hits", Unit.QUERY, "Number of queries served from the dispatcher result cache"),
+    RESULT_CACHE_MISSES("result_cache.misses", Unit.QUERY, "Number of cacheable queries not found in the dispatcher result cache"),
+    RESULT_CACHE_SIZE("result_cache.size", Unit.BYTE, "Estimated size of the results in the dispatcher result cache"),
+    DOCSUM_CACHE_HITS("docsum_cache.hits", Unit.HIT, "Number of hits filled from the dispatcher document summary cache"),
+    DOCSUM_CACHE_MISSES("docsum_cache.misses", Unit.HIT, "Number of cacheable hits not found in the dispatcher document summary cache"),
+    DOCSUM_CACHE_EVICTIONS("docsum_cache.evictions", Unit.DOCUMENT, "Number of summaries evicted from the dispatcher document summary cache to stay within its size"),
+    DOCSUM_CACHE_INVALIDATIONS("docsum_cache.invalidations", Unit.DOCUMENT, "Number of summaries removed from the dispatcher document summary cache as they expired"),
+    DOCSUM_CACHE_SIZE("docsum_cache.size", Unit.BYTE, "Size of the summaries in the dispatcher document summary cache"),
+    DISPATCH_GROUP_SCORE("dispatch.group.score", Unit.MILLISECOND, "Estimated latency of a group times its outstanding queries plus one, as used by the peak-ewma dispatch policy. Lower is preferred"),
     DOCPROC_PROC_TIME("docproc.proctime", Unit.MILLISECOND, "Time spent processing document"),
     DOCPROC_DOCUMENTS("docproc.documents", Unit.DOCUMENT, "Number of processed documents"),
     
@@ -207,7 +220,13 @@ public enum ContainerMetrics implements VespaMetrics {
     SERVER_STARTED_MILLIS("serverStartedMillis", Unit.MILLISECOND, "Time since the service was started"),
 
     EMBEDDER_LATENCY("embedder.latency", Unit.MILLISECOND, "Time spent creating an embedding"),
-    EMBEDDER_SEQUENCE_LENGTH("embedder.sequence_length", Unit.BYTE, "Size of sequence produced by tokenizer");
+    EMBEDDER_SEQUENCE_LENGTH("embedder.sequence_length", Unit.BYTE, "Size of sequence produced by tokenizer"),
+    EMBEDDER_BATCH_SIZE("embedder.batch.size", Unit.OPERATION, "Number of embeddings evaluated together in a batch"),
+    EMBEDDER_BATCH_QUEUE_WAIT("embedder.batch.queue_wait", Unit.MILLISECOND, "Time an embedding waited for its batch to be evaluated"),
+    EMBEDDER_CACHE_HITS("embedder.cache.hits", Unit.OPERATION, "Number of embeddings served from the embedding cache"),
+    EMBEDDER_CACHE_MISSES("embedder.cache.misses", Unit.OPERATION, "Number of embeddings not found in the embedding cache"),
+    EMBEDDER_CACHE_EVICTIONS("embedder.cache.evictions", Unit.OPERATION, "Number of embeddings evicted from the embedding cache"),
+    EMBEDDER_CACHE_SIZE("embedder.cache.size", Unit.BYTE, "Estimated size of the embeddings in the embedding cache");
 
     private final String name;
     private final Unit unit;
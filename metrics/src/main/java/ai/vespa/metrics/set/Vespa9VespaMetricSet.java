@@ -146,6 +146,7 @@ public class Vespa9VespaMetricSet {
 
         addMetric(metrics, ContainerMetrics.HTTPAPI_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.HTTPAPI_PENDING, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.HTTPAPI_QUEUE_WAIT, EnumSet.of(max, sum, count, ninety_five_percentile, ninety_nine_percentile));
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_OPERATIONS.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_UPDATES.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_REMOVES.rate());
@@ -207,6 +208,9 @@ public class Vespa9VespaMetricSet {
 
         addMetric(metrics, ContainerMetrics.FEED_LATENCY, EnumSet.of(sum, count, max));
         addMetric(metrics, ContainerMetrics.FEED_HTTP_REQUESTS, EnumSet.of(count, rate));
+        addMetric(metrics, ContainerMetrics.MBUS_MESSENGER_QUEUE_SIZE.max());
+        addMetric(metrics, ContainerMetrics.MBUS_MESSENGER_TASK_LATENCY, EnumSet.of(sum, count, max));
+        addMetric(metrics, ContainerMetrics.MBUS_MESSENGER_TASK_MAX_LATENCY.max());
 
         addMetric(metrics, ContainerMetrics.JDISC_TLS_CAPABILITY_CHECKS_SUCCEEDED.rate());
         addMetric(metrics, ContainerMetrics.JDISC_TLS_CAPABILITY_CHECKS_FAILED.rate());
@@ -214,6 +218,12 @@ public class Vespa9VespaMetricSet {
         // Embedders
         addMetric(metrics, ContainerMetrics.EMBEDDER_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.EMBEDDER_SEQUENCE_LENGTH, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_BATCH_SIZE, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_BATCH_QUEUE_WAIT, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_HITS.count());
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_MISSES.count());
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_EVICTIONS.count());
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_SIZE.max());
 
         return metrics;
     }
@@ -280,6 +290,15 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.DOCUMENTS_TARGET_TOTAL.count());
         addMetric(metrics, ContainerMetrics.JDISC_RENDER_LATENCY, EnumSet.of(min, max, count, sum));
         addMetric(metrics, ContainerMetrics.QUERY_ITEM_COUNT, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_HITS.count());
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_MISSES.count());
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_SIZE.max());
+        addMetric(metrics, ContainerMetrics.DOCSUM_CACHE_HITS.count());
+        addMetric(metrics, ContainerMetrics.DOCSUM_CACHE_MISSES.count());
+        addMetric(metrics, ContainerMetrics.DOCSUM_CACHE_EVICTIONS.count());
+        addMetric(metrics, ContainerMetrics.DOCSUM_CACHE_INVALIDATIONS.count());
+        addMetric(metrics, ContainerMetrics.DOCSUM_CACHE_SIZE.max());
+        addMetric(metrics, ContainerMetrics.DISPATCH_GROUP_SCORE.max());
         addMetric(metrics, ContainerMetrics.TOTAL_HITS_PER_QUERY, EnumSet.of(sum, count, max, ninety_five_percentile, ninety_nine_percentile));
         addMetric(metrics, ContainerMetrics.EMPTY_RESULTS.rate());
         addMetric(metrics, ContainerMetrics.REQUESTS_OVER_QUOTA, EnumSet.of(rate, count));
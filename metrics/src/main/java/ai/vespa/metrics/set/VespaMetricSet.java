@@ -157,6 +157,7 @@ public class VespaMetricSet {
 
         addMetric(metrics, ContainerMetrics.HTTPAPI_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.HTTPAPI_PENDING, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.HTTPAPI_QUEUE_WAIT, EnumSet.of(max, sum, count, ninety_five_percentile, ninety_nine_percentile));
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_OPERATIONS.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_UPDATES.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_REMOVES.rate());
@@ -232,10 +233,19 @@ public class VespaMetricSet {
 
         addMetric(metrics, ContainerMetrics.FEED_LATENCY, EnumSet.of(sum, count, max));
         addMetric(metrics, ContainerMetrics.FEED_HTTP_REQUESTS, EnumSet.of(count, rate));
+        addMetric(metrics, ContainerMetrics.MBUS_MESSENGER_QUEUE_SIZE.max());
+        addMetric(metrics, ContainerMetrics.MBUS_MESSENGER_TASK_LATENCY, EnumSet.of(sum, count, max));
+        addMetric(metrics, ContainerMetrics.MBUS_MESSENGER_TASK_MAX_LATENCY.max());
 
         // Embedders
         addMetric(metrics, ContainerMetrics.EMBEDDER_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.EMBEDDER_SEQUENCE_LENGTH, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_BATCH_SIZE, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_BATCH_QUEUE_WAIT, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_HITS.count());
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_MISSES.count());
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_EVICTIONS.count());
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_SIZE.max());
 
         // Deprecated metrics. TODO: Remove on Vespa 9.
         addMetric(metrics, ContainerMetrics.SERVER_REJECTED_REQUESTS, EnumSet.of(rate, count));
@@ -311,6 +321,15 @@ public class VespaMetricSet {
         addMetric(metrics, ContainerMetrics.DOCUMENTS_TARGET_TOTAL.count());
         addMetric(metrics, ContainerMetrics.JDISC_RENDER_LATENCY, EnumSet.of(min, max, count, sum, last, average)); // TODO: Vespa 9: Remove last, average
         addMetric(metrics, ContainerMetrics.QUERY_ITEM_COUNT, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_HITS.count());
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_MISSES.count());
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_SIZE.max());
+        addMetric(metrics, ContainerMetrics.DOCSUM_CACHE_HITS.count());
+        addMetric(metrics, ContainerMetrics.DOCSUM_CACHE_MISSES.count());
+        addMetric(metrics, ContainerMetrics.DOCSUM_CACHE_EVICTIONS.count());
+        addMetric(metrics, ContainerMetrics.DOCSUM_CACHE_INVALIDATIONS.count());
+        addMetric(metrics, ContainerMetrics.DOCSUM_CACHE_SIZE.max());
+        addMetric(metrics, ContainerMetrics.DISPATCH_GROUP_SCORE.max());
         addMetric(metrics, ContainerMetrics.TOTAL_HITS_PER_QUERY, EnumSet.of(sum, count, max, ninety_five_percentile, ninety_nine_percentile));
         addMetric(metrics, ContainerMetrics.EMPTY_RESULTS.rate());
         addMetric(metrics, ContainerMetrics.REQUESTS_OVER_QUOTA, EnumSet.of(rate, count));
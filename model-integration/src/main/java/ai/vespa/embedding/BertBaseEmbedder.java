@@ -106,11 +106,13 @@ public class BertBaseEmbedder extends AbstractComponent implements Embedder {
         if (!type.dimensions().get(0).isIndexed()) {
             throw new IllegalArgumentException("Error in embedding to type '" + type + "': dimension should be indexed.");
         }
-        List<Integer> tokens = embedWithSeparatorTokens(text, context, maxTokens);
-        runtime.sampleSequenceLength(tokens.size(), context);
-        var embedding = embedTokens(tokens, type);
-        runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
-        return embedding;
+        return runtime.computeCachedEmbeddingIfAbsent(text, context, type, () -> {
+            List<Integer> tokens = embedWithSeparatorTokens(text, context, maxTokens);
+            runtime.sampleSequenceLength(tokens.size(), context);
+            var embedding = embedTokens(tokens, type);
+            runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
+            return embedding;
+        });
     }
 
     @Override public void deconstruct() { evaluator.close(); }
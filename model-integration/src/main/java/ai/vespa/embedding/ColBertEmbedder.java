@@ -136,11 +136,13 @@ public class ColBertEmbedder extends AbstractComponent implements Embedder {
             throw new IllegalArgumentException("Invalid colbert embedder tensor target destination. " +
                                                "Wanted a mixed 2-d mapped-indexed tensor, got " + tensorType);
         }
-        if (context.getDestination().startsWith("query")) {
-            return embedQuery(text, context, tensorType);
-        } else {
-            return embedDocument(text, context, tensorType);
-        }
+        return runtime.computeCachedEmbeddingIfAbsent(text, context, tensorType, () -> {
+            if (context.getDestination().startsWith("query")) {
+                return embedQuery(text, context, tensorType);
+            } else {
+                return embedDocument(text, context, tensorType);
+            }
+        });
     }
     @Override
     public void deconstruct() {
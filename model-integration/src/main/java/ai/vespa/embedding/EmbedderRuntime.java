@@ -4,14 +4,21 @@ package ai.vespa.embedding;
 
 import ai.vespa.metrics.ContainerMetrics;
 import com.yahoo.component.annotation.Inject;
+import com.yahoo.embedding.EmbedderRuntimeConfig;
 import com.yahoo.language.Language;
 import com.yahoo.language.process.Embedder;
+import com.yahoo.metrics.simple.Counter;
 import com.yahoo.metrics.simple.Gauge;
 import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.metrics.simple.MetricSettings;
 import com.yahoo.metrics.simple.Point;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * @author bjorncs
@@ -20,12 +27,29 @@ public class EmbedderRuntime implements Embedder.Runtime {
 
     private final Gauge embedLatency;
     private final Gauge sequenceLength;
+    private final Gauge batchSize;
+    private final Gauge batchQueueWait;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter cacheEvictions;
+    private final Gauge cacheSize;
     private final Map<MetricDimensions, Point> metricPointCache = new ConcurrentHashMap<>();
 
+    /** The embeddings cached across requests, or null if caching is disabled */
+    private final EmbeddingCache cache;
+
     @Inject
-    public EmbedderRuntime(MetricReceiver metrics) {
+    public EmbedderRuntime(MetricReceiver metrics, EmbedderRuntimeConfig config) {
         embedLatency = metrics.declareGauge(ContainerMetrics.EMBEDDER_LATENCY.baseName());
         sequenceLength = metrics.declareGauge(ContainerMetrics.EMBEDDER_SEQUENCE_LENGTH.baseName());
+        var histogram = new MetricSettings.Builder().histogram(true).build();
+        batchSize = metrics.declareGauge(ContainerMetrics.EMBEDDER_BATCH_SIZE.baseName(), Optional.empty(), histogram);
+        batchQueueWait = metrics.declareGauge(ContainerMetrics.EMBEDDER_BATCH_QUEUE_WAIT.baseName(), Optional.empty(), histogram);
+        cacheHits = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_HITS.baseName());
+        cacheMisses = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_MISSES.baseName());
+        cacheEvictions = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_EVICTIONS.baseName());
+        cacheSize = metrics.declareGauge(ContainerMetrics.EMBEDDER_CACHE_SIZE.baseName());
+        cache = config.cacheSizeBytes() > 0 ? new EmbeddingCache(config.cacheSizeBytes()) : null;
     }
 
     @Override
@@ -38,6 +62,35 @@ public class EmbedderRuntime implements Embedder.Runtime {
         sequenceLength.sample(length, metricPoint(ctx));
     }
 
+    @Override
+    public void sampleBatchSize(long size, Embedder.Context ctx) {
+        batchSize.sample(size, metricPoint(ctx));
+    }
+
+    @Override
+    public void sampleBatchQueueWait(double millis, Embedder.Context ctx) {
+        batchQueueWait.sample(millis, metricPoint(ctx));
+    }
+
+    @Override
+    public Tensor computeCachedEmbeddingIfAbsent(String text, Embedder.Context ctx, TensorType type, Supplier<Tensor> embedding) {
+        if (cache == null) return embedding.get();
+
+        var key = new EmbeddingCache.Key(ctx.getEmbedderId(), ctx.getLanguage(), ctx.getDestination(), text, type);
+        Tensor cached = cache.get(key);
+        if (cached != null) {
+            cacheHits.add(metricPoint(ctx));
+            return cached;
+        }
+        cacheMisses.add(metricPoint(ctx));
+        Tensor computed = embedding.get();
+        int evicted = cache.put(key, computed);
+        if (evicted > 0)
+            cacheEvictions.add(evicted, metricPoint(ctx));
+        cacheSize.sample(cache.sizeBytes());
+        return computed;
+    }
+
     private Point metricPoint(Embedder.Context ctx) {
         var dimensions = new MetricDimensions(ctx.getEmbedderId(), ctx.getLanguage(), ctx.getDestination());
         return metricPointCache.computeIfAbsent(
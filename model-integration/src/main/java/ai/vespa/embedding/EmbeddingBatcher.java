@@ -0,0 +1,134 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.language.process.Embedder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects concurrent embedding requests into batches which are evaluated together by a single model evaluation.
+ * A batch is evaluated when it has reached its max size, or when its first request has waited for the max delay.
+ * Batches are evaluated one at a time by a dedicated thread, while the requesting threads wait for their results.
+ *
+ * @param <I> the model input of a single request
+ * @param <O> the model output of a single request
+ */
+public class EmbeddingBatcher<I, O> implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(EmbeddingBatcher.class.getName());
+
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final Function<List<I>, List<O>> evaluator;
+    private final Embedder.Runtime runtime;
+    private final BlockingQueue<Request<I, O>> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean closed = false;
+
+    /**
+     * @param name the name of this, used to name its dispatcher thread
+     * @param maxSize the max number of requests to evaluate in a single batch
+     * @param maxDelay the max time to wait for more requests before evaluating a batch
+     * @param evaluator evaluates a batch of inputs, returning the outputs in the same order
+     * @param runtime receives batch size and queue wait samples
+     */
+    public EmbeddingBatcher(String name, int maxSize, Duration maxDelay, Function<List<I>, List<O>> evaluator,
+                            Embedder.Runtime runtime) {
+        if (maxSize < 1) throw new IllegalArgumentException("Max batch size must be at least 1, got " + maxSize);
+        this.maxSize = maxSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.evaluator = evaluator;
+        this.runtime = runtime;
+        this.dispatcher = new Thread(this::dispatch, "embedding-batcher-" + name);
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /** Evaluates the given input as part of a batch, and returns its output when the batch is evaluated */
+    public O evaluate(I input, Embedder.Context context) {
+        var request = new Request<I, O>(input, context, System.nanoTime(), new CompletableFuture<>());
+        queue.add(request);
+        if (closed) failRemaining(); // Don't leave the request behind if we raced with close
+        try {
+            return request.result().join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private void dispatch() {
+        List<Request<I, O>> batch = new ArrayList<>(maxSize);
+        while ( ! closed) {
+            try {
+                Request<I, O> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = first.enqueuedNanos() + maxDelayNanos;
+                while (batch.size() < maxSize) {
+                    Request<I, O> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                evaluate(batch);
+            }
+            catch (InterruptedException e) {
+                batch.forEach(request -> request.result().completeExceptionally(new IllegalStateException("Embedder is shut down")));
+            }
+            batch.clear();
+        }
+        failRemaining();
+    }
+
+    private void evaluate(List<Request<I, O>> batch) {
+        long start = System.nanoTime();
+        for (var request : batch) {
+            runtime.sampleBatchSize(batch.size(), request.context());
+            runtime.sampleBatchQueueWait((start - request.enqueuedNanos()) / 1_000_000d, request.context());
+        }
+        try {
+            List<O> outputs = evaluator.apply(batch.stream().map(Request::input).toList());
+            if (outputs.size() != batch.size())
+                throw new IllegalStateException("Expected " + batch.size() + " outputs from batch evaluation, got " + outputs.size());
+            for (int i = 0; i < batch.size(); i++)
+                batch.get(i).result().complete(outputs.get(i));
+        }
+        catch (RuntimeException e) {
+            log.log(Level.FINE, "Failed evaluating batch of " + batch.size(), e);
+            batch.forEach(request -> request.result().completeExceptionally(e));
+        }
+    }
+
+    private void failRemaining() {
+        Request<I, O> request;
+        while ((request = queue.poll()) != null)
+            request.result().completeExceptionally(new IllegalStateException("Embedder is shut down"));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failRemaining();
+    }
+
+    private record Request<I, O>(I input, Embedder.Context context, long enqueuedNanos, CompletableFuture<O> result) { }
+
+}
@@ -0,0 +1,86 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.language.Language;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of embeddings shared between all requests to a container, bounded by the estimated size
+ * in bytes of the cached tensors. The least recently used entries are evicted first.
+ *
+ * Embeddings are computed outside the cache, so concurrent misses for the same key may compute the
+ * same embedding more than once. The last one to be put replaces the others.
+ */
+class EmbeddingCache {
+
+    /** Estimated fixed cost of an entry: key, map node and tensor object headers */
+    static final long entryOverheadBytes = 128;
+
+    /** Estimated cost of the address of a cell in a tensor with mapped dimensions */
+    static final long mappedCellOverheadBytes = 48;
+
+    private final long maxSizeBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long sizeBytes = 0;
+
+    EmbeddingCache(long maxSizeBytes) {
+        if (maxSizeBytes <= 0) throw new IllegalArgumentException("Cache size must be positive, got " + maxSizeBytes);
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /** Returns the cached embedding for the given key, or null if it is not present */
+    synchronized Tensor get(Key key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.embedding();
+    }
+
+    /**
+     * Caches the given embedding, evicting least recently used entries to stay within the size limit.
+     * Embeddings larger than the size limit are not cached.
+     *
+     * @return the number of entries evicted to make room for this
+     */
+    synchronized int put(Key key, Tensor embedding) {
+        long size = estimateSizeBytes(key, embedding);
+        if (size > maxSizeBytes) return 0;
+
+        Entry previous = entries.put(key, new Entry(embedding, size));
+        if (previous != null) sizeBytes -= previous.sizeBytes();
+        sizeBytes += size;
+
+        int evicted = 0;
+        for (Iterator<Map.Entry<Key, Entry>> i = entries.entrySet().iterator(); sizeBytes > maxSizeBytes && i.hasNext(); ) {
+            Map.Entry<Key, Entry> eldest = i.next();
+            if (eldest.getKey().equals(key)) continue;
+            sizeBytes -= eldest.getValue().sizeBytes();
+            i.remove();
+            evicted++;
+        }
+        return evicted;
+    }
+
+    /** Returns the estimated size in bytes of all cached embeddings */
+    synchronized long sizeBytes() { return sizeBytes; }
+
+    /** Returns the number of cached embeddings */
+    synchronized int entryCount() { return entries.size(); }
+
+    static long estimateSizeBytes(Key key, Tensor embedding) {
+        TensorType type = embedding.type();
+        long bytesPerCell = type.valueType() == TensorType.Value.DOUBLE ? 8 : 4;
+        if ( ! type.mappedSubtype().dimensions().isEmpty())
+            bytesPerCell += mappedCellOverheadBytes;
+        return entryOverheadBytes + 2L * key.text().length() + embedding.size() * bytesPerCell;
+    }
+
+    /** The identity of an embedding: All the input which may influence the output of an embedder */
+    record Key(String embedderId, Language language, String destination, String text, TensorType type) { }
+
+    private record Entry(Tensor embedding, long sizeBytes) { }
+
+}
@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.embedding.huggingface;
 
+import ai.vespa.embedding.EmbeddingBatcher;
 import ai.vespa.embedding.PoolingStrategy;
 import ai.vespa.modelintegration.evaluator.OnnxEvaluator;
 import ai.vespa.modelintegration.evaluator.OnnxEvaluatorOptions;
@@ -9,6 +10,7 @@ import com.yahoo.api.annotations.Beta;
 import com.yahoo.component.AbstractComponent;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.embedding.huggingface.HuggingFaceEmbedderConfig;
+import com.yahoo.language.huggingface.Encoding;
 import com.yahoo.language.huggingface.HuggingFaceTokenizer;
 import com.yahoo.language.process.Embedder;
 import com.yahoo.tensor.IndexedTensor;
@@ -17,9 +19,13 @@ import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 import static com.yahoo.language.huggingface.ModelInfo.TruncationStrategy.LONGEST_FIRST;
@@ -39,6 +45,9 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
     private final OnnxEvaluator evaluator;
     private final PoolingStrategy poolingStrategy;
 
+    /** Evaluates concurrent requests together, or null if batching is disabled */
+    private final EmbeddingBatcher<Encoding, IndexedTensor> batcher;
+
     private final String prependQuery;
 
     private final String prependDocument;
@@ -76,6 +85,13 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         onnxOpts.setThreads(config.transformerInterOpThreads(), config.transformerIntraOpThreads());
         evaluator = onnx.evaluatorOf(config.transformerModel().toString(), onnxOpts);
         validateModel();
+        batcher = config.batchingMaxSize() > 1
+                ? new EmbeddingBatcher<>(config.transformerModel().toString(),
+                                         config.batchingMaxSize(),
+                                         Duration.ofNanos((long) (config.batchingMaxDelayMillis() * 1_000_000)),
+                                         this::evaluateBatch,
+                                         runtime)
+                : null;
     }
 
     private void validateModel() {
@@ -106,6 +122,7 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
 
     @Override
     public void deconstruct() {
+        if (batcher != null) batcher.close();
         evaluator.close();
         tokenizer.close();
     }
@@ -119,7 +136,12 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         if (!tensorType.dimensions().get(0).isIndexed()) {
             throw new IllegalArgumentException("Error in embedding to type '" + tensorType + "': dimension should be indexed.");
         }
-        var embeddingResult = lookupOrEvaluate(context, prependInstruction(text, context));
+        String input = prependInstruction(text, context);
+        return runtime.computeCachedEmbeddingIfAbsent(input, context, tensorType,
+                                                      () -> toEmbedding(lookupOrEvaluate(context, input), tensorType));
+    }
+
+    private Tensor toEmbedding(HFEmbeddingResult embeddingResult, TensorType tensorType) {
         IndexedTensor tokenEmbeddings = embeddingResult.output;
         if (tensorType.valueType() == TensorType.Value.INT8) {
             return binaryQuantization(embeddingResult, tensorType);
@@ -167,19 +189,28 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         var start = System.nanoTime();
         var encoding = tokenizer.encode(text, context.getLanguage());
         runtime.sampleSequenceLength(encoding.ids().size(), context);
-        Tensor inputSequence = createTensorRepresentation(encoding.ids(), "d1");
         Tensor attentionMask = createTensorRepresentation(encoding.attentionMask(), "d1");
-        Tensor tokenTypeIds = tokenTypeIdsName.isEmpty() ? null : createTensorRepresentation(encoding.typeIds(), "d1");
+        IndexedTensor tokenEmbeddings = batcher != null ? batcher.evaluate(encoding, context)
+                                                        : evaluateBatch(List.of(encoding)).get(0);
+        runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
+        return new HFEmbeddingResult(tokenEmbeddings, attentionMask, context.getEmbedderId());
+    }
+
+    /**
+     * Evaluates the model for a batch of encodings in a single evaluation, by padding them to the same length.
+     * Returns the token embeddings of each encoding, as if it was evaluated alone.
+     */
+    private List<IndexedTensor> evaluateBatch(List<Encoding> encodings) {
+        int batchSize = encodings.size();
+        int sequenceLength = encodings.stream().mapToInt(encoding -> encoding.ids().size()).max().orElse(0);
+        boolean useTokenTypeIds = ! tokenTypeIdsName.isEmpty() && encodings.stream().noneMatch(encoding -> encoding.typeIds().isEmpty());
+
+        Map<String, Tensor> inputs = new HashMap<>();
+        inputs.put(inputIdsName, createBatchTensorRepresentation(encodings, Encoding::ids, sequenceLength));
+        inputs.put(attentionMaskName, createBatchTensorRepresentation(encodings, Encoding::attentionMask, sequenceLength));
+        if (useTokenTypeIds)
+            inputs.put(tokenTypeIdsName, createBatchTensorRepresentation(encodings, Encoding::typeIds, sequenceLength));
 
-        Map<String, Tensor> inputs;
-        if (tokenTypeIdsName.isEmpty() || tokenTypeIds.isEmpty()) {
-            inputs = Map.of(inputIdsName, inputSequence.expand("d0"),
-                    attentionMaskName, attentionMask.expand("d0"));
-        } else {
-            inputs = Map.of(inputIdsName, inputSequence.expand("d0"),
-                    attentionMaskName, attentionMask.expand("d0"),
-                    tokenTypeIdsName, tokenTypeIds.expand("d0"));
-        }
         IndexedTensor tokenEmbeddings = (IndexedTensor) evaluator.evaluate(inputs).get(outputName);
         long[] resultShape = tokenEmbeddings.shape();
         //shape batch, sequence, embedding dimensionality
@@ -188,8 +219,30 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
                     "Expected 3 output dimensions for output name '" +
                     outputName + "': [batch, sequence, embedding], got " + resultShape.length);
         }
-        runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
-        return new HFEmbeddingResult(tokenEmbeddings, attentionMask, context.getEmbedderId());
+        if (batchSize == 1) return List.of(tokenEmbeddings);
+
+        List<IndexedTensor> results = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++)
+            results.add(slice(tokenEmbeddings, i, encodings.get(i).ids().size()));
+        return results;
+    }
+
+    /** Returns the token embeddings of the given batch entry, without padding, as a batch of size 1 */
+    private static IndexedTensor slice(IndexedTensor tokenEmbeddings, int batchIndex, int sequenceLength) {
+        var dimensions = tokenEmbeddings.type().dimensions();
+        int embeddingSize = (int) tokenEmbeddings.shape()[2];
+        TensorType type = new TensorType.Builder(tokenEmbeddings.type().valueType())
+                .indexed(dimensions.get(0).name(), 1)
+                .indexed(dimensions.get(1).name(), sequenceLength)
+                .indexed(dimensions.get(2).name(), embeddingSize)
+                .build();
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder) IndexedTensor.Builder.of(type);
+        for (int t = 0; t < sequenceLength; t++) {
+            for (int d = 0; d < embeddingSize; d++) {
+                builder.cellByDirectIndex((long) t * embeddingSize + d, tokenEmbeddings.get(batchIndex, t, d));
+            }
+        }
+        return builder.build();
     }
 
     private Tensor binaryQuantization(HuggingFaceEmbedder.HFEmbeddingResult embeddingResult, TensorType tensorType) {
@@ -236,6 +289,23 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         return builder.build();
     }
 
+    private static IndexedTensor createBatchTensorRepresentation(List<Encoding> encodings,
+                                                                 Function<Encoding, List<Long>> input,
+                                                                 int sequenceLength) {
+        TensorType type = new TensorType.Builder(TensorType.Value.FLOAT)
+                .indexed("d0", encodings.size())
+                .indexed("d1", sequenceLength)
+                .build();
+        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type);
+        for (int b = 0; b < encodings.size(); ++b) {
+            List<Long> values = input.apply(encodings.get(b));
+            for (int i = 0; i < sequenceLength; ++i) {
+                builder.cell(i < values.size() ? values.get(i) : 0, b, i); // Pad with zeroes, which are masked out
+            }
+        }
+        return builder.build();
+    }
+
     private IndexedTensor createTensorRepresentation(List<Long> input, String dimension) {
         int size = input.size();
         TensorType type = new TensorType.Builder(TensorType.Value.FLOAT).indexed(dimension, size).build();
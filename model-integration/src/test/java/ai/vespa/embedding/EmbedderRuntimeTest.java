@@ -0,0 +1,90 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.embedding.EmbedderRuntimeConfig;
+import com.yahoo.language.Language;
+import com.yahoo.language.process.Embedder;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class EmbedderRuntimeTest {
+
+    private static final TensorType type = TensorType.fromSpec("tensor<float>(x[4])");
+
+    @Test
+    public void embeddings_are_cached_across_requests() {
+        var runtime = new EmbedderRuntime(new MetricReceiver.MockReceiver(),
+                                          new EmbedderRuntimeConfig.Builder().cacheSizeBytes(1 << 20).build());
+        var evaluations = new AtomicInteger();
+        var context = new Embedder.Context("query(q)").setEmbedderId("e5");
+
+        Tensor first = runtime.computeCachedEmbeddingIfAbsent("hello", context, type, () -> embedding(evaluations));
+        Tensor second = runtime.computeCachedEmbeddingIfAbsent("hello", context.copy(), type, () -> embedding(evaluations));
+        assertEquals(1, evaluations.get());
+        assertEquals(first, second);
+
+        runtime.computeCachedEmbeddingIfAbsent("hello", context.copy().setEmbedderId("other"), type, () -> embedding(evaluations));
+        runtime.computeCachedEmbeddingIfAbsent("hello", context.copy().setDestination("music.title"), type, () -> embedding(evaluations));
+        runtime.computeCachedEmbeddingIfAbsent("hello", context.copy().setLanguage(Language.NORWEGIAN_BOKMAL), type, () -> embedding(evaluations));
+        runtime.computeCachedEmbeddingIfAbsent("hello", context, TensorType.fromSpec("tensor<float>(x[2])"), () -> embedding(evaluations));
+        assertEquals(5, evaluations.get());
+    }
+
+    @Test
+    public void embeddings_are_not_cached_by_default() {
+        var runtime = new EmbedderRuntime(new MetricReceiver.MockReceiver(), new EmbedderRuntimeConfig.Builder().build());
+        var evaluations = new AtomicInteger();
+        var context = new Embedder.Context("query(q)");
+        runtime.computeCachedEmbeddingIfAbsent("hello", context, type, () -> embedding(evaluations));
+        runtime.computeCachedEmbeddingIfAbsent("hello", context, type, () -> embedding(evaluations));
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    public void least_recently_used_embeddings_are_evicted() {
+        var a = key("a");
+        var b = key("b");
+        var c = key("c");
+        Tensor embedding = embedding(new AtomicInteger());
+        long entrySize = EmbeddingCache.estimateSizeBytes(a, embedding);
+        var cache = new EmbeddingCache(2 * entrySize);
+
+        assertEquals(0, cache.put(a, embedding));
+        assertEquals(0, cache.put(b, embedding));
+        assertNotNull(cache.get(a)); // b is now least recently used
+        assertEquals(1, cache.put(c, embedding));
+        assertNull(cache.get(b));
+        assertNotNull(cache.get(a));
+        assertNotNull(cache.get(c));
+        assertEquals(2, cache.entryCount());
+        assertEquals(2 * entrySize, cache.sizeBytes());
+    }
+
+    @Test
+    public void embeddings_larger_than_the_cache_are_not_cached() {
+        var key = key("a");
+        Tensor embedding = embedding(new AtomicInteger());
+        var cache = new EmbeddingCache(EmbeddingCache.estimateSizeBytes(key, embedding) - 1);
+        assertEquals(0, cache.put(key, embedding));
+        assertNull(cache.get(key));
+        assertEquals(0, cache.sizeBytes());
+    }
+
+    private static EmbeddingCache.Key key(String text) {
+        return new EmbeddingCache.Key("e5", Language.UNKNOWN, "query(q)", text, type);
+    }
+
+    private static Tensor embedding(AtomicInteger evaluations) {
+        evaluations.incrementAndGet();
+        return Tensor.from(type, "[1, 2, 3, 4]");
+    }
+
+}
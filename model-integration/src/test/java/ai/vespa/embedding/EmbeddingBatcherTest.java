@@ -0,0 +1,70 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.language.process.Embedder;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class EmbeddingBatcherTest {
+
+    @Test
+    public void concurrent_requests_are_evaluated_together() throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        try (var batcher = new EmbeddingBatcher<String, Integer>("test", 4, Duration.ofSeconds(10),
+                                                                 inputs -> {
+                                                                     batchSizes.add(inputs.size());
+                                                                     return inputs.stream().map(String::length).toList();
+                                                                 },
+                                                                 Embedder.Runtime.testInstance())) {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (String input : List.of("a", "bb", "ccc", "dddd"))
+                results.add(executor.submit(() -> batcher.evaluate(input, new Embedder.Context("query(q)"))));
+            for (int i = 0; i < results.size(); i++)
+                assertEquals(i + 1, (int) results.get(i).get());
+            executor.shutdown();
+        }
+        assertEquals(List.of(4), batchSizes); // The max delay is long enough that only max size triggers evaluation
+    }
+
+    @Test
+    public void partial_batch_is_evaluated_after_max_delay() {
+        try (var batcher = new EmbeddingBatcher<String, Integer>("test", 64, Duration.ofMillis(1),
+                                                                 inputs -> inputs.stream().map(String::length).toList(),
+                                                                 Embedder.Runtime.testInstance())) {
+            assertEquals(5, (int) batcher.evaluate("hello", new Embedder.Context("query(q)")));
+        }
+    }
+
+    @Test
+    public void evaluation_failures_are_propagated_to_all_requests_in_batch() {
+        try (var batcher = new EmbeddingBatcher<String, Integer>("test", 1, Duration.ofMillis(1),
+                                                                 inputs -> { throw new IllegalArgumentException("bad input"); },
+                                                                 Embedder.Runtime.testInstance())) {
+            var e = assertThrows(IllegalArgumentException.class, () -> batcher.evaluate("hello", new Embedder.Context("query(q)")));
+            assertEquals("bad input", e.getMessage());
+        }
+    }
+
+    @Test
+    public void requests_fail_after_close() {
+        var batcher = new EmbeddingBatcher<String, Integer>("test", 1, Duration.ofMillis(1),
+                                                            inputs -> inputs.stream().map(String::length).toList(),
+                                                            Embedder.Runtime.testInstance());
+        batcher.close();
+        var e = assertThrows(IllegalStateException.class, () -> batcher.evaluate("hello", new Embedder.Context("query(q)")));
+        assertTrue(e.getMessage().contains("shut down"));
+    }
+
+}
@@ -12,6 +12,12 @@ import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.TensorAddress;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assume.assumeTrue;
@@ -113,6 +119,29 @@ public class HuggingFaceEmbedderTest {
         assertEquals(-0.666, float16Result.sum().asDouble(),1e-3);
     }
 
+    @Test
+    public void testBatchedEmbedderGivesSameResultAsUnbatched() throws Exception {
+        var batchingEmbedder = getBatchingEmbedder();
+        var type = TensorType.fromSpec("tensor<float>(x[8])");
+        List<String> inputs = List.of("This is a test", "A somewhat longer test string to embed", "Short", "Another test");
+        ExecutorService executor = Executors.newFixedThreadPool(inputs.size());
+        try {
+            List<Future<Tensor>> batched = new ArrayList<>();
+            for (String input : inputs)
+                batched.add(executor.submit(() -> batchingEmbedder.embed(input, new Embedder.Context("schema.indexing"), type)));
+            for (int i = 0; i < inputs.size(); i++) {
+                Tensor expected = embedder.embed(inputs.get(i), new Embedder.Context("schema.indexing"), type);
+                Tensor result = batched.get(i).get();
+                for (int d = 0; d < 8; d++)
+                    assertEquals(expected.get(TensorAddress.of(d)), result.get(TensorAddress.of(d)), 1e-4);
+            }
+        }
+        finally {
+            executor.shutdown();
+            batchingEmbedder.deconstruct();
+        }
+    }
+
     @Test
     public void testEmbedderWithNormalization() {
         String input = "This is a test";
@@ -186,6 +215,19 @@ public class HuggingFaceEmbedderTest {
         builder.transformerGpuDevice(-1);
         return new HuggingFaceEmbedder(new OnnxRuntime(), Embedder.Runtime.testInstance(), builder.build());
     }
+    private static HuggingFaceEmbedder getBatchingEmbedder() {
+        String vocabPath = "src/test/models/onnx/transformer/real_tokenizer.json";
+        String modelPath = "src/test/models/onnx/transformer/embedding_model.onnx";
+        assumeTrue(OnnxRuntime.isRuntimeAvailable(modelPath));
+        HuggingFaceEmbedderConfig.Builder builder = new HuggingFaceEmbedderConfig.Builder();
+        builder.tokenizerPath(ModelReference.valueOf(vocabPath));
+        builder.transformerModel(ModelReference.valueOf(modelPath));
+        builder.transformerGpuDevice(-1);
+        builder.batchingMaxSize(4);
+        builder.batchingMaxDelayMillis(100);
+        return new HuggingFaceEmbedder(new OnnxRuntime(), Embedder.Runtime.testInstance(), builder.build());
+    }
+
     private static HuggingFaceEmbedder getNormalizedEmbedder() {
         String vocabPath = "src/test/models/onnx/transformer/real_tokenizer.json";
         String modelPath = "src/test/models/onnx/transformer/embedding_model.onnx";
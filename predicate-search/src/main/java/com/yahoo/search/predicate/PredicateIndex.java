@@ -6,14 +6,22 @@ import com.yahoo.document.predicate.Predicate;
 import com.yahoo.search.predicate.index.*;
 import com.yahoo.search.predicate.index.conjunction.ConjunctionHit;
 import com.yahoo.search.predicate.index.conjunction.ConjunctionIndex;
+import com.yahoo.search.predicate.serialization.MappedFileInputStream;
 import com.yahoo.search.predicate.serialization.SerializationHelper;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -85,6 +93,11 @@ public class PredicateIndex {
         this.postingListCounter = new AtomicReference<>(new CachedPostingListCounter(internalToExternalIdMapping.length));
     }
 
+    /** Returns the external id of each document, by internal id */
+    int[] internalToExternalIdMapping() { return internalToExternalIdMapping; }
+
+    Config config() { return config; }
+
     public void rebuildPostingListCache() {
         postingListCounter.getAndUpdate(CachedPostingListCounter::rebuildCache);
     }
@@ -93,7 +106,18 @@ public class PredicateIndex {
      * Create a new searcher.
      */
     public Searcher searcher() {
-        return new Searcher();
+        return new Searcher(null, 1);
+    }
+
+    /**
+     * Create a new searcher which splits the documents into the given number of partitions,
+     * and searches these in parallel in the given pool. The hits of a query are then collected
+     * before they are returned, rather than produced lazily.
+     */
+    public Searcher searcher(ForkJoinPool pool, int partitions) {
+        if (partitions < 1)
+            throw new IllegalArgumentException("The number of partitions must be positive, but was " + partitions);
+        return new Searcher(pool, partitions);
     }
 
     public void writeToOutputStream(DataOutputStream out) throws IOException {
@@ -143,14 +167,102 @@ public class PredicateIndex {
         );
     }
 
+    /**
+     * Reads an index written by {@link #writeToOutputStream} from the given file, which is memory mapped
+     * rather than read through a buffered stream.
+     */
+    public static PredicateIndex fromFile(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new MappedFileInputStream(path))) {
+            return fromInputStream(in);
+        }
+    }
+
+    /**
+     * Merges two indexes with the same config into one holding the documents of both, except those whose
+     * internal id is accepted by the removed predicate of its index. External ids must be unique across
+     * the remaining documents.
+     */
+    static PredicateIndex merge(PredicateIndex first, IntPredicate firstRemoved,
+                                PredicateIndex second, IntPredicate secondRemoved) {
+        int[] firstIds = mapInternalIds(first, firstRemoved, 0);
+        int[] secondIds = mapInternalIds(second, secondRemoved, liveDocumentCount(firstIds));
+        int documentCount = liveDocumentCount(firstIds) + liveDocumentCount(secondIds);
+        int[] internalToExternalIdMapping = new int[documentCount];
+        byte[] minFeatureIndex = new byte[documentCount];
+        short[] intervalEnds = new short[documentCount];
+        first.copyDocuments(firstIds, internalToExternalIdMapping, minFeatureIndex, intervalEnds);
+        second.copyDocuments(secondIds, internalToExternalIdMapping, minFeatureIndex, intervalEnds);
+        int[] zeroConstraintDocuments = mergeDocumentIds(first.zeroConstraintDocuments, firstIds,
+                                                         second.zeroConstraintDocuments, secondIds);
+
+        PredicateIntervalStore.Merger intervalStoreMerger = new PredicateIntervalStore.Merger();
+        IntUnaryOperator firstRefs = intervalStoreMerger.referencesFrom(first.intervalStore);
+        IntUnaryOperator secondRefs = intervalStoreMerger.referencesFrom(second.intervalStore);
+        IntUnaryOperator firstDocIds = id -> firstIds[id];
+        IntUnaryOperator secondDocIds = id -> secondIds[id];
+        SimpleIndex intervalIndex = SimpleIndex.merge(first.intervalIndex, firstDocIds, firstRefs,
+                                                      second.intervalIndex, secondDocIds, secondRefs);
+        SimpleIndex boundsIndex = SimpleIndex.merge(first.boundsIndex, firstDocIds, firstRefs,
+                                                    second.boundsIndex, secondDocIds, secondRefs);
+        SimpleIndex conjunctionIntervalIndex = SimpleIndex.merge(first.conjunctionIntervalIndex, firstDocIds, firstRefs,
+                                                                 second.conjunctionIntervalIndex, secondDocIds, secondRefs);
+        // Conjunctions no longer in any document are left out
+        ConjunctionIndex conjunctionIndex = ConjunctionIndex.merge(
+                first.conjunctionIndex, second.conjunctionIndex,
+                conjunctionId -> conjunctionIntervalIndex.getPostingList(conjunctionId) != null);
+        return new PredicateIndex(first.config,
+                                  internalToExternalIdMapping,
+                                  minFeatureIndex,
+                                  intervalEnds,
+                                  Math.max(first.highestIntervalEnd, second.highestIntervalEnd),
+                                  intervalIndex,
+                                  boundsIndex,
+                                  conjunctionIntervalIndex,
+                                  intervalStoreMerger.build(),
+                                  conjunctionIndex,
+                                  zeroConstraintDocuments);
+    }
+
+    /** Returns the new internal id of each document in the given index, starting at the given id, or -1 if removed */
+    private static int[] mapInternalIds(PredicateIndex index, IntPredicate removed, int firstId) {
+        int[] ids = new int[index.internalToExternalIdMapping.length];
+        int nextId = firstId;
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = removed.test(i) ? -1 : nextId++;
+        return ids;
+    }
+
+    private void copyDocuments(int[] ids, int[] internalToExternalIdMapping, byte[] minFeatureIndex, short[] intervalEnds) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] < 0) continue;
+            internalToExternalIdMapping[ids[i]] = this.internalToExternalIdMapping[i];
+            minFeatureIndex[ids[i]] = this.minFeatureIndex[i];
+            intervalEnds[ids[i]] = this.intervalEnds[i];
+        }
+    }
+
+    private static int liveDocumentCount(int[] ids) {
+        return (int)Arrays.stream(ids).filter(id -> id >= 0).count();
+    }
+
+    private static int[] mergeDocumentIds(int[] first, int[] firstIds, int[] second, int[] secondIds) {
+        return IntStream.concat(Arrays.stream(first).map(id -> firstIds[id]), Arrays.stream(second).map(id -> secondIds[id]))
+                        .filter(id -> id >= 0)
+                        .toArray();
+    }
+
     @Beta
     public class Searcher {
         private final byte[] nPostingListsForDocument;
         private final ConjunctionIndex.Searcher conjunctionIndexSearcher;
+        private final ForkJoinPool pool;
+        private final int partitions;
 
-        private Searcher() {
+        private Searcher(ForkJoinPool pool, int partitions) {
             this.nPostingListsForDocument = new byte[internalToExternalIdMapping.length];
             this.conjunctionIndexSearcher = conjunctionIndex.searcher();
+            this.pool = pool;
+            this.partitions = Math.min(partitions, internalToExternalIdMapping.length);
         }
 
         /**
@@ -160,6 +272,58 @@ public class PredicateIndex {
          * @return A stream of hits.
          */
         public Stream<Hit> search(PredicateQuery query) {
+            return search(query, null);
+        }
+
+        /** Returns the hits for the given query, leaving out documents whose internal id is accepted by removed */
+        Stream<Hit> search(PredicateQuery query, IntPredicate removed) {
+            List<ConjunctionHit> conjunctionHits = conjunctionIndexSearcher.search(query);
+            ArrayList<PostingList> postingLists = postingLists(query, conjunctionHits);
+            CachedPostingListCounter counter = postingListCounter.get();
+            counter.registerUsage(postingLists);
+            Stream<Hit> hits;
+            if (partitions > 1) {
+                hits = searchPartitions(query, conjunctionHits, postingLists, counter);
+            }
+            else {
+                counter.countPostingListsPerDocument(postingLists, nPostingListsForDocument);
+                hits = new PredicateSearch(
+                        postingLists, nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd).stream();
+            }
+            if (removed != null)
+                hits = hits.filter(hit -> ! removed.test(hit.getDocId()));
+            // Map to external id. Note that internal id for first document is 1.
+            return hits.map(hit -> new Hit(internalToExternalIdMapping[hit.getDocId()], hit.getSubquery()));
+        }
+
+        /**
+         * Searches each partition of the documents with its own posting lists, in the pool of this,
+         * and returns the hits of all partitions in document order.
+         */
+        private Stream<Hit> searchPartitions(PredicateQuery query, List<ConjunctionHit> conjunctionHits,
+                                             List<PostingList> firstPostingLists, CachedPostingListCounter counter) {
+            int documentCount = nPostingListsForDocument.length;
+            List<ForkJoinTask<List<Hit>>> tasks = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                int fromDocId = (int)((long)documentCount * i / partitions);
+                int toDocId = (int)((long)documentCount * (i + 1) / partitions);
+                List<PostingList> postingLists = i == 0 ? firstPostingLists : postingLists(query, conjunctionHits);
+                tasks.add(pool.submit(() -> {
+                    counter.countPostingListsPerDocument(postingLists, nPostingListsForDocument, fromDocId, toDocId);
+                    return new PredicateSearch(postingLists, nPostingListsForDocument, minFeatureIndex, intervalEnds,
+                                               highestIntervalEnd, fromDocId, toDocId).stream().toList();
+                }));
+            }
+            // Wait for all tasks, even if some fail, as they write to the counts of this
+            tasks.forEach(ForkJoinTask::quietlyJoin);
+            List<Hit> hits = new ArrayList<>();
+            for (ForkJoinTask<List<Hit>> task : tasks)
+                hits.addAll(task.join());
+            return hits.stream();
+        }
+
+        /** Returns new posting lists for the given query, which are positioned before the first document */
+        private ArrayList<PostingList> postingLists(PredicateQuery query, List<ConjunctionHit> conjunctionHits) {
             ArrayList<PostingList> postingLists = new ArrayList<>();
             for (PredicateQuery.Feature feature : query.getFeatures()) {
                 addIntervalPostingList(feature.featureHash, feature.subqueryBitmap, postingLists);
@@ -172,16 +336,9 @@ public class PredicateIndex {
                         (featureHash, value) -> addBoundsPostingList(featureHash, value, feature.subqueryBitmap, postingLists));
             }
             addCompressedZStarPostingList(postingLists);
-            addConjunctionPostingLists(query, postingLists);
+            addConjunctionPostingLists(conjunctionHits, postingLists);
             addZeroConstraintPostingList(postingLists);
-
-            CachedPostingListCounter counter = postingListCounter.get();
-            counter.registerUsage(postingLists);
-            counter.countPostingListsPerDocument(postingLists, nPostingListsForDocument);
-            return new PredicateSearch(
-                    postingLists, nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd).stream()
-                    // Map to external id. Note that internal id for first document is 1.
-                    .map(hit -> new Hit(internalToExternalIdMapping[hit.getDocId()], hit.getSubquery()));
+            return postingLists;
         }
 
         private void addCompressedZStarPostingList(List<PostingList> postingLists) {
@@ -206,8 +363,7 @@ public class PredicateIndex {
             }
         }
 
-        private void addConjunctionPostingLists(PredicateQuery query, List<PostingList> postingLists) {
-            List<ConjunctionHit> hits = conjunctionIndexSearcher.search(query);
+        private void addConjunctionPostingLists(List<ConjunctionHit> hits, List<PostingList> postingLists) {
             for (ConjunctionHit hit : hits) {
                 SimpleIndex.Entry e = conjunctionIntervalIndex.getPostingList(hit.conjunctionId);
                 if (e != null) {
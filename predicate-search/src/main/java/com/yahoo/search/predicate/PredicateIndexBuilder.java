@@ -103,7 +103,7 @@ public class PredicateIndexBuilder {
     }
 
     /**
-     * Indexes a predicate with the given id.
+     * Indexes a predicate with the given id. If the predicate can not be indexed, this is left unchanged.
      *
      * @param docId     a 32-bit document id, returned in the Hit objects when the predicate matches
      * @param predicate the predicate to index
@@ -116,13 +116,15 @@ public class PredicateIndexBuilder {
         } else if (isNeverMatchingDocument(predicate)) {
             return;
         }
-        seenIds.add(docId);
         predicate = optimizer.optimizePredicate(predicate);
-        int internalId = documentIdCounter++;
         if (isAlwaysMatchingDocument(predicate)) {
-            indexZeroConstraintDocument(internalId);
+            seenIds.add(docId);
+            indexZeroConstraintDocument(documentIdCounter++);
         } else {
-            indexDocument(internalId, PredicateTreeAnnotator.createPredicateTreeAnnotations(predicate));
+            PredicateTreeAnnotations annotations = PredicateTreeAnnotator.createPredicateTreeAnnotations(predicate);
+            validate(annotations);
+            seenIds.add(docId);
+            indexDocument(documentIdCounter++, annotations);
         }
     }
 
@@ -140,7 +142,7 @@ public class PredicateIndexBuilder {
         zeroConstraintDocuments.add(docId);
     }
 
-    private void indexDocument(int docId, PredicateTreeAnnotations annotations) {
+    private static void validate(PredicateTreeAnnotations annotations) {
         int minFeature = annotations.minFeature;
         Preconditions.checkState(minFeature <= 0xFF,
                 "Predicate is too complex. Expected min-feature less than %d, was %d.", 0xFF, minFeature);
@@ -148,6 +150,11 @@ public class PredicateIndexBuilder {
         Preconditions.checkState(intervalEnd <= Interval.MAX_INTERVAL_END,
                 "Predicate is too complex. Expected min-feature less than %d, was %d.",
                 Interval.MAX_INTERVAL_END, intervalEnd);
+    }
+
+    private void indexDocument(int docId, PredicateTreeAnnotations annotations) {
+        int minFeature = annotations.minFeature;
+        int intervalEnd = annotations.intervalEnd;
         highestIntervalEnd = Math.max(highestIntervalEnd, intervalEnd);
         intervalEndsBuilder.add((short) intervalEnd);
         minFeatureIndexBuilder.add((byte) minFeature);
@@ -0,0 +1,375 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate;
+
+import com.yahoo.api.annotations.Beta;
+import com.yahoo.document.predicate.Predicate;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * A {@link PredicateIndex} which can be updated after it is built.
+ * <p>
+ * Documents which are added or replaced are indexed into a pending builder as they arrive, and documents which
+ * are removed or replaced are marked as removed in the segments holding them. On the next search, the pending
+ * documents are built into a small delta segment, and delta segments of similar size are merged, so each document
+ * is copied by a logarithmic number of merges before it reaches the base segment. When the delta segments reach
+ * the merge threshold, they are merged with the base segment in the background, leaving out removed documents,
+ * while updates go to new delta segments. Updates are visible to searches started after the update returns.
+ * </p><p>
+ * Note that this is thread-safe, but a {@link Searcher} is not.
+ * Each thread <strong>must</strong> use its own searcher.
+ * </p>
+ */
+@Beta
+public class UpdatablePredicateIndex implements AutoCloseable {
+
+    public static final int DEFAULT_MERGE_THRESHOLD = 10000;
+
+    private final Config config;
+    private final int mergeThreshold;
+    private final ExecutorService merger = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "predicate-index-merger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The following are guarded by this
+    private Segment base;
+    /** The delta segments being merged with the base segment, or null if no merge is in progress */
+    private List<Segment> merging = null;
+    /** The ids of the documents updated while merging, which must be removed from the result of the merge */
+    private List<Integer> updatedWhileMerging = null;
+    /** The delta segments not being merged, oldest and largest first */
+    private final List<Segment> deltas = new ArrayList<>();
+    /** The documents indexed since the last delta segment was built, or null if none */
+    private PredicateIndexBuilder pending = null;
+    private final Set<Integer> pendingIds = new HashSet<>();
+    private Throwable mergeFailure = null;
+    private boolean closed = false;
+
+    /** The segments to search, which are rebuilt on the next search if stale */
+    private volatile Segments segments;
+    private volatile boolean stale = false;
+
+    /** Creates an empty index */
+    public UpdatablePredicateIndex(Config config) {
+        this(new PredicateIndexBuilder(config).build(), DEFAULT_MERGE_THRESHOLD);
+    }
+
+    /**
+     * Creates an index which initially holds the documents of the given index.
+     *
+     * @param base the index to update
+     * @param mergeThreshold the number of documents in the delta segments at which these are merged with the base
+     *                       segment. Higher values gives fewer merges, but more expensive updates and searches.
+     */
+    public UpdatablePredicateIndex(PredicateIndex base, int mergeThreshold) {
+        if (mergeThreshold < 1)
+            throw new IllegalArgumentException("The merge threshold must be positive, but was " + mergeThreshold);
+        this.config = base.config();
+        this.mergeThreshold = mergeThreshold;
+        this.base = new Segment(base);
+        this.segments = new Segments(this.base, List.of(this.base));
+    }
+
+    /**
+     * Indexes a predicate with the given id, replacing any document with the same id.
+     *
+     * @param docId     a 32-bit document id, returned in the Hit objects when the predicate matches
+     * @param predicate the predicate to index
+     * @throws IllegalStateException if this is closed, or if a merge has failed, as updates can then no longer be merged
+     */
+    public synchronized void indexDocument(int docId, Predicate predicate) {
+        throwIfClosed();
+        throwIfMergeFailed();
+        if (pendingIds.contains(docId))
+            buildPending();
+        if (pending == null)
+            pending = new PredicateIndexBuilder(config);
+        pending.indexDocument(docId, copy(predicate)); // The builder optimizes predicates in place
+        markRemoved(docId);
+        pendingIds.add(docId);
+        stale = true;
+        if (deltaDocuments() >= mergeThreshold)
+            startMerge();
+    }
+
+    /**
+     * Removes the document with the given id.
+     *
+     * @return whether a document with this id was present
+     * @throws IllegalStateException if this is closed
+     */
+    public synchronized boolean removeDocument(int docId) {
+        throwIfClosed();
+        if (pendingIds.contains(docId))
+            buildPending();
+        return markRemoved(docId);
+    }
+
+    private boolean markRemoved(int docId) {
+        if (updatedWhileMerging != null)
+            updatedWhileMerging.add(docId);
+        boolean removed = base.remove(docId);
+        if (merging != null)
+            for (Segment segment : merging)
+                removed |= segment.remove(docId);
+        for (Segment segment : deltas)
+            removed |= segment.remove(docId);
+        return removed;
+    }
+
+    /**
+     * Merges all changes into the base segment, and returns when done.
+     *
+     * @throws IllegalStateException if this is closed, or if a merge has failed
+     */
+    public synchronized void merge() {
+        throwIfClosed();
+        awaitMerge();
+        throwIfClosed(); // Closed while waiting
+        startMerge();
+        awaitMerge();
+    }
+
+    private void awaitMerge() {
+        try {
+            while (merging != null && mergeFailure == null)
+                wait();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for merge", e);
+        }
+        throwIfMergeFailed();
+    }
+
+    private void throwIfClosed() {
+        if (closed)
+            throw new IllegalStateException("This predicate index is closed");
+    }
+
+    private void throwIfMergeFailed() {
+        if (mergeFailure != null)
+            throw new IllegalStateException("Merging the predicate index failed", mergeFailure);
+    }
+
+    /**
+     * Starts merging the current delta segments into the base segment,
+     * unless a merge is already in progress or this is closed
+     */
+    private void startMerge() {
+        if (merging != null || mergeFailure != null || closed) return;
+        buildPending();
+        Segment first = base;
+        List<Segment> rest = List.copyOf(deltas);
+        merger.execute(() -> completeMerge(first, rest)); // Before changing state, as this throws if rejected
+        merging = rest;
+        deltas.clear();
+        updatedWhileMerging = new ArrayList<>();
+        publish();
+    }
+
+    private void completeMerge(Segment first, List<Segment> rest) {
+        try {
+            // Documents marked as removed after this reads the bitmaps are in updatedWhileMerging
+            Segment merged = first;
+            for (Segment segment : rest)
+                merged = merged.mergeWith(segment);
+            if (merged == first) // Nothing to merge, but removed documents should still be left out
+                merged = first.mergeWith(new Segment(new PredicateIndexBuilder(config).build()));
+            synchronized (this) {
+                for (int docId : updatedWhileMerging)
+                    merged.remove(docId);
+                base = merged;
+                merging = null;
+                updatedWhileMerging = null;
+                publish();
+                notifyAll();
+                if (deltaDocuments() >= mergeThreshold)
+                    startMerge();
+            }
+        }
+        catch (RuntimeException | Error e) {
+            synchronized (this) {
+                mergeFailure = e;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /** Returns the number of documents in the delta segments and the pending builder */
+    private int deltaDocuments() {
+        int documents = pendingIds.size();
+        for (Segment segment : deltas)
+            documents += segment.size();
+        return documents;
+    }
+
+    /**
+     * Builds the pending documents into a new delta segment, and merges the newest delta segments while
+     * these are at least half the size of the one before, to keep the number of delta segments logarithmic.
+     */
+    private void buildPending() {
+        if (pending == null) return;
+        deltas.add(new Segment(pending.build()));
+        pending = null;
+        pendingIds.clear();
+        stale = true;
+        while (deltas.size() > 1 && 2 * deltas.get(deltas.size() - 1).size() >= deltas.get(deltas.size() - 2).size()) {
+            Segment newest = deltas.remove(deltas.size() - 1);
+            Segment older = deltas.remove(deltas.size() - 1);
+            deltas.add(older.mergeWith(newest));
+        }
+    }
+
+    /** Publishes the current segments to searchers. Must be called while synchronized on this. */
+    private void publish() {
+        buildPending();
+        List<Segment> all = new ArrayList<>();
+        all.add(base);
+        if (merging != null)
+            all.addAll(merging);
+        all.addAll(deltas);
+        segments = new Segments(base, List.copyOf(all));
+        stale = false;
+    }
+
+    private Segments segments() {
+        if ( ! stale) return segments;
+        synchronized (this) {
+            if (stale)
+                publish();
+            return segments;
+        }
+    }
+
+    private static Predicate copy(Predicate predicate) {
+        try {
+            return predicate.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            throw new IllegalArgumentException("Could not copy predicate " + predicate, e);
+        }
+    }
+
+    /** Rebuilds the posting list cache of the base segment */
+    public void rebuildPostingListCache() {
+        segments().base.index.rebuildPostingListCache();
+    }
+
+    /** Merges all changes into the base segment, and writes it in the format read by {@link PredicateIndex} */
+    public void writeToOutputStream(DataOutputStream out) throws IOException {
+        merge();
+        segments().base.index.writeToOutputStream(out);
+    }
+
+    /** Create a new searcher. */
+    public Searcher searcher() {
+        return new Searcher();
+    }
+
+    /**
+     * Stops merging, after a merge in progress completes. The index can still be searched,
+     * with the changes not yet merged, but it can no longer be updated or merged.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        merger.shutdown();
+    }
+
+    /** The base segment, and all the segments to search, starting with the base segment */
+    private record Segments(Segment base, List<Segment> all) {}
+
+    /** An immutable index, with a bitmap of the documents which are removed from it */
+    private static class Segment {
+
+        private final PredicateIndex index;
+        private final AtomicLongArray removed;
+        /** The external id of each document in the high bits, and its internal id in the low bits, sorted */
+        private final long[] ids;
+
+        Segment(PredicateIndex index) {
+            this.index = index;
+            int[] externalIds = index.internalToExternalIdMapping();
+            this.removed = new AtomicLongArray((externalIds.length + 63) / 64);
+            this.ids = new long[externalIds.length];
+            for (int i = 0; i < externalIds.length; i++)
+                ids[i] = (long)externalIds[i] << 32 | i;
+            Arrays.sort(ids);
+        }
+
+        /** Marks the document with the given external id as removed, and returns whether it was present */
+        boolean remove(int externalId) {
+            int i = Arrays.binarySearch(ids, (long)externalId << 32);
+            if (i < 0) i = -i - 1;
+            if (i == ids.length || (int)(ids[i] >> 32) != externalId) return false;
+            int internalId = (int)ids[i];
+            long bit = 1L << internalId;
+            return (removed.getAndAccumulate(internalId >>> 6, bit, (word, mask) -> word | mask) & bit) == 0;
+        }
+
+        boolean isRemoved(int internalId) {
+            return (removed.get(internalId >>> 6) & (1L << internalId)) != 0;
+        }
+
+        /** Returns the number of documents in this, including removed ones */
+        int size() { return ids.length; }
+
+        /** Returns a segment with the documents of this followed by those of the given one, leaving out removed ones */
+        Segment mergeWith(Segment other) {
+            return new Segment(PredicateIndex.merge(index, this::isRemoved, other.index, other::isRemoved));
+        }
+
+    }
+
+    @Beta
+    public class Searcher {
+
+        private Segments segments = null;
+        /** Searchers allocate per document arrays, so they are reused while their segment is searched */
+        private Map<Segment, PredicateIndex.Searcher> searchers = new IdentityHashMap<>();
+
+        private Searcher() { }
+
+        /**
+         * Retrieves a stream of hits for the given query.
+         *
+         * @param query Specifies the boolean variables that are true.
+         * @return A stream of hits.
+         */
+        public Stream<Hit> search(PredicateQuery query) {
+            Segments current = segments();
+            if (current != segments) {
+                Map<Segment, PredicateIndex.Searcher> searchers = new IdentityHashMap<>();
+                for (Segment segment : current.all)
+                    searchers.put(segment, this.searchers.containsKey(segment) ? this.searchers.get(segment)
+                                                                               : segment.index.searcher());
+                this.searchers = searchers;
+                segments = current;
+            }
+            Stream<Hit> hits = Stream.empty();
+            for (Segment segment : current.all)
+                hits = Stream.concat(hits, searchers.get(segment).search(query, segment::isRemoved));
+            return hits;
+        }
+
+    }
+
+}
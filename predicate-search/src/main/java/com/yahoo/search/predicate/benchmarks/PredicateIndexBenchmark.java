@@ -4,10 +4,13 @@ package com.yahoo.search.predicate.benchmarks;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.Iterators;
+import com.yahoo.document.predicate.Predicate;
 import com.yahoo.search.predicate.Config;
+import com.yahoo.search.predicate.Hit;
 import com.yahoo.search.predicate.PredicateIndex;
 import com.yahoo.search.predicate.PredicateIndexBuilder;
 import com.yahoo.search.predicate.PredicateQuery;
+import com.yahoo.search.predicate.UpdatablePredicateIndex;
 import com.yahoo.search.predicate.serialization.PredicateQuerySerializer;
 import com.yahoo.search.predicate.utils.VespaFeedParser;
 import com.yahoo.search.predicate.utils.VespaQueryParser;
@@ -17,13 +20,11 @@ import io.airlift.airline.Option;
 import io.airlift.airline.SingleCommand;
 
 import javax.inject.Inject;
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
 import java.io.DataOutputStream;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -37,9 +38,13 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static com.yahoo.search.predicate.benchmarks.PredicateIndexBenchmark.BenchmarkArguments.Algorithm;
 import static com.yahoo.search.predicate.benchmarks.PredicateIndexBenchmark.BenchmarkArguments.Format;
@@ -52,6 +57,8 @@ import static com.yahoo.search.predicate.benchmarks.PredicateIndexBenchmark.Benc
 public class PredicateIndexBenchmark {
 
     private static final Map<String, Object> output = new TreeMap<>();
+    /** The predicates of the indexed documents, by id - 1, when updates are benchmarked */
+    private static final List<Predicate> predicates = new ArrayList<>();
 
     public static void main(String[] rawArgs) throws IOException {
         Optional<BenchmarkArguments> optionalArgs = getBenchmarkArguments(rawArgs);
@@ -69,7 +76,15 @@ public class PredicateIndexBenchmark {
         if (args.indexOutputFile != null) {
             writeIndexToFile(index, args.indexOutputFile);
         }
-        if (args.queryFile != null) {
+        if (args.updates > 0) {
+            try (UpdatablePredicateIndex updatableIndex = new UpdatablePredicateIndex(index, args.mergeThreshold)) {
+                updateIndex(updatableIndex, args.updates, new Random(42));
+                if (args.queryFile != null) {
+                    runQueriesWhileUpdating(args, updatableIndex);
+                }
+            }
+        }
+        else if (args.queryFile != null) {
             runQueries(args, index);
         }
         output.put("Total time", System.currentTimeMillis() - start);
@@ -86,6 +101,10 @@ public class PredicateIndexBenchmark {
             System.err.println("Provide either a feed file or index file.");
             return Optional.empty();
         }
+        if (args.updates > 0 && args.feedFile == null) {
+            System.err.println("Updates require a feed file, to update documents with.");
+            return Optional.empty();
+        }
         return Optional.of(args);
     }
 
@@ -95,7 +114,10 @@ public class PredicateIndexBenchmark {
             long start = System.currentTimeMillis();
             AtomicInteger idCounter = new AtomicInteger();
             int documentCount = VespaFeedParser.parseDocuments(
-                    args.feedFile, args.maxDocuments, p -> builder.indexDocument(idCounter.incrementAndGet(), p));
+                    args.feedFile, args.maxDocuments, p -> {
+                        builder.indexDocument(idCounter.incrementAndGet(), p);
+                        if (args.updates > 0) predicates.add(p);
+                    });
             output.put("Indexed document count", documentCount);
             output.put("Time indexing documents", System.currentTimeMillis() - start);
             builder.getStats().putValues(output);
@@ -105,12 +127,10 @@ public class PredicateIndexBenchmark {
             output.put("Time prepare index", System.currentTimeMillis() - start);
             return index;
         } else {
-            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args.indexFile)))) {
-                long start = System.currentTimeMillis();
-                PredicateIndex index = PredicateIndex.fromInputStream(in);
-                output.put("Time deserialize index", System.currentTimeMillis() - start);
-                return index;
-            }
+            long start = System.currentTimeMillis();
+            PredicateIndex index = PredicateIndex.fromFile(Path.of(args.indexFile));
+            output.put("Time deserialize index", System.currentTimeMillis() - start);
+            return index;
         }
     }
 
@@ -122,6 +142,32 @@ public class PredicateIndexBenchmark {
         }
     }
 
+    /** Replaces random documents by other documents in the feed, half of them by removing them first */
+    private static void updateIndex(UpdatablePredicateIndex index, int updates, Random random) {
+        long removeTime = 0;
+        long addTime = 0;
+        int removes = 0;
+        for (int i = 0; i < updates; i++) {
+            int id = random.nextInt(predicates.size()) + 1;
+            Predicate predicate = predicates.get(random.nextInt(predicates.size()));
+            long start = System.nanoTime();
+            if (i % 2 == 0) {
+                index.removeDocument(id);
+                removeTime += System.nanoTime() - start;
+                removes++;
+                start = System.nanoTime();
+            }
+            index.indexDocument(id, predicate);
+            addTime += System.nanoTime() - start;
+        }
+        output.put("Updates", updates);
+        output.put("Average add latency", String.format("%.2fus", addTime / 1000d / updates));
+        output.put("Average remove latency", String.format("%.2fus", removeTime / 1000d / Math.max(1, removes)));
+        long start = System.currentTimeMillis();
+        index.merge();
+        output.put("Time merge updates", System.currentTimeMillis() - start);
+    }
+
     private static void putBenchmarkArgumentsToOutput(BenchmarkArguments args) {
         output.put("Arity", args.arity);
         output.put("Max documents", args.maxDocuments);
@@ -135,21 +181,67 @@ public class PredicateIndexBenchmark {
         output.put("Index file", args.indexFile);
         output.put("Query format", args.format);
         output.put("Warmup", args.warmup);
+        output.put("Updates requested", args.updates);
+        output.put("Merge threshold", args.mergeThreshold);
+        output.put("Search partitions", args.searchPartitions);
     }
 
     private static void runQueries(BenchmarkArguments args, PredicateIndex index) throws IOException {
         List<PredicateQuery> queries = parseQueries(args.queryFile, args.maxQueries, args.format);
-        long warmup1 = warmup(queries, index, args.nThreads, args.warmup / 2);
+        Supplier<Function<PredicateQuery, Stream<Hit>>> searchers = () -> index.searcher()::search;
+        long warmup1 = warmup(queries, searchers, args.nThreads, args.warmup / 2);
         output.put("Time warmup before building posting cache", warmup1);
-        rebuildPostingListCache(index);
-        long warmup2 = warmup(queries, index, args.nThreads, args.warmup / 2);
+        rebuildPostingListCache(index::rebuildPostingListCache);
+        long warmup2 = warmup(queries, searchers, args.nThreads, args.warmup / 2);
         output.put("Time warmup after building posting cache", warmup2);
-        searchIndex(queries, index, args.nThreads, args.runtime);
+        searchIndex(queries, searchers, args.nThreads, args.runtime, output);
+        if (args.searchPartitions != null) {
+            searchIndexPartitioned(queries, index, args);
+        }
     }
 
-    private static void rebuildPostingListCache(PredicateIndex index) {
+    /** Runs the queries again for each number of partitions, searched in parallel, and outputs metrics for each */
+    private static void searchIndexPartitioned(List<PredicateQuery> queries, PredicateIndex index, BenchmarkArguments args) {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (String value : args.searchPartitions.split(",")) {
+                int partitions = Integer.parseInt(value.trim());
+                Supplier<Function<PredicateQuery, Stream<Hit>>> searchers = () -> index.searcher(pool, partitions)::search;
+                warmup(queries, searchers, args.nThreads, args.warmup / 2);
+                Map<String, Object> metrics = new TreeMap<>();
+                searchIndex(queries, searchers, args.nThreads, args.runtime, metrics);
+                output.put("Search with " + partitions + " partitions", metrics);
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Runs queries while another thread keeps updating the index */
+    private static void runQueriesWhileUpdating(BenchmarkArguments args, UpdatablePredicateIndex index) throws IOException {
+        List<PredicateQuery> queries = parseQueries(args.queryFile, args.maxQueries, args.format);
+        Supplier<Function<PredicateQuery, Stream<Hit>>> searchers = () -> index.searcher()::search;
+        rebuildPostingListCache(index::rebuildPostingListCache);
+        long warmup = warmup(queries, searchers, args.nThreads, args.warmup);
+        output.put("Time warmup", warmup);
+        AtomicInteger updateCount = new AtomicInteger();
+        Thread updater = new Thread(() -> {
+            Random random = new Random(7);
+            while ( ! Thread.currentThread().isInterrupted()) {
+                index.indexDocument(random.nextInt(predicates.size()) + 1, predicates.get(random.nextInt(predicates.size())));
+                updateCount.incrementAndGet();
+            }
+        });
+        updater.start();
+        searchIndex(queries, searchers, args.nThreads, args.runtime, output);
+        updater.interrupt();
+        output.put("Updates per second while searching", updateCount.get() / (double) args.runtime);
+    }
+
+    private static void rebuildPostingListCache(Runnable rebuild) {
         long start = System.currentTimeMillis();
-        index.rebuildPostingListCache();
+        rebuild.run();
         output.put("Time rebuild posting list cache", System.currentTimeMillis() - start);
     }
 
@@ -163,33 +255,35 @@ public class PredicateIndexBenchmark {
         return queries;
     }
 
-    private static long warmup(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int warmup) {
+    private static long warmup(List<PredicateQuery> queries, Supplier<Function<PredicateQuery, Stream<Hit>>> searchers,
+                               int nThreads, int warmup) {
         ExecutorService executor = Executors.newFixedThreadPool(nThreads);
         Random random = new Random(42);
         for (int i = 0; i < nThreads; i++) {
             List<PredicateQuery> shuffledQueries = new ArrayList<>(queries);
             Collections.shuffle(shuffledQueries, random);
-            executor.submit(new QueryRunner(shuffledQueries, index.searcher()));
+            executor.submit(new QueryRunner(shuffledQueries, searchers.get()));
         }
         long start = System.currentTimeMillis();
         waitAndShutdown(warmup, executor);
         return System.currentTimeMillis() - start;
     }
 
-    private static void searchIndex(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int runtime) {
+    private static void searchIndex(List<PredicateQuery> queries, Supplier<Function<PredicateQuery, Stream<Hit>>> searchers,
+                                    int nThreads, int runtime, Map<String, Object> metrics) {
         ExecutorService executor = Executors.newFixedThreadPool(nThreads);
         Random random = new Random(42);
         List<QueryRunner> runners = new ArrayList<>();
         for (int i = 0; i < nThreads; i++) {
             List<PredicateQuery> shuffledQueries = new ArrayList<>(queries);
             Collections.shuffle(shuffledQueries, random);
-            runners.add(new QueryRunner(shuffledQueries, index.searcher()));
+            runners.add(new QueryRunner(shuffledQueries, searchers.get()));
         }
         long start = System.currentTimeMillis();
         List<Future<ResultMetrics>> futureResults = runners.stream().map(executor::submit).toList();
         waitAndShutdown(runtime, executor);
         long searchTime = System.currentTimeMillis() - start;
-        getResult(futureResults).writeMetrics(output, searchTime);
+        getResult(futureResults).writeMetrics(metrics, searchTime);
     }
 
     private static void waitAndShutdown(int warmup, ExecutorService executor) {
@@ -216,9 +310,9 @@ public class PredicateIndexBenchmark {
 
     private static class QueryRunner implements Callable<ResultMetrics> {
         private final List<PredicateQuery> queries;
-        private final PredicateIndex.Searcher searcher;
+        private final Function<PredicateQuery, Stream<Hit>> searcher;
 
-        public QueryRunner(List<PredicateQuery> queries, PredicateIndex.Searcher seacher) {
+        public QueryRunner(List<PredicateQuery> queries, Function<PredicateQuery, Stream<Hit>> seacher) {
             this.queries = queries;
             this.searcher = seacher;
         }
@@ -229,7 +323,7 @@ public class PredicateIndexBenchmark {
             ResultMetrics result = new ResultMetrics();
             while (!Thread.interrupted()) {
                 long start = System.nanoTime();
-                long hits = searcher.search(iterator.next()).count();
+                long hits = searcher.apply(iterator.next()).count();
                 double latencyMilliseconds = (System.nanoTime() - start) / 1_000_000d;
                 result.registerResult(hits, latencyMilliseconds);
             }
@@ -290,6 +384,19 @@ public class PredicateIndexBenchmark {
         @Option(name = {"-quf", "--query-file"}, description = "File path to a query file")
         public String queryFile;
 
+        @Option(name = {"-u", "--updates"},
+                description = "Number of documents to replace by others from the feed file before running queries, " +
+                              "which then run while documents are replaced continuously")
+        public int updates = 0;
+
+        @Option(name = {"-mt", "--merge-threshold"}, description = "Number of updated documents at which they are merged")
+        public int mergeThreshold = UpdatablePredicateIndex.DEFAULT_MERGE_THRESHOLD;
+
+        @Option(name = {"-sp", "--search-partitions"},
+                description = "Comma separated numbers of partitions to split the documents in and search in parallel, " +
+                              "each run after the regular search, e.g. '2,4,8'")
+        public String searchPartitions;
+
         @Inject
         public HelpOption helpOption;
     }
@@ -12,6 +12,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntUnaryOperator;
 
 /**
  * @author bjorncs
@@ -29,6 +30,10 @@ public class PredicateIntervalStore {
         return intervalsList[intervalRef];
     }
 
+    public int size() {
+        return intervalsList.length;
+    }
+
     public void writeToOutputStream(DataOutputStream out) throws IOException {
         out.writeInt(intervalsList.length);
         for (int[] intervals : intervalsList) {
@@ -45,6 +50,34 @@ public class PredicateIntervalStore {
         return new PredicateIntervalStore(intervalsList);
     }
 
+    /**
+     * Creates a store holding the intervals referenced from other stores, such that intervals which are
+     * no longer referenced are left out.
+     */
+    public static class Merger {
+        private final List<int[]> intervalsListBuilder = new ArrayList<>();
+
+        /**
+         * Returns a function from references in the given store to references in the merged store,
+         * which copies the referenced intervals on first use.
+         */
+        public IntUnaryOperator referencesFrom(PredicateIntervalStore store) {
+            int[] references = new int[store.size()];
+            Arrays.fill(references, -1);
+            return intervalRef -> {
+                if (references[intervalRef] < 0) {
+                    references[intervalRef] = intervalsListBuilder.size();
+                    intervalsListBuilder.add(store.get(intervalRef));
+                }
+                return references[intervalRef];
+            };
+        }
+
+        public PredicateIntervalStore build() {
+            return new PredicateIntervalStore(intervalsListBuilder.toArray(new int[0][]));
+        }
+    }
+
     public static class Builder {
         private final List<int[]> intervalsListBuilder = new ArrayList<>();
         private final Map<Entry, Integer> intervalsListIndexes = new HashMap<>();
@@ -10,10 +10,12 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntUnaryOperator;
 
 /**
  * An index mapping keys of type Long to lists of postings of generic data.
@@ -62,6 +64,31 @@ public class SimpleIndex {
         return new SimpleIndex(dictionary);
     }
 
+    /**
+     * Merges the posting lists of two indexes, mapping document ids and data references through the given functions.
+     * Postings whose document id maps to a negative value are left out, as are posting lists left empty.
+     * The mapping of document ids must preserve their order, and map those of the second index to larger ids
+     * than those of the first.
+     */
+    public static SimpleIndex merge(SimpleIndex first, IntUnaryOperator firstDocIds, IntUnaryOperator firstDataRefs,
+                                    SimpleIndex second, IntUnaryOperator secondDocIds, IntUnaryOperator secondDataRefs) {
+        LongObjectHashMap<Entry> dictionary = new LongObjectHashMap<>();
+        for (LongObjectPair<Entry> pair : first.dictionary.keyValuesView()) {
+            Entry merged = Entry.merge(pair.getTwo(), firstDocIds, firstDataRefs,
+                                       second.dictionary.get(pair.getOne()), secondDocIds, secondDataRefs);
+            if (merged != null)
+                dictionary.put(pair.getOne(), merged);
+        }
+        for (LongObjectPair<Entry> pair : second.dictionary.keyValuesView()) {
+            if (first.dictionary.containsKey(pair.getOne())) continue;
+            Entry merged = Entry.merge(null, firstDocIds, firstDataRefs, pair.getTwo(), secondDocIds, secondDataRefs);
+            if (merged != null)
+                dictionary.put(pair.getOne(), merged);
+        }
+        dictionary.compact();
+        return new SimpleIndex(dictionary);
+    }
+
     public static class Entry {
         public final int[] docIds;
         public final int[] dataRefs;
@@ -70,6 +97,32 @@ public class SimpleIndex {
             this.docIds = docIds;
             this.dataRefs = dataRefs;
         }
+
+        /** Returns the merge of the two given entries, either of which may be null, or null if the result is empty */
+        private static Entry merge(Entry first, IntUnaryOperator firstDocIds, IntUnaryOperator firstDataRefs,
+                                   Entry second, IntUnaryOperator secondDocIds, IntUnaryOperator secondDataRefs) {
+            int capacity = (first == null ? 0 : first.docIds.length) + (second == null ? 0 : second.docIds.length);
+            int[] docIds = new int[capacity];
+            int[] dataRefs = new int[capacity];
+            int size = append(first, firstDocIds, firstDataRefs, docIds, dataRefs, 0);
+            size = append(second, secondDocIds, secondDataRefs, docIds, dataRefs, size);
+            if (size == 0) return null;
+            if (size == capacity) return new Entry(docIds, dataRefs);
+            return new Entry(Arrays.copyOf(docIds, size), Arrays.copyOf(dataRefs, size));
+        }
+
+        private static int append(Entry entry, IntUnaryOperator docIdMapping, IntUnaryOperator dataRefMapping,
+                                  int[] docIds, int[] dataRefs, int size) {
+            if (entry == null) return size;
+            for (int i = 0; i < entry.docIds.length; i++) {
+                int docId = docIdMapping.applyAsInt(entry.docIds[i]);
+                if (docId < 0) continue;
+                docIds[size] = docId;
+                dataRefs[size] = dataRefMapping.applyAsInt(entry.dataRefs[i]);
+                size++;
+            }
+            return size;
+        }
     }
 
     public static class Builder {
@@ -11,6 +11,7 @@ import org.eclipse.collections.api.map.primitive.LongObjectMap;
 import org.eclipse.collections.api.tuple.primitive.IntObjectPair;
 import org.eclipse.collections.api.tuple.primitive.LongObjectPair;
 import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
 import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
 
 import java.io.DataInputStream;
@@ -20,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.LongPredicate;
 
 /**
  * A searchable index of conjunctions (see {@link FeatureConjunction} / {@link IndexableFeatureConjunction}).
@@ -69,6 +71,68 @@ public class ConjunctionIndex {
         return new ConjunctionIndex(kIndex, zList, idMapping);
     }
 
+    /**
+     * Merges two conjunction indexes into one holding each conjunction of either which is accepted by the given
+     * predicate on external conjunction ids. Conjunctions are identified by their external id, so conjunctions
+     * in both indexes are kept only once.
+     */
+    public static ConjunctionIndex merge(ConjunctionIndex first, ConjunctionIndex second, LongPredicate keep) {
+        // Internal id mappings, from index in the id mapping to index in the merged id mapping, or -1 if left out
+        int[] firstIds = new int[first.idMapping.length];
+        int[] secondIds = new int[second.idMapping.length];
+        long[] idMapping = new long[firstIds.length + secondIds.length];
+        LongIntHashMap mergedIds = new LongIntHashMap();
+        int size = 0;
+        for (int i = 0; i < firstIds.length; i++) {
+            long externalId = first.idMapping[i];
+            firstIds[i] = keep.test(externalId) ? size++ : -1;
+            if (firstIds[i] >= 0) {
+                idMapping[firstIds[i]] = externalId;
+                mergedIds.put(externalId, firstIds[i]);
+            }
+        }
+        // Conjunctions already in the first index are left out from the second, as their features are the same
+        for (int i = 0; i < secondIds.length; i++) {
+            long externalId = second.idMapping[i];
+            secondIds[i] = keep.test(externalId) && ! mergedIds.containsKey(externalId) ? size++ : -1;
+            if (secondIds[i] >= 0)
+                idMapping[secondIds[i]] = externalId;
+        }
+
+        IntObjectHashMap<FeatureIndex> kIndex = new IntObjectHashMap<>();
+        for (IntObjectPair<FeatureIndex> pair : first.kIndex.keyValuesView())
+            kIndex.put(pair.getOne(), FeatureIndex.merge(pair.getTwo(), firstIds,
+                                                         second.kIndex.get(pair.getOne()), secondIds));
+        for (IntObjectPair<FeatureIndex> pair : second.kIndex.keyValuesView()) {
+            if ( ! first.kIndex.containsKey(pair.getOne()))
+                kIndex.put(pair.getOne(), FeatureIndex.merge(null, firstIds, pair.getTwo(), secondIds));
+        }
+        kIndex.compact();
+        int[] zList = mergeConjunctionIds(first.zList, firstIds, second.zList, secondIds);
+        return new ConjunctionIndex(kIndex, zList, Arrays.copyOf(idMapping, size));
+    }
+
+    /**
+     * Merges two sorted arrays of conjunction ids, whose internal ids are mapped by the given arrays.
+     * The mapping must preserve the order, and map those of the second array to larger ids than those of the first.
+     */
+    private static int[] mergeConjunctionIds(int[] first, int[] firstIds, int[] second, int[] secondIds) {
+        int[] merged = new int[(first == null ? 0 : first.length) + (second == null ? 0 : second.length)];
+        int size = appendConjunctionIds(first, firstIds, merged, 0);
+        size = appendConjunctionIds(second, secondIds, merged, size);
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    private static int appendConjunctionIds(int[] conjunctionIds, int[] idMapping, int[] merged, int size) {
+        if (conjunctionIds == null) return size;
+        for (int conjunctionId : conjunctionIds) {
+            int mappedId = idMapping[conjunctionId >>> 1];
+            if (mappedId >= 0)
+                merged[size++] = (mappedId << 1) | (conjunctionId & 1);
+        }
+        return size;
+    }
+
     public static class FeatureIndex {
         // Maps a feature id to conjunction id
         private final LongObjectMap<int[]> map;
@@ -89,6 +153,28 @@ public class ConjunctionIndex {
             }
         }
 
+        private static FeatureIndex merge(FeatureIndex first, int[] firstIds, FeatureIndex second, int[] secondIds) {
+            LongObjectHashMap<int[]> map = new LongObjectHashMap<>();
+            if (first != null) {
+                for (LongObjectPair<int[]> p : first.map.keyValuesView()) {
+                    int[] merged = mergeConjunctionIds(p.getTwo(), firstIds,
+                                                       second == null ? null : second.map.get(p.getOne()), secondIds);
+                    if (merged.length > 0)
+                        map.put(p.getOne(), merged);
+                }
+            }
+            if (second != null) {
+                for (LongObjectPair<int[]> p : second.map.keyValuesView()) {
+                    if (first != null && first.map.containsKey(p.getOne())) continue;
+                    int[] merged = mergeConjunctionIds(null, firstIds, p.getTwo(), secondIds);
+                    if (merged.length > 0)
+                        map.put(p.getOne(), merged);
+                }
+            }
+            map.compact();
+            return new FeatureIndex(map);
+        }
+
         public static FeatureIndex fromInputStream(DataInputStream in) throws IOException {
             int mapSize = in.readInt();
             LongObjectHashMap<int[]> map = new LongObjectHashMap<>(mapSize);
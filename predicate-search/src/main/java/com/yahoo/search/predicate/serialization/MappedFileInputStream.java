@@ -0,0 +1,66 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * An input stream reading a file through memory mappings of consecutive regions of it,
+ * such that bulk reads are copies from the page cache, without system calls or intermediate buffers.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    private static final long REGION_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private long regionStart = 0;
+    private MappedByteBuffer region;
+
+    public MappedFileInputStream(Path path) throws IOException {
+        this.channel = FileChannel.open(path);
+        this.size = channel.size();
+        this.region = map(0);
+    }
+
+    private MappedByteBuffer map(long position) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION_SIZE, size - position));
+    }
+
+    /** Returns whether there is more to read, after mapping the next region if the current one is exhausted */
+    private boolean hasRemaining() throws IOException {
+        if (region.hasRemaining()) return true;
+        if (regionStart + region.capacity() >= size) return false;
+        regionStart += region.capacity();
+        region = map(regionStart);
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return hasRemaining() ? region.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        if ( ! hasRemaining()) return -1;
+        int count = Math.min(length, region.remaining());
+        region.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return (int)Math.min(Integer.MAX_VALUE, size - regionStart - region.position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
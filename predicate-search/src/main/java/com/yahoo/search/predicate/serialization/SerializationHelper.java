@@ -6,6 +6,7 @@ import com.yahoo.search.predicate.PredicateIndex;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Misc utility functions to help serialization of {@link PredicateIndex}.
@@ -14,68 +15,102 @@ import java.io.IOException;
  */
 public class SerializationHelper {
 
+    // Arrays are converted to and from bytes in chunks of this size, to read and write the stream in bulk
+    private static final int CHUNK_SIZE = 1 << 16;
+
     public static void writeIntArray(int[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
-        for (int v : array) {
-            out.writeInt(v);
+        ByteBuffer chunk = chunk(array.length, Integer.BYTES);
+        for (int i = 0; i < array.length; ) {
+            int count = Math.min(array.length - i, chunk.capacity() / Integer.BYTES);
+            chunk.clear();
+            chunk.asIntBuffer().put(array, i, count);
+            out.write(chunk.array(), 0, count * Integer.BYTES);
+            i += count;
         }
     }
 
     public static int[] readIntArray(DataInputStream in) throws IOException {
         int length = in.readInt();
         int[] array = new int[length];
-        for (int i = 0; i < length; i++) {
-            array[i] = in.readInt();
+        ByteBuffer chunk = chunk(length, Integer.BYTES);
+        for (int i = 0; i < length; ) {
+            int count = Math.min(length - i, chunk.capacity() / Integer.BYTES);
+            in.readFully(chunk.array(), 0, count * Integer.BYTES);
+            chunk.clear();
+            chunk.asIntBuffer().get(array, i, count);
+            i += count;
         }
         return array;
     }
 
     public static void writeByteArray(byte[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
-        for (int v : array) {
-            out.writeByte(v);
-        }
+        out.write(array);
     }
 
     public static byte[] readByteArray(DataInputStream in) throws IOException {
         int length = in.readInt();
         byte[] array = new byte[length];
-        for (int i = 0; i < length; i++) {
-            array[i] = in.readByte();
-        }
+        in.readFully(array);
         return array;
     }
 
     public static void writeLongArray(long[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
-        for (long v : array) {
-            out.writeLong(v);
+        ByteBuffer chunk = chunk(array.length, Long.BYTES);
+        for (int i = 0; i < array.length; ) {
+            int count = Math.min(array.length - i, chunk.capacity() / Long.BYTES);
+            chunk.clear();
+            chunk.asLongBuffer().put(array, i, count);
+            out.write(chunk.array(), 0, count * Long.BYTES);
+            i += count;
         }
     }
 
     public static long[] readLongArray(DataInputStream in) throws IOException {
         int length = in.readInt();
         long[] array = new long[length];
-        for (int i = 0; i < length; i++) {
-            array[i] = in.readLong();
+        ByteBuffer chunk = chunk(length, Long.BYTES);
+        for (int i = 0; i < length; ) {
+            int count = Math.min(length - i, chunk.capacity() / Long.BYTES);
+            in.readFully(chunk.array(), 0, count * Long.BYTES);
+            chunk.clear();
+            chunk.asLongBuffer().get(array, i, count);
+            i += count;
         }
         return array;
     }
 
     public static void writeShortArray(short[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
-        for (short v : array) {
-            out.writeShort(v);
+        ByteBuffer chunk = chunk(array.length, Short.BYTES);
+        for (int i = 0; i < array.length; ) {
+            int count = Math.min(array.length - i, chunk.capacity() / Short.BYTES);
+            chunk.clear();
+            chunk.asShortBuffer().put(array, i, count);
+            out.write(chunk.array(), 0, count * Short.BYTES);
+            i += count;
         }
     }
 
     public static short[] readShortArray(DataInputStream in) throws IOException {
         int length = in.readInt();
         short[] array = new short[length];
-        for (int i = 0; i < length; i++) {
-            array[i] = in.readShort();
+        ByteBuffer chunk = chunk(length, Short.BYTES);
+        for (int i = 0; i < length; ) {
+            int count = Math.min(length - i, chunk.capacity() / Short.BYTES);
+            in.readFully(chunk.array(), 0, count * Short.BYTES);
+            chunk.clear();
+            chunk.asShortBuffer().get(array, i, count);
+            i += count;
         }
         return array;
     }
 
+    /** Returns a buffer for converting an array of the given length and element size, in chunks */
+    private static ByteBuffer chunk(int length, int elementSize) {
+        return ByteBuffer.allocate((int)Math.min((long)length * elementSize, CHUNK_SIZE));
+    }
+
 }
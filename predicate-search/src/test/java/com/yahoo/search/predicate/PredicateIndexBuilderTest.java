@@ -5,6 +5,9 @@ import com.yahoo.document.predicate.BooleanPredicate;
 import com.yahoo.document.predicate.Predicate;
 import org.junit.jupiter.api.Test;
 
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -42,4 +45,16 @@ public class PredicateIndexBuilderTest {
         builder.build();
     }
 
+    @Test
+    void requireThatDocumentWhichCanNotBeIndexedLeavesBuilderUnchanged() {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
+        builder.indexDocument(1, Predicate.fromString("a in ['b']"));
+        String tooComplex = IntStream.range(0, 256).mapToObj(i -> "f" + i + " in ['v']").collect(Collectors.joining(" and "));
+        assertThrows(IllegalStateException.class, () -> builder.indexDocument(2, Predicate.fromString(tooComplex)));
+        builder.indexDocument(2, Predicate.fromString("a in ['b']"));
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("a", "b");
+        assertEquals(2, builder.build().searcher().search(query).count());
+    }
+
 }
@@ -5,6 +5,8 @@ import com.yahoo.document.predicate.Predicate;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.yahoo.search.predicate.serialization.SerializationTestHelper.assertSerializationDeserializationMatches;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -128,6 +130,42 @@ public class PredicateIndexTest {
         assertEquals("[42]", searcher.search(query).toList().toString());
     }
 
+    @Test
+    void requireThatPartitionedSearchGivesSameHitsAsSequentialSearch() {
+        List<String> predicates = List.of(
+                "country in ['no', 'se'] and gender in ['male']",
+                "country not in ['no'] and gender not in ['male']",
+                "country in ['se'] and age in [20..30]",
+                "(country in ['no'] and gender in ['male']) or (country in ['se'] and gender in ['female'])",
+                "true");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (boolean useConjunctionAlgorithm : List.of(false, true)) {
+                PredicateIndexBuilder builder = new PredicateIndexBuilder(
+                        new Config.Builder().setArity(4).setUseConjunctionAlgorithm(useConjunctionAlgorithm).build());
+                for (int id = 0; id < 1000; id++)
+                    builder.indexDocument(id, Predicate.fromString(predicates.get(id * 7 % predicates.size())));
+                PredicateIndex index = builder.build();
+                for (int round = 0; round < 2; round++) {
+                    for (String country : List.of("no", "se", "dk")) {
+                        PredicateQuery query = new PredicateQuery();
+                        query.addFeature("country", country);
+                        query.addFeature("gender", "male", 0b1);
+                        query.addFeature("gender", "female", 0b10);
+                        query.addRangeFeature("age", 25);
+                        List<Hit> expected = index.searcher().search(query).toList();
+                        for (int partitions : List.of(1, 2, 3, 7))
+                            assertEquals(expected, index.searcher(pool, partitions).search(query).toList());
+                    }
+                    index.rebuildPostingListCache(); // Counts using the bit vector in the second round
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     void require_that_serialization_and_deserialization_retain_data() throws IOException {
         PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
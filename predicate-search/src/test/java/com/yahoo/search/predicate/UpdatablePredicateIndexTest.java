@@ -0,0 +1,194 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate;
+
+import com.yahoo.document.predicate.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UpdatablePredicateIndexTest {
+
+    private static final List<String> predicates = List.of(
+            "country in ['no', 'se'] and gender in ['male']",
+            "country in ['no'] and gender in ['female']",
+            "country not in ['no'] and gender not in ['male']",
+            "country in ['se'] and age in [20..30]",
+            "age in [25..40] or gender in ['female']",
+            "(country in ['no'] and gender in ['male']) or (country in ['se'] and gender in ['female'])",
+            "country in ['dk'] and not (gender in ['male'] and age in [10..20])",
+            "true",
+            "false");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void requireThatUpdatesAreVisibleToSearches() {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
+        builder.indexDocument(1, Predicate.fromString("country in ['no', 'se'] and gender in ['male']"));
+        builder.indexDocument(2, Predicate.fromString("country in ['no'] and gender in ['female']"));
+        try (UpdatablePredicateIndex index = new UpdatablePredicateIndex(builder.build(), 100)) {
+            UpdatablePredicateIndex.Searcher searcher = index.searcher();
+            PredicateQuery query = new PredicateQuery();
+            query.addFeature("country", "no");
+            query.addFeature("gender", "male");
+            assertEquals("[1]", searcher.search(query).toList().toString());
+
+            index.indexDocument(3, Predicate.fromString("country in ['no']"));
+            assertEquals("[1, 3]", searcher.search(query).sorted().toList().toString());
+
+            assertTrue(index.removeDocument(1));
+            assertFalse(index.removeDocument(1));
+            assertEquals("[3]", searcher.search(query).toList().toString());
+
+            index.indexDocument(2, Predicate.fromString("gender in ['male']"));
+            assertEquals("[2, 3]", searcher.search(query).sorted().toList().toString());
+
+            index.merge();
+            assertEquals("[2, 3]", searcher.search(query).sorted().toList().toString());
+            assertTrue(index.removeDocument(3));
+            assertEquals("[2]", searcher.search(query).toList().toString());
+        }
+    }
+
+    @Test
+    void requireThatUpdatedIndexMatchesIndexBuiltFromScratch() throws IOException {
+        for (boolean useConjunctionAlgorithm : List.of(false, true)) {
+            Config config = new Config.Builder().setArity(4).setUseConjunctionAlgorithm(useConjunctionAlgorithm).build();
+            Random random = new Random(7);
+            Map<Integer, String> documents = new HashMap<>();
+            PredicateIndexBuilder builder = new PredicateIndexBuilder(config);
+            for (int id = 0; id < 200; id++) {
+                String predicate = randomPredicate(random);
+                builder.indexDocument(id, Predicate.fromString(predicate));
+                documents.put(id, predicate);
+            }
+            try (UpdatablePredicateIndex index = new UpdatablePredicateIndex(builder.build(), 16)) {
+                UpdatablePredicateIndex.Searcher searcher = index.searcher();
+                for (int i = 0; i < 500; i++) {
+                    int id = random.nextInt(300);
+                    if (random.nextInt(3) == 0) {
+                        index.removeDocument(id);
+                        documents.remove(id);
+                    }
+                    else {
+                        String predicate = randomPredicate(random);
+                        index.indexDocument(id, Predicate.fromString(predicate));
+                        documents.put(id, predicate);
+                    }
+                    if (i % 50 == 0)
+                        assertSameHits(documents, config, searcher);
+                }
+                assertSameHits(documents, config, searcher);
+                index.merge();
+                assertSameHits(documents, config, searcher);
+
+                Path file = tempDir.resolve("index-" + useConjunctionAlgorithm);
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                    index.writeToOutputStream(out);
+                }
+                assertSameHits(documents, config, PredicateIndex.fromFile(file).searcher()::search);
+            }
+        }
+    }
+
+    @Test
+    void requireThatSearchesBetweenEachUpdateSeeAllUpdates() {
+        Config config = new Config.Builder().setArity(4).build();
+        Random random = new Random(11);
+        Map<Integer, String> documents = new HashMap<>();
+        try (UpdatablePredicateIndex index = new UpdatablePredicateIndex(new PredicateIndexBuilder(config).build(), 1000)) {
+            UpdatablePredicateIndex.Searcher searcher = index.searcher();
+            PredicateQuery query = new PredicateQuery();
+            query.addFeature("country", "no");
+            query.addFeature("gender", "male");
+            for (int i = 0; i < 300; i++) {
+                int id = random.nextInt(100);
+                if (random.nextInt(4) == 0) {
+                    index.removeDocument(id);
+                    documents.remove(id);
+                }
+                else {
+                    String predicate = randomPredicate(random);
+                    index.indexDocument(id, Predicate.fromString(predicate));
+                    documents.put(id, predicate);
+                }
+                searcher.search(query).count(); // Builds the pending documents into a delta segment
+            }
+            assertSameHits(documents, config, searcher);
+        }
+    }
+
+    @Test
+    void requireThatDocumentWhichCanNotBeIndexedIsRejected() {
+        try (UpdatablePredicateIndex index = new UpdatablePredicateIndex(new PredicateIndexBuilder(10).build(), 100)) {
+            index.indexDocument(1, Predicate.fromString("a in ['b']"));
+            String tooComplex = IntStream.range(0, 256).mapToObj(i -> "f" + i + " in ['v']").collect(Collectors.joining(" and "));
+            assertThrows(IllegalStateException.class, () -> index.indexDocument(1, Predicate.fromString(tooComplex)));
+            PredicateQuery query = new PredicateQuery();
+            query.addFeature("a", "b");
+            assertEquals("[1]", index.searcher().search(query).map(Hit::getDocId).toList().toString());
+        }
+    }
+
+    @Test
+    void requireThatClosedIndexRejectsUpdatesButCanBeSearched() {
+        UpdatablePredicateIndex index = new UpdatablePredicateIndex(new PredicateIndexBuilder(10).build(), 2);
+        index.indexDocument(1, Predicate.fromString("a in ['b']"));
+        index.close();
+        assertThrows(IllegalStateException.class, () -> index.indexDocument(2, Predicate.fromString("a in ['b']")));
+        assertThrows(IllegalStateException.class, () -> index.removeDocument(1));
+        assertThrows(IllegalStateException.class, index::merge);
+        assertThrows(IllegalStateException.class, () -> index.writeToOutputStream(new DataOutputStream(OutputStream.nullOutputStream())));
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("a", "b");
+        assertEquals("[1]", index.searcher().search(query).map(Hit::getDocId).toList().toString());
+    }
+
+    private static String randomPredicate(Random random) {
+        return predicates.get(random.nextInt(predicates.size()));
+    }
+
+    private static void assertSameHits(Map<Integer, String> documents, Config config,
+                                       UpdatablePredicateIndex.Searcher searcher) {
+        assertSameHits(documents, config, searcher::search);
+    }
+
+    private static void assertSameHits(Map<Integer, String> documents, Config config,
+                                       Function<PredicateQuery, Stream<Hit>> searcher) {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(config);
+        documents.forEach((id, predicate) -> builder.indexDocument(id, Predicate.fromString(predicate)));
+        PredicateIndex.Searcher expected = builder.build().searcher();
+        for (String country : List.of("no", "se", "dk")) {
+            for (String gender : List.of("male", "female")) {
+                for (int age : List.of(15, 25, 35)) {
+                    PredicateQuery query = new PredicateQuery();
+                    query.addFeature("country", country);
+                    query.addFeature("gender", gender);
+                    query.addRangeFeature("age", age);
+                    assertEquals(expected.search(query).sorted().toList(), searcher.apply(query).sorted().toList());
+                }
+            }
+        }
+    }
+
+}
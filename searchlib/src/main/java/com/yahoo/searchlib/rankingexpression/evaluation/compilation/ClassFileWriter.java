@@ -0,0 +1,356 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compilation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Writes class files with methods consisting of the few instructions used by compiled expressions.
+ * The operand stack is tracked while instructions are added, to compute the max stack size and
+ * the stack map frames at branch targets.
+ *
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">The class file format</a>
+ */
+final class ClassFileWriter {
+
+    private static final int classFileVersion = 52;
+
+    private static final int constantUtf8 = 1, constantInteger = 3, constantDouble = 6, constantClass = 7,
+                             constantFieldref = 9, constantMethodref = 10, constantNameAndType = 12;
+
+    // The instructions used
+    static final int aload_0 = 0x2a, dconst_0 = 0x0e, dconst_1 = 0x0f, iconst_0 = 0x03, bipush = 0x10, sipush = 0x11,
+                     ldc_w = 0x13, ldc2_w = 0x14, dadd = 0x63, dsub = 0x67, dmul = 0x6b, ddiv = 0x6f, drem = 0x73,
+                     dneg = 0x77, dcmpl = 0x97, ifeq = 0x99, goto_ = 0xa7, dreturn = 0xaf, return_ = 0xb1,
+                     getstatic = 0xb2, invokevirtual = 0xb6, invokespecial = 0xb7, invokestatic = 0xb8;
+
+    private final Bytes constants = new Bytes();
+    private final Map<String, Integer> constantIndexes = new HashMap<>();
+    private int constantCount = 1; // index 0 is not used
+    private final int thisClass;
+    private final int superClass;
+    private final List<byte[]> methods = new ArrayList<>();
+
+    /** Creates a writer of a final class with the given internal name and super class */
+    ClassFileWriter(String className, String superClassName) {
+        this.thisClass = classConstant(className);
+        this.superClass = classConstant(superClassName);
+    }
+
+    /** Returns the constant pool index of the class written by this */
+    int thisClass() { return thisClass; }
+
+    int utf8Constant(String value) {
+        return constant("utf8:" + value, 1, out -> out.u1(constantUtf8).utf8(value));
+    }
+
+    int classConstant(String internalName) {
+        int name = utf8Constant(internalName);
+        return constant("class:" + internalName, 1, out -> out.u1(constantClass).u2(name));
+    }
+
+    int integerConstant(int value) {
+        return constant("int:" + value, 1, out -> out.u1(constantInteger).u4(value));
+    }
+
+    int doubleConstant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        return constant("double:" + bits, 2, out -> out.u1(constantDouble).u8(bits));
+    }
+
+    int fieldConstant(String owner, String name, String descriptor) {
+        return memberConstant(constantFieldref, owner, name, descriptor);
+    }
+
+    int methodConstant(String owner, String name, String descriptor) {
+        return memberConstant(constantMethodref, owner, name, descriptor);
+    }
+
+    private int memberConstant(int tag, String owner, String name, String descriptor) {
+        int ownerClass = classConstant(owner);
+        int nameIndex = utf8Constant(name);
+        int descriptorIndex = utf8Constant(descriptor);
+        int nameAndType = constant("nameAndType:" + name + ":" + descriptor, 1,
+                                   out -> out.u1(constantNameAndType).u2(nameIndex).u2(descriptorIndex));
+        return constant(tag + ":" + owner + "." + name + ":" + descriptor, 1,
+                        out -> out.u1(tag).u2(ownerClass).u2(nameAndType));
+    }
+
+    private int constant(String key, int slots, Consumer<Bytes> writer) {
+        Integer index = constantIndexes.get(key);
+        if (index != null) return index;
+        index = constantCount;
+        writer.accept(constants);
+        constantCount += slots;
+        if (constantCount > 0xffff) throw new IllegalArgumentException("Too many constants");
+        constantIndexes.put(key, index);
+        return index;
+    }
+
+    /** Returns a new method body, where the given types are the types of the locals: this and the arguments */
+    Code code(List<Type> locals) {
+        return new Code(locals);
+    }
+
+    /** Adds a method with the given access flags, name, descriptor and body */
+    void addMethod(int access, String name, String descriptor, Code code) {
+        Bytes method = new Bytes();
+        method.u2(access).u2(utf8Constant(name)).u2(utf8Constant(descriptor)).u2(1);
+        byte[] body = code.toBytes();
+        method.u2(utf8Constant("Code")).u4(body.length).bytes(body);
+        methods.add(method.toArray());
+    }
+
+    /** Returns the class file of a final class with the methods added to this */
+    byte[] toBytes() {
+        Bytes out = new Bytes();
+        out.u4(0xcafebabe).u2(0).u2(classFileVersion);
+        out.u2(constantCount).bytes(constants.toArray());
+        out.u2(0x0010 | 0x0020); // ACC_FINAL | ACC_SUPER
+        out.u2(thisClass).u2(superClass);
+        out.u2(0); // interfaces
+        out.u2(0); // fields
+        out.u2(methods.size());
+        for (byte[] method : methods)
+            out.bytes(method);
+        out.u2(0); // attributes
+        return out.toArray();
+    }
+
+    /** A verification type of a local or a stack entry */
+    record Type(int tag, int classIndex, int slots) {
+
+        static final Type intType = new Type(1, 0, 1);
+        static final Type doubleType = new Type(3, 0, 2);
+
+        static Type object(int classIndex) { return new Type(7, classIndex, 1); }
+
+        void writeTo(Bytes out) {
+            out.u1(tag);
+            if (tag == 7)
+                out.u2(classIndex);
+        }
+
+    }
+
+    /** A position in the code of a method, which may be jumped to before it is marked */
+    static final class Label {
+
+        private int position = -1;
+        private List<Type> stack = null;
+
+    }
+
+    /** The body of a method */
+    final class Code {
+
+        private final Bytes code = new Bytes();
+        private final List<Type> locals;
+        private List<Type> stack = new ArrayList<>();
+        private int stackSlots = 0;
+        private int maxStackSlots = 0;
+        private final List<int[]> jumps = new ArrayList<>(); // instruction position, index of label
+        private final List<Label> labels = new ArrayList<>();
+        private final Bytes frames = new Bytes();
+        private int frameCount = 0;
+        private int lastFramePosition = -1;
+
+        private Code(List<Type> locals) {
+            this.locals = List.copyOf(locals);
+        }
+
+        /** Returns the number of bytes of code added so far */
+        int size() { return code.size(); }
+
+        void loadLocal(int index) {
+            code.u1(aload_0 + index);
+            push(locals.get(index));
+        }
+
+        void pushInt(int value) {
+            if (value >= -1 && value <= 5)
+                code.u1(iconst_0 + value);
+            else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+                code.u1(bipush).u1(value);
+            else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+                code.u1(sipush).u2(value);
+            else
+                code.u1(ldc_w).u2(integerConstant(value));
+            push(Type.intType);
+        }
+
+        void pushDouble(double value) {
+            if (Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(0.0))
+                code.u1(dconst_0);
+            else if (value == 1.0)
+                code.u1(dconst_1);
+            else
+                code.u1(ldc2_w).u2(doubleConstant(value));
+            push(Type.doubleType);
+        }
+
+        /** Adds an instruction taking no operands, which replaces the given number of stack entries by the given type */
+        void instruction(int opcode, int pops, Type result) {
+            code.u1(opcode);
+            pop(pops);
+            if (result != null)
+                push(result);
+        }
+
+        /** Pushes the value of a static field of a class type */
+        void getStatic(String owner, String name, String fieldClass) {
+            code.u1(getstatic).u2(fieldConstant(owner, name, "L" + fieldClass + ";"));
+            push(Type.object(classConstant(fieldClass)));
+        }
+
+        /** Invokes a method whose arguments are doubles, ints and objects, and which returns a double or nothing */
+        void invoke(int opcode, String owner, String name, String descriptor) {
+            code.u1(opcode).u2(methodConstant(owner, name, descriptor));
+            pop(argumentCount(descriptor) + (opcode == invokestatic ? 0 : 1));
+            if (descriptor.endsWith(")D"))
+                push(Type.doubleType);
+            else if ( ! descriptor.endsWith(")V"))
+                throw new IllegalArgumentException("Unsupported return type in " + descriptor);
+        }
+
+        /** Pops a double and jumps to the given label if it is zero */
+        void jumpIfZero(Label label) {
+            code.u1(dconst_0);
+            push(Type.doubleType);
+            instruction(dcmpl, 2, Type.intType);
+            jump(ifeq, label, 1);
+        }
+
+        void jump(Label label) {
+            jump(goto_, label, 0);
+        }
+
+        private void jump(int opcode, Label label, int pops) {
+            pop(pops);
+            if (label.stack == null)
+                label.stack = List.copyOf(stack);
+            jumps.add(new int[] { code.size(), labels.size() });
+            labels.add(label);
+            code.u1(opcode).u2(0);
+        }
+
+        /** Marks the position of the given label as the current position, after a jump to it has been added */
+        void mark(Label label) {
+            label.position = code.size();
+            stack = new ArrayList<>(label.stack);
+            stackSlots = stack.stream().mapToInt(Type::slots).sum();
+            if (label.position == lastFramePosition) return; // same frame as the previous label
+            int offsetDelta = frameCount == 0 ? label.position : label.position - lastFramePosition - 1;
+            frames.u1(255).u2(offsetDelta); // full frame
+            frames.u2(locals.size());
+            locals.forEach(local -> local.writeTo(frames));
+            frames.u2(stack.size());
+            stack.forEach(entry -> entry.writeTo(frames));
+            frameCount++;
+            lastFramePosition = label.position;
+        }
+
+        private void push(Type type) {
+            stack.add(type);
+            stackSlots += type.slots();
+            maxStackSlots = Math.max(maxStackSlots, stackSlots);
+        }
+
+        private void pop(int count) {
+            for (int i = 0; i < count; i++)
+                stackSlots -= stack.remove(stack.size() - 1).slots();
+        }
+
+        private byte[] toBytes() {
+            for (int[] jump : jumps) {
+                int offset = labels.get(jump[1]).position - jump[0];
+                if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+                    throw new IllegalArgumentException("Jump offset " + offset + " is out of range");
+                code.setU2(jump[0] + 1, offset);
+            }
+            Bytes out = new Bytes();
+            out.u2(maxStackSlots).u2(locals.size());
+            out.u4(code.size()).bytes(code.toArray());
+            out.u2(0); // exception table
+            if (frameCount == 0) {
+                out.u2(0);
+            }
+            else {
+                out.u2(1);
+                byte[] frameBytes = frames.toArray();
+                out.u2(utf8Constant("StackMapTable")).u4(frameBytes.length + 2).u2(frameCount).bytes(frameBytes);
+            }
+            return out.toArray();
+        }
+
+        private static int argumentCount(String descriptor) {
+            int count = 0;
+            for (int i = 1; descriptor.charAt(i) != ')'; i++) {
+                while (descriptor.charAt(i) == '[') i++;
+                if (descriptor.charAt(i) == 'L') i = descriptor.indexOf(';', i);
+                count++;
+            }
+            return count;
+        }
+
+    }
+
+    /** A growable array of bytes written in class file (big endian) order */
+    static final class Bytes {
+
+        private byte[] bytes = new byte[256];
+        private int size = 0;
+
+        Bytes u1(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+            return this;
+        }
+
+        Bytes u2(int value) {
+            return u1(value >>> 8).u1(value);
+        }
+
+        Bytes u4(int value) {
+            return u2(value >>> 16).u2(value);
+        }
+
+        Bytes u8(long value) {
+            return u4((int) (value >>> 32)).u4((int) value);
+        }
+
+        /** Writes a string of characters which have the same encoding in modified UTF-8 as in UTF-8 */
+        Bytes utf8(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            return u2(encoded.length).bytes(encoded);
+        }
+
+        Bytes bytes(byte[] values) {
+            ensureCapacity(values.length);
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+            return this;
+        }
+
+        void setU2(int position, int value) {
+            bytes[position] = (byte) (value >>> 8);
+            bytes[position + 1] = (byte) value;
+        }
+
+        int size() { return size; }
+
+        byte[] toArray() { return Arrays.copyOf(bytes, size); }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+
+    }
+
+}
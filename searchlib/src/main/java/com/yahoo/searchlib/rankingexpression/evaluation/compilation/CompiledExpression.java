@@ -0,0 +1,60 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compilation;
+
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Superclass of the hidden classes generated by {@link ExpressionCompiler}, which evaluate an expression to a double.
+ * Subexpressions which are not compiled are evaluated by the interpreter, through {@link #fallback}.
+ * The static methods implement the operators which have no corresponding instruction, and are
+ * invoked by the generated code, which represents booleans as 1 and 0.
+ */
+abstract class CompiledExpression {
+
+    private final ExpressionNode[] fallbacks;
+
+    protected CompiledExpression(ExpressionNode[] fallbacks) {
+        this.fallbacks = fallbacks;
+    }
+
+    /**
+     * Evaluates this in a context having the same indexes as the context index it was compiled with.
+     *
+     * @throws UnsupportedOperationException if a variable or subexpression has a value which is not a double
+     */
+    abstract double evaluate(Context context);
+
+    /** Evaluates the subexpression with the given index by interpretation */
+    protected final double fallback(int index, Context context) {
+        return fallbacks[index].evaluate(context).asDouble();
+    }
+
+    /** Defines a hidden class from the given class file, and returns a new instance of it */
+    static CompiledExpression define(byte[] classFile, ExpressionNode[] fallbacks) {
+        try {
+            Class<?> compiledClass = MethodHandles.lookup().defineHiddenClass(classFile, true).lookupClass();
+            return (CompiledExpression) compiledClass.getDeclaredConstructor(ExpressionNode[].class).newInstance((Object) fallbacks);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not instantiate a compiled expression", e);
+        }
+    }
+
+    static double or(double x, double y) { return x != 0 || y != 0 ? 1 : 0; }
+    static double and(double x, double y) { return x != 0 && y != 0 ? 1 : 0; }
+    static double not(double x) { return x != 0 ? 0 : 1; }
+    static double largerOrEqual(double x, double y) { return x >= y ? 1 : 0; }
+    static double larger(double x, double y) { return x > y ? 1 : 0; }
+    static double smallerOrEqual(double x, double y) { return x <= y ? 1 : 0; }
+    static double smaller(double x, double y) { return x < y ? 1 : 0; }
+    static double approxEqual(double x, double y) { return new DoubleValue(x).approxEqual(new DoubleValue(y)).asDouble(); }
+    static double notEqual(double x, double y) { return x != y ? 1 : 0; }
+    static double equal(double x, double y) { return x == y ? 1 : 0; }
+    static double power(double x, double y) { return Function.pow.evaluate(x, y); }
+
+}
@@ -0,0 +1,67 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compilation;
+
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.SerializationContext;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.TypeContext;
+
+import java.util.Deque;
+
+/**
+ * A subexpression which is evaluated by compiled code. This has the same type and serialized form as the
+ * subexpression it replaces, which is interpreted instead if a variable turns out to have a value which
+ * is not a double, or if this has been deserialized.
+ */
+public final class CompiledNode extends ExpressionNode {
+
+    private final ExpressionNode node;
+    private final transient CompiledExpression compiled;
+    private final boolean isBoolean;
+
+    /** Set once the compiled code has failed because a value was not a double, as it will probably fail again */
+    private volatile boolean interpret = false;
+
+    CompiledNode(ExpressionNode node, CompiledExpression compiled, boolean isBoolean) {
+        this.node = node;
+        this.compiled = compiled;
+        this.isBoolean = isBoolean;
+    }
+
+    /** Returns the subexpression this evaluates */
+    public ExpressionNode node() { return node; }
+
+    /** Returns whether this has stopped using the compiled code */
+    boolean isInterpreted() { return interpret || compiled == null; }
+
+    @Override
+    public TensorType type(TypeContext<Reference> context) { return node.type(context); }
+
+    @Override
+    public Value evaluate(Context context) {
+        if (interpret || compiled == null) return node.evaluate(context);
+        try {
+            double value = compiled.evaluate(context);
+            return isBoolean ? new BooleanValue(value != 0) : new DoubleValue(value);
+        }
+        catch (UnsupportedOperationException e) {
+            interpret = true;
+            return node.evaluate(context);
+        }
+    }
+
+    @Override
+    public StringBuilder toString(StringBuilder string, SerializationContext context, Deque<String> path, CompositeNode parent) {
+        return node.toString(string, context, path, parent);
+    }
+
+    @Override
+    public int hashCode() { return node.hashCode(); }
+
+}
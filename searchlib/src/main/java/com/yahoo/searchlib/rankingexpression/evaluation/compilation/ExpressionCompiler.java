@@ -0,0 +1,306 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compilation;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleCompatibleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.Optimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.Label;
+import com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.Type;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.OperationNode;
+import com.yahoo.searchlib.rankingexpression.rule.Operator;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.tensor.TensorType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.dadd;
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.ddiv;
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.dmul;
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.dneg;
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.dreturn;
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.drem;
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.dsub;
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.invokespecial;
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.invokestatic;
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.invokevirtual;
+import static com.yahoo.searchlib.rankingexpression.evaluation.compilation.ClassFileWriter.return_;
+
+/**
+ * Compiles the scalar subexpressions of a ranking expression to JVM bytecode, in hidden classes,
+ * and replaces them by {@link CompiledNode}s evaluating that code.
+ * <p>
+ * Arithmetic, comparisons, boolean operators, scalar functions and if expressions are compiled to code working
+ * on primitive doubles. Variables are looked up by their index in the context index, as with GBDT optimization,
+ * while other subexpressions, such as tensor functions, are evaluated by the interpreter from the compiled code.
+ * Subexpressions which have a tensor type in the context given to the compiler are not compiled.
+ * <p>
+ * This optimizer is disabled by default. It is enabled by setting the system property
+ * {@value #enabledProperty} to true, or by {@link #setEnabled}.
+ */
+public class ExpressionCompiler extends Optimizer {
+
+    public static final String enabledProperty = "vespa.ranking.expression.compile";
+
+    /** The JIT compiler does not compile larger methods by default (see -XX:HugeMethodLimit) */
+    private static final int maxCodeSize = 8000;
+
+    private static final String packageName = "com/yahoo/searchlib/rankingexpression/evaluation/compilation/";
+    private static final String compiledClassName = packageName + "GeneratedExpression";
+    private static final String superClassName = packageName + "CompiledExpression";
+    private static final String contextClassName = "com/yahoo/searchlib/rankingexpression/evaluation/Context";
+    private static final String functionClassName = "com/yahoo/searchlib/rankingexpression/rule/Function";
+    private static final String expressionNodesDescriptor = "([Lcom/yahoo/searchlib/rankingexpression/rule/ExpressionNode;)V";
+    private static final String evaluateDescriptor = "(L" + contextClassName + ";)D";
+
+    public ExpressionCompiler() {
+        setEnabled(Boolean.getBoolean(enabledProperty));
+    }
+
+    /**
+     * Replaces the largest compilable subexpressions of the given expression by compiled nodes.
+     *
+     * @param expression the expression to destructively optimize
+     * @param context    a fast lookup context created from the given expression
+     * @param report     the optimization report to which actions of this is logged
+     */
+    @Override
+    public void optimize(RankingExpression expression, ContextIndex context, OptimizationReport report) {
+        if ( ! isEnabled()) return;
+        expression.setRoot(compile(expression.getRoot(), context, report));
+        report.note("Expression compilation done");
+    }
+
+    private ExpressionNode compile(ExpressionNode node, ContextIndex context, OptimizationReport report) {
+        if (isWorthCompiling(node)) {
+            Optional<CompiledNode> compiled = new Generator(context).generate(node);
+            if (compiled.isPresent()) {
+                report.incMetric("Compiled expressions", 1);
+                return compiled.get();
+            }
+        }
+        if ( ! evaluatesChildrenInSameContext(node)) return node;
+
+        List<ExpressionNode> newChildren = new ArrayList<>();
+        for (ExpressionNode child : ((CompositeNode)node).children())
+            newChildren.add(compile(child, context, report));
+        return ((CompositeNode)node).setChildren(newChildren);
+    }
+
+    /** Returns whether compiling this would remove any interpretation overhead */
+    private static boolean isWorthCompiling(ExpressionNode node) {
+        if (node instanceof OperationNode || node instanceof FunctionNode || node instanceof IfNode) return true;
+        if (node instanceof EmbracedNode embraced) return isWorthCompiling(embraced.getValue());
+        if (node instanceof NegativeNode negative) return isWorthCompiling(negative.getValue());
+        if (node instanceof NotNode not) return isWorthCompiling(not.getValue());
+        return false;
+    }
+
+    /** Returns whether this is compiled by this with its children, which are evaluated in the context of this */
+    private static boolean evaluatesChildrenInSameContext(ExpressionNode node) {
+        return node instanceof OperationNode || node instanceof FunctionNode || node instanceof IfNode ||
+               node instanceof EmbracedNode || node instanceof NegativeNode || node instanceof NotNode;
+    }
+
+    /** Generates the class evaluating a single subexpression */
+    private static class Generator {
+
+        private final ContextIndex contextIndex;
+        private final List<ExpressionNode> fallbacks = new ArrayList<>();
+        private final ClassFileWriter writer = new ClassFileWriter(compiledClassName, superClassName);
+        private final ClassFileWriter.Code code;
+
+        Generator(ContextIndex contextIndex) {
+            this.contextIndex = contextIndex;
+            this.code = writer.code(List.of(Type.object(writer.thisClass()), Type.object(writer.classConstant(contextClassName))));
+        }
+
+        /** Returns a node evaluating the given node by compiled code, or empty if it cannot be compiled */
+        Optional<CompiledNode> generate(ExpressionNode node) {
+            boolean isBoolean;
+            try {
+                isBoolean = generateValue(node);
+            }
+            catch (NotCompilableException e) {
+                return Optional.empty();
+            }
+            if (code.size() > maxCodeSize) return Optional.empty();
+            code.instruction(dreturn, 1, null);
+            writer.addMethod(0, "evaluate", evaluateDescriptor, code);
+
+            ClassFileWriter.Code constructor = writer.code(List.of(Type.object(writer.thisClass()),
+                                                                   Type.object(writer.classConstant("[Lcom/yahoo/searchlib/rankingexpression/rule/ExpressionNode;"))));
+            constructor.loadLocal(0);
+            constructor.loadLocal(1);
+            constructor.invoke(invokespecial, superClassName, "<init>", expressionNodesDescriptor);
+            constructor.instruction(return_, 0, null);
+            writer.addMethod(0, "<init>", expressionNodesDescriptor, constructor);
+
+            CompiledExpression compiled = CompiledExpression.define(writer.toBytes(), fallbacks.toArray(new ExpressionNode[0]));
+            return Optional.of(new CompiledNode(node, compiled, isBoolean));
+        }
+
+        /**
+         * Adds code leaving the value of the given node as a double on the stack.
+         *
+         * @return whether the interpreter would return a boolean value for this node
+         */
+        private boolean generateValue(ExpressionNode node) {
+            if (node instanceof ConstantNode constant)
+                return generateConstant(constant.getValue());
+            if (node instanceof ReferenceNode reference)
+                return generateReference(reference);
+            if (node instanceof OperationNode operation)
+                return generateOperation(operation);
+            if (node instanceof FunctionNode function)
+                return generateFunction(function);
+            if (node instanceof IfNode ifNode)
+                return generateIf(ifNode);
+            if (node instanceof EmbracedNode embraced)
+                return generateValue(embraced.getValue());
+            if (node instanceof NegativeNode negative) {
+                generateValue(negative.getValue());
+                code.instruction(dneg, 1, Type.doubleType);
+                return false;
+            }
+            if (node instanceof NotNode not) {
+                generateValue(not.getValue());
+                code.invoke(invokestatic, superClassName, "not", "(D)D");
+                return true;
+            }
+            return generateFallback(node);
+        }
+
+        private boolean generateConstant(Value value) {
+            if ( ! (value instanceof DoubleCompatibleValue)) throw new NotCompilableException();
+            code.pushDouble(value.asDouble());
+            return value instanceof BooleanValue;
+        }
+
+        private boolean generateReference(ReferenceNode reference) {
+            int index;
+            try {
+                index = contextIndex.getIndex(reference.toString());
+            }
+            catch (RuntimeException e) { // not bound in the context
+                return generateFallback(reference);
+            }
+            requireScalar(reference);
+            code.loadLocal(1);
+            code.pushInt(index);
+            code.invoke(invokevirtual, contextClassName, "getDouble", "(I)D");
+            return false;
+        }
+
+        /** Applies the operators in the same order as the interpreter, see OperationNode.evaluate */
+        private boolean generateOperation(OperationNode operation) {
+            Iterator<ExpressionNode> child = operation.children().iterator();
+            Deque<Operator> operators = new ArrayDeque<>(); // the operators to apply to the values on the stack
+            boolean isBoolean = generateValue(child.next());
+            for (Iterator<Operator> it = operation.operators().iterator(); it.hasNext() && child.hasNext();) {
+                Operator op = it.next();
+                while ( ! operators.isEmpty() && ! op.hasPrecedenceOver(operators.peek()))
+                    isBoolean = generateOperator(operators.pop());
+                generateValue(child.next());
+                operators.push(op);
+            }
+            while ( ! operators.isEmpty())
+                isBoolean = generateOperator(operators.pop());
+            return isBoolean;
+        }
+
+        private boolean generateOperator(Operator operator) {
+            switch (operator) {
+                case plus -> code.instruction(dadd, 2, Type.doubleType);
+                case minus -> code.instruction(dsub, 2, Type.doubleType);
+                case multiply -> code.instruction(dmul, 2, Type.doubleType);
+                case divide -> code.instruction(ddiv, 2, Type.doubleType);
+                case modulo -> code.instruction(drem, 2, Type.doubleType);
+                default -> code.invoke(invokestatic, superClassName, operator.name(), "(DD)D");
+            }
+            return switch (operator) {
+                case or, and, largerOrEqual, larger, smallerOrEqual, smaller, approxEqual, notEqual, equal -> true;
+                default -> false;
+            };
+        }
+
+        private boolean generateFunction(FunctionNode node) {
+            Function function = node.getFunction();
+            List<ExpressionNode> arguments = node.children();
+            if (arguments.size() > 2) throw new NotCompilableException();
+            code.getStatic(functionClassName, function.name(), functionClassName);
+            for (ExpressionNode argument : arguments)
+                generateValue(argument);
+            for (int i = arguments.size(); i < 2; i++)
+                code.pushDouble(0);
+            code.invoke(invokevirtual, functionClassName, "evaluate", "(DD)D");
+            return false;
+        }
+
+        private boolean generateIf(IfNode node) {
+            Label falseBranch = new Label();
+            Label end = new Label();
+            generateValue(node.getCondition());
+            code.jumpIfZero(falseBranch);
+            boolean trueIsBoolean = generateValue(node.getTrueExpression());
+            code.jump(end);
+            code.mark(falseBranch);
+            boolean falseIsBoolean = generateValue(node.getFalseExpression());
+            code.mark(end);
+            return trueIsBoolean && falseIsBoolean;
+        }
+
+        /** Adds code evaluating the given node by interpretation */
+        private boolean generateFallback(ExpressionNode node) {
+            requireScalar(node);
+            code.loadLocal(0);
+            code.pushInt(fallbacks.size());
+            code.loadLocal(1);
+            code.invoke(invokevirtual, superClassName, "fallback", "(IL" + contextClassName + ";)D");
+            fallbacks.add(node);
+            return false;
+        }
+
+        /** Throws NotCompilableException if the given node does not have a scalar type in the context, if it has types */
+        private void requireScalar(ExpressionNode node) {
+            if ( ! (contextIndex instanceof Context context)) return;
+            TensorType type;
+            try {
+                type = node.type(context);
+            }
+            catch (RuntimeException e) {
+                throw new NotCompilableException();
+            }
+            if (type.rank() > 0)
+                throw new NotCompilableException();
+        }
+
+    }
+
+    private static class NotCompilableException extends RuntimeException {
+
+        NotCompilableException() {
+            super(null, null, false, false);
+        }
+
+    }
+
+}
@@ -0,0 +1,63 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compilation;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+
+import java.util.List;
+
+/**
+ * Compares evaluating scalar expressions with an array context by interpretation and by compiled code.
+ */
+public class CompiledEvaluationBenchmark {
+
+    private static final List<String> expressions =
+            List.of("10*if(i>35,if(i>one,if(i>=670,4,8),if(i>8000,5,3)),if(i==478,90,91))",
+                    "sigmoid(0.5 * a + 0.25 * b - 0.125 * c) * log(1 + one) + if(a > b, pow(c, 2), sqrt(i))",
+                    "max(a * b, c) + min(i - one, a / 3) + if(a > 0.5 && b < 0.5, 1, 0) * (c + i) ^ 2");
+
+    public void run(int iterations) throws ParseException {
+        for (String expression : expressions) {
+            System.out.println(expression);
+            double interpreted = benchmark(expression, false, iterations);
+            double compiled = benchmark(expression, true, iterations);
+            System.out.printf("   interpreted: %6.1f ns, compiled: %6.1f ns%n", interpreted, compiled);
+        }
+    }
+
+    /** Returns the average time per evaluation in nanoseconds */
+    private double benchmark(String expressionString, boolean compile, int iterations) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        ArrayContext context = new ArrayContext(expression, true);
+        ExpressionOptimizer optimizer = new ExpressionOptimizer();
+        optimizer.getOptimizer(ExpressionCompiler.class).setEnabled(compile);
+        optimizer.optimize(expression, context);
+
+        evaluate(expression, context, iterations / 5); // warmup
+        long startTime = System.nanoTime();
+        double total = evaluate(expression, context, iterations);
+        long totalTime = System.nanoTime() - startTime;
+        if (Double.isNaN(total)) System.out.println("   (total is NaN)");
+        return (double)totalTime / iterations;
+    }
+
+    private double evaluate(RankingExpression expression, ArrayContext context, int iterations) {
+        double total = 0;
+        for (int i = 0; i < iterations; i++) {
+            context.put("i", (double)(i % 10000));
+            context.put("one", 1d);
+            context.put("a", (i % 7) / 7.0);
+            context.put("b", (i % 11) / 11.0);
+            context.put("c", (i % 13) / 13.0);
+            total += expression.evaluate(context).asDouble();
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws ParseException {
+        new CompiledEvaluationBenchmark().run(10 * 1000 * 1000);
+    }
+
+}
@@ -0,0 +1,156 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compilation;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpressionCompilerTestCase {
+
+    private static final List<String> variables = List.of("a", "b", "c");
+    // NaN is last as ArrayContext does not return explicitly set NaN values as doubles, which makes evaluation interpreted
+    private static final double[][] bindings = { { 0, 0, 0 }, { 1, 2, 3 }, { -1.5, 0.25, 1e9 }, { 3, 3, -0.0 },
+                                                 { 0.1, Double.POSITIVE_INFINITY, -7 }, { Double.NaN, 1, 2 } };
+
+    @Test
+    public void testCompiledEvaluationIsEqualToInterpretedEvaluation() throws ParseException {
+        assertCompiled("a + b * c - a / b");
+        assertCompiled("a - b - c + a % b");
+        assertCompiled("a ^ 2 ^ b + 2 ^ c");
+        assertCompiled("-(a + b) * -c");
+        assertCompiled("a < b || b >= c && !(a == c)");
+        assertCompiled("(a > b) + (a <= b) * 10 + (a != c) * 100 + (a ~= b) * 1000");
+        assertCompiled("if (a < b, if (b > c, a, b + 1), c * 2) + 1");
+        assertCompiled("3 * if (a, b, c)");
+        assertCompiled("max(a, b) + min(a, c) + sqrt(abs(a)) + exp(-b) + log(c) + sigmoid(a) + isNan(a) + atan2(a, b)");
+        assertCompiled("fmod(c, 3) + ldexp(a, 3) + pow(b, 0.5) + bit(a, 1) + floor(a) + ceil(b) + relu(c) + elu(a)");
+        assertCompiled("10*if(a>35,if(a>b,if(a>=670,4,8),if(a>8000,5,3)),if(a==478,90,91))");
+        assertCompiled("a + true * 3 + false");
+    }
+
+    @Test
+    public void testCompilationIsDisabledByDefault() throws ParseException {
+        RankingExpression expression = new RankingExpression("a + b * c");
+        ArrayContext context = new ArrayContext(expression);
+        new ExpressionOptimizer().optimize(expression, context);
+        assertFalse(expression.getRoot() instanceof CompiledNode);
+    }
+
+    @Test
+    public void testBooleanResult() throws ParseException {
+        RankingExpression expression = new RankingExpression("a < b && b < c");
+        ArrayContext context = new ArrayContext(expression);
+        optimize(expression, context);
+        context.put("a", 1);
+        context.put("b", 2);
+        context.put("c", 3);
+        assertEquals(new BooleanValue(true), expression.evaluate(context));
+        assertTrue(expression.evaluate(context) instanceof BooleanValue);
+    }
+
+    @Test
+    public void testCompiledNodesHaveTheSameFormAsTheOriginal() throws ParseException {
+        String expressionString = "if (a < b, a * (b + 1), -c) + sum(tensor(x[2]):[1, 2])";
+        RankingExpression expression = new RankingExpression(expressionString);
+        String original = expression.toString();
+        ArrayContext context = new ArrayContext(expression);
+        OptimizationReport report = optimize(expression, context);
+        assertEquals(1, report.getMetric("Compiled expressions"));
+        assertTrue(expression.getRoot() instanceof CompiledNode);
+        assertEquals(original, expression.toString());
+        assertEquals(new RankingExpression(expressionString).getRoot(), expression.getRoot());
+    }
+
+    @Test
+    public void testInterpretedSubexpressions() throws ParseException {
+        RankingExpression expression = new RankingExpression("a * sum(tensor(x[3]):[1, 2, 3]) + if (b in [1, 2], 10, 20)");
+        ArrayContext context = new ArrayContext(expression);
+        optimize(expression, context);
+        assertTrue(expression.getRoot() instanceof CompiledNode);
+        context.put("a", 2);
+        context.put("b", 2);
+        assertEquals(22.0, expression.evaluate(context).asDouble(), 0);
+        context.put("b", 3);
+        assertEquals(32.0, expression.evaluate(context).asDouble(), 0);
+    }
+
+    @Test
+    public void testTensorsAreNotCompiled() throws ParseException {
+        RankingExpression expression = new RankingExpression("a * 2 + 1");
+        ArrayContext context = new ArrayContext(expression);
+        context.put("a", new TensorValue(Tensor.from("tensor(x[2]):[1, 2]")));
+        optimize(expression, context);
+        assertFalse(expression.getRoot() instanceof CompiledNode);
+        assertEquals(new TensorValue(Tensor.from("tensor(x[2]):[3, 5]")), expression.evaluate(context));
+    }
+
+    @Test
+    public void testTensorsBoundAfterCompilationAreInterpreted() throws ParseException {
+        RankingExpression expression = new RankingExpression("a * 2 + 1");
+        ArrayContext context = new ArrayContext(expression);
+        optimize(expression, context);
+        assertTrue(expression.getRoot() instanceof CompiledNode);
+        context.put("a", 3);
+        assertEquals(7.0, expression.evaluate(context).asDouble(), 0);
+        assertFalse(((CompiledNode)expression.getRoot()).isInterpreted());
+        context.put("a", new TensorValue(Tensor.from("tensor(x[2]):[1, 2]")));
+        assertEquals(new TensorValue(Tensor.from("tensor(x[2]):[3, 5]")), expression.evaluate(context));
+        assertTrue(((CompiledNode)expression.getRoot()).isInterpreted());
+        context.put("a", 4);
+        assertEquals(9.0, expression.evaluate(context).asDouble(), 0);
+    }
+
+    @Test
+    public void testCompiledExpressionsCanBeEvaluatedInOtherContexts() throws ParseException {
+        RankingExpression expression = new RankingExpression("a * 2 + b");
+        optimize(expression, new ArrayContext(expression));
+        MapContext context = new MapContext();
+        context.put("a", 3);
+        context.put("b", 1);
+        assertEquals(7.0, expression.evaluate(context).asDouble(), 0);
+    }
+
+    private void assertCompiled(String expressionString) throws ParseException {
+        RankingExpression compiled = new RankingExpression(expressionString);
+        ArrayContext compiledContext = new ArrayContext(compiled, true, DoubleValue.zero);
+        optimize(compiled, compiledContext);
+        assertTrue("Compiled " + expressionString, compiled.getRoot() instanceof CompiledNode);
+
+        RankingExpression interpreted = new RankingExpression(expressionString);
+        for (double[] values : bindings) {
+            MapContext interpretedContext = new MapContext(DoubleValue.zero);
+            for (int i = 0; i < variables.size(); i++) {
+                compiledContext.put(variables.get(i), values[i]);
+                interpretedContext.put(variables.get(i), values[i]);
+            }
+            Value expected = interpreted.evaluate(interpretedContext);
+            Value actual = compiled.evaluate(compiledContext);
+            assertEquals(expressionString + " with " + List.of(values[0], values[1], values[2]),
+                         expected.asDouble(), actual.asDouble(), 0);
+            if ( ! Double.isNaN(values[0]))
+                assertFalse(((CompiledNode)compiled.getRoot()).isInterpreted());
+        }
+    }
+
+    private OptimizationReport optimize(RankingExpression expression, ArrayContext context) {
+        ExpressionOptimizer optimizer = new ExpressionOptimizer();
+        optimizer.getOptimizer(ExpressionCompiler.class).setEnabled(true);
+        return optimizer.optimize(expression, context);
+    }
+
+}
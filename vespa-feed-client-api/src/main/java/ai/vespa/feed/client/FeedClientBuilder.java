@@ -123,6 +123,19 @@ public interface FeedClientBuilder {
     /** Turns on speed test mode, where all feed operations are immediately acknowledged by the server. */
     FeedClientBuilder setSpeedTest(boolean enabled);
 
+    /**
+     * Turns on bulk mode, where operations are sent in batches to the streaming /document/v1/feed endpoint,
+     * rather than one HTTP request per operation. Requires a server which supports this endpoint.
+     */
+    FeedClientBuilder setBulk(boolean enabled);
+
+    /**
+     * Makes operations never block the calling thread: operations which can not be sent yet are queued, and when
+     * more than {@code maxQueuedOperations} are queued, further operations fail immediately with a {@link FeedException}.
+     * By default, operations instead block until they can be sent, when the client is at its target inflight limit.
+     */
+    FeedClientBuilder setNonBlocking(int maxQueuedOperations);
+
     /**
      * Overrides JVM default SSL truststore
      * @param caCertificatesFile Path to PEM encoded file containing trusted certificates
@@ -147,10 +160,13 @@ public interface FeedClientBuilder {
     /** Specify HTTP(S) proxy for all endpoints */
     FeedClientBuilder setProxy(URI uri);
 
-    /** What compression to use for request bodies; default {@code auto}. */
+    /**
+     * What compression to use for request bodies; default {@code auto}, which is gzip for large bodies.
+     * {@code zstd} is cheaper on the client, and compresses better, but requires a recent server version.
+     */
     FeedClientBuilder setCompression(Compression compression);
 
-    enum Compression { auto, none, gzip }
+    enum Compression { auto, none, gzip, zstd }
 
     /** Constructs instance of {@link FeedClient} from builder configuration */
     FeedClient build();
@@ -9,14 +9,22 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -47,12 +55,23 @@ public class JsonFeeder implements Closeable {
     });
     private final FeedClient client;
     private final OperationParameters protoParameters;
+    private final int parsingThreads;
+    private final ExecutorService parsers; // Null when operations are parsed by the thread feeding them.
     private final AtomicInteger globalInflightOperations = new AtomicInteger(0);
     private volatile boolean closed = false;
 
-    private JsonFeeder(FeedClient client, OperationParameters protoParameters) {
+    private JsonFeeder(FeedClient client, OperationParameters protoParameters, int parsingThreads) {
         this.client = client;
         this.protoParameters = protoParameters;
+        this.parsingThreads = parsingThreads;
+        this.parsers = parsingThreads == 1 ? null : Executors.newFixedThreadPool(parsingThreads, new ThreadFactory() {
+            final AtomicInteger count = new AtomicInteger();
+            @Override public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "json-feeder-parser-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
     }
 
     public interface ResultCallback {
@@ -132,8 +151,11 @@ public class JsonFeeder implements Closeable {
      *     ]
      * </pre>
      * Note that {@code "id"} is an alias for the document put operation.
+     * The stream may also contain the operations without the enclosing array, e.g., one per line (JSONL).
      * Exceptional completion will use be an instance of {@link FeedException} or one of its sub-classes.
      * The input stream will be closed upon exhaustion, or error.
+     * If this was built with more than one parsing thread, see {@link Builder#withParsingThreads(int)},
+     * operations are parsed in parallel, but are still passed to the feed client in the order they appear in the stream.
      */
     public CompletableFuture<Void> feedMany(InputStream jsonStream, ResultCallback resultCallback) {
         return feedMany(jsonStream, 1 << 26, resultCallback);
@@ -153,7 +175,8 @@ public class JsonFeeder implements Closeable {
         CompletableFuture<Result> result;
         AtomicInteger localInflightOperations = new AtomicInteger(1); // The below dispatch loop itself is counted as a single pending operation
         AtomicBoolean finalCallbackInvoked = new AtomicBoolean();
-        try (RingBufferStream buffer = new RingBufferStream(jsonStream, size)) {
+        try (OperationStream buffer = parsers == null ? new RingBufferStream(jsonStream, size)
+                                                      : new ParallelParsingStream(jsonStream)) {
             while ((result = buffer.next()) != null) {
                 localInflightOperations.incrementAndGet();
                 globalInflightOperations.incrementAndGet();
@@ -203,6 +226,7 @@ public class JsonFeeder implements Closeable {
         closed = true;
         awaitInflightOperations();
         client.close();
+        if (parsers != null) parsers.shutdown();
         resultExecutor.shutdown();
         try {
             if (!resultExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
@@ -229,7 +253,15 @@ public class JsonFeeder implements Closeable {
         return new FeedException(e);
     }
 
-    private class RingBufferStream extends InputStream {
+    /** A stream of feed operations, which are dispatched to the feed client as they are read. */
+    private interface OperationStream extends Closeable {
+
+        /** Dispatches the next operation, and returns its result, or returns null if there are no more operations. */
+        CompletableFuture<Result> next() throws IOException;
+
+    }
+
+    private class RingBufferStream extends InputStream implements OperationStream {
 
         private final byte[] b = new byte[1];
         private final InputStream in;
@@ -289,6 +321,7 @@ public class JsonFeeder implements Closeable {
             }
         }
 
+        @Override
         public CompletableFuture<Result> next() throws IOException {
            return parserAndExecutor.next();
         }
@@ -385,6 +418,210 @@ public class JsonFeeder implements Closeable {
         }
     }
 
+    /**
+     * Splits the input into its top-level operation objects, by scanning for the braces which delimit them,
+     * and parses batches of these on the parser threads, while the operations are dispatched in input order.
+     * Since the feed client orders operations to the same document by when they are dispatched, this keeps
+     * the order of operations to each document the same as with serial parsing.
+     */
+    private class ParallelParsingStream implements OperationStream {
+
+        private static final int maxBatchOperations = 64;
+        private static final int maxBatchBytes = 1 << 18;
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private final ByteArrayOutputStream operation = new ByteArrayOutputStream();
+        private final Deque<Future<ParsedBatch>> batches = new ArrayDeque<>();
+        private ParsedBatch current = new ParsedBatch();
+        private int position = 0;
+        private int limit = 0;
+        private long offset = 0; // Offset in the input of the start of the buffer.
+        private long operationOffset = 0; // Offset in the input of the start of the last read operation.
+        private boolean operationRead = false;
+        private boolean arrayPrefixParsed = false;
+        private boolean done = false;
+
+        ParallelParsingStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public CompletableFuture<Result> next() throws IOException {
+            while ( ! current.hasNext()) {
+                current.throwIfFailed();
+                while ( ! done && batches.size() < 2 * parsingThreads)
+                    readBatch();
+
+                if (batches.isEmpty()) return null;
+                current = await(batches.poll());
+            }
+            return current.next().dispatch();
+        }
+
+        /**
+         * Reads the next batch of operations, and submits it for parsing. If the input is found to be invalid,
+         * this is recorded as the failure of this batch, after the operations read before the error,
+         * and no more batches are read.
+         */
+        private void readBatch() throws IOException {
+            List<byte[]> operations = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            OperationParseException failure = null;
+            int bytes = 0;
+            while (operations.size() < maxBatchOperations && bytes < maxBatchBytes) {
+                byte[] json;
+                try {
+                    json = readOperation();
+                }
+                catch (OperationParseException e) {
+                    failure = e;
+                    done = true;
+                    break;
+                }
+                if (json == null) break;
+                operations.add(json);
+                offsets.add(operationOffset);
+                bytes += json.length;
+            }
+            if (failure != null) {
+                OperationParseException scanFailure = failure;
+                batches.add(parsers.submit(() -> parse(operations, offsets).failIfOk(scanFailure)));
+            }
+            else if ( ! operations.isEmpty())
+                batches.add(parsers.submit(() -> parse(operations, offsets)));
+        }
+
+        private ParsedBatch parse(List<byte[]> operations, List<Long> offsets) {
+            ParsedBatch batch = new ParsedBatch();
+            for (int i = 0; i < operations.size(); i++) {
+                try {
+                    batch.operations.add(new SingleOperationParserAndExecutor(operations.get(i)).parse());
+                }
+                catch (IOException | RuntimeException e) {
+                    batch.failure = new OperationParseException("Failed parsing operation at offset " + offsets.get(i) +
+                                                                ": " + e.getMessage(), e);
+                    break;
+                }
+            }
+            return batch;
+        }
+
+        private ParsedBatch await(Future<ParsedBatch> batch) throws IOException {
+            try {
+                return batch.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for parsed operations: " + e.getMessage());
+            }
+            catch (ExecutionException e) {
+                throw new FeedException(e.getCause());
+            }
+        }
+
+        /** Returns the bytes of the next top-level object in the input, or null if there are no more. */
+        private byte[] readOperation() throws IOException {
+            operation.reset();
+            int depth = 0;
+            boolean quoted = false;
+            boolean escaped = false;
+            while ( ! done) {
+                if (position == limit && ! fill()) {
+                    if (depth > 0) throw new OperationParseException("Unexpected end of input in operation starting at offset " + operationOffset);
+                    if (arrayPrefixParsed) throw parseException("Unexpected end of input, expected ']'");
+                    break;
+                }
+                int start = position;
+                if (depth == 0) {
+                    switch (buffer[position++]) {
+                        case ' ': case '\t': case '\n': case '\r': continue;
+                        case '[':
+                            if (arrayPrefixParsed || operationRead)
+                                throw parseException("Unexpected token 'START_ARRAY'");
+                            arrayPrefixParsed = true;
+                            continue;
+                        case ',':
+                            if ( ! arrayPrefixParsed) throw parseException("Unexpected character ','");
+                            continue;
+                        case ']':
+                            if ( ! arrayPrefixParsed) throw parseException("Unexpected token 'END_ARRAY'");
+                            done = true;
+                            continue;
+                        case '{':
+                            operationOffset = offset + start;
+                            operationRead = true;
+                            depth = 1;
+                            break;
+                        default:
+                            throw parseException("Unexpected character '" + (char) buffer[start] + "'");
+                    }
+                }
+                while (depth > 0 && position < limit) {
+                    byte b = buffer[position++];
+                    if (quoted) {
+                        if (escaped) escaped = false;
+                        else if (b == '\\') escaped = true;
+                        else if (b == '"') quoted = false;
+                    }
+                    else switch (b) {
+                        case '"': quoted = true; break;
+                        case '{': case '[': ++depth; break;
+                        case '}': case ']': --depth; break;
+                    }
+                }
+                operation.write(buffer, start, position - start);
+                if (depth == 0) return operation.toByteArray();
+            }
+            done = true;
+            return null;
+        }
+
+        private boolean fill() throws IOException {
+            int read = in.read(buffer);
+            if (read < 0) return false;
+            offset += limit;
+            position = 0;
+            limit = read;
+            return true;
+        }
+
+        private OperationParseException parseException(String error) {
+            return new OperationParseException(error + " at offset " + (offset + position - 1));
+        }
+
+        @Override
+        public void close() throws IOException {
+            done = true;
+            batches.forEach(batch -> batch.cancel(true));
+            in.close();
+        }
+
+    }
+
+    /** Operations parsed from a batch, followed by the failure to parse the next operation, if any. */
+    private class ParsedBatch {
+
+        private final List<ParsedOperation> operations = new ArrayList<>();
+        private OperationParseException failure = null;
+        private int next = 0;
+
+        boolean hasNext() { return next < operations.size(); }
+
+        ParsedOperation next() { return operations.get(next++); }
+
+        void throwIfFailed() {
+            if (failure != null) throw failure;
+        }
+
+        /** Sets the given failure as the failure of this, unless parsing one of its operations already failed. */
+        ParsedBatch failIfOk(OperationParseException failure) {
+            if (this.failure == null) this.failure = failure;
+            return this;
+        }
+
+    }
+
     private class SingleOperationParserAndExecutor extends OperationParserAndExecutor {
 
         private final byte[] json;
@@ -420,6 +657,12 @@ public class JsonFeeder implements Closeable {
         }
 
         CompletableFuture<Result> next() throws IOException {
+            ParsedOperation operation = parse();
+            return operation == null ? null : operation.dispatch();
+        }
+
+        /** Parses the next operation, without dispatching it, or returns null if there are no more operations. */
+        ParsedOperation parse() throws IOException {
             JsonToken token = parser.nextToken();
             if (multipleOperations && ! arrayPrefixParsed && token == JsonToken.START_ARRAY) {
                 arrayPrefixParsed = true;
@@ -475,13 +718,7 @@ public class JsonFeeder implements Closeable {
             else if (end < start)
                 throw parseException("No 'fields' object for document");
 
-            String payload = getDocumentJson(start, end);
-            switch (type) {
-                case PUT:    return client.put   (id, payload, parameters);
-                case UPDATE: return client.update(id, payload, parameters);
-                case REMOVE: return client.remove(id, parameters);
-                default: throw new OperationParseException("Unexpected operation type '" + type + "'");
-            }
+            return new ParsedOperation(type, id, getDocumentJson(start, end), parameters);
         }
 
         private void expect(JsonToken token) throws IOException {
@@ -515,10 +752,37 @@ public class JsonFeeder implements Closeable {
 
     }
 
+    /** A parsed feed operation, which is ready to be dispatched to the feed client. */
+    private class ParsedOperation {
+
+        private final OperationType type;
+        private final DocumentId id;
+        private final String payload;
+        private final OperationParameters parameters;
+
+        ParsedOperation(OperationType type, DocumentId id, String payload, OperationParameters parameters) {
+            this.type = type;
+            this.id = id;
+            this.payload = payload;
+            this.parameters = parameters;
+        }
+
+        CompletableFuture<Result> dispatch() {
+            switch (type) {
+                case PUT:    return client.put   (id, payload, parameters);
+                case UPDATE: return client.update(id, payload, parameters);
+                case REMOVE: return client.remove(id, parameters);
+                default: throw new OperationParseException("Unexpected operation type '" + type + "'");
+            }
+        }
+
+    }
+
     public static class Builder {
 
         final FeedClient client;
         OperationParameters parameters = OperationParameters.empty();
+        int parsingThreads = 1;
 
         private Builder(FeedClient client) {
             this.client = requireNonNull(client);
@@ -539,8 +803,19 @@ public class JsonFeeder implements Closeable {
             return this;
         }
 
+        /**
+         * Sets the number of threads used to parse the operations of {@link JsonFeeder#feedMany}; default is 1.
+         * With more than one thread, the input is split into individual operations by a light-weight scan,
+         * and these are then parsed in parallel, which is useful when parsing is the bottleneck of the feed.
+         */
+        public Builder withParsingThreads(int threads) {
+            if (threads < 1) throw new IllegalArgumentException("Number of parsing threads must be positive, but was " + threads);
+            parsingThreads = threads;
+            return this;
+        }
+
         public JsonFeeder build() {
-            return new JsonFeeder(client, parameters);
+            return new JsonFeeder(client, parameters, parsingThreads);
         }
 
     }
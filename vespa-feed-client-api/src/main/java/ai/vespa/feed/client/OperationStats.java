@@ -23,10 +23,21 @@ public class OperationStats {
     private final long maxLatencyMillis;
     private final long bytesSent;
     private final long bytesReceived;
+    private final long uncompressedBytes;
+    private final long compressedBytes;
+    private final long compressionCpuMillis;
 
     public OperationStats(double duration, long requests, Map<Integer, Long> responsesByCode, long exceptions,
                           long inflight, long targetInFlight, long averageLatencyMillis, long minLatencyMillis,
                           long maxLatencyMillis, long bytesSent, long bytesReceived) {
+        this(duration, requests, responsesByCode, exceptions, inflight, targetInFlight, averageLatencyMillis,
+             minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived, 0, 0, 0);
+    }
+
+    public OperationStats(double duration, long requests, Map<Integer, Long> responsesByCode, long exceptions,
+                          long inflight, long targetInFlight, long averageLatencyMillis, long minLatencyMillis,
+                          long maxLatencyMillis, long bytesSent, long bytesReceived,
+                          long uncompressedBytes, long compressedBytes, long compressionCpuMillis) {
         this.duration = duration;
         this.requests = requests;
         this.responsesByCode = responsesByCode;
@@ -38,6 +49,9 @@ public class OperationStats {
         this.maxLatencyMillis = maxLatencyMillis;
         this.bytesSent = bytesSent;
         this.bytesReceived = bytesReceived;
+        this.uncompressedBytes = uncompressedBytes;
+        this.compressedBytes = compressedBytes;
+        this.compressionCpuMillis = compressionCpuMillis;
     }
 
     /** Returns the difference between this and the initial.
@@ -58,7 +72,10 @@ public class OperationStats {
                                   minLatencyMillis,
                                   maxLatencyMillis,
                                   bytesSent - initial.bytesSent,
-                                  bytesReceived - initial.bytesReceived);
+                                  bytesReceived - initial.bytesReceived,
+                                  uncompressedBytes - initial.uncompressedBytes,
+                                  compressedBytes - initial.compressedBytes,
+                                  compressionCpuMillis - initial.compressionCpuMillis);
     }
 
     /** Number of HTTP requests attempted. */
@@ -116,17 +133,37 @@ public class OperationStats {
         return bytesReceived;
     }
 
+    /** Number of request body bytes which were compressed, before compression. */
+    public long uncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /** Number of request body bytes which were compressed, after compression. */
+    public long compressedBytes() {
+        return compressedBytes;
+    }
+
+    /** Ratio of uncompressed to compressed size of compressed request bodies, or 1 if none were compressed. */
+    public double compressionRatio() {
+        return compressedBytes == 0 ? 1 : (double) uncompressedBytes / compressedBytes;
+    }
+
+    /** CPU time spent compressing request bodies. */
+    public long compressionCpuMillis() {
+        return compressionCpuMillis;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         OperationStats that = (OperationStats) o;
-        return requests == that.requests && inflight == that.inflight && exceptions == that.exceptions && averageLatencyMillis == that.averageLatencyMillis && minLatencyMillis == that.minLatencyMillis && maxLatencyMillis == that.maxLatencyMillis && bytesSent == that.bytesSent && bytesReceived == that.bytesReceived && responsesByCode.equals(that.responsesByCode);
+        return requests == that.requests && inflight == that.inflight && exceptions == that.exceptions && averageLatencyMillis == that.averageLatencyMillis && minLatencyMillis == that.minLatencyMillis && maxLatencyMillis == that.maxLatencyMillis && bytesSent == that.bytesSent && bytesReceived == that.bytesReceived && uncompressedBytes == that.uncompressedBytes && compressedBytes == that.compressedBytes && compressionCpuMillis == that.compressionCpuMillis && responsesByCode.equals(that.responsesByCode);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(requests, responsesByCode, inflight, exceptions, averageLatencyMillis, minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived);
+        return Objects.hash(requests, responsesByCode, inflight, exceptions, averageLatencyMillis, minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived, uncompressedBytes, compressedBytes, compressionCpuMillis);
     }
 
     @Override
@@ -145,6 +182,9 @@ public class OperationStats {
                ", maxLatencyMillis=" + maxLatencyMillis +
                ", bytesSent=" + bytesSent +
                ", bytesReceived=" + bytesReceived +
+               ", uncompressedBytes=" + uncompressedBytes +
+               ", compressedBytes=" + compressedBytes +
+               ", compressionCpuMillis=" + compressionCpuMillis +
                '}';
     }
 
@@ -140,6 +140,66 @@ class JsonFeederTest {
         }
     }
 
+    @Test
+    public void parallelParsingDispatchesSameOperationsInSameOrder() throws IOException, ExecutionException, InterruptedException {
+        List<String> operations = IntStream.range(0, 1000).mapToObj(i ->
+                                             "{\n" +
+                                             "  \"put\": \"id:ns:type::abc" + i % 100 + "\",\n" +
+                                             "  \"fields\": {\n" +
+                                             "    \"lul\": \"l}a]l\\\" { " + i + "\",\n" +
+                                             "    \"lal\": [ { \"\\\\\": \"}\" } ]\n" +
+                                             "  }\n" +
+                                             "}").collect(Collectors.toList());
+        MockClient serial = new MockClient();
+        try (JsonFeeder feeder = JsonFeeder.builder(serial).build()) {
+            feeder.feedMany(new ByteArrayInputStream(("[\n" + String.join(",\n", operations) + "\n]").getBytes(UTF_8))).get();
+        }
+        MockClient parallel = new MockClient();
+        try (JsonFeeder feeder = JsonFeeder.builder(parallel).withParsingThreads(4).build()) {
+            feeder.feedMany(new ByteArrayInputStream(("[\n" + String.join(",\n", operations) + "\n]").getBytes(UTF_8))).get();
+            feeder.feedMany(new ByteArrayInputStream(String.join("\n", operations).getBytes(UTF_8))).get();
+        }
+        assertEquals(100, parallel.putOperations.size());
+        assertEquals(List.copyOf(serial.putOperations.entrySet()), List.copyOf(parallel.putOperations.entrySet()));
+        assertEquals("{\"fields\":{\n    \"lul\": \"l}a]l\\\" { 999\",\n    \"lal\": [ { \"\\\\\": \"}\" } ]\n  }}",
+                     parallel.putOperations.get(DocumentId.of("id:ns:type::abc99")));
+    }
+
+    @Test
+    public void parallelParsingFailsOnInvalidOperation() throws IOException {
+        String operations = "{ \"put\": \"id:ns:type::abc1\", \"fields\": { } }\n" +
+                            "{ \"put\": \"id:ns:type::abc2\", \"fields\": { } }\n" +
+                            "{ \"put\": \"id:ns:type::abc3\", \"fields\": { } }\n" +
+                            "{ \"put\": \"id:ns:type::abc4\", \"fields\": { } }\n" +
+                            "{ \"put\": \"id:ns:type::abc5\", \"fields\": { } }\n";
+        MockClient client = new MockClient();
+        try (JsonFeeder feeder = JsonFeeder.builder(client).withParsingThreads(2).build()) {
+            ExecutionException expected = assertThrows(ExecutionException.class,
+                                                       () -> feeder.feedMany(new ByteArrayInputStream(operations.replace("abc3", "abc3\", \"foo\": \"bar").getBytes(UTF_8))).get());
+            assertEquals("Failed parsing operation at offset 90: Unexpected field name 'foo' at offset 37 (line 1, column 38)",
+                         expected.getCause().getMessage());
+            client.assertPutDocumentIds("abc1", "abc2");
+        }
+
+        client = new MockClient();
+        try (JsonFeeder feeder = JsonFeeder.builder(client).withParsingThreads(2).build()) {
+            ExecutionException expected = assertThrows(ExecutionException.class,
+                                                       () -> feeder.feedMany(new ByteArrayInputStream(operations.substring(0, 150).getBytes(UTF_8))).get());
+            assertEquals("Unexpected end of input in operation starting at offset 135",
+                         expected.getCause().getMessage());
+            client.assertPutDocumentIds("abc1", "abc2", "abc3");
+        }
+
+        client = new MockClient();
+        try (JsonFeeder feeder = JsonFeeder.builder(client).withParsingThreads(2).build()) {
+            ExecutionException expected = assertThrows(ExecutionException.class,
+                                                       () -> feeder.feedMany(new ByteArrayInputStream(operations.replace("\n{ \"put\": \"id:ns:type::abc4", "\nx{ \"put\": \"id:ns:type::abc4").getBytes(UTF_8))).get());
+            assertEquals("Unexpected character 'x' at offset 135",
+                         expected.getCause().getMessage());
+            client.assertPutDocumentIds("abc1", "abc2", "abc3");
+        }
+    }
+
     @Test
     public void singleJsonOperationIsDispatchedToFeedClient() throws IOException, ExecutionException, InterruptedException {
         MockClient client = new MockClient();
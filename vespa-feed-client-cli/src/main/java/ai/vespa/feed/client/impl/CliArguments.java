@@ -36,6 +36,7 @@ class CliArguments {
     private static final Options optionsDefinition = createOptions();
 
     private static final String BENCHMARK_OPTION = "benchmark";
+    private static final String BULK_OPTION = "bulk";
     private static final String CA_CERTIFICATES_OPTION = "ca-certificates";
     private static final String CERTIFICATE_OPTION = "certificate";
     private static final String CONNECTIONS_OPTION = "connections";
@@ -158,6 +159,8 @@ class CliArguments {
 
     boolean benchmarkModeEnabled() { return has(BENCHMARK_OPTION); }
 
+    boolean bulkEnabled() { return has(BULK_OPTION); }
+
     boolean showProgress() { return ! has(SILENT_OPTION); }
 
     boolean showErrors() { return has(SHOW_ERRORS_OPTION) || has(SHOW_ALL_OPTION); }
@@ -307,6 +310,10 @@ class CliArguments {
                         .longOpt(BENCHMARK_OPTION)
                         .desc("Print statistics to stdout when done")
                         .build())
+                .addOption(Option.builder()
+                        .longOpt(BULK_OPTION)
+                        .desc("Send feed operations in batches, to the /document/v1/feed endpoint")
+                        .build())
                 .addOption(Option.builder()
                         .longOpt(ROUTE_OPTION)
                         .desc("Target Vespa route for feed operations")
@@ -373,7 +380,7 @@ class CliArguments {
                 .addOption(Option.builder()
                         .longOpt(COMPRESSION)
                         .desc("Forced compression mode for feed requests; the default is to compress large requests. " +
-                              "Valid arguments are: 'auto' (default), 'none', 'gzip'")
+                              "Valid arguments are: 'auto' (default), 'none', 'gzip', 'zstd'")
                         .hasArg()
                         .type(Compression.class)
                         .build())
@@ -172,6 +172,7 @@ public class CliClient {
         cliArgs.headers().forEach(builder::addRequestHeader);
         builder.setDryrun(cliArgs.dryrunEnabled());
         builder.setSpeedTest(cliArgs.speedTest());
+        builder.setBulk(cliArgs.bulkEnabled());
         builder.setCompression(cliArgs.compression());
         cliArgs.doomSeconds().ifPresent(doom -> builder.setCircuitBreaker(new GracePeriodCircuitBreaker(Duration.ofSeconds(10),
                                                                                                         Duration.ofSeconds(doom))));
@@ -226,6 +227,9 @@ public class CliClient {
             generator.writeNumberField("http.request.count", stats.requests());
             generator.writeNumberField("http.request.bytes", stats.bytesSent());
             writeFloatField(generator, "http.request.MBps", stats.bytesSent() * 1e3 / durationNanos, 3);
+            generator.writeNumberField("http.request.compressed.bytes", stats.compressedBytes());
+            writeFloatField(generator, "http.request.compression.ratio", stats.compressionRatio(), 3);
+            generator.writeNumberField("http.request.compression.cpu.millis", stats.compressionCpuMillis());
 
             generator.writeNumberField("http.exception.count", stats.exceptions());
 
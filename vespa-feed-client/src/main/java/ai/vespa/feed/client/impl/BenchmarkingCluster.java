@@ -29,6 +29,7 @@ public class BenchmarkingCluster implements Cluster {
     private final AtomicLong timeOfFirstDispatch = new AtomicLong(0);
     private final AtomicLong requests = new AtomicLong();
     private final Throttler throttler;
+    private final Compressor compressor;
     private long results = 0;
     private long responses = 0;
     private final long[] responsesByCode = new long[600];
@@ -39,9 +40,10 @@ public class BenchmarkingCluster implements Cluster {
     private long bytesSent = 0;
     private long bytesReceived = 0;
 
-    public BenchmarkingCluster(Cluster delegate, Throttler throttler) {
+    public BenchmarkingCluster(Cluster delegate, Throttler throttler, Compressor compressor) {
         this.delegate = requireNonNull(delegate);
         this.throttler = throttler;
+        this.compressor = requireNonNull(compressor);
     }
 
     @Override
@@ -98,7 +100,9 @@ public class BenchmarkingCluster implements Cluster {
                                   this.responses == 0 ? -1 : totalLatencyMillis / this.responses,
                                   this.responses == 0 ? -1 : minLatencyMillis,
                                   this.responses == 0 ? -1 : maxLatencyMillis,
-                                  bytesSent, bytesReceived);
+                                  bytesSent, bytesReceived,
+                                  compressor.uncompressedBytes(), compressor.compressedBytes(),
+                                  compressor.compressionNanos() / 1_000_000);
     }
 
     @Override
@@ -0,0 +1,189 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.HttpResponse;
+import ai.vespa.feed.client.OperationStats;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Sends the operations dispatched to it in batches, to the streaming /document/v1/feed endpoint of a delegate cluster.
+ * Each operation is completed with its own result line from the response, so retries, throttling and ordering of
+ * operations on the same document are still handled per operation, by the request strategy.
+ * A batch is sent when it is full, or when {@link #LINGER} has passed since its first operation was added.
+ * Operations with different paths or queries, e.g., due to different routes, are sent in different batches.
+ */
+class BulkCluster implements Cluster {
+
+    private static final Logger log = Logger.getLogger(BulkCluster.class.getName());
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    static final int MAX_BATCH_OPERATIONS = 1024;
+    static final int MAX_BATCH_BYTES = 1 << 20;
+    static final Duration LINGER = Duration.ofMillis(2);
+
+    private final Cluster delegate;
+    private final LongSupplier nanoClock;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "feed-client-bulk-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Batch> batches = new HashMap<>(); // Guarded by this.
+
+    BulkCluster(Cluster delegate, LongSupplier nanoClock) {
+        this.delegate = requireNonNull(delegate);
+        this.nanoClock = requireNonNull(nanoClock);
+    }
+
+    @Override
+    public void dispatch(HttpRequest request, CompletableFuture<HttpResponse> vessel) {
+        String key = request.path() + request.query();
+        Batch full = null;
+        synchronized (this) {
+            Batch batch = batches.get(key);
+            if (batch == null) {
+                Batch created = batch = new Batch(request);
+                batches.put(key, created);
+                flusher.schedule(() -> flush(key, created), LINGER.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            batch.add(request, vessel);
+            if (batch.isFull()) {
+                batches.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null)
+            send(full);
+    }
+
+    private void flush(String key, Batch batch) {
+        synchronized (this) {
+            if ( ! batches.remove(key, batch))
+                return; // Already sent, because it was full.
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        CompletableFuture<HttpResponse> vessel = new CompletableFuture<>();
+        delegate.dispatch(batch.request(), vessel);
+        vessel.whenComplete(batch::complete);
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        delegate.close();
+    }
+
+    @Override
+    public OperationStats stats() {
+        return delegate.stats();
+    }
+
+    private class Batch {
+
+        private final HttpRequest first;
+        private final List<HttpRequest> requests = new ArrayList<>();
+        private final List<CompletableFuture<HttpResponse>> vessels = new ArrayList<>();
+        private int bytes = 0;
+
+        Batch(HttpRequest first) {
+            this.first = first;
+        }
+
+        void add(HttpRequest request, CompletableFuture<HttpResponse> vessel) {
+            requests.add(request);
+            vessels.add(vessel);
+            bytes += request.body().length + 1;
+        }
+
+        boolean isFull() {
+            return requests.size() >= MAX_BATCH_OPERATIONS || bytes >= MAX_BATCH_BYTES;
+        }
+
+        /** Returns a request with each operation of this on a separate line, which times out with the last of them. */
+        HttpRequest request() {
+            byte[] body = new byte[bytes];
+            int offset = 0;
+            Duration timeout = Duration.ZERO;
+            for (HttpRequest request : requests) {
+                System.arraycopy(request.body(), 0, body, offset, request.body().length);
+                offset += request.body().length;
+                body[offset++] = '\n';
+                if (request.timeLeft().compareTo(timeout) > 0)
+                    timeout = request.timeLeft();
+            }
+            return new HttpRequest("POST", first.path(), first.query(), first.headers(), body, timeout, nanoClock);
+        }
+
+        /** Completes each operation with its result line, or with the response to the whole batch if that failed. */
+        void complete(HttpResponse response, Throwable thrown) {
+            if (thrown != null) {
+                vessels.forEach(vessel -> vessel.completeExceptionally(thrown));
+                return;
+            }
+            if (response.code() != 200) {
+                vessels.forEach(vessel -> vessel.complete(response));
+                return;
+            }
+
+            HttpResponse[] results = new HttpResponse[vessels.size()];
+            byte[] body = response.body() == null ? new byte[0] : response.body();
+            for (int start = 0, end; start < body.length; start = end + 1) {
+                end = start;
+                while (end < body.length && body[end] != '\n') end++;
+                if (end == start) continue;
+
+                try (JsonParser parser = jsonFactory.createParser(body, start, end - start)) {
+                    if (parser.nextToken() != JsonToken.START_OBJECT)
+                        throw new IOException("Expected '" + JsonToken.START_OBJECT + "', but found '" + parser.currentToken() + "'");
+
+                    long index = -1;
+                    int status = 0;
+                    String name;
+                    while ((name = parser.nextFieldName()) != null) {
+                        switch (name) {
+                            case "index": index = parser.nextLongValue(-1); break;
+                            case "status": status = parser.nextIntValue(0); break;
+                            default: parser.nextToken(); parser.skipChildren(); break;
+                        }
+                    }
+                    if (0 <= index && index < results.length)
+                        results[(int) index] = HttpResponse.of(status, Arrays.copyOfRange(body, start, end));
+                }
+                catch (IOException e) {
+                    log.log(Level.FINE, "Failed parsing result line in bulk response", e);
+                }
+            }
+
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] != null)
+                    vessels.get(i).complete(results[i]);
+                else // The server stopped reading, e.g., due to invalid JSON in an earlier operation; let this be retried.
+                    vessels.get(i).completeExceptionally(new IOException("No result for '" + requests.get(i) + "' in bulk response"));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.FeedClientBuilder.Compression;
+import io.airlift.compress.zstd.ZstdCompressor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import static ai.vespa.feed.client.FeedClientBuilder.Compression.gzip;
+import static ai.vespa.feed.client.FeedClientBuilder.Compression.none;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compresses request bodies according to the configured {@link Compression}, and keeps track of
+ * the sizes before and after compression, and the CPU time spent compressing.
+ * This outlives the clusters which use it, so statistics are kept when these are reset.
+ */
+class Compressor {
+
+    static final int AUTO_THRESHOLD_BYTES = 512;
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final boolean cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported();
+
+    private final Compression compression;
+    private final ZstdCompressor zstd = new ZstdCompressor();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+
+    Compressor(Compression compression) {
+        this.compression = requireNonNull(compression);
+    }
+
+    /** Returns the compression to use for the given request body; {@code auto} is gzip for large bodies. */
+    Compression compressionFor(byte[] body) {
+        switch (compression) {
+            case auto: return body.length > AUTO_THRESHOLD_BYTES ? gzip : none;
+            default: return compression;
+        }
+    }
+
+    /** Returns the given body compressed with the given compression, which must not be {@code auto}. */
+    byte[] compress(byte[] body, Compression compression) {
+        if (compression == none) return body;
+
+        long startNanos = cpuNanos();
+        byte[] compressed;
+        switch (compression) {
+            case gzip: compressed = gzip(body); break;
+            case zstd: compressed = zstd(body); break;
+            default: throw new IllegalArgumentException("Can not compress with '" + compression + "'");
+        }
+        compressionNanos.add(cpuNanos() - startNanos);
+        uncompressedBytes.add(body.length);
+        compressedBytes.add(compressed.length);
+        return compressed;
+    }
+
+    long uncompressedBytes() { return uncompressedBytes.sum(); }
+
+    long compressedBytes() { return compressedBytes.sum(); }
+
+    long compressionNanos() { return compressionNanos.sum(); }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 10);
+        try (GZIPOutputStream zip = new GZIPOutputStream(buffer)) {
+            zip.write(body);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private byte[] zstd(byte[] body) {
+        byte[] buffer = new byte[zstd.maxCompressedLength(body.length)];
+        int length = zstd.compress(body, 0, body.length, buffer, 0, buffer.length);
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private static long cpuNanos() {
+        return cpuTimeSupported ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+}
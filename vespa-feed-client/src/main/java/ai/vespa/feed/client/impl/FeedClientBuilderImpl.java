@@ -55,6 +55,8 @@ public class FeedClientBuilderImpl implements FeedClientBuilder {
     boolean benchmark = true;
     boolean dryrun = false;
     boolean speedTest = false;
+    boolean bulk = false;
+    int maxQueuedOperations = -1; // Negative when operations block until they can be sent.
     Compression compression = auto;
     URI proxy;
     Duration connectionTtl = Duration.ZERO;
@@ -209,6 +211,19 @@ public class FeedClientBuilderImpl implements FeedClientBuilder {
         return this;
     }
 
+    @Override
+    public FeedClientBuilderImpl setBulk(boolean enabled) {
+        this.bulk = enabled;
+        return this;
+    }
+
+    @Override
+    public FeedClientBuilderImpl setNonBlocking(int maxQueuedOperations) {
+        if (maxQueuedOperations < 0) throw new IllegalArgumentException("Max queued operations cannot be negative, but was " + maxQueuedOperations);
+        this.maxQueuedOperations = maxQueuedOperations;
+        return this;
+    }
+
     /**
      * Overrides JVM default SSL truststore
      * @param caCertificatesFile Path to PEM encoded file containing trusted certificates
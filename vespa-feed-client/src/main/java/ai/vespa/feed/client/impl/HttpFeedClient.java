@@ -12,10 +12,12 @@ import ai.vespa.feed.client.ResultException;
 import ai.vespa.feed.client.ResultParseException;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
@@ -55,11 +57,23 @@ class HttpFeedClient implements FeedClient {
     private final RequestStrategy requestStrategy;
     private final AtomicBoolean closed = new AtomicBoolean();
     private final boolean speedTest;
+    private final boolean bulk;
     private final LongSupplier nanoClock;
 
     HttpFeedClient(FeedClientBuilderImpl builder) throws IOException {
+        this(builder, new Compressor(builder.compression));
+    }
+
+    private HttpFeedClient(FeedClientBuilderImpl builder, Compressor compressor) throws IOException {
         this(builder,
-             builder.dryrun ? () -> new DryrunCluster() : () -> new JettyCluster(builder));
+             builder.dryrun ? () -> new DryrunCluster()
+                            : builder.bulk ? () -> new BulkCluster(new JettyCluster(builder, compressor), builder.nanoClock)
+                                           : () -> new JettyCluster(builder, compressor),
+             compressor);
+    }
+
+    private HttpFeedClient(FeedClientBuilderImpl builder, ClusterFactory clusterFactory, Compressor compressor) throws IOException {
+        this(builder, clusterFactory, new HttpRequestStrategy(builder, clusterFactory, compressor));
     }
 
     HttpFeedClient(FeedClientBuilderImpl builder, ClusterFactory clusterFactory) throws IOException {
@@ -70,6 +84,7 @@ class HttpFeedClient implements FeedClient {
         this.requestHeaders = new HashMap<>(builder.requestHeaders);
         this.requestStrategy = requestStrategy;
         this.speedTest = builder.speedTest;
+        this.bulk = builder.bulk;
         this.nanoClock = builder.nanoClock;
         verifyConnection(builder, clusterFactory);
     }
@@ -112,14 +127,7 @@ class HttpFeedClient implements FeedClient {
         if (closed.get())
             throw new IllegalStateException("Client is closed");
 
-        HttpRequest request = new HttpRequest(method,
-                                              getPath(documentId),
-                                              getQuery(params, speedTest),
-                                              requestHeaders,
-                                              operationJson == null ? null : operationJson.getBytes(UTF_8), // TODO: make it bytes all the way?
-                                              params.timeout().orElse(maxTimeout),
-                                              nanoClock);
-
+        HttpRequest request = createRequest(method, documentId, operationJson, params, speedTest);
         CompletableFuture<Result> promise = new CompletableFuture<>();
         requestStrategy.enqueue(documentId, request)
                        .thenApply(response -> toResult(request, response, documentId))
@@ -136,16 +144,31 @@ class HttpFeedClient implements FeedClient {
         return promise;
     }
 
+    private HttpRequest createRequest(String method, DocumentId documentId, String operationJson,
+                                      OperationParameters params, boolean speedTest) {
+        if (bulk)
+            return new HttpRequest(method,
+                                   "/document/v1/feed",
+                                   getBulkQuery(params, speedTest),
+                                   requestHeaders,
+                                   getBulkOperation(method, documentId, operationJson, params),
+                                   params.timeout().orElse(maxTimeout),
+                                   nanoClock);
+
+        return new HttpRequest(method,
+                               getPath(documentId),
+                               getQuery(params, speedTest),
+                               requestHeaders,
+                               operationJson == null ? null : operationJson.getBytes(UTF_8), // TODO: make it bytes all the way?
+                               params.timeout().orElse(maxTimeout),
+                               nanoClock);
+    }
+
     private void verifyConnection(FeedClientBuilderImpl builder, ClusterFactory clusterFactory) throws IOException {
         Instant start = Instant.now();
         try (Cluster cluster = clusterFactory.create()) {
-            HttpRequest request = new HttpRequest("POST",
-                                                  getPath(DocumentId.of("feeder", "handshake", "dummy")),
-                                                  getQuery(empty(), true),
-                                                  requestHeaders,
-                                                  null,
-                                                  Duration.ofSeconds(15),
-                                                  nanoClock);
+            HttpRequest request = createRequest("POST", DocumentId.of("feeder", "handshake", "dummy"), null,
+                                                empty().timeout(Duration.ofSeconds(15)), true);
             CompletableFuture<HttpResponse> future = new CompletableFuture<>();
             cluster.dispatch(request, future);
             HttpResponse response = future.get(20, TimeUnit.SECONDS);
@@ -322,6 +345,41 @@ class HttpFeedClient implements FeedClient {
         return query.toString();
     }
 
+    /** Returns the query for operations sent in bulk, where other parameters are part of each operation. */
+    static String getBulkQuery(OperationParameters params, boolean speedTest) {
+        StringJoiner query = new StringJoiner("&", "?", "").setEmptyValue("");
+        params.route().ifPresent(route -> query.add("route=" + encode(route)));
+        params.tracelevel().ifPresent(tracelevel -> query.add("tracelevel=" + tracelevel));
+        if (speedTest) query.add("dryRun=true");
+        return query.toString();
+    }
+
+    /** Returns the given operation as a single JSON object, with the document ID and parameters at the start. */
+    static byte[] getBulkOperation(String method, DocumentId documentId, String operationJson, OperationParameters params) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            JsonGenerator json = jsonParserFactory.createGenerator(out);
+            json.writeStartObject();
+            switch (method) {
+                case "POST": json.writeStringField("put", documentId.toString()); break;
+                case "PUT": json.writeStringField("update", documentId.toString()); break;
+                case "DELETE": json.writeStringField("remove", documentId.toString()); break;
+                default: throw new IllegalArgumentException("Unexpected HTTP method: " + method);
+            }
+            if (params.createIfNonExistent()) json.writeBooleanField("create", true);
+            if (params.testAndSetCondition().isPresent()) json.writeStringField("condition", params.testAndSetCondition().get());
+            json.flush(); // Leave the object open, for the content of the operation JSON, if any.
+            String content = operationJson == null ? "}" : operationJson.trim();
+            if (content.startsWith("{")) content = content.substring(1).trim();
+            if ( ! content.startsWith("}")) out.write(',');
+            out.write(content.getBytes(UTF_8));
+            return out.toByteArray();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /** Factory for creating a new {@link Cluster} to dispatch operations to. Used for resetting the active cluster. */
     interface ClusterFactory {
 
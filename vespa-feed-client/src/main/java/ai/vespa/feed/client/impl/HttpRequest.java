@@ -32,6 +32,14 @@ class HttpRequest {
         return method;
     }
 
+    public String path() {
+        return path;
+    }
+
+    public String query() {
+        return query;
+    }
+
     public String pathAndQuery() {
         return path + (query.isEmpty() ? "?" : query + "&") + "timeout=" + Math.max(1, timeLeft().toMillis()) + "ms";
     }
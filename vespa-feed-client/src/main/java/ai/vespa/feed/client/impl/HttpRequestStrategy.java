@@ -30,6 +30,9 @@ import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -52,7 +55,8 @@ import static java.util.logging.Level.WARNING;
  * HTTP {@link Cluster}, including error handling and retries through a {@link RetryStrategy},
  * a {@link CircuitBreaker} mechanism, and a {@link Throttler} for optimal load.
  *
- * Dispatch to the provided {@link Cluster} is done by a single dispatch thread. If dispatch ever throws,
+ * Dispatch to the provided {@link Cluster} is done by a single dispatch thread, which parks when there is nothing
+ * to dispatch, or when the throttler's target inflight is reached, and is unparked when this changes. If dispatch ever throws,
  * or the circuit breaker ever opens completely, the dispatch thread stops and all execution shuts down.
  * This is done through {@link #destroy()}, which when called also ensures all enqueued operations are
  * promptly completed, in addition to releasing any resources (threads, and in the provided cluster}.
@@ -72,6 +76,12 @@ class HttpRequestStrategy implements RequestStrategy {
     private final AtomicLong inflight = new AtomicLong(0);
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final AtomicLong delayedCount = new AtomicLong(0);
+    private final long maxQueuedOperations;
+    private final Thread dispatcher;
+    private volatile boolean dispatcherParked = false;
+    private final ReentrantLock slotLock = new ReentrantLock();
+    private final Condition slotFreed = slotLock.newCondition();
+    private final AtomicLong slotWaiters = new AtomicLong(0);
     private final ExecutorService resultExecutor = Executors.newSingleThreadExecutor(runnable -> {
         Thread thread = new Thread(runnable, "feed-client-result-executor");
         thread.setDaemon(true);
@@ -82,13 +92,18 @@ class HttpRequestStrategy implements RequestStrategy {
     private final AtomicBoolean reset = new AtomicBoolean(false);
 
     HttpRequestStrategy(FeedClientBuilderImpl builder, ClusterFactory clusterFactory) throws IOException {
+        this(builder, clusterFactory, new Compressor(builder.compression));
+    }
+
+    HttpRequestStrategy(FeedClientBuilderImpl builder, ClusterFactory clusterFactory, Compressor compressor) throws IOException {
         this.throttler = new DynamicThrottler(builder);
         this.resettableCluster = new ResettableCluster(clusterFactory);
-        this.cluster = builder.benchmark ? new BenchmarkingCluster(resettableCluster, throttler) : resettableCluster;
+        this.cluster = builder.benchmark ? new BenchmarkingCluster(resettableCluster, throttler, compressor) : resettableCluster;
         this.strategy = builder.retryStrategy;
         this.breaker = builder.circuitBreaker;
+        this.maxQueuedOperations = builder.maxQueuedOperations;
 
-        Thread dispatcher = new Thread(this::dispatch, "feed-client-dispatcher");
+        this.dispatcher = new Thread(this::dispatch, "feed-client-dispatcher");
         dispatcher.setDaemon(true);
         dispatcher.start();
     }
@@ -113,8 +128,9 @@ class HttpRequestStrategy implements RequestStrategy {
                 else if (breaker.state() == CLOSED)
                     reset.set(false);
 
-                // Sleep when circuit is half-open, nap when queue is empty, or we are throttled.
-                Thread.sleep(breaker.state() == HALF_OPEN ? 100 : 1);
+                // Sleep when circuit is half-open, and park until signalled when queue is empty, or we are throttled.
+                if (breaker.state() == HALF_OPEN) Thread.sleep(100);
+                else park();
             }
         }
         catch (Throwable t) {
@@ -123,9 +139,30 @@ class HttpRequestStrategy implements RequestStrategy {
         destroy();
     }
 
+    /**
+     * Parks the dispatcher until there may be more to dispatch. The circuit breaker changes state with time,
+     * rather than with signals, so this also wakes up at regular intervals to check on that.
+     */
+    private void park() {
+        for (int i = 0; i < 16 && (queue.isEmpty() || isInExcess()); i++)
+            Thread.yield(); // Parking and unparking is expensive, so first give other threads a chance to enqueue or complete.
+
+        dispatcherParked = true;
+        if (queue.isEmpty() || isInExcess()) // Checked after raising the flag, so concurrent signals are not lost.
+            LockSupport.parkNanos(this, 10_000_000L);
+
+        dispatcherParked = false;
+    }
+
+    /** Wakes the dispatcher, if parked, after an operation was enqueued, or an inflight operation completed. */
+    private void signalDispatcher() {
+        if (dispatcherParked) LockSupport.unpark(dispatcher);
+    }
+
     private void offer(HttpRequest request, CompletableFuture<HttpResponse> vessel) {
         delayedCount.incrementAndGet();
         queue.offer(() -> cluster.dispatch(request, vessel));
+        signalDispatcher();
     }
 
     private boolean poll() {
@@ -206,19 +243,44 @@ class HttpRequestStrategy implements RequestStrategy {
     }
 
     private void acquireSlot() {
+        slotLock.lock();
         try {
-            while (inflight.get() >= throttler.targetInflight())
-                Thread.sleep(1);
+            slotWaiters.incrementAndGet();
+            while (inflight.get() >= throttler.targetInflight() && ! destroyed.get())
+                slotFreed.await(10, TimeUnit.MILLISECONDS); // Target inflight may also increase without a slot being freed.
 
             inflight.incrementAndGet();
         }
         catch (InterruptedException e) {
             throw new RuntimeException(e);
         }
+        finally {
+            slotWaiters.decrementAndGet();
+            slotLock.unlock();
+        }
+    }
+
+    /** Acquires a slot if this is below the target inflight, plus the allowed number of queued operations. */
+    private boolean tryAcquireSlot() {
+        for (long current = inflight.get(); current < throttler.targetInflight() + maxQueuedOperations; current = inflight.get())
+            if (inflight.compareAndSet(current, current + 1))
+                return true;
+
+        return false;
     }
 
     private void releaseSlot() {
         inflight.decrementAndGet();
+        signalDispatcher();
+        if (slotWaiters.get() > 0) { // Checked after decrementing, and waiters check inflight after incrementing.
+            slotLock.lock();
+            try {
+                slotFreed.signal();
+            }
+            finally {
+                slotLock.unlock();
+            }
+        }
     }
 
     public void await() {
@@ -273,7 +335,13 @@ class HttpRequestStrategy implements RequestStrategy {
         CompletableFuture<HttpResponse> vessel = new CompletableFuture<>(); // Holds the computation of a single dispatch to the HTTP client.
         RetriableFuture<HttpResponse> previous = inflightById.put(documentId, result);
         if (previous == null) {
-            acquireSlot();
+            if (maxQueuedOperations < 0) acquireSlot();
+            else if ( ! tryAcquireSlot()) {
+                inflight.incrementAndGet(); // Released again when the rejected operation completes, just below.
+                result.set(null, new FeedException(documentId, "Operation rejected, as more than " + maxQueuedOperations + " operations are queued"));
+                result.complete();
+                return outcome(documentId, result);
+            }
             offer(request, vessel);
             throttler.sent(inflight.get(), result);
         }
@@ -284,6 +352,11 @@ class HttpRequestStrategy implements RequestStrategy {
 
         handleAttempt(vessel, request, result, 1);
 
+        return outcome(documentId, result);
+    }
+
+    /** Returns the outcome of the given operation, releasing its slot when it completes, unless it's passed on to the next operation. */
+    private CompletableFuture<HttpResponse> outcome(DocumentId documentId, RetriableFuture<HttpResponse> result) {
         return result.handle((response, error) -> {
             if (inflightById.compute(documentId, (__, current) -> current == result ? null : current) == null)
                 releaseSlot();
@@ -310,6 +383,8 @@ class HttpRequestStrategy implements RequestStrategy {
                                      }
                                      // ... or accept the outcome and mark the operation as complete.
                                      else result.complete();
+
+                                     signalDispatcher(); // The throttler's target inflight may have changed.
                                  },
                                  resultExecutor);
     }
@@ -317,6 +392,7 @@ class HttpRequestStrategy implements RequestStrategy {
     @Override
     public void destroy() {
         if (destroyed.compareAndSet(false, true)) {
+            LockSupport.unpark(dispatcher);
             inflightById.values().forEach(RetriableFuture::complete);
             cluster.close();
             resultExecutor.shutdown();
@@ -34,9 +34,7 @@ import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.net.Inet4Address;
 import java.net.InetSocketAddress;
 import java.net.URI;
@@ -51,10 +49,8 @@ import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPOutputStream;
 
-import static ai.vespa.feed.client.FeedClientBuilder.Compression.auto;
-import static ai.vespa.feed.client.FeedClientBuilder.Compression.gzip;
+import static ai.vespa.feed.client.FeedClientBuilder.Compression.none;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.eclipse.jetty.http.MimeTypes.Type.APPLICATION_JSON;
 
@@ -71,12 +67,12 @@ class JettyCluster implements Cluster {
 
     private final HttpClient client;
     private final List<Endpoint> endpoints;
-    private final Compression compression;
+    private final Compressor compressor;
 
-    JettyCluster(FeedClientBuilderImpl b) throws IOException {
+    JettyCluster(FeedClientBuilderImpl b, Compressor compressor) throws IOException {
         this.client = createHttpClient(b);
         this.endpoints = b.endpoints.stream().map(Endpoint::new).collect(Collectors.toList());
-        this.compression = b.compression;
+        this.compressor = compressor;
     }
 
     @Override
@@ -97,18 +93,10 @@ class JettyCluster implements Cluster {
                         .idleTimeout(IDLE_TIMEOUT.toMillis(), MILLISECONDS)
                         .timeout(reqTimeoutMillis, MILLISECONDS);
                 if (req.body() != null) {
-                    boolean shouldCompress = compression == gzip || compression == auto && req.body().length > 512;
-                    byte[] bytes;
-                    if (shouldCompress) {
-                        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 10);
-                        try (GZIPOutputStream zip = new GZIPOutputStream(buffer)) {
-                            zip.write(req.body());
-                        } catch (IOException e) { throw new UncheckedIOException(e); }
-                        bytes = buffer.toByteArray();
-                        jettyReq.headers(hs -> hs.add(HttpHeader.CONTENT_ENCODING, "gzip"));
-                    } else {
-                        bytes = req.body();
-                    }
+                    Compression compression = compressor.compressionFor(req.body());
+                    byte[] bytes = compressor.compress(req.body(), compression);
+                    if (compression != none)
+                        jettyReq.headers(hs -> hs.add(HttpHeader.CONTENT_ENCODING, compression.name()));
                     jettyReq.body(new BytesRequestContent(APPLICATION_JSON.asString(), bytes));
                 }
                 log.log(Level.FINER, () ->
@@ -27,7 +27,10 @@ interface RequestStrategy {
     /** Wait for all inflight requests to complete. */
     void await();
 
-    /** Enqueue the given operation, returning its future result. This may block if the client send queue is full. */
+    /**
+     * Enqueue the given operation, returning its future result. This may block if the client send queue is full,
+     * unless the client is non-blocking, in which case the operation instead fails if too many operations are queued.
+     */
     CompletableFuture<HttpResponse> enqueue(DocumentId documentId, HttpRequest request);
 
 }
@@ -0,0 +1,57 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import io.airlift.compress.zstd.ZstdDecompressor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static ai.vespa.feed.client.FeedClientBuilder.Compression.auto;
+import static ai.vespa.feed.client.FeedClientBuilder.Compression.gzip;
+import static ai.vespa.feed.client.FeedClientBuilder.Compression.none;
+import static ai.vespa.feed.client.FeedClientBuilder.Compression.zstd;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressorTest {
+
+    static final byte[] small = "{\"fields\":{\"text\":\"hello\"}}".getBytes(UTF_8);
+    static final byte[] large = "{\"fields\":{\"text\":\"hello\"}}\n".repeat(100).getBytes(UTF_8);
+
+    @Test
+    void testCompressionChoice() {
+        Compressor compressor = new Compressor(auto);
+        assertEquals(none, compressor.compressionFor(small));
+        assertEquals(gzip, compressor.compressionFor(large));
+
+        assertEquals(none, new Compressor(none).compressionFor(large));
+        assertEquals(gzip, new Compressor(gzip).compressionFor(small));
+        assertEquals(zstd, new Compressor(zstd).compressionFor(small));
+    }
+
+    @Test
+    void testCompression() throws IOException {
+        Compressor compressor = new Compressor(zstd);
+        assertSame(large, compressor.compress(large, none));
+        assertEquals(0, compressor.uncompressedBytes());
+
+        byte[] gzipped = compressor.compress(large, gzip);
+        assertArrayEquals(large, new GZIPInputStream(new ByteArrayInputStream(gzipped)).readAllBytes());
+
+        byte[] zstdCompressed = compressor.compress(large, zstd);
+        byte[] decompressed = new byte[(int) ZstdDecompressor.getDecompressedSize(zstdCompressed, 0, zstdCompressed.length)];
+        new ZstdDecompressor().decompress(zstdCompressed, 0, zstdCompressed.length, decompressed, 0, decompressed.length);
+        assertArrayEquals(large, decompressed);
+
+        assertEquals(2 * large.length, compressor.uncompressedBytes());
+        assertEquals(gzipped.length + zstdCompressed.length, compressor.compressedBytes());
+        assertTrue(zstdCompressed.length * 10 < large.length);
+        assertTrue(compressor.compressionNanos() >= 0);
+    }
+
+}
@@ -213,6 +213,71 @@ class HttpFeedClientTest {
         assertEquals("(id:ns:type::0) Status 500 executing 'POST /document/v1/ns/type/docid/0': Alla ska i jorden.", expected.getCause().getMessage());
     }
 
+    @Test
+    void testBulkFeeding() throws ExecutionException, InterruptedException, IOException {
+        // Answers each batch with a result line per operation, in reverse order.
+        StringBuilder sent = new StringBuilder();
+        Cluster cluster = (request, vessel) -> {
+            try {
+                assertEquals("POST", request.method());
+                assertEquals("/document/v1/feed?timeout=900000ms", request.pathAndQuery());
+                String body = new String(request.body(), UTF_8);
+                synchronized (sent) { sent.append(body); }
+                String[] lines = body.split("\n");
+                StringBuilder results = new StringBuilder();
+                for (int i = lines.length - 1; i >= 0; i--) {
+                    if (lines[i].startsWith("{\"put\"")) results.append("{\"index\":" + i + ",\"id\":\"ignored\",\"status\":200}\n");
+                    if (lines[i].startsWith("{\"update\"")) results.append("{\"index\":" + i + ",\"status\":412,\"message\":\"Relax, take it easy.\"}\n");
+                    if (lines[i].startsWith("{\"remove\"")) results.append("{\"index\":" + i + ",\"status\":500,\"message\":\"Blame it on me.\"}\n");
+                }
+                vessel.complete(HttpResponse.of(200, results.toString().getBytes(UTF_8)));
+            }
+            catch (Throwable thrown) {
+                vessel.completeExceptionally(thrown);
+            }
+        };
+        BulkCluster bulk = new BulkCluster(cluster, () -> 0);
+        class MockRequestStrategy implements RequestStrategy {
+            @Override public OperationStats stats() { throw new UnsupportedOperationException(); }
+            @Override public FeedClient.CircuitBreaker.State circuitBreakerState() { return FeedClient.CircuitBreaker.State.CLOSED; }
+            @Override public void destroy() { throw new UnsupportedOperationException(); }
+            @Override public void await() { throw new UnsupportedOperationException(); }
+            @Override public CompletableFuture<HttpResponse> enqueue(DocumentId documentId, HttpRequest request) {
+                CompletableFuture<HttpResponse> vessel = new CompletableFuture<>();
+                bulk.dispatch(request, vessel);
+                return vessel;
+            }
+        }
+        FeedClient client = new HttpFeedClient(new FeedClientBuilderImpl(List.of(URI.create("https://dummy:123")))
+                                                       .setBulk(true)
+                                                       .setNanoClock(() -> 0),
+                                               () -> new BulkCluster((request, vessel) -> {
+                                                   assertEquals("/document/v1/feed?dryRun=true&timeout=15000ms", request.pathAndQuery());
+                                                   assertEquals("{\"put\":\"id:feeder:handshake::dummy\"}\n", new String(request.body(), UTF_8));
+                                                   vessel.complete(HttpResponse.of(200, "{\"index\":0,\"status\":200}\n".getBytes(UTF_8)));
+                                               }, () -> 0),
+                                               new MockRequestStrategy());
+
+        CompletableFuture<Result> put = client.put(DocumentId.of("ns", "type", "0"),
+                                                   "{ \"fields\": { \"foo\": \"bar\" } }",
+                                                   OperationParameters.empty().createIfNonExistent(true).testAndSetCondition("true"));
+        CompletableFuture<Result> update = client.update(DocumentId.of("ns", "type", "1"), "{}", OperationParameters.empty());
+        CompletableFuture<Result> remove = client.remove(DocumentId.of("ns", "type", "2"), OperationParameters.empty());
+
+        assertEquals(Result.Type.success, put.get().type());
+        assertEquals(DocumentId.of("ns", "type", "0"), put.get().documentId());
+        assertEquals(Result.Type.conditionNotMet, update.get().type());
+        assertEquals(Optional.of("Relax, take it easy."), update.get().resultMessage());
+        ExecutionException expected = assertThrows(ExecutionException.class, remove::get);
+        assertEquals("(id:ns:type::2) Status 500 executing 'DELETE /document/v1/feed': Blame it on me.", expected.getCause().getMessage());
+        assertEquals("""
+                     {"put":"id:ns:type::0","create":true,"condition":"true","fields": { "foo": "bar" } }
+                     {"update":"id:ns:type::1"}
+                     {"remove":"id:ns:type::2"}
+                     """,
+                     sent.toString());
+    }
+
     @Test
     void testHandshake() throws IOException {
         // dummy:123 does not exist, and results in a host-not-found exception.
@@ -7,19 +7,25 @@ import ai.vespa.feed.client.FeedClient.CircuitBreaker;
 import ai.vespa.feed.client.FeedException;
 import ai.vespa.feed.client.HttpResponse;
 import ai.vespa.feed.client.OperationStats;
+import com.sun.management.OperatingSystemMXBean;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Exchanger;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -83,6 +89,71 @@ class HttpRequestStrategyTest {
         assertEquals(2 * documents, stats.bytesReceived());
     }
 
+    @Test
+    void benchmarkDispatch() throws IOException {
+        int documents = 1 << 18;
+        HttpRequest request = new HttpRequest("PUT", "/", "", null, null, Duration.ofSeconds(1), () -> 0);
+        HttpResponse response = HttpResponse.of(200, "{}".getBytes(UTF_8));
+        ExecutorService executor = Executors.newSingleThreadExecutor(); // Completes responses like an HTTP client would.
+        Cluster cluster = (__, vessel) -> executor.execute(() -> vessel.complete(response));
+        HttpRequestStrategy strategy = new HttpRequestStrategy(new FeedClientBuilderImpl(List.of(URI.create("https://dummy.com:123")))
+                                                                       .setConnectionsPerEndpoint(1 << 4),
+                                                               () -> cluster);
+        OperatingSystemMXBean os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long startNanos = System.nanoTime();
+        long startCpuNanos = os.getProcessCpuTime();
+        for (int i = 0; i < documents; i++)
+            strategy.enqueue(DocumentId.of("ns", "type", Integer.toString(i)), request);
+
+        strategy.await();
+        double seconds = (System.nanoTime() - startNanos) * 1e-9;
+        double cpuSeconds = (os.getProcessCpuTime() - startCpuNanos) * 1e-9;
+        System.err.printf("%d operations in %.3f seconds: %.0f operations per second, %.0f per core-second%n",
+                          documents, seconds, documents / seconds, documents / cpuSeconds);
+        System.err.println(strategy.stats());
+        strategy.destroy();
+        executor.shutdown();
+
+        assertEquals(documents, strategy.stats().responsesByCode().get(200));
+    }
+
+    @Test
+    void testNonBlocking() throws ExecutionException, InterruptedException, IOException {
+        BlockingQueue<CompletableFuture<HttpResponse>> vessels = new LinkedBlockingQueue<>();
+        Cluster cluster = (__, vessel) -> vessels.add(vessel);
+        HttpRequestStrategy strategy = new HttpRequestStrategy(new FeedClientBuilderImpl(List.of(URI.create("https://dummy.com:123")))
+                                                                       .setConnectionsPerEndpoint(1)
+                                                                       .setNonBlocking(3),
+                                                               () -> cluster);
+        HttpRequest request = new HttpRequest("POST", "/", "", null, null, Duration.ofSeconds(180), () -> 0);
+        HttpResponse success = HttpResponse.of(200, null);
+
+        // Target inflight is 2, and 3 more may be queued, after which operations are rejected.
+        List<CompletableFuture<HttpResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            results.add(strategy.enqueue(DocumentId.of("ns", "type", Integer.toString(i)), request));
+
+        ExecutionException expected = assertThrows(ExecutionException.class,
+                                                   () -> strategy.enqueue(DocumentId.of("ns", "type", "5"), request).get());
+        assertEquals("(id:ns:type::5) Operation rejected, as more than 3 operations are queued", expected.getCause().getMessage());
+
+        // Operations to documents with an operation already inflight don't need a slot.
+        results.add(strategy.enqueue(DocumentId.of("ns", "type", "0"), request));
+
+        // Completing operations dispatches queued ones, and frees up their slots.
+        vessels.poll(10, TimeUnit.SECONDS).complete(success); // Document 0, whose slot passes to its next operation.
+        vessels.poll(10, TimeUnit.SECONDS).complete(success); // Document 1.
+        assertEquals(success, results.get(1).get());
+        results.add(strategy.enqueue(DocumentId.of("ns", "type", "5"), request));
+        for (int i = 0; i < 5; i++)
+            vessels.poll(10, TimeUnit.SECONDS).complete(success);
+
+        for (CompletableFuture<HttpResponse> result : results)
+            assertEquals(success, result.get());
+
+        strategy.destroy();
+    }
+
     @Test()
     void testRetries() throws ExecutionException, InterruptedException, IOException {
         int minStreams = 2; // Hard limit for minimum number of streams per connection.
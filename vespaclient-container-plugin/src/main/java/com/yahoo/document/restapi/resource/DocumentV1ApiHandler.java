@@ -4,9 +4,11 @@ package com.yahoo.document.restapi.resource;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonFactoryBuilder;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 import com.yahoo.cloud.config.ClusterListConfig;
 import com.yahoo.component.annotation.Inject;
+import com.yahoo.compress.ZstdInputStream;
 import com.yahoo.concurrent.DaemonThreadFactory;
 import com.yahoo.concurrent.SystemTimer;
 import com.yahoo.container.core.HandlerMetricContextUtil;
@@ -14,6 +16,7 @@ import com.yahoo.container.core.documentapi.VespaDocumentAccess;
 import com.yahoo.container.jdisc.ContentChannelOutputStream;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentOperation;
 import com.yahoo.document.DocumentPut;
 import com.yahoo.document.DocumentRemove;
 import com.yahoo.document.DocumentTypeManager;
@@ -88,23 +91,31 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.StringJoiner;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 import java.util.function.BooleanSupplier;
@@ -122,6 +133,7 @@ import static com.yahoo.jdisc.http.HttpRequest.Method.POST;
 import static com.yahoo.jdisc.http.HttpRequest.Method.PUT;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.WARNING;
 import static java.util.stream.Collectors.joining;
@@ -137,6 +149,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private static final Duration defaultTimeout = Duration.ofSeconds(180); // Match document API default timeout.
     private static final Duration handlerTimeout = Duration.ofMillis(100); // Extra time to allow for handler, JDisc and jetty to complete.
+    private static final int defaultFeedConcurrency = 128;
 
     private static final Logger log = Logger.getLogger(DocumentV1ApiHandler.class.getName());
     private static final Parser<Integer> integerParser = Integer::parseInt;
@@ -192,13 +205,16 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private final DocumentAccess access;
     private final AsyncSession asyncSession;
     private final Map<String, StorageCluster> clusters;
-    private final Deque<Operation> operations;
+    private final long resendDelayNS;
+    private final Dispatcher[] dispatchers;
     private final Deque<BooleanSupplier> visitOperations = new ConcurrentLinkedDeque<>();
     private final AtomicLong enqueued = new AtomicLong();
     private final AtomicLong outstanding = new AtomicLong();
     private final Map<VisitorControlHandler, VisitorSession> visits = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("document-api-handler-"));
     private final ScheduledExecutorService visitDispatcher = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("document-api-handler-visit-"));
+    private final int maxFeedStreams;
+    private final ExecutorService feeders;
+    private final Set<Thread> blockedFeeders = ConcurrentHashMap.newKeySet();
     private final Map<String, Map<Method, Handler>> handlers = defineApi();
 
     @Inject
@@ -226,11 +242,17 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         this.access = access;
         this.asyncSession = access.createAsyncSession(new AsyncParameters());
         this.clusters = parseClusters(clusterListConfig, bucketSpacesConfig);
-        this.operations = new ConcurrentLinkedDeque<>();
         long resendDelayMS = SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(executorConfig.resendDelayMillis())).toMillis();
+        this.resendDelayNS = MILLISECONDS.toNanos(resendDelayMS);
+        DaemonThreadFactory dispatchThreads = new DaemonThreadFactory("document-api-handler-");
+        this.dispatchers = new Dispatcher[Math.max(1, executorConfig.dispatchThreads())];
+        for (int i = 0; i < dispatchers.length; i++)
+            dispatchers[i] = new Dispatcher(dispatchThreads);
+
+        this.maxFeedStreams = Math.max(1, executorConfig.maxFeedStreams());
+        this.feeders = new ThreadPoolExecutor(0, maxFeedStreams, 60, SECONDS, new SynchronousQueue<>(),
+                                              new DaemonThreadFactory("document-api-handler-feed-"));
 
-        // TODO: Here it would be better to have dedicated threads with different wait depending on blocked or empty.
-        this.dispatcher.scheduleWithFixedDelay(this::dispatchEnqueued, resendDelayMS, resendDelayMS, MILLISECONDS);
         this.visitDispatcher.scheduleWithFixedDelay(this::dispatchVisitEnqueued, resendDelayMS, resendDelayMS, MILLISECONDS);
     }
 
@@ -288,29 +310,34 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         visits.values().forEach(VisitorSession::abort);
         visits.values().forEach(VisitorSession::destroy);
 
-        // Shut down both dispatchers, so only we empty the queues of outstanding operations, and can be sure they're empty.
-        dispatcher.shutdown();
+        // Shut down all dispatchers, so only we empty the queues of outstanding operations, and can be sure they're empty.
+        for (Dispatcher dispatcher : dispatchers)
+            dispatcher.shutdown();
         visitDispatcher.shutdown();
-        while ( ! (operations.isEmpty() && visitOperations.isEmpty()) && clock.instant().isBefore(doom)) {
+        feeders.shutdown();
+        while ( ! (enqueued.get() == 0 && visitOperations.isEmpty()) && clock.instant().isBefore(doom)) {
             dispatchEnqueued();
             dispatchVisitEnqueued();
         }
 
-        if ( ! operations.isEmpty())
-            log.log(WARNING, "Failed to empty request queue before shutdown timeout — " + operations.size() + " requests left");
+        if (enqueued.get() != 0)
+            log.log(WARNING, "Failed to empty request queue before shutdown timeout — " + enqueued.get() + " requests left");
 
         if ( ! visitOperations.isEmpty())
-            log.log(WARNING, "Failed to empty visitor operations queue before shutdown timeout — " + operations.size() + " operations left");
+            log.log(WARNING, "Failed to empty visitor operations queue before shutdown timeout — " + visitOperations.size() + " operations left");
 
         try {
             while (outstanding.get() > 0 && clock.instant().isBefore(doom))
                 Thread.sleep(Math.max(1, Duration.between(clock.instant(), doom).toMillis()));
 
-            if ( ! dispatcher.awaitTermination(Duration.between(clock.instant(), doom).toMillis(), MILLISECONDS))
-                dispatcher.shutdownNow();
+            for (Dispatcher dispatcher : dispatchers)
+                dispatcher.awaitTermination(Duration.between(clock.instant(), doom));
 
             if ( ! visitDispatcher.awaitTermination(Duration.between(clock.instant(), doom).toMillis(), MILLISECONDS))
                 visitDispatcher.shutdownNow();
+
+            if ( ! feeders.awaitTermination(Duration.between(clock.instant(), doom).toMillis(), MILLISECONDS))
+                feeders.shutdownNow();
         }
         catch (InterruptedException e) {
             log.log(WARNING, "Interrupted waiting for /document/v1 executor to shut down");
@@ -331,6 +358,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private Map<String, Map<Method, Handler>> defineApi() {
         Map<String, Map<Method, Handler>> handlers = new LinkedHashMap<>();
 
+        handlers.put("/document/v1/feed",
+                     Map.of(POST, this::feedDocuments));
+
         handlers.put("/document/v1/",
                      Map.of(GET, this::getDocuments,
                             POST, this::postDocuments,
@@ -377,7 +407,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private ContentChannel getDocuments(HttpRequest request, DocumentPath path, ResponseHandler handler) {
         disallow(request, DRY_RUN);
-        enqueueAndDispatch(request, handler, () -> {
+        enqueueAndDispatch(request, path, handler, () -> {
             boolean streamed = getProperty(request, STREAM, booleanParser).orElse(false);
             VisitorParameters parameters = parseGetParameters(request, path, streamed);
             return () -> {
@@ -390,7 +420,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private ContentChannel postDocuments(HttpRequest request, DocumentPath path, ResponseHandler handler) {
         disallow(request, DRY_RUN);
-        enqueueAndDispatch(request, handler, () -> {
+        enqueueAndDispatch(request, path, handler, () -> {
             StorageCluster destination = resolveCluster(Optional.of(requireProperty(request, DESTINATION_CLUSTER)), clusters);
             VisitorParameters parameters = parseParameters(request, path);
             parameters.setRemoteDataHandler("[Content:cluster=" + destination.name() + "]"); // Bypass indexing.
@@ -406,13 +436,13 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private ContentChannel putDocuments(HttpRequest request, DocumentPath path, ResponseHandler handler) {
         disallow(request, DRY_RUN);
         return new ForwardingContentChannel(in -> {
-            enqueueAndDispatch(request, handler, () -> {
+            enqueueAndDispatch(request, path, handler, () -> {
                 StorageCluster cluster = resolveCluster(Optional.of(requireProperty(request, CLUSTER)), clusters);
                 VisitorParameters parameters = parseParameters(request, path);
                 parameters.setFieldSet(DocIdOnly.NAME);
                 String type = path.documentType().orElseThrow(() -> new IllegalStateException("Document type must be specified for mass updates"));
                 IdIdString dummyId = new IdIdString("dummy", type, "", "");
-                ParsedDocumentOperation update = parser.parseUpdate(in, dummyId.toString());
+                ParsedDocumentOperation update = parser.parseUpdate(decoded(request, in), dummyId.toString());
                 update.operation().setCondition(new TestAndSetCondition(requireProperty(request, SELECTION)));
                 return () -> {
                     visitAndUpdate(request, parameters, update.fullyApplied(), handler, (DocumentUpdate)update.operation(), cluster.name());
@@ -424,7 +454,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private ContentChannel deleteDocuments(HttpRequest request, DocumentPath path, ResponseHandler handler) {
         disallow(request, DRY_RUN);
-        enqueueAndDispatch(request, handler, () -> {
+        enqueueAndDispatch(request, path, handler, () -> {
             VisitorParameters parameters = parseParameters(request, path);
             parameters.setFieldSet(DocIdOnly.NAME);
             TestAndSetCondition condition = new TestAndSetCondition(requireProperty(request, SELECTION));
@@ -437,15 +467,41 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         return ignoredContent;
     }
 
+    private ContentChannel feedDocuments(HttpRequest request, DocumentPath path, ResponseHandler handler) {
+        int concurrency = getProperty(request, CONCURRENCY, integerParser).orElse(defaultFeedConcurrency);
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency must be positive");
+
+        Feed feed = new Feed(request, handler, concurrency);
+        ReadableContentChannel content = new ReadableContentChannel();
+        try {
+            feeders.execute(() -> feed.run(decoded(request, new UnsafeContentInputStream(content))));
+        }
+        catch (RejectedExecutionException e) {
+            overload(request, "Rejecting feed due to overload: " + maxFeedStreams + " feeds already in progress", handler);
+            return ignoredContent;
+        }
+        return new ContentChannel() {
+            // Writes complete when the feed has read their content, which limits how far ahead of the feed the client gets.
+            @Override public void write(ByteBuffer buf, CompletionHandler handler) { content.write(buf, handler); }
+            @Override public void close(CompletionHandler handler) { content.close(handler); }
+            @Override public void onError(Throwable error) {
+                log.log(FINE, error, () -> "ContentChannel.onError(): " + error.getMessage());
+                try { content.failed(error); } // Ends the input of the feed.
+                catch (IllegalStateException e) { /* Already fully read. */ }
+            }
+        };
+    }
+
     private ContentChannel getDocument(HttpRequest request, DocumentPath path, ResponseHandler rawHandler) {
         ResponseHandler handler = new MeasuringResponseHandler(request, rawHandler, com.yahoo.documentapi.metrics.DocumentOperationType.GET, clock.instant());
         disallow(request, DRY_RUN);
-        enqueueAndDispatch(request, handler, () -> {
+        enqueueAndDispatch(request, path, handler, () -> {
             DocumentOperationParameters rawParameters = parametersFromRequest(request, CLUSTER, FIELD_SET);
             if (rawParameters.fieldSet().isEmpty())
                 rawParameters = rawParameters.withFieldSet(path.documentType().orElseThrow() + ":[document]");
             DocumentOperationParameters parameters = rawParameters.withResponseHandler(response -> {
-                outstanding.decrementAndGet();
+                releaseOutstanding();
                 handle(path, request, handler, response, (document, jsonResponse) -> {
                     if (document != null) {
                         jsonResponse.writeSingleDocument(document);
@@ -469,14 +525,14 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         }
 
         return new ForwardingContentChannel(in -> {
-            enqueueAndDispatch(request, handler, () -> {
-                ParsedDocumentOperation parsed = parser.parsePut(in, path.id().toString());
+            enqueueAndDispatch(request, path, handler, () -> {
+                ParsedDocumentOperation parsed = parser.parsePut(decoded(request, in), path.id().toString());
                 DocumentPut put = (DocumentPut)parsed.operation();
                 getProperty(request, CONDITION).map(TestAndSetCondition::new).ifPresent(put::setCondition);
                 getProperty(request, CREATE, booleanParser).ifPresent(put::setCreateIfNonExistent);
                 DocumentOperationParameters parameters = parametersFromRequest(request, ROUTE)
                         .withResponseHandler(response -> {
-                            outstanding.decrementAndGet();
+                            releaseOutstanding();
                             updatePutMetrics(response.outcome(), latencyOf(request), put.getCreateIfNonExistent());
                             handleFeedOperation(path, parsed.fullyApplied(), handler, response);
                         });
@@ -494,14 +550,14 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         }
 
         return new ForwardingContentChannel(in -> {
-            enqueueAndDispatch(request, handler, () -> {
-                ParsedDocumentOperation parsed = parser.parseUpdate(in, path.id().toString());
+            enqueueAndDispatch(request, path, handler, () -> {
+                ParsedDocumentOperation parsed = parser.parseUpdate(decoded(request, in), path.id().toString());
                 DocumentUpdate update = (DocumentUpdate)parsed.operation();
                 getProperty(request, CONDITION).map(TestAndSetCondition::new).ifPresent(update::setCondition);
                 getProperty(request, CREATE, booleanParser).ifPresent(update::setCreateIfNonExistent);
                 DocumentOperationParameters parameters = parametersFromRequest(request, ROUTE)
                         .withResponseHandler(response -> {
-                            outstanding.decrementAndGet();
+                            releaseOutstanding();
                             updateUpdateMetrics(response.outcome(), latencyOf(request), update.getCreateIfNonExistent());
                             handleFeedOperation(path, parsed.fullyApplied(), handler, response);
                         });
@@ -518,12 +574,12 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             return ignoredContent;
         }
 
-        enqueueAndDispatch(request, handler, () -> {
+        enqueueAndDispatch(request, path, handler, () -> {
             DocumentRemove remove = new DocumentRemove(path.id());
             getProperty(request, CONDITION).map(TestAndSetCondition::new).ifPresent(remove::setCondition);
             DocumentOperationParameters parameters = parametersFromRequest(request, ROUTE)
                     .withResponseHandler(response -> {
-                        outstanding.decrementAndGet();
+                        releaseOutstanding();
                         updateRemoveMetrics(response.outcome(), latencyOf(request));
                         handleFeedOperation(path, true, handler, response);
                     });
@@ -551,28 +607,19 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         return parameters;
     }
 
-    /** Dispatches enqueued requests until one is blocked. */
+    /** Dispatches enqueued requests in each partition of the queue until one is blocked. */
     void dispatchEnqueued() {
-        try {
-            while (dispatchFirst());
-        }
-        catch (Exception e) {
-            log.log(WARNING, "Uncaught exception in /document/v1 dispatch thread", e);
-        }
+        for (Dispatcher dispatcher : dispatchers)
+            dispatcher.dispatchEnqueued();
     }
 
-    /** Attempts to dispatch the first enqueued operations, and returns whether this was successful. */
-    private boolean dispatchFirst() {
-        Operation operation = operations.poll();
-        if (operation == null)
-            return false;
-
-        if (operation.dispatch()) {
-            enqueued.decrementAndGet();
-            return true;
-        }
-        operations.push(operation);
-        return false;
+    /** Called when a response is received for an outstanding operation, which frees capacity in the async session. */
+    private void releaseOutstanding() {
+        outstanding.decrementAndGet();
+        for (Dispatcher dispatcher : dispatchers)
+            dispatcher.signalIfBlocked();
+        for (Thread feeder : blockedFeeders)
+            LockSupport.unpark(feeder);
     }
 
     /** Dispatches enqueued requests until one is blocked. */
@@ -599,17 +646,21 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     }
 
     private long qAgeNS(HttpRequest request) {
-        Operation oldest = operations.peek();
-        return (oldest != null)
-                ? (request.relativeCreatedAtNanoTime() - oldest.request.relativeCreatedAtNanoTime())
-                : 0;
+        long ageNS = 0;
+        for (Dispatcher dispatcher : dispatchers) {
+            Operation oldest = dispatcher.operations.peek();
+            if (oldest != null)
+                ageNS = Math.max(ageNS, request.relativeCreatedAtNanoTime() - oldest.request.relativeCreatedAtNanoTime());
+        }
+        return ageNS;
     }
 
     /**
      * Enqueues the given request and operation, or responds with "overload" if the queue is full,
      * and then attempts to dispatch an enqueued operation from the head of the queue.
+     * Operations are partitioned by document id, or by raw path for visits, so operations on the same document are dispatched in order.
      */
-    private void enqueueAndDispatch(HttpRequest request, ResponseHandler handler, Supplier<BooleanSupplier> operationParser) {
+    private void enqueueAndDispatch(HttpRequest request, DocumentPath path, ResponseHandler handler, Supplier<BooleanSupplier> operationParser) {
         long numQueued = enqueued.incrementAndGet();
         if (numQueued > maxThrottled) {
             enqueued.decrementAndGet();
@@ -626,8 +677,88 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                 return;
             }
         }
-        operations.offer(new Operation(request, handler, operationParser));
-        dispatchFirst();
+        dispatchers[Math.floorMod(path.partitionKey().hashCode(), dispatchers.length)]
+                .enqueueAndDispatch(new Operation(request, handler, operationParser));
+    }
+
+    /**
+     * A partition of the queue of throttled operations, with a dedicated thread which dispatches these in order.
+     * The thread is signalled when capacity frees up in the async session, and otherwise retries after the resend delay.
+     */
+    private class Dispatcher {
+
+        private final Deque<Operation> operations = new ConcurrentLinkedDeque<>();
+        private final Lock lock = new ReentrantLock(); // Held while dispatching, to keep operations in order.
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Dispatcher(DaemonThreadFactory threadFactory) {
+            this.thread = threadFactory.newThread(this::run);
+            this.thread.start();
+        }
+
+        private void run() {
+            while (running) {
+                LockSupport.parkNanos(this, resendDelayNS);
+                dispatchEnqueued();
+            }
+        }
+
+        /** Enqueues the given operation, dispatches the operation at the head of the queue, and wakes the dispatcher if more remain. */
+        void enqueueAndDispatch(Operation operation) {
+            operations.offer(operation);
+            if (dispatchFirst() && ! operations.isEmpty()) // Blocked operations are instead retried when signalled.
+                LockSupport.unpark(thread);
+        }
+
+        /** Dispatches enqueued requests until one is blocked. */
+        void dispatchEnqueued() {
+            while (dispatchFirst());
+        }
+
+        /**
+         * Attempts to dispatch the first enqueued operation, and returns whether this was successful.
+         * The lock is held only for a single operation, so request threads wait at most for one dispatch.
+         */
+        private boolean dispatchFirst() {
+            lock.lock();
+            try {
+                Operation operation = operations.poll();
+                if (operation == null)
+                    return false;
+
+                if (operation.dispatch()) {
+                    enqueued.decrementAndGet();
+                    setMetric(MetricNames.QUEUE_WAIT, operation.queuedMillis());
+                    return true;
+                }
+                operations.push(operation);
+                return false;
+            }
+            catch (Exception e) {
+                log.log(WARNING, "Uncaught exception in /document/v1 dispatch thread", e);
+                return false;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /** Wakes the dispatcher thread if there are operations waiting for capacity. */
+        void signalIfBlocked() {
+            if ( ! operations.isEmpty())
+                LockSupport.unpark(thread);
+        }
+
+        void shutdown() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        void awaitTermination(Duration timeout) throws InterruptedException {
+            thread.join(Math.max(1, timeout.toMillis()));
+        }
+
     }
 
 
@@ -743,19 +874,23 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         }
 
         synchronized void writeTrace(Trace trace) throws IOException {
+            writeTrace(json, trace);
+        }
+
+        static void writeTrace(JsonGenerator json, Trace trace) throws IOException {
             if (trace != null && ! trace.getRoot().isEmpty()) {
-                writeTrace(trace.getRoot());
+                writeTrace(json, trace.getRoot());
             }
         }
 
-        private void writeTrace(TraceNode node) throws IOException {
+        private static void writeTrace(JsonGenerator json, TraceNode node) throws IOException {
             if (node.hasNote())
                 json.writeStringField("message", node.getNote());
             if ( ! node.isLeaf()) {
                 json.writeArrayFieldStart(node.isStrict() ? "trace" : "fork");
                 for (int i = 0; i < node.getNumChildren(); i++) {
                     json.writeStartObject();
-                    writeTrace(node.getChild(i));
+                    writeTrace(json, node.getChild(i));
                     json.writeEndObject();
                 }
                 json.writeEndArray();
@@ -955,6 +1090,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         private final Lock lock = new ReentrantLock();
         private final HttpRequest request;
         private final ResponseHandler handler;
+        private final long enqueuedAtNanos = System.nanoTime();
         private BooleanSupplier operation; // The operation to attempt until it returns success.
         private Supplier<BooleanSupplier> parser; // The unparsed operation—getting this will parse it.
 
@@ -996,6 +1132,11 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             return true;
         }
 
+        /** Returns the time since this was enqueued, in milliseconds */
+        double queuedMillis() {
+            return (System.nanoTime() - enqueuedAtNanos) * 1e-6;
+        }
+
     }
 
     /** Attempts to send the given document operation, returning false if this needs to be retried. */
@@ -1011,6 +1152,14 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         return true;
     }
 
+    /**
+     * Returns the given request content, decompressed if it is zstd encoded.
+     * Gzip encoded content is already decompressed by the HTTP server.
+     */
+    private static InputStream decoded(HttpRequest request, InputStream in) {
+        return request.headers().containsIgnoreCase("Content-Encoding", "zstd") ? new ZstdInputStream(in) : in;
+    }
+
     private static class DispatchException extends RuntimeException {
         private DispatchException(Throwable cause) { super(cause); }
     }
@@ -1061,6 +1210,184 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         }
     }
 
+    /**
+     * A stream of document operations in JSONL format, which are dispatched as they are read, with bounded concurrency.
+     * The result of each operation is written as a line to the response, as soon as it is known, with the index of the
+     * operation in the stream, its document ID, its HTTP status code, and any error message or trace.
+     * Operations on the same document are applied in stream order, as each waits for the previous one to complete.
+     * Operations which are throttled for longer than the max throttled age are rejected with 429, like single operations.
+     */
+    private class Feed {
+
+        private final HttpRequest request;
+        private final ResponseHandler handler;
+        private final Semaphore inFlight;
+        private final boolean dryRun;
+        private final Duration timeout;
+        private final DocumentOperationParameters parameters;
+        private final AtomicLong pending = new AtomicLong(1); // The input, and each dispatched operation.
+        private final Set<DocumentId> inFlightIds = new HashSet<>();
+        private final BufferedContentChannel buffer = new BufferedContentChannel();
+
+        Feed(HttpRequest request, ResponseHandler handler, int concurrency) {
+            this.request = request;
+            this.handler = handler;
+            this.inFlight = new Semaphore(concurrency);
+            this.dryRun = getProperty(request, DRY_RUN, booleanParser).orElse(false);
+            this.timeout = Duration.ofMillis(getProperty(request, TIMEOUT, timeoutMillisParser).orElse(defaultTimeout.toMillis()));
+            this.parameters = parametersFromRequest(request, ROUTE);
+        }
+
+        void run(InputStream in) {
+            try (in) {
+                Response response = new Response(Response.Status.OK);
+                response.headers().add("Content-Type", List.of("application/jsonl; charset=UTF-8"));
+                buffer.connectTo(handler.handleResponse(response));
+                if (dryRun) {
+                    respondWithoutParsing(in);
+                    return;
+                }
+
+                JsonReader reader = parser.reader(in);
+                for (long index = 0; ! request.isCancelled(); index++) {
+                    Optional<ParsedDocumentOperation> operation;
+                    try {
+                        operation = reader.readNextOperation();
+                    }
+                    catch (IllegalArgumentException e) {
+                        incrementMetricParseError();
+                        writeResult(index, null, Response.Status.BAD_REQUEST, Exceptions.toMessageString(e), null, true);
+                        continue;
+                    }
+                    if (operation.isEmpty())
+                        break;
+
+                    dispatch(index, operation.get());
+                }
+            }
+            catch (InterruptedException e) {
+                log.log(WARNING, "Interrupted feeding documents to /document/v1");
+            }
+            catch (Exception e) {
+                log.log(WARNING, "Uncaught exception in /document/v1 feed thread", e);
+            }
+            finally {
+                complete();
+            }
+        }
+
+        /** Responds with success to each root level JSON object, without parsing them, like for single operations. */
+        private void respondWithoutParsing(InputStream in) {
+            long index = 0;
+            try (JsonParser json = jsonFactory.createParser(in)) {
+                for ( ; json.nextToken() != null; index++) {
+                    json.skipChildren();
+                    writeResult(index, null, Response.Status.OK, null, null, true);
+                }
+            }
+            catch (IOException e) {
+                writeResult(index, null, Response.Status.BAD_REQUEST, Exceptions.toMessageString(e), null, true);
+            }
+        }
+
+        private void dispatch(long index, ParsedDocumentOperation parsed) throws InterruptedException {
+            DocumentOperation operation = parsed.operation();
+            awaitNotInFlight(operation.getId());
+            inFlight.acquire();
+            pending.incrementAndGet();
+            long startNanos = System.nanoTime();
+            DocumentOperationParameters operationParameters = parameters
+                    .withDeadline(clock.instant().plus(timeout).minus(handlerTimeout))
+                    .withResponseHandler(response -> {
+                        releaseOutstanding();
+                        release(operation.getId());
+                        updateMetrics(operation, response.outcome(), (System.nanoTime() - startNanos) * 1e-9);
+                        writeResult(index, operation.getId(), response.isSuccess() ? Response.Status.OK : failureStatus(response),
+                                    response.isSuccess() ? null : response.getTextMessage(), response.getTrace(), parsed.fullyApplied());
+                        complete();
+                    });
+            try {
+                while ( ! dispatchOperation(() -> send(operation, operationParameters))) {
+                    if (System.nanoTime() - startNanos > maxThrottledAgeNS) {
+                        release(operation.getId());
+                        writeResult(index, operation.getId(), Response.Status.TOO_MANY_REQUESTS,
+                                    "Rejecting execution due to overload: throttled for more than " +
+                                    maxThrottledAgeNS / 1_000_000_000.0 + " seconds", null, true);
+                        complete();
+                        return;
+                    }
+                    // Woken when capacity frees up in the async session, or retried after the resend delay.
+                    blockedFeeders.add(Thread.currentThread());
+                    LockSupport.parkNanos(this, resendDelayNS);
+                    blockedFeeders.remove(Thread.currentThread());
+                }
+                setMetric(MetricNames.QUEUE_WAIT, (System.nanoTime() - startNanos) * 1e-6);
+            }
+            catch (DispatchException e) {
+                release(operation.getId());
+                writeResult(index, operation.getId(), Response.Status.INTERNAL_SERVER_ERROR, e.getCause().getMessage(), null, true);
+                complete();
+            }
+        }
+
+        /** Waits until no operation on the given document is in flight, and then marks one as in flight. */
+        private void awaitNotInFlight(DocumentId id) throws InterruptedException {
+            synchronized (inFlightIds) {
+                while ( ! inFlightIds.add(id))
+                    inFlightIds.wait();
+            }
+        }
+
+        /** Releases the concurrency permit and the in flight mark of a completed operation on the given document. */
+        private void release(DocumentId id) {
+            inFlight.release();
+            synchronized (inFlightIds) {
+                inFlightIds.remove(id);
+                inFlightIds.notifyAll();
+            }
+        }
+
+        private Result send(DocumentOperation operation, DocumentOperationParameters parameters) {
+            if (operation instanceof DocumentPut put) return asyncSession.put(put, parameters);
+            if (operation instanceof DocumentUpdate update) return asyncSession.update(update, parameters);
+            return asyncSession.remove((DocumentRemove) operation, parameters);
+        }
+
+        private void updateMetrics(DocumentOperation operation, Outcome outcome, double latency) {
+            if (operation instanceof DocumentPut put) updatePutMetrics(outcome, latency, put.getCreateIfNonExistent());
+            else if (operation instanceof DocumentUpdate update) updateUpdateMetrics(outcome, latency, update.getCreateIfNonExistent());
+            else updateRemoveMetrics(outcome, latency);
+        }
+
+        private void writeResult(long index, DocumentId id, int status, String message, Trace trace, boolean fullyApplied) {
+            try {
+                ByteArrayOutputStream line = new ByteArrayOutputStream();
+                try (JsonGenerator json = jsonFactory.createGenerator(line)) {
+                    json.writeStartObject();
+                    json.writeNumberField("index", index);
+                    if (id != null) json.writeStringField("id", id.toString());
+                    json.writeNumberField("status", status);
+                    if ( ! fullyApplied) json.writeBooleanField("ignoredFields", true);
+                    if (message != null) json.writeStringField("message", message);
+                    JsonResponse.writeTrace(json, trace);
+                    json.writeEndObject();
+                }
+                line.write('\n');
+                buffer.write(ByteBuffer.wrap(line.toByteArray()), logException);
+            }
+            catch (Exception e) {
+                log.log(FINE, "Failed writing feed result", e);
+            }
+        }
+
+        /** Completes the input or a dispatched operation, and closes the response when all are complete. */
+        private void complete() {
+            if (pending.decrementAndGet() == 0)
+                buffer.close(logException);
+        }
+
+    }
+
     class DocumentOperationParser {
 
         private final DocumentTypeManager manager;
@@ -1077,6 +1404,11 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             return parse(inputStream, docId, DocumentOperationType.UPDATE);
         }
 
+        /** Returns a reader of a stream of document operations, each specifying its own type and document ID. */
+        JsonReader reader(InputStream inputStream) {
+            return new JsonReader(manager, inputStream, jsonFactory);
+        }
+
         private ParsedDocumentOperation parse(InputStream inputStream, String docId, DocumentOperationType operation) {
             try {
                 return new JsonReader(manager, inputStream, jsonFactory).readSingleDocumentStreaming(operation, docId);
@@ -1103,20 +1435,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                 callback.onSuccess((response instanceof DocumentResponse) ? ((DocumentResponse) response).getDocument() : null, jsonResponse);
             else {
                 jsonResponse.writeMessage(response.getTextMessage());
-                switch (response.outcome()) {
-                    case NOT_FOUND -> jsonResponse.commit(Response.Status.NOT_FOUND);
-                    case CONDITION_FAILED -> jsonResponse.commit(Response.Status.PRECONDITION_FAILED);
-                    case INSUFFICIENT_STORAGE -> jsonResponse.commit(Response.Status.INSUFFICIENT_STORAGE);
-                    case TIMEOUT -> jsonResponse.commit(Response.Status.GATEWAY_TIMEOUT);
-                    case ERROR -> {
-                        log.log(FINE, () -> "Exception performing document operation: " + response.getTextMessage());
-                        jsonResponse.commit(Status.INTERNAL_SERVER_ERROR);
-                    }
-                    default -> {
-                        log.log(WARNING, "Unexpected document API operation outcome '" + response.outcome() + "' " + response.getTextMessage());
-                        jsonResponse.commit(Status.INTERNAL_SERVER_ERROR);
-                    }
-                }
+                jsonResponse.commit(failureStatus(response));
             }
         }
         catch (Exception e) {
@@ -1124,6 +1443,24 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         }
     }
 
+    /** Returns the HTTP status code to respond with for the given failed document operation response. */
+    private static int failureStatus(com.yahoo.documentapi.Response response) {
+        return switch (response.outcome()) {
+            case NOT_FOUND -> Response.Status.NOT_FOUND;
+            case CONDITION_FAILED -> Response.Status.PRECONDITION_FAILED;
+            case INSUFFICIENT_STORAGE -> Response.Status.INSUFFICIENT_STORAGE;
+            case TIMEOUT -> Response.Status.GATEWAY_TIMEOUT;
+            case ERROR -> {
+                log.log(FINE, () -> "Exception performing document operation: " + response.getTextMessage());
+                yield Status.INTERNAL_SERVER_ERROR;
+            }
+            default -> {
+                log.log(WARNING, "Unexpected document API operation outcome '" + response.outcome() + "' " + response.getTextMessage());
+                yield Status.INTERNAL_SERVER_ERROR;
+            }
+        };
+    }
+
     private static void handleFeedOperation(DocumentPath path,
                                             boolean fullyApplied,
                                             ResponseHandler handler,
@@ -1316,7 +1653,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             @Override public void onDocument(JsonResponse response, Document document, DocumentId removeId, Runnable ack, Consumer<String> onError) {
                 DocumentOperationParameters operationParameters = parameters().withRoute(route)
                         .withResponseHandler(operationResponse -> {
-                            outstanding.decrementAndGet();
+                            releaseOutstanding();
                             switch (operationResponse.outcome()) {
                                 case SUCCESS:
                                 case NOT_FOUND:
@@ -1653,6 +1990,21 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         }
 
         String rawPath() { return rawPath; }
+
+        /**
+         * The document id for document paths, as the same document may be addressed by several raw paths,
+         * and the raw path for visits, or for invalid ids, which are rejected when the operation is parsed.
+         */
+        String partitionKey() {
+            if (path.getRest() == null) return rawPath;
+            try {
+                return id().toString();
+            }
+            catch (IllegalArgumentException e) {
+                return rawPath;
+            }
+        }
+
         Optional<String> documentType() { return Optional.ofNullable(path.get("documentType")); }
         Optional<String> namespace() { return Optional.ofNullable(path.get("namespace")); }
         Optional<Group> group() { return group; }
@@ -2,6 +2,7 @@
 package com.yahoo.document.restapi.resource;
 
 import com.yahoo.cloud.config.ClusterListConfig;
+import com.yahoo.compress.ZstdOutputStream;
 import com.yahoo.container.jdisc.RequestHandlerTestDriver;
 import com.yahoo.document.BucketId;
 import com.yahoo.document.Document;
@@ -44,6 +45,9 @@ import com.yahoo.documentapi.VisitorResponse;
 import com.yahoo.documentapi.VisitorSession;
 import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.RemoveDocumentMessage;
+import com.yahoo.jdisc.Request;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.jdisc.http.HttpRequest;
 import com.yahoo.jdisc.test.MockMetric;
 import com.yahoo.messagebus.StaticThrottlePolicy;
 import com.yahoo.messagebus.Trace;
@@ -57,6 +61,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.test.ManualClock;
 import com.yahoo.vdslib.VisitorStatistics;
 import com.yahoo.vespa.config.content.AllClustersBucketSpacesConfig;
+import com.yahoo.vespa.http.server.MetricNames;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -64,6 +69,8 @@ import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
@@ -91,6 +98,7 @@ import static com.yahoo.jdisc.http.HttpRequest.Method.PUT;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -252,6 +260,198 @@ public class DocumentV1ApiTest {
         driver.close();
     }
 
+    @Test
+    public void testThrottledOperationIsDispatchedWhenCapacityFreesUp() {
+        RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler);
+        AtomicReference<DocumentOperationParameters> outstanding = new AtomicReference<>();
+        access.session.expect((id, parameters) -> {
+            outstanding.set(parameters);
+            return new Result(0);
+        });
+        var response1 = driver.sendRequest("http://localhost/document/v1/space/music/number/1/one", DELETE);
+
+        access.session.expect((id, parameters) -> new Result(Result.ResultType.TRANSIENT_ERROR, Result.toError(Result.ResultType.TRANSIENT_ERROR)));
+        var response2 = driver.sendRequest("http://localhost/document/v1/space/music/number/1/two", DELETE);
+
+        // The resend delay is very long, so the throttled operation is dispatched only because the response below wakes the dispatcher.
+        access.session.expect((id, parameters) -> {
+            parameters.responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+            return new Result(0);
+        });
+        outstanding.get().responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+        assertSameJson("{" +
+                       "  \"pathId\": \"/document/v1/space/music/number/1/one\"," +
+                       "  \"id\": \"id:space:music:n=1:one\"" +
+                       "}", response1.readAll());
+        assertSameJson("{" +
+                       "  \"pathId\": \"/document/v1/space/music/number/1/two\"," +
+                       "  \"id\": \"id:space:music:n=1:two\"" +
+                       "}", response2.readAll());
+        assertEquals(200, response2.getStatus());
+        assertTrue(metric.metrics().containsKey(MetricNames.QUEUE_WAIT));
+        driver.close();
+    }
+
+    @Test
+    public void testFeed() {
+        RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler);
+        access.session.expect((operation, parameters) -> {
+            Response response;
+            if (operation instanceof DocumentPut put) {
+                assertEquals(doc1.getFieldValue("artist"), put.getDocument().getFieldValue("artist"));
+                response = new Response(0, null, Response.Outcome.SUCCESS);
+            }
+            else if (operation instanceof DocumentUpdate update) {
+                assertEquals("music.artist == 'Asa-Chan & Jun-Ray'", update.getCondition().getSelection());
+                response = new Response(0, "Condition not met", Response.Outcome.CONDITION_FAILED);
+            }
+            else {
+                assertEquals(doc1.getId(), ((DocumentRemove) operation).getId());
+                response = new Response(0, null, Response.Outcome.SUCCESS);
+            }
+            assertEquals("content", parameters.route().orElseThrow());
+            parameters.responseHandler().get().handleResponse(response);
+            return new Result(0);
+        });
+        var response = driver.sendRequest("http://localhost/document/v1/feed?route=content&concurrency=1", POST,
+                                          """
+                                          {"put": "id:space:music::one", "fields": {"artist": "Tom Waits"}}
+                                          {"update": "id:space:music:n=1:two", "condition": "music.artist == 'Asa-Chan & Jun-Ray'", "fields": {"artist": {"assign": "Asa-Chan"}}}
+                                          {"put": "id:space:nonexistent::three", "fields": {"artist": "Nobody"}}
+                                          {"remove": "id:space:music::one"}
+                                          """);
+        String[] results = response.readAll().split("\n");
+        assertEquals(200, response.getStatus());
+        assertEquals("application/jsonl; charset=UTF-8", response.getResponse().headers().getFirst("Content-Type"));
+        assertEquals(4, results.length);
+        assertSameJson("{ \"index\": 0, \"id\": \"id:space:music::one\", \"status\": 200 }", results[0]);
+        assertSameJson("{ \"index\": 1, \"id\": \"id:space:music:n=1:two\", \"status\": 412, \"message\": \"Condition not met\" }", results[1]);
+        assertSameJson("{ \"index\": 2, \"status\": 400, \"message\": \"Document type nonexistent does not exist\" }", results[2]);
+        assertSameJson("{ \"index\": 3, \"id\": \"id:space:music::one\", \"status\": 200 }", results[3]);
+
+        // Dry-run operations succeed without being parsed
+        access.session.expect((__, ___) -> { throw new AssertionError("Not supposed to happen"); });
+        response = driver.sendRequest("http://localhost/document/v1/feed?dryRun=true", POST,
+                                      "{\"put\": \"id:space:nonexistent::one\"}\n{\"remove\": \"id:space:music::two\"}\n");
+        assertEquals("{\"index\":0,\"status\":200}\n{\"index\":1,\"status\":200}\n", response.readAll());
+        driver.close();
+    }
+
+    @Test
+    public void testFeedDispatchesOperationsOnSameDocumentInOrder() throws InterruptedException {
+        RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler);
+        BlockingQueue<DocumentOperationParameters> dispatched = new LinkedBlockingQueue<>();
+        access.session.expect((__, parameters) -> {
+            dispatched.add(parameters);
+            return new Result(0);
+        });
+        var response = driver.sendRequest("http://localhost/document/v1/feed?concurrency=4", POST,
+                                          """
+                                          {"put": "id:space:music::one", "fields": {"artist": "Tom Waits"}}
+                                          {"remove": "id:space:music::one"}
+                                          {"remove": "id:space:music::two"}
+                                          """);
+        DocumentOperationParameters first = dispatched.poll(60, TimeUnit.SECONDS);
+        assertNotNull(first);
+        // The remove of the same document waits for the put to complete, and blocks further operations.
+        assertNull(dispatched.poll(100, TimeUnit.MILLISECONDS));
+        first.responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+        for (int i = 0; i < 2; i++)
+            dispatched.poll(60, TimeUnit.SECONDS).responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+        assertEquals("{\"index\":0,\"id\":\"id:space:music::one\",\"status\":200}\n" +
+                     "{\"index\":1,\"id\":\"id:space:music::one\",\"status\":200}\n" +
+                     "{\"index\":2,\"id\":\"id:space:music::two\",\"status\":200}\n",
+                     response.readAll());
+        driver.close();
+    }
+
+    @Test
+    public void testConcurrentFeedsAreBounded() throws InterruptedException {
+        handler.destroy();
+        handler = new DocumentV1ApiHandler(clock, Duration.ofMillis(1), metric, metrics, access, docConfig,
+                                           new DocumentOperationExecutorConfig.Builder(executorConfig).maxFeedStreams(1).build(),
+                                           clusterConfig, bucketConfig);
+        RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler);
+        BlockingQueue<DocumentOperationParameters> dispatched = new LinkedBlockingQueue<>();
+        access.session.expect((__, parameters) -> {
+            dispatched.add(parameters);
+            return new Result(0);
+        });
+        String operations = """
+                            {"remove": "id:space:music::one"}
+                            {"remove": "id:space:music::two"}
+                            """;
+        var response1 = driver.sendRequest("http://localhost/document/v1/feed?concurrency=1", POST, operations);
+        DocumentOperationParameters first = dispatched.poll(60, TimeUnit.SECONDS);
+        assertNotNull(first); // The feed thread now waits for capacity to dispatch the second operation.
+
+        var response2 = driver.sendRequest("http://localhost/document/v1/feed", POST, operations);
+        assertSameJson("{" +
+                       "  \"pathId\": \"/document/v1/feed\"," +
+                       "  \"message\": \"Rejecting feed due to overload: 1 feeds already in progress\"" +
+                       "}", response2.readAll());
+        assertEquals(429, response2.getStatus());
+
+        first.responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+        dispatched.poll(60, TimeUnit.SECONDS).responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+        assertEquals("{\"index\":0,\"id\":\"id:space:music::one\",\"status\":200}\n" +
+                     "{\"index\":1,\"id\":\"id:space:music::two\",\"status\":200}\n",
+                     response1.readAll());
+        driver.close();
+    }
+
+    @Test
+    public void testZstdEncodedContent() {
+        RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler);
+        access.session.expect((operation, parameters) -> {
+            assertEquals(doc1.getFieldValue("artist"), ((DocumentPut) operation).getDocument().getFieldValue("artist"));
+            parameters.responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+            return new Result(0);
+        });
+        var response = sendZstd(driver, "http://localhost/document/v1/space/music/docid/one",
+                                zstd("{\"fields\": {\"artist\": \"Tom Waits\"}}"));
+        assertSameJson("{" +
+                       "  \"pathId\": \"/document/v1/space/music/docid/one\"," +
+                       "  \"id\": \"id:space:music::one\"" +
+                       "}", response.readAll());
+        assertEquals(200, response.getStatus());
+
+        response = sendZstd(driver, "http://localhost/document/v1/feed",
+                            zstd("{\"put\": \"id:space:music::one\", \"fields\": {\"artist\": \"Tom Waits\"}}\n".repeat(3)));
+        assertEquals("{\"index\":0,\"id\":\"id:space:music::one\",\"status\":200}\n" +
+                     "{\"index\":1,\"id\":\"id:space:music::one\",\"status\":200}\n" +
+                     "{\"index\":2,\"id\":\"id:space:music::one\",\"status\":200}\n",
+                     response.readAll());
+
+        access.session.expect((__, ___) -> { throw new AssertionError("Not supposed to happen"); });
+        response = sendZstd(driver, "http://localhost/document/v1/space/music/docid/one", "not zstd".getBytes(UTF_8));
+        assertTrue(response.readAll().contains("Invalid magic prefix"));
+        assertEquals(400, response.getStatus());
+        driver.close();
+    }
+
+    private static byte[] zstd(String body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ZstdOutputStream out = new ZstdOutputStream(compressed)) {
+            out.write(body.getBytes(UTF_8));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static RequestHandlerTestDriver.MockResponseHandler sendZstd(RequestHandlerTestDriver driver, String uri, byte[] body) {
+        RequestHandlerTestDriver.MockResponseHandler responseHandler = new RequestHandlerTestDriver.MockResponseHandler();
+        Request request = HttpRequest.newServerRequest(driver.jDiscDriver(), URI.create(uri), POST);
+        request.headers().put("Content-Encoding", "zstd");
+        ContentChannel content = request.connect(responseHandler);
+        content.write(ByteBuffer.wrap(body), null);
+        content.close(null);
+        request.release();
+        return responseHandler;
+    }
+
     @Test
     public void testResponses() {
         RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler);
@@ -262,6 +462,7 @@ public class DocumentV1ApiTest {
                        {
                          "pathId": "/document/v1/not-found",
                          "message": "Nothing at '/document/v1/not-found'. Available paths are:
+                       /document/v1/feed
                        /document/v1/
                        /document/v1/{namespace}/{documentType}/docid/
                        /document/v1/{namespace}/{documentType}/group/{group}/
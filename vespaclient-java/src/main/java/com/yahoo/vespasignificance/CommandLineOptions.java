@@ -29,6 +29,7 @@ public class CommandLineOptions {
     public static final String ZST_COMPRESSION = "zst-compression";
 
     private final Options options = createOptions();
+    private final Options convertOptions = createConvertOptions();
 
     @SuppressWarnings("AccessStaticViaInstance")
     private static Options createOptions() {
@@ -84,6 +85,32 @@ public class CommandLineOptions {
         return options;
     }
 
+    private static Options createConvertOptions() {
+        Options options = new Options();
+
+        options.addOption(Option.builder("h")
+                .hasArg(false)
+                .desc("Show this syntax page.")
+                .longOpt(HELP_OPTION)
+                .build());
+
+        options.addOption(Option.builder("i")
+                .required()
+                .hasArg(true)
+                .desc("Input significance model file, in JSON format, optionally Zstandard compressed")
+                .longOpt(INPUT_OPTION)
+                .build());
+
+        options.addOption(Option.builder("o")
+                .required()
+                .hasArg(true)
+                .desc("Output file, in the memory mapped binary format")
+                .longOpt(OUTPUT_OPTION)
+                .build());
+
+        return options;
+    }
+
     public void printHelp() {
         HelpFormatter formatter = new HelpFormatter();
 
@@ -93,6 +120,16 @@ public class CommandLineOptions {
                 false);
     }
 
+    public void printConvertHelp() {
+        HelpFormatter formatter = new HelpFormatter();
+
+        formatter.printHelp(
+                "vespa-significance convert <options>", "Convert a significance model file.", convertOptions,
+                "The convert command converts a significance model file in JSON format to the binary format, " +
+                "which is memory mapped rather than read onto the heap when loaded.\n",
+                false);
+    }
+
     public ClientParameters parseCommandLineArguments(String[] args) throws IllegalArgumentException {
         try {
             CommandLineParser clp = new DefaultParser();
@@ -112,5 +149,21 @@ public class CommandLineOptions {
             throw new IllegalArgumentException("Failed to parse command line arguments: " + e.getMessage());
         }
     }
+
+    public ClientParameters parseConvertCommandLineArguments(String[] args) throws IllegalArgumentException {
+        try {
+            CommandLineParser clp = new DefaultParser();
+            CommandLine cl = clp.parse(convertOptions, args);
+            ClientParameters.Builder builder = new ClientParameters.Builder();
+
+            builder.setHelp(cl.hasOption(HELP_OPTION));
+            builder.setInputFile(cl.getOptionValue(INPUT_OPTION));
+            builder.setOutputFile(cl.getOptionValue(OUTPUT_OPTION));
+
+            return builder.build();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Failed to parse command line arguments: " + e.getMessage());
+        }
+    }
 }
 
@@ -20,13 +20,22 @@ public class Main {
                 System.exit(1);
             }
 
-            if (!args[0].equals("generate")) {
-                System.err.println("Invalid command. Use 'generate' to generate significance models.");
+            if (!args[0].equals("generate") && !args[0].equals("convert")) {
+                System.err.println("Invalid command. Use 'generate' to generate significance models, " +
+                                   "or 'convert' to convert them to the binary format.");
                 System.exit(1);
             }
             String[] commandLineArgs = List.of(args).subList(1, args.length).toArray(new String[0]);
 
             CommandLineOptions options = new CommandLineOptions();
+            if (args[0].equals("convert")) {
+                ClientParameters params = options.parseConvertCommandLineArguments(commandLineArgs);
+                if (params.help)
+                    options.printConvertHelp();
+                else
+                    new SignificanceModelConverter(params).convert();
+                return;
+            }
             ClientParameters params = options.parseCommandLineArguments(commandLineArgs);
 
             if (params.help) {
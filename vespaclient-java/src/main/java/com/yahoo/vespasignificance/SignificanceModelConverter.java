@@ -0,0 +1,43 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+package com.yahoo.vespasignificance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yahoo.language.significance.impl.MappedSignificanceModelFile;
+import com.yahoo.language.significance.impl.SignificanceModelFile;
+import io.airlift.compress.zstd.ZstdInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts a significance model file in JSON format, optionally Zstandard compressed,
+ * to the binary format which is memory mapped when loaded.
+ */
+public class SignificanceModelConverter {
+
+    private final Path inputFile;
+    private final Path outputFile;
+
+    public SignificanceModelConverter(ClientParameters clientParameters) {
+        this.inputFile = Path.of(clientParameters.inputFile);
+        this.outputFile = Path.of(clientParameters.outputFile);
+        if (outputFile.toString().endsWith(".zst"))
+            throw new IllegalArgumentException("Output file must not have .zst extension, as the binary format is not compressed");
+    }
+
+    public void convert() throws IOException {
+        SignificanceModelFile modelFile;
+        try (InputStream in = inputFile.toString().endsWith(".zst") ?
+                              new ZstdInputStream(Files.newInputStream(inputFile)) :
+                              Files.newInputStream(inputFile)) {
+            modelFile = new ObjectMapper().readValue(in, SignificanceModelFile.class);
+        }
+        MappedSignificanceModelFile.write(modelFile, outputFile);
+        System.out.println("Converted " + modelFile.languages().size() + " language models from " + inputFile +
+                           " to " + outputFile);
+    }
+
+}
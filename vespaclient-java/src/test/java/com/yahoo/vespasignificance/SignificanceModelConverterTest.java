@@ -0,0 +1,54 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+package com.yahoo.vespasignificance;
+
+import com.yahoo.language.significance.SignificanceModel;
+import com.yahoo.language.significance.impl.MappedSignificanceModelFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SignificanceModelConverterTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testConvertGeneratedFile() throws IOException {
+        Path jsonFile = tempDir.resolve("output.json.zst");
+        Path binaryFile = tempDir.resolve("output.bin");
+        new SignificanceModelGenerator(new ClientParameters.Builder()
+                                               .setInputFile("src/test/files/no.jsonl")
+                                               .setOutputFile(jsonFile.toString())
+                                               .setField("text")
+                                               .setLanguage("nb")
+                                               .setDocType("nb")
+                                               .setZstCompression("true")
+                                               .build()).generate();
+
+        new SignificanceModelConverter(parameters(jsonFile, binaryFile)).convert();
+
+        assertTrue(MappedSignificanceModelFile.isMappedFile(binaryFile));
+        SignificanceModel model = MappedSignificanceModelFile.open(binaryFile).models().get("nb");
+        assertEquals(3, model.documentFrequency("fra").frequency());
+        assertEquals(3, model.documentFrequency("skriveform").frequency());
+        assertEquals(1, model.documentFrequency("not-a-word").frequency());
+    }
+
+    @Test
+    void testCompressedOutputIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new SignificanceModelConverter(parameters(tempDir.resolve("in.json"), tempDir.resolve("out.bin.zst"))));
+    }
+
+    private ClientParameters parameters(Path inputFile, Path outputFile) {
+        return new ClientParameters.Builder().setInputFile(inputFile.toString()).setOutputFile(outputFile.toString()).build();
+    }
+
+}
@@ -0,0 +1,52 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.compress;
+
+import io.airlift.compress.MalformedInputException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses a stream of Zstd frames, such as those written by {@link ZstdOutputStream}, as they are read.
+ * Malformed input is reported as an {@link IOException}.
+ * Implemented based on https://github.com/airlift/aircompressor - a pure Java implementation (no JNI).
+ */
+public class ZstdInputStream extends InputStream {
+
+    private final io.airlift.compress.zstd.ZstdInputStream in;
+
+    public ZstdInputStream(InputStream in) {
+        this.in = new io.airlift.compress.zstd.ZstdInputStream(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        try {
+            return in.read();
+        }
+        catch (MalformedInputException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        try {
+            return in.read(b, off, len);
+        }
+        catch (MalformedInputException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return in.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
@@ -1,6 +1,8 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.slime;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.function.Consumer;
 import static com.yahoo.slime.BinaryFormat.decode_double;
 import static com.yahoo.slime.BinaryFormat.decode_meta;
@@ -9,6 +11,9 @@ import static com.yahoo.slime.BinaryFormat.decode_zigzag;
 
 /**
  * A read-only view of a Slime value that is stored in binary format.
+ * Only the layout of the values is indexed up front; values are decoded
+ * from the underlying bytes when inspected, which is cheaper than decoding
+ * into a Slime object when only some of the values are used.
  **/
 public final class BinaryView implements Inspector {
 
@@ -93,11 +98,7 @@ public final class BinaryView implements Inspector {
         } else {
             --bytes;
         }
-        byte[] ret = new byte[bytes];
-        for (int i = 0; i < bytes; ++i) {
-            ret[i] = data[idx++];
-        }
-        return ret;
+        return Arrays.copyOfRange(data, idx, idx + bytes);
     }
     private Inspector find_field(int pos, int len, int sym) {
         for (int i = 0; i < len; ++i) {
@@ -284,10 +285,20 @@ public final class BinaryView implements Inspector {
     }
 
     public static Inspector inspect(byte[] data) {
-        var input = new BufferedInput(data);
+        return inspect(data, 0, data.length);
+    }
+
+    /**
+     * Returns a view of the Slime value stored in binary format in the given part of an array,
+     * which is used directly rather than copied, and must not be changed while the view is in use.
+     *
+     * @throws IllegalArgumentException if the data is not a valid binary Slime value
+     */
+    public static Inspector inspect(byte[] data, int offset, int length) {
+        var input = new BufferedInput(data, offset, length);
         var names = new SymbolTable();
         BinaryDecoder.decodeSymbolTable(input, names);
-        var index = new DecodeIndex(input.getBacking().length, input.getPosition());
+        var index = new DecodeIndex(offset + length, input.getPosition());
         buildIndex(input, index, 0, 0);
         if (input.failed()) {
             throw new IllegalArgumentException("bad input: " + input.getErrorMessage());
@@ -295,6 +306,21 @@ public final class BinaryView implements Inspector {
         return new BinaryView(input.getBacking(), names, index.getBacking(), 0);
     }
 
+    /**
+     * Returns a view of the Slime value stored in binary format in the remaining bytes of the given buffer.
+     * The backing array of a heap buffer is used directly, while the bytes of other buffers are copied.
+     * The position of the buffer is not changed.
+     *
+     * @throws IllegalArgumentException if the data is not a valid binary Slime value
+     */
+    public static Inspector inspect(ByteBuffer buffer) {
+        if (buffer.hasArray())
+            return inspect(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+        return inspect(data);
+    }
+
     static int peek_cmpr_int_for_testing(byte[] data, int idx) {
         return new BinaryView(data, null, null, -1).peek_cmpr_int(idx);
     }
@@ -157,6 +157,24 @@ public abstract class IndexedTensor implements Tensor {
      */
     public abstract float getFloat(long valueIndex);
 
+    /**
+     * Returns the values of this in <i>standard value order</i> as doubles.
+     * This is the array holding the values of this if they are stored as doubles, and a copy otherwise.
+     * The returned array must not be modified.
+     */
+    public double[] valuesForReading() {
+        double[] values = new double[sizeAsInt()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = get(i);
+        return values;
+    }
+
+    /**
+     * Returns the array holding the values of this in <i>standard value order</i> if they are stored as floats,
+     * and null otherwise. The returned array must not be modified.
+     */
+    public float[] floatValuesForReading() { return null; }
+
     static long toValueIndex(long[] indexes, DimensionSizes sizes) {
         if (indexes.length == 1) return indexes[0]; // for speed
         if (indexes.length == 0) return 0; // for speed
@@ -5,6 +5,7 @@ import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.MapEvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
 import com.yahoo.tensor.evaluation.TypeContext;
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.TensorType.Dimension;
@@ -63,10 +64,19 @@ public class CosineSimilarity<NAMETYPE extends Name> extends TensorFunction<NAME
         return toPrimitive().type(context);
     }
 
-    /** Evaluates this by first converting it to a primitive function */
+    /**
+     * Evaluates this directly over the cell values if both arguments are dense vectors,
+     * and by first converting it to a primitive function otherwise.
+     */
     @Override
     public Tensor evaluate(EvaluationContext<NAMETYPE> context) {
-        return toPrimitive().evaluate(context);
+        Tensor a = arg1.evaluate(context);
+        Tensor b = arg2.evaluate(context);
+        if (DenseVectors.areDenseVectors(a, b, dimension)) {
+            IndexedTensor ia = (IndexedTensor) a, ib = (IndexedTensor) b;
+            return Tensor.from(DenseVectors.dot(ia, ib) / Math.sqrt(DenseVectors.dot(ia, ia) * DenseVectors.dot(ib, ib)));
+        }
+        return new CosineSimilarity<NAMETYPE>(new ConstantTensor<>(a), new ConstantTensor<>(b), dimension).toPrimitive().evaluate(context);
     }
 
     @Override
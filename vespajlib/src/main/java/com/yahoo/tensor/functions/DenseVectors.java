@@ -0,0 +1,49 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.impl.DenseKernels;
+
+/**
+ * Computations over the cell values of dense vectors, used to evaluate vector similarity functions
+ * without creating intermediate tensors.
+ */
+final class DenseVectors {
+
+    private DenseVectors() {}
+
+    /** Returns whether both tensors are indexed vectors in the given dimension, of the same size */
+    static boolean areDenseVectors(Tensor a, Tensor b, String dimension) {
+        return isDenseVector(a, dimension) && isDenseVector(b, dimension) && a.size() == b.size();
+    }
+
+    private static boolean isDenseVector(Tensor tensor, String dimension) {
+        if ( ! (tensor instanceof IndexedTensor)) return false;
+        if (tensor.type().rank() != 1) return false;
+        TensorType.Dimension vectorDimension = tensor.type().dimensions().get(0);
+        return vectorDimension.name().equals(dimension) && vectorDimension.type() == TensorType.Dimension.Type.indexedBound;
+    }
+
+    /** Returns the dot product of two vectors of the same size */
+    static double dot(IndexedTensor a, IndexedTensor b) {
+        int length = a.sizeAsInt();
+        float[] aFloats = a.floatValuesForReading();
+        float[] bFloats = b.floatValuesForReading();
+        if (aFloats != null && bFloats != null)
+            return DenseKernels.dot(aFloats, 0, bFloats, 0, length);
+        return DenseKernels.dot(a.valuesForReading(), 0, b.valuesForReading(), 0, length);
+    }
+
+    /** Returns the sum of the squared differences between the cells of two vectors of the same size */
+    static double squaredDistance(IndexedTensor a, IndexedTensor b) {
+        int length = a.sizeAsInt();
+        float[] aFloats = a.floatValuesForReading();
+        float[] bFloats = b.floatValuesForReading();
+        if (aFloats != null && bFloats != null)
+            return DenseKernels.squaredDistance(aFloats, bFloats, length);
+        return DenseKernels.squaredDistance(a.valuesForReading(), b.valuesForReading(), length);
+    }
+
+}
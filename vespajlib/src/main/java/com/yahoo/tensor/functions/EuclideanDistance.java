@@ -4,6 +4,7 @@ package com.yahoo.tensor.functions;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
 import com.yahoo.tensor.evaluation.TypeContext;
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.TensorType.Dimension;
@@ -61,10 +62,17 @@ public class EuclideanDistance<NAMETYPE extends Name> extends TensorFunction<NAM
         return toPrimitive().type(context);
     }
 
-    /** Evaluates this by first converting it to a primitive function */
+    /**
+     * Evaluates this directly over the cell values if both arguments are dense vectors,
+     * and by first converting it to a primitive function otherwise.
+     */
     @Override
     public Tensor evaluate(EvaluationContext<NAMETYPE> context) {
-        return toPrimitive().evaluate(context);
+        Tensor a = arg1.evaluate(context);
+        Tensor b = arg2.evaluate(context);
+        if (DenseVectors.areDenseVectors(a, b, dimension))
+            return Tensor.from(Math.sqrt(DenseVectors.squaredDistance((IndexedTensor) a, (IndexedTensor) b)));
+        return new EuclideanDistance<NAMETYPE>(new ConstantTensor<>(a), new ConstantTensor<>(b), dimension).toPrimitive().evaluate(context);
     }
 
     @Override
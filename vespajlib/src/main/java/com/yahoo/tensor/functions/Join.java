@@ -12,6 +12,7 @@ import com.yahoo.tensor.TypeResolver;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
 import com.yahoo.tensor.evaluation.TypeContext;
+import com.yahoo.tensor.impl.DenseKernels;
 import com.yahoo.tensor.impl.TensorAddressAny;
 
 import java.util.ArrayList;
@@ -116,16 +117,33 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
 
     private static Tensor indexedVectorJoin(IndexedTensor a, IndexedTensor b, TensorType type, DoubleBinaryOperator combinator) {
         int joinedRank = (int)Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
-        Iterator<Double> aIterator = a.valueIterator();
-        Iterator<Double> bIterator = b.valueIterator();
-        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type, new DimensionSizes.Builder(1).set(0, joinedRank).build());
-        for (int i = 0; i < joinedRank; i++)
-            builder.cell(combinator.applyAsDouble(aIterator.next(), bIterator.next()), i);
-        return builder.build();
+        return denseJoin(a, b, type, new DimensionSizes.Builder(1).set(0, joinedRank).build(), combinator);
+    }
+
+    /** Joins the cells at the same value index in a and b, for all the value indexes of the given sizes */
+    private static Tensor denseJoin(IndexedTensor a, IndexedTensor b, TensorType type, DimensionSizes sizes,
+                                   DoubleBinaryOperator combinator) {
+        int length = (int)sizes.totalSize();
+        float[] aFloats = a.floatValuesForReading();
+        float[] bFloats = b.floatValuesForReading();
+        if (type.valueType() != TensorType.Value.DOUBLE && aFloats != null && bFloats != null) {
+            float[] values = new float[length];
+            DenseKernels.join(aFloats, bFloats, values, length, combinator);
+            return IndexedTensor.Builder.of(type, sizes, values).build();
+        }
+        else {
+            double[] values = new double[length];
+            DenseKernels.join(a.valuesForReading(), b.valuesForReading(), values, length, combinator);
+            return IndexedTensor.Builder.of(type, sizes, values).build();
+        }
     }
 
     /** When both tensors have the same dimensions, at most one cell matches a cell in the other tensor */
     private static Tensor singleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        if (a instanceof IndexedTensor indexedA && b instanceof IndexedTensor indexedB
+            && indexedA.dimensionSizes().equals(indexedB.dimensionSizes()))
+            return denseJoin(indexedA, indexedB, joinedType, indexedA.dimensionSizes(), combinator);
+
         Tensor.Builder builder = Tensor.Builder.of(joinedType);
         for (Iterator<Tensor.Cell> i = a.cellIterator(); i.hasNext(); ) {
             Map.Entry<TensorAddress, Double> aCell = i.next();
@@ -158,9 +176,10 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         Set<String> superDimensionNames = new HashSet<>(superspace.type().dimensionNames());
         superDimensionNames.removeAll(subspace.type().dimensionNames());
 
+        double[] subspaceValues = subspace.valuesForReading();
         for (Iterator<IndexedTensor.SubspaceIterator> i = superspace.subspaceIterator(superDimensionNames, joinedSizes); i.hasNext(); ) {
             IndexedTensor.SubspaceIterator subspaceInSuper = i.next();
-            joinSubspaces(subspace.valueIterator(), subspace.size(),
+            joinSubspaces(subspaceValues, subspace.size(),
                     subspaceInSuper, subspaceInSuper.size(),
                     reversedArgumentOrder, builder, combinator);
         }
@@ -168,7 +187,7 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         return builder.build();
     }
 
-    private static void joinSubspaces(Iterator<Double> subspace, long subspaceSize,
+    private static void joinSubspaces(double[] subspace, long subspaceSize,
                                       Iterator<Tensor.Cell> superspace, long superspaceSize,
                                       boolean reversedArgumentOrder, IndexedTensor.Builder builder,
                                       DoubleBinaryOperator combinator) {
@@ -176,12 +195,12 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         if (reversedArgumentOrder) {
             for (int i = 0; i < joinedLength; i++) {
                 Tensor.Cell supercell = superspace.next();
-                builder.cell(supercell, combinator.applyAsDouble(supercell.getValue(), subspace.next()));
+                builder.cell(supercell, combinator.applyAsDouble(supercell.getDoubleValue(), subspace[i]));
             }
         } else {
             for (int i = 0; i < joinedLength; i++) {
                 Tensor.Cell supercell = superspace.next();
-                builder.cell(supercell, combinator.applyAsDouble(subspace.next(), supercell.getValue()));
+                builder.cell(supercell, combinator.applyAsDouble(subspace[i], supercell.getDoubleValue()));
             }
         }
     }
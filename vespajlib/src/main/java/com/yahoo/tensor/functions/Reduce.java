@@ -12,6 +12,7 @@ import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
 import com.yahoo.tensor.evaluation.TypeContext;
 import com.yahoo.tensor.impl.Convert;
+import com.yahoo.tensor.impl.DenseKernels;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -122,8 +123,8 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
         if (dimensions.isEmpty() || dimensions.size() == argument.type().dimensions().size()) {
             if (argument.isEmpty())
                 return Tensor.from(0.0);
-            else if (argument.type().dimensions().size() == 1 && argument instanceof IndexedTensor)
-                return reduceIndexedVector((IndexedTensor) argument, aggregator);
+            else if (argument instanceof IndexedTensor indexed)
+                return reduceAllIndexed(indexed, aggregator);
             else
                 return reduceAllGeneral(argument, aggregator);
         }
@@ -231,12 +232,24 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
         return Tensor.Builder.of(TensorType.empty).cell(valueAggregator.aggregatedValue()).build();
     }
 
-    private static Tensor reduceIndexedVector(IndexedTensor argument, Aggregator aggregator) {
-        ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
-        int dimensionSize = Convert.safe2Int(argument.dimensionSizes().size(0));
-        for (int i = 0; i < dimensionSize ; i++)
-            valueAggregator.aggregate(argument.get(i));
-        return Tensor.Builder.of(TensorType.empty).cell(valueAggregator.aggregatedValue()).build();
+    private static Tensor reduceAllIndexed(IndexedTensor argument, Aggregator aggregator) {
+        return Tensor.Builder.of(TensorType.empty).cell(reduceAllIndexedValue(argument, aggregator)).build();
+    }
+
+    private static double reduceAllIndexedValue(IndexedTensor argument, Aggregator aggregator) {
+        int size = argument.sizeAsInt();
+        float[] floats = argument.floatValuesForReading();
+        return switch (aggregator) {
+            case sum -> floats != null ? DenseKernels.sum(floats, 0, size) : DenseKernels.sum(argument.valuesForReading(), 0, size);
+            case max -> floats != null ? DenseKernels.max(floats, 0, size) : DenseKernels.max(argument.valuesForReading(), 0, size);
+            case min -> floats != null ? DenseKernels.min(floats, 0, size) : DenseKernels.min(argument.valuesForReading(), 0, size);
+            default -> {
+                ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
+                for (int i = 0; i < size; i++)
+                    valueAggregator.aggregate(argument.get(i));
+                yield valueAggregator.aggregatedValue();
+            }
+        };
     }
 
     static abstract class ValueAggregator {
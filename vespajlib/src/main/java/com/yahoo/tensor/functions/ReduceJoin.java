@@ -7,6 +7,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.impl.DenseKernels;
 
 import java.util.Arrays;
 import java.util.List;
@@ -140,12 +141,21 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         return evaluateGeneral(a, b, reducedType);
     }
 
+    /** Returns whether this computes sums of products, which is done with dense kernels */
+    private boolean isDotProduct() {
+        return combinator instanceof ScalarFunctions.Multiply && aggregator == Reduce.Aggregator.sum;
+    }
+
     private Tensor vectorVectorProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType) {
         if ( a.type().dimensions().size() != 1 || b.type().dimensions().size() != 1) {
             throw new IllegalArgumentException("Wrong dimension sizes for tensors for vector-vector product");
         }
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         long commonSize = Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
+        if (isDotProduct()) {
+            builder.cellByDirectIndex(0, new DotProduct(a, b).of(0, 0, (int)commonSize));
+            return builder.build();
+        }
 
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ic = 0; ic < commonSize; ++ic) {
@@ -164,6 +174,13 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         DimensionSizes sizesA = a.dimensionSizes();
         DimensionSizes sizesB = b.dimensionSizes();
+        if (isDotProduct()) {
+            DotProduct dotProduct = new DotProduct(a, b);
+            int length = (int)Math.min(sizesA.size(0), sizesB.size(1));
+            for (int ib = 0; ib < sizesB.size(0); ++ib)
+                builder.cellByDirectIndex(ib, dotProduct.of(0, (int)(ib * sizesB.size(1)), length));
+            return builder.build();
+        }
 
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ib = 0; ib < sizesB.size(0); ++ib) {
@@ -190,6 +207,15 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         int ibToReduced = reducedType.indexOfDimension(b.type().dimensions().get(0).name()).get();
         long strideA = iaToReduced < ibToReduced ? sizesB.size(0) : 1;
         long strideB = ibToReduced < iaToReduced ? sizesA.size(0) : 1;
+        if (isDotProduct()) {
+            DotProduct dotProduct = new DotProduct(a, b);
+            int length = (int)Math.min(sizesA.size(1), sizesB.size(1));
+            for (int ia = 0; ia < sizesA.size(0); ++ia)
+                for (int ib = 0; ib < sizesB.size(0); ++ib)
+                    builder.cellByDirectIndex(ia * strideA + ib * strideB,
+                                              dotProduct.of((int)(ia * sizesA.size(1)), (int)(ib * sizesB.size(1)), length));
+            return builder.build();
+        }
 
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ia = 0; ia < sizesA.size(0); ++ia) {
@@ -377,4 +403,27 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
 
     }
 
+    /** Dot products of slices of the values of two tensors, as floats if both hold floats, and as doubles otherwise */
+    private static final class DotProduct {
+
+        private final float[] aFloats, bFloats;
+        private final double[] aDoubles, bDoubles;
+
+        DotProduct(IndexedTensor a, IndexedTensor b) {
+            float[] aFloats = a.floatValuesForReading();
+            float[] bFloats = b.floatValuesForReading();
+            boolean floats = aFloats != null && bFloats != null;
+            this.aFloats = floats ? aFloats : null;
+            this.bFloats = floats ? bFloats : null;
+            this.aDoubles = floats ? null : a.valuesForReading();
+            this.bDoubles = floats ? null : b.valuesForReading();
+        }
+
+        double of(int aOffset, int bOffset, int length) {
+            return aFloats != null ? DenseKernels.dot(aFloats, aOffset, bFloats, bOffset, length)
+                                   : DenseKernels.dot(aDoubles, aOffset, bDoubles, bOffset, length);
+        }
+
+    }
+
 }
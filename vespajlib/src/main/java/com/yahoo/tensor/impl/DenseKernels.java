@@ -0,0 +1,212 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.impl;
+
+import com.yahoo.tensor.functions.ScalarFunctions;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Loops over the cell values of dense tensors, used by the tensor functions when their arguments are indexed.
+ *
+ * The common join combinators are specialized into plain loops over primitive arrays, which the JIT compiler
+ * unrolls and turns into SIMD instructions, while other combinators are applied cell by cell.
+ * Sums and dot products use four independent accumulators, so that consecutive additions do not wait for each other.
+ * They are always accumulated as doubles, also for float cells.
+ */
+public final class DenseKernels {
+
+    private DenseKernels() {}
+
+    /** Sets result[i] = combinator(a[i], b[i]) for all i less than length */
+    public static void join(double[] a, double[] b, double[] result, int length, DoubleBinaryOperator combinator) {
+        if (combinator instanceof ScalarFunctions.Add) {
+            for (int i = 0; i < length; i++)
+                result[i] = a[i] + b[i];
+        }
+        else if (combinator instanceof ScalarFunctions.Subtract) {
+            for (int i = 0; i < length; i++)
+                result[i] = a[i] - b[i];
+        }
+        else if (combinator instanceof ScalarFunctions.Multiply) {
+            for (int i = 0; i < length; i++)
+                result[i] = a[i] * b[i];
+        }
+        else if (combinator instanceof ScalarFunctions.Max) {
+            for (int i = 0; i < length; i++)
+                result[i] = Math.max(a[i], b[i]);
+        }
+        else if (combinator instanceof ScalarFunctions.Min) {
+            for (int i = 0; i < length; i++)
+                result[i] = Math.min(a[i], b[i]);
+        }
+        else {
+            for (int i = 0; i < length; i++)
+                result[i] = combinator.applyAsDouble(a[i], b[i]);
+        }
+    }
+
+    /**
+     * Sets result[i] = combinator(a[i], b[i]) for all i less than length.
+     * The specialized combinators produce the same result as applying them to doubles and rounding to float.
+     */
+    public static void join(float[] a, float[] b, float[] result, int length, DoubleBinaryOperator combinator) {
+        if (combinator instanceof ScalarFunctions.Add) {
+            for (int i = 0; i < length; i++)
+                result[i] = a[i] + b[i];
+        }
+        else if (combinator instanceof ScalarFunctions.Subtract) {
+            for (int i = 0; i < length; i++)
+                result[i] = a[i] - b[i];
+        }
+        else if (combinator instanceof ScalarFunctions.Multiply) {
+            for (int i = 0; i < length; i++)
+                result[i] = a[i] * b[i];
+        }
+        else if (combinator instanceof ScalarFunctions.Max) {
+            for (int i = 0; i < length; i++)
+                result[i] = Math.max(a[i], b[i]);
+        }
+        else if (combinator instanceof ScalarFunctions.Min) {
+            for (int i = 0; i < length; i++)
+                result[i] = Math.min(a[i], b[i]);
+        }
+        else {
+            for (int i = 0; i < length; i++)
+                result[i] = (float)combinator.applyAsDouble(a[i], b[i]);
+        }
+    }
+
+    /** Returns the sum of the given number of values starting at offset */
+    public static double sum(double[] values, int offset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = offset, end = offset + length, unrolledEnd = offset + (length & ~3);
+        for (; i < unrolledEnd; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < end; i++)
+            s0 += values[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Returns the sum of the given number of values starting at offset */
+    public static double sum(float[] values, int offset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = offset, end = offset + length, unrolledEnd = offset + (length & ~3);
+        for (; i < unrolledEnd; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < end; i++)
+            s0 += values[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Returns the largest of the given number of values starting at offset, ignoring NaN, or -Infinity if none */
+    public static double max(double[] values, int offset, int length) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = offset, end = offset + length; i < end; i++)
+            if (values[i] > max)
+                max = values[i];
+        return max;
+    }
+
+    /** Returns the largest of the given number of values starting at offset, ignoring NaN, or -Infinity if none */
+    public static double max(float[] values, int offset, int length) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = offset, end = offset + length; i < end; i++)
+            if (values[i] > max)
+                max = values[i];
+        return max;
+    }
+
+    /** Returns the smallest of the given number of values starting at offset, ignoring NaN, or Infinity if none */
+    public static double min(double[] values, int offset, int length) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = offset, end = offset + length; i < end; i++)
+            if (values[i] < min)
+                min = values[i];
+        return min;
+    }
+
+    /** Returns the smallest of the given number of values starting at offset, ignoring NaN, or Infinity if none */
+    public static double min(float[] values, int offset, int length) {
+        float min = Float.POSITIVE_INFINITY;
+        for (int i = offset, end = offset + length; i < end; i++)
+            if (values[i] < min)
+                min = values[i];
+        return min;
+    }
+
+    /** Returns the dot product of the given number of values of a and b, starting at the given offsets */
+    public static double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0, unrolledLength = length & ~3;
+        for (; i < unrolledLength; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += a[aOffset + i] * b[bOffset + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Returns the dot product of the given number of values of a and b, starting at the given offsets */
+    public static double dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0, unrolledLength = length & ~3;
+        for (; i < unrolledLength; i += 4) {
+            s0 += (double)a[aOffset + i] * b[bOffset + i];
+            s1 += (double)a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += (double)a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += (double)a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += (double)a[aOffset + i] * b[bOffset + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Returns the sum of the squared differences between the first length values of a and b */
+    public static double squaredDistance(double[] a, double[] b, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0, unrolledLength = length & ~3;
+        for (; i < unrolledLength; i += 4) {
+            double d0 = a[i] - b[i], d1 = a[i + 1] - b[i + 1], d2 = a[i + 2] - b[i + 2], d3 = a[i + 3] - b[i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < length; i++) {
+            double d = a[i] - b[i];
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Returns the sum of the squared differences between the first length values of a and b */
+    public static double squaredDistance(float[] a, float[] b, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0, unrolledLength = length & ~3;
+        for (; i < unrolledLength; i += 4) {
+            double d0 = (double)a[i] - b[i], d1 = (double)a[i + 1] - b[i + 1];
+            double d2 = (double)a[i + 2] - b[i + 2], d3 = (double)a[i + 3] - b[i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < length; i++) {
+            double d = (double)a[i] - b[i];
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+}
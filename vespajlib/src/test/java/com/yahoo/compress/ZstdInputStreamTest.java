@@ -0,0 +1,50 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.compress;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ZstdInputStreamTest {
+
+    @Test
+    void input_stream_decompresses_frames() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("The quick brown fox jumps over the lazy dog ").append(i).append('\n');
+        }
+        byte[] inputData = builder.toString().getBytes(UTF_8);
+        ByteArrayOutputStream arrayOut = new ByteArrayOutputStream();
+        try (ZstdOutputStream zstdOut = new ZstdOutputStream(arrayOut, 1 << 10)) { // Several frames.
+            zstdOut.write(inputData);
+        }
+
+        try (InputStream zstdIn = new ZstdInputStream(new ByteArrayInputStream(arrayOut.toByteArray()))) {
+            assertEquals(inputData[0], zstdIn.read());
+            assertArrayEquals(inputData, concat(inputData[0], zstdIn.readAllBytes()));
+            assertEquals(-1, zstdIn.read());
+        }
+    }
+
+    @Test
+    void malformed_input_is_an_io_exception() {
+        InputStream zstdIn = new ZstdInputStream(new ByteArrayInputStream("not zstd".getBytes(UTF_8)));
+        assertThrows(IOException.class, zstdIn::readAllBytes);
+    }
+
+    private static byte[] concat(byte first, byte[] rest) {
+        byte[] all = new byte[rest.length + 1];
+        all[0] = first;
+        System.arraycopy(rest, 0, all, 1, rest.length);
+        return all;
+    }
+
+}
@@ -1,7 +1,9 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.slime;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.function.Consumer;
 
@@ -306,6 +308,27 @@ public class BinaryViewTest {
         }
     }
 
+    @Test public void testBinaryViewShapesParityInBuffers() {
+        for (int i = 0; i < numShapes; ++i) {
+            var slime = makeSlime(i);
+            ctx = "case " + i + ": '" + slime.toString() + "'";
+            byte[] data = BinaryFormat.encode(slime);
+            byte[] padded = new byte[data.length + 10];
+            Arrays.fill(padded, (byte)-1);
+            System.arraycopy(data, 0, padded, 7, data.length);
+            ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 3).position(3);
+            direct.put(data).position(3);
+            try {
+                checkParity(slime.get(), BinaryView.inspect(padded, 7, data.length));
+                checkParity(slime.get(), BinaryView.inspect(ByteBuffer.wrap(padded, 7, data.length).slice()));
+                checkParity(slime.get(), BinaryView.inspect(direct));
+                assertEquals(3, direct.position());
+            } catch (Exception e) {
+                fail(ctx + ", got exception: " + e);
+            }
+        }
+    }
+
     void assertFail(byte[] data, String reason) {
         try {
             var view = BinaryView.inspect(data);
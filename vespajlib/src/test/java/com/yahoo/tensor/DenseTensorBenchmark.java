@@ -0,0 +1,69 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.ReduceJoin;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.TensorFunction;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Microbenchmark of joins, sums and dot products of dense vectors of float and double cells.
+ */
+public class DenseTensorBenchmark {
+
+    private final static Random random = new Random();
+
+    private final MapEvaluationContext<Name> context = new MapEvaluationContext<>();
+
+    public double benchmark(TensorFunction<Name> function, int iterations) {
+        evaluate(function, Math.max(iterations / 10, 10)); // warmup
+        System.gc();
+        long startTime = System.nanoTime();
+        evaluate(function, iterations);
+        long totalTime = System.nanoTime() - startTime;
+        return (double)totalTime / (double)iterations;
+    }
+
+    private double evaluate(TensorFunction<Name> function, int iterations) {
+        double result = 0;
+        for (int i = 0 ; i < iterations; i++)
+            result += function.evaluate(context).sum().asDouble();
+        return result;
+    }
+
+    private static Tensor vector(TensorType type) {
+        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type);
+        for (int i = 0; i < type.dimensions().get(0).size().get(); i++)
+            builder.cell(random.nextDouble(), i);
+        return builder.build();
+    }
+
+    public static void main(String[] args) {
+        DenseTensorBenchmark benchmark = new DenseTensorBenchmark();
+        for (String valueType : List.of("float", "double")) {
+            for (int size : new int[] { 128, 512, 1024, 4096 }) {
+                TensorType type = TensorType.fromSpec("tensor<" + valueType + ">(x[" + size + "])");
+                benchmark.context.put("a", vector(type));
+                benchmark.context.put("b", vector(type));
+                var a = new VariableTensor<Name>("a", type);
+                var b = new VariableTensor<Name>("b", type);
+                int iterations = 20_000_000 / size;
+                System.out.printf("%-6s x[%4d]: add %8.1f ns, multiply %8.1f ns, sum %8.1f ns, dot product %8.1f ns%n",
+                                  valueType, size,
+                                  benchmark.benchmark(new Join<>(a, b, ScalarFunctions.add()), iterations),
+                                  benchmark.benchmark(new Join<>(a, b, ScalarFunctions.multiply()), iterations),
+                                  benchmark.benchmark(new Reduce<>(a, Reduce.Aggregator.sum), iterations),
+                                  benchmark.benchmark(new ReduceJoin<>(a, b, ScalarFunctions.multiply(), Reduce.Aggregator.sum, List.of("x")),
+                                                      iterations));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.impl;
+
+import com.yahoo.tensor.functions.ScalarFunctions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.DoubleBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DenseKernelsTestCase {
+
+    private static final Random random = new Random(42);
+
+    @Test
+    void testJoin() {
+        List<DoubleBinaryOperator> combinators = List.of(ScalarFunctions.add(), ScalarFunctions.subtract(),
+                                                         ScalarFunctions.multiply(), ScalarFunctions.max(),
+                                                         ScalarFunctions.min(), ScalarFunctions.divide());
+        for (int length : new int[] { 0, 1, 3, 4, 7, 128, 131 }) {
+            double[] a = doubles(length), b = doubles(length);
+            float[] fa = floats(length), fb = floats(length);
+            for (DoubleBinaryOperator combinator : combinators) {
+                double[] result = new double[length];
+                DenseKernels.join(a, b, result, length, combinator);
+                float[] floatResult = new float[length];
+                DenseKernels.join(fa, fb, floatResult, length, combinator);
+                for (int i = 0; i < length; i++) {
+                    assertEquals(combinator.applyAsDouble(a[i], b[i]), result[i], 0.0, combinator + " at " + i);
+                    assertEquals((float)combinator.applyAsDouble(fa[i], fb[i]), floatResult[i], 0.0, combinator + " at " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testReductions() {
+        for (int length : new int[] { 0, 1, 3, 4, 7, 128, 131 }) {
+            double[] values = doubles(length + 2);
+            float[] floatValues = floats(length + 2);
+            double sum = 0, floatSum = 0;
+            double max = Double.NEGATIVE_INFINITY, min = Double.POSITIVE_INFINITY;
+            double floatMax = Double.NEGATIVE_INFINITY, floatMin = Double.POSITIVE_INFINITY;
+            for (int i = 1; i <= length; i++) {
+                sum += values[i];
+                floatSum += floatValues[i];
+                max = Math.max(max, values[i]);
+                min = Math.min(min, values[i]);
+                floatMax = Math.max(floatMax, floatValues[i]);
+                floatMin = Math.min(floatMin, floatValues[i]);
+            }
+            assertEquals(sum, DenseKernels.sum(values, 1, length), 1e-9);
+            assertEquals(floatSum, DenseKernels.sum(floatValues, 1, length), 1e-9);
+            assertEquals(max, DenseKernels.max(values, 1, length), 0.0);
+            assertEquals(min, DenseKernels.min(values, 1, length), 0.0);
+            assertEquals(floatMax, DenseKernels.max(floatValues, 1, length), 0.0);
+            assertEquals(floatMin, DenseKernels.min(floatValues, 1, length), 0.0);
+        }
+    }
+
+    @Test
+    void testMaxAndMinIgnoreNaN() {
+        double[] values = { Double.NaN, 2.0, Double.NaN, -1.0, Double.NaN };
+        assertEquals(2.0, DenseKernels.max(values, 0, values.length), 0.0);
+        assertEquals(-1.0, DenseKernels.min(values, 0, values.length), 0.0);
+        float[] floatValues = { Float.NaN, 2.0f, Float.NaN, -1.0f, Float.NaN };
+        assertEquals(2.0, DenseKernels.max(floatValues, 0, floatValues.length), 0.0);
+        assertEquals(-1.0, DenseKernels.min(floatValues, 0, floatValues.length), 0.0);
+    }
+
+    @Test
+    void testDotProductAndDistance() {
+        for (int length : new int[] { 0, 1, 3, 4, 7, 128, 131 }) {
+            double[] a = doubles(length + 3), b = doubles(length + 5);
+            float[] fa = floats(length + 3), fb = floats(length + 5);
+            double dot = 0, floatDot = 0, distance = 0, floatDistance = 0;
+            for (int i = 0; i < length; i++) {
+                dot += a[i + 3] * b[i + 5];
+                floatDot += (double)fa[i + 3] * fb[i + 5];
+                distance += (a[i] - b[i]) * (a[i] - b[i]);
+                floatDistance += ((double)fa[i] - fb[i]) * ((double)fa[i] - fb[i]);
+            }
+            assertEquals(dot, DenseKernels.dot(a, 3, b, 5, length), 1e-9);
+            assertEquals(floatDot, DenseKernels.dot(fa, 3, fb, 5, length), 1e-9);
+            assertEquals(distance, DenseKernels.squaredDistance(a, b, length), 1e-9);
+            assertEquals(floatDistance, DenseKernels.squaredDistance(fa, fb, length), 1e-9);
+        }
+    }
+
+    private static double[] doubles(int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++)
+            values[i] = random.nextDouble() * 2 - 1;
+        return values;
+    }
+
+    private static float[] floats(int length) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++)
+            values[i] = random.nextFloat() * 2 - 1;
+        return values;
+    }
+
+}